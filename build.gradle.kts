@@ -73,6 +73,37 @@ tasks.getByName<Test>("test") {
     useJUnitPlatform()
 }
 
+// the vector diffusion kernel is built on the incubating Vector API
+val vectorApiArgs = listOf("--add-modules", "jdk.incubator.vector")
+
+tasks.withType<JavaCompile> {
+    options.compilerArgs.addAll(vectorApiArgs)
+}
+
+tasks.withType<Test> {
+    jvmArgs(vectorApiArgs)
+}
+
+tasks.withType<JavaExec> {
+    jvmArgs(vectorApiArgs)
+}
+
+// runs a simulation without a window, e.g. ./gradlew runHeadless --args="--room kitchen --steps 1000"
+tasks.register<JavaExec>("runHeadless") {
+    group = "application"
+    description = "Runs a simulation of a saved room without the GUI."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("pl.edu.agh.firecell.HeadlessApplication")
+}
+
+// starts a worker of distributed runs, e.g. ./gradlew runWorker --args="--port 7400"
+tasks.register<JavaExec>("runWorker") {
+    group = "application"
+    description = "Starts a worker stepping part of the grid of distributed headless runs."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("pl.edu.agh.firecell.WorkerApplication")
+}
+
 tasks.withType<Jar> { duplicatesStrategy = DuplicatesStrategy.INHERIT }
 
 sourceSets {
@@ -0,0 +1,50 @@
+package pl.edu.agh.firecell;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.edu.agh.firecell.core.headless.HeadlessOptions;
+import pl.edu.agh.firecell.core.headless.HeadlessRunner;
+import pl.edu.agh.firecell.core.headless.RunSummary;
+import pl.edu.agh.firecell.core.headless.VerificationReport;
+import pl.edu.agh.firecell.core.util.FirecellUncaughtExceptionHandler;
+
+import java.util.List;
+
+/**
+ * Entry point running simulations without a window, e.g. on servers without a display.
+ */
+public class HeadlessApplication {
+
+    public static void main(String[] args) throws Exception {
+
+        Logger logger = LoggerFactory.getLogger(HeadlessApplication.class);
+        Thread.setDefaultUncaughtExceptionHandler(new FirecellUncaughtExceptionHandler());
+
+        HeadlessOptions options;
+        try {
+            options = HeadlessOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(HeadlessOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+
+        var runner = new HeadlessRunner();
+        if (options.verifyThreadCount() > 0) {
+            VerificationReport report = runner.verify(options);
+            System.out.println(report);
+            if (!report.reproducible()) {
+                System.exit(1);
+            }
+        } else if (options.variantsPath() != null) {
+            List<RunSummary> summaries = runner.runEnsemble(options);
+            logger.info("Ensemble run finished.");
+            summaries.forEach(System.out::println);
+        } else {
+            RunSummary summary = runner.run(options);
+            logger.info("Headless run finished.");
+            System.out.println(summary);
+        }
+    }
+}
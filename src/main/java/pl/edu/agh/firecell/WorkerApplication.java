@@ -0,0 +1,31 @@
+package pl.edu.agh.firecell;
+
+import pl.edu.agh.firecell.core.util.FirecellUncaughtExceptionHandler;
+import pl.edu.agh.firecell.engine.distributed.SubdomainWorker;
+
+/**
+ * Entry point of a worker process stepping part of the grid of a distributed simulation, see
+ * {@link pl.edu.agh.firecell.engine.distributed.DistributedStepExecutor}.
+ */
+public class WorkerApplication {
+
+    private static final int DEFAULT_PORT = 7400;
+
+    public static void main(String[] args) throws Exception {
+
+        Thread.setDefaultUncaughtExceptionHandler(new FirecellUncaughtExceptionHandler());
+
+        int port = DEFAULT_PORT;
+        if (args.length == 2 && args[0].equals("--port")) {
+            port = Integer.parseInt(args[1]);
+        } else if (args.length != 0) {
+            System.err.println("Usage: WorkerApplication [--port <port>], %s by default".formatted(DEFAULT_PORT));
+            System.exit(2);
+            return;
+        }
+
+        try (var worker = new SubdomainWorker(port)) {
+            worker.run();
+        }
+    }
+}
@@ -86,6 +86,7 @@ public abstract class AbstractSimulationScene implements Scene {
             }
             if (ImGui.beginMenu("Diagnostics")) {
                 ImGui.text("Framerate: %s".formatted(String.valueOf(Math.round(frameRate))));
+                ImGui.text("Simulated time: %.1f s".formatted(currentState.time()));
 
                 ImGui.text("Total burning cells: %s".formatted(String.valueOf(Math.round(diagnosticsManager.burningCellsCount()))));
 
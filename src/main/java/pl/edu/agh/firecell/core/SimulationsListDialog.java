@@ -14,7 +14,11 @@ public class SimulationsListDialog extends AbstractDialog {
     private String selectedSimulation = null;
 
     public SimulationsListDialog(List<String> simulationNames, Consumer<String> selectHandler) {
-        super("Run stored simulation");
+        this("Run stored simulation", simulationNames, selectHandler);
+    }
+
+    public SimulationsListDialog(String title, List<String> simulationNames, Consumer<String> selectHandler) {
+        super(title);
         this.simulationNames = simulationNames;
         this.selectHandler = selectHandler;
     }
@@ -25,7 +25,10 @@ import pl.edu.agh.firecell.core.util.LoggingOutputStream;
 import pl.edu.agh.firecell.core.util.StateUtils;
 import pl.edu.agh.firecell.model.SimulationConfig;
 import pl.edu.agh.firecell.model.exception.ConductionCoefficientException;
+import pl.edu.agh.firecell.storage.Checkpoint;
+import pl.edu.agh.firecell.storage.CheckpointStorage;
 import pl.edu.agh.firecell.storage.SimulationStorage;
+import pl.edu.agh.firecell.storage.serialization.BinaryStateSerializer;
 
 import java.io.IOException;
 import java.io.PrintStream;
@@ -77,7 +80,7 @@ public class Window {
         double startFrameTime = glfwGetTime();
         double frameTime = 0.0;
 
-        scene = new MenuScene(this::startNewSimulation, this::startSavedSimulation, this::startStateBuilder);
+        scene = new MenuScene(this::startNewSimulation, this::startSavedSimulation, this::resumeSavedSimulation, this::startStateBuilder);
 
         while (!glfwWindowShouldClose(glfwWindow)) {
             glfwPollEvents();
@@ -121,7 +124,7 @@ public class Window {
     private void finishSceneHandler() {
         scene.dispose();
         logger.info("Finished scene {}. Opening menu.", scene.getClass().getName());
-        scene = new MenuScene(this::startNewSimulation, this::startSavedSimulation, this::startStateBuilder);
+        scene = new MenuScene(this::startNewSimulation, this::startSavedSimulation, this::resumeSavedSimulation, this::startStateBuilder);
     }
 
     private void startStateBuilder(StateBlueprint stateBlueprint) {
@@ -197,7 +200,7 @@ public class Window {
                     new StoredSimulationConfig(config.initialState().spaceSize(), config.stepTime()));
             Path stateStoragePath = simulationStorage.resolveStatesPath(simulationNameWithTime);
             var simulationScene = new SimulationScene(config, this::finishSceneHandler, ioListener,
-                    getAspectRatio(), stateStoragePath);
+                    getAspectRatio(), stateStoragePath, simulationStorage.resolveCheckpointPath(simulationNameWithTime));
             scene.dispose();
             scene = simulationScene;
             logger.info("Starting simulation.");
@@ -223,6 +226,24 @@ public class Window {
         }
     }
 
+    public void resumeSavedSimulation(String simulationName) {
+        try {
+            var simulationStorage = new SimulationStorage();
+            Path checkpointPath = simulationStorage.resolveCheckpointPath(simulationName);
+            Checkpoint checkpoint = new CheckpointStorage(new BinaryStateSerializer(), checkpointPath).load()
+                    .orElseThrow(() -> new IllegalStateException("Simulation has no checkpoint."));
+            SimulationConfig config = new SimulationConfig(checkpoint.state(), checkpoint.stepTime(),
+                    checkpoint.boundaryCondition());
+            var simulationScene = new SimulationScene(config, checkpoint.stepIndex(), this::finishSceneHandler,
+                    ioListener, getAspectRatio(), simulationStorage.resolveStatesPath(simulationName), checkpointPath);
+            scene.dispose();
+            scene = simulationScene;
+            logger.info("Resuming simulation from step {}.", checkpoint.stepIndex());
+        } catch (IOException | InvalidPathException | IllegalStateException | ConductionCoefficientException e) {
+            logger.error("Could not resume stored simulation.", e);
+        }
+    }
+
     private String createSimulationPath(String simulationName) {
         return new SimpleDateFormat("dd_MM_yyyy_HH_mm_ss_").format(new Date()) + simulationName;
     }
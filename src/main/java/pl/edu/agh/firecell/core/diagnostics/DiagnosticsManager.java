@@ -1,6 +1,6 @@
 package pl.edu.agh.firecell.core.diagnostics;
 
-import pl.edu.agh.firecell.engine.algorithm.AlgorithmUtils;
+import pl.edu.agh.firecell.model.CellGrid;
 import pl.edu.agh.firecell.model.State;
 import pl.edu.agh.firecell.model.material.Material;
 
@@ -48,7 +48,7 @@ public class DiagnosticsManager {
     }
 
     public double averageTemperature() {
-        return totalTemperature / state.cells().size();
+        return totalTemperature / state.grid().cellCount();
     }
 
     public double averageSolidsTemperature() {
@@ -98,29 +98,33 @@ public class DiagnosticsManager {
         airCellsCount = 0;
         burningCellsCount = 0;
 
-        state.cells().forEach(cell -> {
-            totalTemperature += cell.temperature();
+        CellGrid grid = state.grid();
+        for (int i = 0; i < grid.cellCount(); i++) {
+            double temperature = grid.temperature(i);
+            totalTemperature += temperature;
 
-            if (cell.material().equals(Material.AIR)) {
-                airTemperature += cell.temperature();
+            if (grid.material(i) == Material.AIR) {
+                double smokeIndicator = grid.smokeIndicator(i);
+                double oxygenLevel = grid.oxygenLevel(i);
+                airTemperature += temperature;
                 airCellsCount += 1;
-                totalSmokeValue += cell.smokeIndicator();
-                totalOxygenValue += cell.oxygenLevel();
-                maxOxygenValue = Math.max(maxOxygenValue, cell.oxygenLevel());
-                minOxygenValue = Math.min(minOxygenValue, cell.oxygenLevel());
-                maxSmokeValue = Math.max(maxSmokeValue, cell.smokeIndicator());
-                minSmokeValue = Math.min(minSmokeValue, cell.smokeIndicator());
+                totalSmokeValue += smokeIndicator;
+                totalOxygenValue += oxygenLevel;
+                maxOxygenValue = Math.max(maxOxygenValue, oxygenLevel);
+                minOxygenValue = Math.min(minOxygenValue, oxygenLevel);
+                maxSmokeValue = Math.max(maxSmokeValue, smokeIndicator);
+                minSmokeValue = Math.min(minSmokeValue, smokeIndicator);
             }
 
-            if (cell.isSolid()) {
-                solidsTemperature += cell.temperature();
+            if (grid.isSolid(i)) {
+                solidsTemperature += temperature;
                 solidsCellsCount += 1;
             }
 
-            if (AlgorithmUtils.isCellBurning(cell)) {
+            if (grid.isBurning(i)) {
                 burningCellsCount += 1;
             }
-        });
+        }
     }
 
 }
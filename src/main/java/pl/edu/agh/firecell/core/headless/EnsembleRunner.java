@@ -0,0 +1,100 @@
+package pl.edu.agh.firecell.core.headless;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.edu.agh.firecell.engine.SimulationHost;
+import pl.edu.agh.firecell.engine.SteadyStateCriterion;
+import pl.edu.agh.firecell.engine.executor.ActiveRegionStepExecutor;
+import pl.edu.agh.firecell.model.BoundaryCondition;
+import pl.edu.agh.firecell.model.exception.ConductionCoefficientException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs several scenario variants, each into its own stored simulation, sharing a bounded number of threads.
+ * <p>
+ * Up to {@code maxConcurrentRuns} simulations run at once on a {@link SimulationHost}, which steps their engines
+ * in turns on at most {@code threadCount} threads, and every engine splits its grid for its share of the threads.
+ * The slabs of all the engines are computed on the single fork/join pool of the host with {@code threadCount}
+ * threads, so the processors are never oversubscribed, and once some runs finish or wait for the disk, work
+ * stealing hands their threads to the slabs of the remaining ones. The states of all the runs are serialized on
+ * the same pool and written on the I/O pool of the host. No thread is spent per run, so the concurrent runs are
+ * only limited by memory.
+ */
+public class EnsembleRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnsembleRunner.class);
+
+    private final HeadlessRunner runner;
+    private final int threadCount;
+    private final int maxConcurrentRuns;
+
+    public EnsembleRunner(HeadlessRunner runner, int threadCount, int maxConcurrentRuns) {
+        if (threadCount < 1 || maxConcurrentRuns < 1) {
+            throw new IllegalArgumentException("Thread count and concurrent runs must be positive, got %s and %s."
+                    .formatted(threadCount, maxConcurrentRuns));
+        }
+        this.runner = runner;
+        this.threadCount = threadCount;
+        this.maxConcurrentRuns = maxConcurrentRuns;
+    }
+
+    /**
+     * Runs all the variants and waits for them to finish. A failed variant is logged and left out of the result.
+     *
+     * @param maxSeconds           wall-clock limit of every run, 0 for none
+     * @param steadyStateCriterion criterion ending every run early once it settled, null for none
+     * @return summaries of the finished runs in the order of the variants
+     */
+    public List<RunSummary> run(List<ScenarioVariant> variants, BoundaryCondition boundaryCondition,
+                                int steps, double maxSeconds, SteadyStateCriterion steadyStateCriterion)
+            throws InterruptedException {
+        Set<String> names = new HashSet<>();
+        for (ScenarioVariant variant : variants) {
+            if (!names.add(variant.name())) {
+                throw new IllegalArgumentException("Duplicate variant name \"%s\".".formatted(variant.name()));
+            }
+        }
+        if (variants.isEmpty()) {
+            return List.of();
+        }
+
+        int concurrentRuns = Math.min(maxConcurrentRuns, variants.size());
+        int threadsPerRun = Math.max(1, (threadCount + concurrentRuns - 1) / concurrentRuns);
+        logger.info("Running {} variants, {} at once on {} threads.", variants.size(), concurrentRuns, threadCount);
+
+        try (var host = new SimulationHost(threadCount, Math.min(threadCount, concurrentRuns))) {
+            var runSlots = new Semaphore(concurrentRuns);
+            List<CompletableFuture<RunSummary>> runs = new ArrayList<>();
+            for (ScenarioVariant variant : variants) {
+                runSlots.acquire();
+                CompletableFuture<RunSummary> run;
+                try {
+                    run = runner.run(variant,
+                            new ActiveRegionStepExecutor(variant.createAlgorithm(), host.computePool(), threadsPerRun),
+                            host, boundaryCondition, steps, maxSeconds, steadyStateCriterion);
+                } catch (IOException | ConductionCoefficientException | RuntimeException e) {
+                    run = CompletableFuture.failedFuture(e);
+                }
+                run.whenComplete((summary, failure) -> runSlots.release());
+                runs.add(run);
+            }
+            List<RunSummary> summaries = new ArrayList<>();
+            for (int i = 0; i < runs.size(); i++) {
+                try {
+                    summaries.add(runs.get(i).get());
+                } catch (ExecutionException e) {
+                    logger.error("Run of variant \"{}\" failed.", variants.get(i).name(), e.getCause());
+                }
+            }
+            return summaries;
+        }
+    }
+}
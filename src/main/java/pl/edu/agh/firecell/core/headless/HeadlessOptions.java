@@ -0,0 +1,245 @@
+package pl.edu.agh.firecell.core.headless;
+
+import pl.edu.agh.firecell.engine.SteadyStateCriterion;
+import pl.edu.agh.firecell.engine.pacing.PacingMode;
+import pl.edu.agh.firecell.model.BoundaryCondition;
+import pl.edu.agh.firecell.model.Precision;
+import pl.edu.agh.firecell.storage.CheckpointingStateConsumer;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Command line options of the headless runner.
+ *
+ * @param roomName      name of a room saved by the state builder, null when {@code blueprintPath} is given
+ * @param blueprintPath JSON blueprint file, null when {@code roomName} is given
+ * @param steps         number of steps to compute, the index of the last state when resuming
+ * @param maxSeconds    wall-clock limit of the run, 0 for none
+ * @param maxStepTime   longest step time the adaptive step may grow to, {@code stepTime} for fixed steps
+ * @param simulationName name of the stored simulation, the room name when null
+ * @param variantsPath  JSON list of {@link VariantSpec} to run as an ensemble, null for a single run
+ * @param concurrentRuns maximum number of ensemble members running at once
+ * @param brickSize     edge of the bricks quiet regions of a single run are computed as, 0 to compute every cell.
+ *                      The grid keeps every cell, so bricks save computation only, not memory.
+ * @param stepsPerCall  steps a single run advances cache-sized tiles by at a time, 1 to compute step by step
+ * @param storeIntermediateStates whether the states computed within the steps of a call are stored as well
+ * @param pacingMode    pacing of the engine of a single run against the storage or the wall clock
+ * @param workers       workers stepping a single run, empty to step it in this process
+ * @param checkpointInterval number of steps between checkpoints of a single run, 0 for none
+ * @param resumedSimulation stored simulation to continue from its checkpoint instead of a room or blueprint
+ * @param verifyThreadCount thread count to compare the states of a single-threaded run with instead of storing
+ *                          the simulation, 0 to store it
+ * @param precision     precision the temperature, smoke and oxygen of new simulations are stored in
+ * @param steadyStateCriterion criterion ending the runs once the simulation settled, null to run every step
+ */
+public record HeadlessOptions(
+        String roomName,
+        Path blueprintPath,
+        int steps,
+        double maxSeconds,
+        double stepTime,
+        double maxStepTime,
+        int threadCount,
+        BoundaryCondition boundaryCondition,
+        String simulationName,
+        Path variantsPath,
+        int concurrentRuns,
+        int brickSize,
+        int stepsPerCall,
+        boolean storeIntermediateStates,
+        PacingMode pacingMode,
+        List<InetSocketAddress> workers,
+        int checkpointInterval,
+        String resumedSimulation,
+        int verifyThreadCount,
+        Precision precision,
+        SteadyStateCriterion steadyStateCriterion
+) {
+    public static final String USAGE = """
+            Usage: HeadlessApplication (--room <name> | --blueprint <file.json> | --resume <simulation>) --steps <count> [options]
+              --max-seconds <seconds>   stop earlier once the time elapsed
+              --step-time <seconds>     simulated time of a step, 0.5 by default
+              --max-step-time <seconds> adapt the step time between --step-time and this one,
+                                        which is kept while anything burns
+              --threads <count>         engine threads, all processors by default
+              --boundary <condition>    ADIABATIC_MIRROR (default), FIXED_AMBIENT or OPEN
+              --name <name>             name of the stored simulation, the room name by default
+              --variants <file.json>    run an ensemble of the variants listed in the file, e.g.
+                                        [{"name": "a", "ignitions": [{"@type": "ignition", "position": {...},
+                                        "size": {...}}], "stepTime": 0.25}], each stored as <name>_<variant>
+              --concurrent-runs <count> ensemble members running at once, the thread count by default
+              --brick-size <cells>      step quiet regions of air and concrete as coarse bricks of this size,
+                                        single runs only. Saves computation, not memory.
+              --steps-per-call <count>  advance cache-sized tiles of the grid by this many steps at a time,
+                                        single runs on this machine only
+              --store-intermediate <true|false>
+                                        store the states computed within the steps of a call, true by default,
+                                        otherwise only every --steps-per-call-th state is stored
+              --pacing <mode>           BOUNDED_LOOKAHEAD (default) keeping the engine at most 64 states ahead
+                                        of the storage, UNBOUNDED or WALL_CLOCK computing states no faster
+                                        than their simulated time passes, single runs only
+              --workers <host:port,...> step a single run on worker processes started with WorkerApplication,
+                                        each taking a slab of the grid, listed from the floor up
+              --checkpoint-every <steps> save a checkpoint of a single run every this many steps, 100 by default,
+                                        0 for none
+              --resume <simulation>     continue a stored simulation from its checkpoint up to the state
+                                        of index --steps, with its step time and boundary condition
+              --verify <threads>        instead of storing the simulation, run it on one thread and on this many
+                                        (or on the workers) and report the first state and cell that differ
+              --precision <precision>   DOUBLE (default) or FLOAT, storing temperature, smoke and oxygen in single
+                                        precision, halving the memory and disk space of the simulation
+              --stop-when-steady <steps> end the run once nothing burns and no cell changed by more than
+                                        the thresholds for this many consecutive steps
+              --steady-thresholds <temperature,smoke,oxygen>
+                                        largest changes of a cell in a steady step, 0.01 each by default""";
+
+    private static final double DEFAULT_STEP_TIME = 0.5;
+
+    public static HeadlessOptions parse(String[] args) {
+        String roomName = null;
+        Path blueprintPath = null;
+        int steps = -1;
+        double maxSeconds = 0;
+        double stepTime = DEFAULT_STEP_TIME;
+        double maxStepTime = 0;
+        int threadCount = Runtime.getRuntime().availableProcessors();
+        BoundaryCondition boundaryCondition = BoundaryCondition.ADIABATIC_MIRROR;
+        String simulationName = null;
+        Path variantsPath = null;
+        int concurrentRuns = -1;
+        int brickSize = 0;
+        int stepsPerCall = 1;
+        boolean storeIntermediateStates = true;
+        PacingMode pacingMode = null;
+        List<InetSocketAddress> workers = List.of();
+        int checkpointInterval = CheckpointingStateConsumer.DEFAULT_INTERVAL;
+        String resumedSimulation = null;
+        int verifyThreadCount = 0;
+        Precision precision = Precision.DOUBLE;
+        int steadySteps = 0;
+        double[] steadyThresholds = null;
+
+        for (int i = 0; i < args.length; i += 2) {
+            String option = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value of option %s.".formatted(option));
+            }
+            String value = args[i + 1];
+            try {
+                switch (option) {
+                    case "--room" -> roomName = value;
+                    case "--blueprint" -> blueprintPath = Path.of(value);
+                    case "--steps" -> steps = Integer.parseInt(value);
+                    case "--max-seconds" -> maxSeconds = Double.parseDouble(value);
+                    case "--step-time" -> stepTime = Double.parseDouble(value);
+                    case "--max-step-time" -> maxStepTime = Double.parseDouble(value);
+                    case "--threads" -> threadCount = Integer.parseInt(value);
+                    case "--boundary" -> boundaryCondition = BoundaryCondition.valueOf(value.toUpperCase(Locale.ROOT));
+                    case "--name" -> simulationName = value;
+                    case "--variants" -> variantsPath = Path.of(value);
+                    case "--concurrent-runs" -> concurrentRuns = Integer.parseInt(value);
+                    case "--brick-size" -> brickSize = Integer.parseInt(value);
+                    case "--steps-per-call" -> stepsPerCall = Integer.parseInt(value);
+                    case "--store-intermediate" -> storeIntermediateStates = parseBoolean(option, value);
+                    case "--pacing" -> pacingMode = PacingMode.valueOf(value.toUpperCase(Locale.ROOT).replace('-', '_'));
+                    case "--workers" -> workers = parseAddresses(value);
+                    case "--checkpoint-every" -> checkpointInterval = Integer.parseInt(value);
+                    case "--resume" -> resumedSimulation = value;
+                    case "--verify" -> verifyThreadCount = Integer.parseInt(value);
+                    case "--precision" -> precision = Precision.valueOf(value.toUpperCase(Locale.ROOT));
+                    case "--stop-when-steady" -> steadySteps = Integer.parseInt(value);
+                    case "--steady-thresholds" -> steadyThresholds = parseThresholds(value);
+                    default -> throw new IllegalArgumentException("Unknown option %s.".formatted(option));
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value of option %s: %s.".formatted(option, value), e);
+            }
+        }
+
+        if (Stream.of(roomName, blueprintPath, resumedSimulation).filter(Objects::nonNull).count() != 1) {
+            throw new IllegalArgumentException("Exactly one of --room, --blueprint and --resume is required.");
+        }
+        if (resumedSimulation != null && variantsPath != null) {
+            throw new IllegalArgumentException("Ensembles cannot be resumed.");
+        }
+        if (steps < 0) {
+            throw new IllegalArgumentException("Non-negative --steps is required.");
+        }
+        if (maxSeconds < 0 || !(stepTime > 0) || threadCount < 1 || concurrentRuns == 0 || concurrentRuns < -1) {
+            throw new IllegalArgumentException(
+                    "Time limit must not be negative, step time, threads and concurrent runs must be positive.");
+        }
+        if (brickSize < 0 || brickSize == 1) {
+            throw new IllegalArgumentException("Brick size must be at least 2.");
+        }
+        if (stepsPerCall < 1 || stepsPerCall > 1 && (brickSize > 0 || !workers.isEmpty() || variantsPath != null)) {
+            throw new IllegalArgumentException(
+                    "Steps per call must be positive, several steps per call are only computed by single local runs without bricks.");
+        }
+        if (!storeIntermediateStates && stepsPerCall == 1) {
+            throw new IllegalArgumentException("Skipping intermediate states requires --steps-per-call above 1.");
+        }
+        if (pacingMode != null && (variantsPath != null || verifyThreadCount > 0)) {
+            throw new IllegalArgumentException("Pacing applies to stored single runs only.");
+        }
+        if (verifyThreadCount < 0 || verifyThreadCount > 0 && (variantsPath != null || resumedSimulation != null)) {
+            throw new IllegalArgumentException("Only single runs of a room or blueprint can be verified, on a positive thread count.");
+        }
+        if (checkpointInterval < 0) {
+            throw new IllegalArgumentException("Checkpoint interval must not be negative.");
+        }
+        if (steadySteps < 0 || steadySteps == 0 && steadyThresholds != null) {
+            throw new IllegalArgumentException("Steady thresholds require a positive --stop-when-steady.");
+        }
+        SteadyStateCriterion steadyStateCriterion = null;
+        if (steadySteps > 0) {
+            steadyStateCriterion = steadyThresholds == null ? new SteadyStateCriterion(steadySteps) :
+                    new SteadyStateCriterion(steadyThresholds[0], steadyThresholds[1], steadyThresholds[2], steadySteps);
+        }
+        return new HeadlessOptions(roomName, blueprintPath, steps, maxSeconds, stepTime,
+                Math.max(stepTime, maxStepTime), threadCount,
+                boundaryCondition, simulationName, variantsPath, concurrentRuns > 0 ? concurrentRuns : threadCount, brickSize,
+                stepsPerCall, storeIntermediateStates, pacingMode != null ? pacingMode : PacingMode.BOUNDED_LOOKAHEAD, workers,
+                checkpointInterval, resumedSimulation, verifyThreadCount, precision, steadyStateCriterion);
+    }
+
+    private static boolean parseBoolean(String option, String value) {
+        return switch (value.toLowerCase(Locale.ROOT)) {
+            case "true" -> true;
+            case "false" -> false;
+            default -> throw new IllegalArgumentException("Invalid value of option %s: %s.".formatted(option, value));
+        };
+    }
+
+    private static double[] parseThresholds(String value) {
+        String[] parts = value.split(",");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException(
+                    "Invalid steady thresholds %s, expected temperature,smoke,oxygen.".formatted(value));
+        }
+        double[] thresholds = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            thresholds[i] = Double.parseDouble(parts[i]);
+        }
+        return thresholds;
+    }
+
+    private static List<InetSocketAddress> parseAddresses(String value) {
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (String address : value.split(",")) {
+            int separator = address.lastIndexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Invalid worker address %s, expected host:port.".formatted(address));
+            }
+            addresses.add(InetSocketAddress.createUnresolved(address.substring(0, separator),
+                    Integer.parseInt(address.substring(separator + 1))));
+        }
+        return List.copyOf(addresses);
+    }
+}
@@ -0,0 +1,331 @@
+package pl.edu.agh.firecell.core.headless;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.edu.agh.firecell.core.StoredSimulationConfig;
+import pl.edu.agh.firecell.core.statebuilder.StateBlueprint;
+import pl.edu.agh.firecell.engine.BasicEngine;
+import pl.edu.agh.firecell.engine.Engine;
+import pl.edu.agh.firecell.engine.EngineStopReason;
+import pl.edu.agh.firecell.engine.HostedEngine;
+import pl.edu.agh.firecell.engine.SimulationHost;
+import pl.edu.agh.firecell.engine.SteadyStateCriterion;
+import pl.edu.agh.firecell.engine.algorithm.Algorithm;
+import pl.edu.agh.firecell.engine.distributed.DistributedStepExecutor;
+import pl.edu.agh.firecell.engine.executor.ActiveRegionStepExecutor;
+import pl.edu.agh.firecell.engine.executor.BrickRefinementStepExecutor;
+import pl.edu.agh.firecell.engine.executor.StepExecutor;
+import pl.edu.agh.firecell.engine.executor.TemporalTilingStepExecutor;
+import pl.edu.agh.firecell.engine.pacing.BoundedLookaheadPacing;
+import pl.edu.agh.firecell.engine.pacing.PacingPolicy;
+import pl.edu.agh.firecell.model.BoundaryCondition;
+import pl.edu.agh.firecell.model.State;
+import pl.edu.agh.firecell.model.exception.ConductionCoefficientException;
+import pl.edu.agh.firecell.storage.Checkpoint;
+import pl.edu.agh.firecell.storage.CheckpointStorage;
+import pl.edu.agh.firecell.storage.CheckpointingStateConsumer;
+import pl.edu.agh.firecell.storage.FileSystemStorage;
+import pl.edu.agh.firecell.storage.PipelineStageMetrics;
+import pl.edu.agh.firecell.storage.SimulationStorage;
+import pl.edu.agh.firecell.storage.StateBlueprintStorage;
+import pl.edu.agh.firecell.storage.StateConsumer;
+import pl.edu.agh.firecell.storage.serialization.BinaryStateSerializer;
+
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs simulations without a window: builds the initial state from a blueprint, steps the engine and writes
+ * the states as a stored simulation, which can be replayed in the application afterwards. Stored simulations
+ * with a checkpoint can be continued.
+ */
+public class HeadlessRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(HeadlessRunner.class);
+
+    // states computed but not written yet, bounds the memory used by the engine running ahead of the disk
+    private static final int MAX_PENDING_STATES = 64;
+
+    private final StateBlueprintStorage blueprintStorage = new StateBlueprintStorage();
+    private final SimulationStorage simulationStorage = new SimulationStorage();
+
+    public RunSummary run(HeadlessOptions options)
+            throws IOException, ConductionCoefficientException, InterruptedException {
+        if (options.resumedSimulation() != null) {
+            return resume(options);
+        }
+        StateBlueprint blueprint = loadBlueprint(options);
+        var variant = new ScenarioVariant(simulationName(options, blueprint), blueprint, null, options.stepTime(),
+                options.maxStepTime(), options.precision());
+        StepExecutor executor = createExecutor(options, variant.createAlgorithm(), options.threadCount());
+        return run(variant, executor, options.boundaryCondition(), options.steps(), options.maxSeconds(),
+                options.checkpointInterval(), options.steadyStateCriterion(),
+                options.pacingMode().createPolicy(MAX_PENDING_STATES));
+    }
+
+    /**
+     * Continues the stored simulation given in the options from its checkpoint up to the state of index
+     * {@code steps}, replacing the states written after the checkpoint.
+     */
+    public RunSummary resume(HeadlessOptions options)
+            throws IOException, ConductionCoefficientException, InterruptedException {
+        String simulationName = options.resumedSimulation();
+        Checkpoint checkpoint = new CheckpointStorage(new BinaryStateSerializer(),
+                simulationStorage.resolveCheckpointPath(simulationName)).load()
+                .orElseThrow(() -> new IOException("Simulation \"%s\" has no checkpoint.".formatted(simulationName)));
+        if (options.steps() <= checkpoint.stepIndex()) {
+            throw new IllegalArgumentException("Simulation \"%s\" already reached step %s."
+                    .formatted(simulationName, checkpoint.stepIndex()));
+        }
+        Algorithm algorithm = ScenarioVariant.createAlgorithm(checkpoint.stepTime(), checkpoint.maxStepTime());
+        algorithm.restoreDeltaTime(checkpoint.lastDeltaTime());
+        logger.info("Resuming \"{}\" from step {}.", simulationName, checkpoint.stepIndex());
+        StepExecutor executor = createExecutor(options, algorithm, options.threadCount());
+        return run(simulationName, checkpoint, executor, options.steps(), options.maxSeconds(), options.checkpointInterval(),
+                options.steadyStateCriterion(), options.pacingMode().createPolicy(MAX_PENDING_STATES));
+    }
+
+    /**
+     * Compares the states of the scenario of the options computed on a single thread with the ones computed
+     * on the verified thread count, or on the workers, without storing them.
+     */
+    public VerificationReport verify(HeadlessOptions options)
+            throws IOException, ConductionCoefficientException, InterruptedException {
+        StateBlueprint blueprint = loadBlueprint(options);
+        var variant = new ScenarioVariant(simulationName(options, blueprint), blueprint, null, options.stepTime(),
+                options.maxStepTime(), options.precision());
+        var verifier = new ReproducibilityVerifier(
+                algorithm -> createLocalExecutor(options, algorithm, 1),
+                algorithm -> createExecutor(options, algorithm, options.verifyThreadCount()),
+                options.verifyThreadCount());
+        return verifier.verify(variant, options.boundaryCondition(), options.steps());
+    }
+
+    /**
+     * Runs the variants of the variants file given in the options as an ensemble.
+     */
+    public List<RunSummary> runEnsemble(HeadlessOptions options) throws IOException, InterruptedException {
+        StateBlueprint blueprint = loadBlueprint(options);
+        String baseName = simulationName(options, blueprint);
+        List<ScenarioVariant> variants = blueprintStorage.loadVariants(options.variantsPath()).stream()
+                .map(spec -> new ScenarioVariant(baseName + "_" + spec.name(), blueprint, spec.ignitions(),
+                        spec.stepTime() != null ? spec.stepTime() : options.stepTime(), options.maxStepTime(),
+                        options.precision()))
+                .toList();
+        var ensembleRunner = new EnsembleRunner(this, options.threadCount(), options.concurrentRuns());
+        return ensembleRunner.run(variants, options.boundaryCondition(), options.steps(), options.maxSeconds(),
+                options.steadyStateCriterion());
+    }
+
+    /**
+     * Runs a single simulation of the variant with the given executor, which is shut down by the engine.
+     *
+     * @param maxSeconds           wall-clock limit of the run, 0 for none
+     * @param checkpointInterval   number of steps between checkpoints, 0 for none
+     * @param steadyStateCriterion criterion ending the run early once the simulation settled, null for none
+     * @param pacingPolicy         pacing of the engine against the storage or the wall clock
+     */
+    public RunSummary run(ScenarioVariant variant, StepExecutor executor, BoundaryCondition boundaryCondition,
+                          int steps, double maxSeconds, int checkpointInterval, SteadyStateCriterion steadyStateCriterion,
+                          PacingPolicy pacingPolicy)
+            throws IOException, InterruptedException {
+        State initialState = variant.buildState();
+        String simulationName = initializeSimulation(variant, initialState);
+        var start = new Checkpoint(0, initialState, 0, variant.stepTime(), variant.maxStepTime(), boundaryCondition);
+        return run(simulationName, start, executor, steps, maxSeconds, checkpointInterval, steadyStateCriterion,
+                pacingPolicy);
+    }
+
+    public RunSummary run(ScenarioVariant variant, StepExecutor executor, BoundaryCondition boundaryCondition,
+                          int steps, double maxSeconds) throws IOException, InterruptedException {
+        return run(variant, executor, boundaryCondition, steps, maxSeconds, 0, null,
+                new BoundedLookaheadPacing(MAX_PENDING_STATES));
+    }
+
+    /**
+     * Runs a single simulation of the variant as {@link #run(ScenarioVariant, StepExecutor, BoundaryCondition, int, double)}
+     * does, with the engine stepped by the host and the states serialized and written on its pools. No thread waits
+     * for the run, so a host runs as many simulations at once as fit in memory.
+     *
+     * @return future completed with the summary once every state of the run is written
+     */
+    public CompletableFuture<RunSummary> run(ScenarioVariant variant, StepExecutor executor, SimulationHost host,
+                                             BoundaryCondition boundaryCondition, int steps, double maxSeconds,
+                                             SteadyStateCriterion steadyStateCriterion) throws IOException {
+        State initialState = variant.buildState();
+        String simulationName = initializeSimulation(variant, initialState);
+        var storage = new FileSystemStorage(new BinaryStateSerializer(), simulationStorage.resolveStatesPath(simulationName),
+                host.computePool(), host.ioPool(), FileSystemStorage.DEFAULT_PIPELINE_CAPACITY);
+        storage.clearDirectory();
+        var processedStates = new ProcessedStates();
+        storage.addProcessedListener(processedStates);
+        HostedEngine engine = host.createEngine(initialState, 0, storage, executor, boundaryCondition, MAX_PENDING_STATES,
+                steadyStateCriterion);
+
+        logger.info("Running {} steps of \"{}\".", steps, simulationName);
+        long startTime = System.nanoTime();
+        engine.runUntil(steps);
+        engine.run();
+        CompletableFuture<Boolean> finished = engine.stepReached(steps).thenApply(reached -> true);
+        if (maxSeconds > 0) {
+            finished = finished.completeOnTimeout(false, Math.round(maxSeconds * 1e9), TimeUnit.NANOSECONDS);
+        }
+        return finished
+                .whenComplete((reached, failure) -> engine.stop())
+                .thenCompose(reached -> processedStates.await(putStateCount(executor, engine.currentStepIndex()))
+                        .thenApply(written -> new RunSummary(simulationName, engine.currentStepIndex(),
+                                engine.currentTime(), initialState.grid().cellCount(), engine.stepsPerSecond(),
+                                (System.nanoTime() - startTime) / 1e9, stopReason(engine, reached))))
+                .whenComplete((summary, failure) -> {
+                    storage.dispose();
+                    logPipelineMetrics(simulationName, storage);
+                });
+    }
+
+    /**
+     * Steps the stored simulation from the given start up to the state of index {@code steps}.
+     */
+    private RunSummary run(String simulationName, Checkpoint start, StepExecutor executor, int steps, double maxSeconds,
+                           int checkpointInterval, SteadyStateCriterion steadyStateCriterion, PacingPolicy pacingPolicy)
+            throws IOException, InterruptedException {
+        var storage = new FileSystemStorage(new BinaryStateSerializer(), simulationStorage.resolveStatesPath(simulationName));
+        if (start.stepIndex() == 0) {
+            storage.clearDirectory();
+        } else {
+            storage.removeStatesAfter(start.stepIndex());
+        }
+        StateConsumer stateConsumer = storage;
+        CheckpointingStateConsumer checkpointingConsumer = null;
+        if (checkpointInterval > 0) {
+            checkpointingConsumer = new CheckpointingStateConsumer(storage,
+                    new CheckpointStorage(new BinaryStateSerializer(), simulationStorage.resolveCheckpointPath(simulationName)),
+                    checkpointInterval, start.stepTime(), start.maxStepTime(), start.boundaryCondition(),
+                    storage.writeExecutor());
+            stateConsumer = checkpointingConsumer;
+        }
+        // registered after the checkpointing consumer, which then knows of every state counted as written
+        Semaphore writtenStates = new Semaphore(0);
+        stateConsumer.addProcessedListener(index -> writtenStates.release());
+
+        Engine engine = new BasicEngine(start.state(), start.stepIndex(), stateConsumer, executor,
+                start.boundaryCondition(), pacingPolicy, steadyStateCriterion);
+
+        logger.info("Running {} steps of \"{}\".", steps - start.stepIndex(), simulationName);
+        long startTime = System.nanoTime();
+        engine.runUntil(steps);
+        engine.run();
+        boolean finished;
+        try {
+            finished = maxSeconds > 0 ?
+                    engine.awaitStep(steps, Math.round(maxSeconds * 1e9), TimeUnit.NANOSECONDS) :
+                    engine.awaitStep(steps, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } finally {
+            engine.stop();
+        }
+        int computedSteps = engine.currentStepIndex() - start.stepIndex();
+        writtenStates.acquire(putStateCount(executor, computedSteps));
+        if (checkpointingConsumer != null) {
+            checkpointingConsumer.close();
+        }
+        storage.dispose();
+        logPipelineMetrics(simulationName, storage);
+        double wallClockSeconds = (System.nanoTime() - startTime) / 1e9;
+
+        return new RunSummary(simulationName, computedSteps, engine.currentTime(), start.state().grid().cellCount(),
+                engine.stepsPerSecond(), wallClockSeconds, stopReason(engine, finished));
+    }
+
+    /**
+     * @return number of states the engine put while computing the given number of steps, every put state is
+     * written, the initial one included. Executors skipping intermediate states put only the last state of a call.
+     */
+    private static int putStateCount(StepExecutor executor, int computedSteps) {
+        return executor.emitsIntermediateStates() ? computedSteps + 1 : computedSteps / executor.stepsPerCall() + 1;
+    }
+
+    private static StopReason stopReason(Engine engine, boolean finished) {
+        if (!finished) {
+            return StopReason.TIME_LIMIT;
+        }
+        EngineStopReason engineStopReason = engine.stopReason().orElse(null);
+        if (engineStopReason == EngineStopReason.FAILED) {
+            throw new IllegalStateException("Engine failed at step %s.".formatted(engine.currentStepIndex()));
+        }
+        return engineStopReason == EngineStopReason.STEADY_STATE ? StopReason.STEADY_STATE : StopReason.STEP_LIMIT;
+    }
+
+    private String initializeSimulation(ScenarioVariant variant, State initialState) throws IOException {
+        String simulationName = new SimpleDateFormat("dd_MM_yyyy_HH_mm_ss_").format(new Date()) + variant.name();
+        simulationStorage.initializeSimulation(simulationName,
+                new StoredSimulationConfig(initialState.spaceSize(), variant.stepTime()));
+        return simulationName;
+    }
+
+    private static void logPipelineMetrics(String simulationName, FileSystemStorage storage) {
+        for (PipelineStageMetrics metrics : storage.pipelineMetrics()) {
+            logger.info("Storage of \"{}\", {}", simulationName, metrics);
+        }
+    }
+
+    private static StepExecutor createExecutor(HeadlessOptions options, Algorithm algorithm, int threadCount)
+            throws ConductionCoefficientException {
+        if (!options.workers().isEmpty()) {
+            return new DistributedStepExecutor(algorithm, options.workers());
+        }
+        return createLocalExecutor(options, algorithm, threadCount);
+    }
+
+    private static StepExecutor createLocalExecutor(HeadlessOptions options, Algorithm algorithm, int threadCount)
+            throws ConductionCoefficientException {
+        if (options.brickSize() > 0) {
+            return new BrickRefinementStepExecutor(algorithm, threadCount, options.brickSize());
+        }
+        if (options.stepsPerCall() > 1) {
+            return new TemporalTilingStepExecutor(algorithm, threadCount, options.stepsPerCall(), 0,
+                    options.storeIntermediateStates());
+        }
+        return new ActiveRegionStepExecutor(algorithm, threadCount);
+    }
+
+    private StateBlueprint loadBlueprint(HeadlessOptions options) throws IOException {
+        return options.blueprintPath() != null ?
+                blueprintStorage.loadBlueprint(options.blueprintPath()) :
+                blueprintStorage.loadBlueprint(options.roomName());
+    }
+
+    private static String simulationName(HeadlessOptions options, StateBlueprint blueprint) {
+        return options.simulationName() != null ? options.simulationName() : blueprint.name();
+    }
+
+    /**
+     * Counts the states processed by a consumer, for waiting until it processed a number of them without
+     * blocking a thread.
+     */
+    private static final class ProcessedStates implements IntConsumer {
+        private final AtomicInteger processed = new AtomicInteger();
+        private final CompletableFuture<Void> allProcessed = new CompletableFuture<>();
+        private volatile int expected = Integer.MAX_VALUE;
+
+        @Override
+        public void accept(int index) {
+            if (processed.incrementAndGet() >= expected) {
+                allProcessed.complete(null);
+            }
+        }
+
+        CompletableFuture<Void> await(int count) {
+            expected = count;
+            if (processed.get() >= count) {
+                allProcessed.complete(null);
+            }
+            return allProcessed;
+        }
+    }
+}
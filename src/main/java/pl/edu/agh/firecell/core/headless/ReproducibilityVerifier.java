@@ -0,0 +1,159 @@
+package pl.edu.agh.firecell.core.headless;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.edu.agh.firecell.engine.BasicEngine;
+import pl.edu.agh.firecell.engine.Engine;
+import pl.edu.agh.firecell.engine.algorithm.Algorithm;
+import pl.edu.agh.firecell.engine.executor.StepExecutor;
+import pl.edu.agh.firecell.engine.pacing.UnboundedPacing;
+import pl.edu.agh.firecell.model.BoundaryCondition;
+import pl.edu.agh.firecell.model.State;
+import pl.edu.agh.firecell.model.exception.ConductionCoefficientException;
+import pl.edu.agh.firecell.model.util.IndexUtils;
+import pl.edu.agh.firecell.model.util.StateHashUtils;
+import pl.edu.agh.firecell.storage.StateConsumer;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Checks that a scenario gives bit-identical states whatever the parallelism of the executor. The scenario is
+ * first run on a single thread as the reference, keeping the hash of every state, see
+ * {@link StateHashUtils#hash(State)}. It is then run with the executor under test, stopping at the first state
+ * whose hash differs. The reference is run once more up to that state to find the first differing cell.
+ */
+public class ReproducibilityVerifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReproducibilityVerifier.class);
+
+    private final ExecutorFactory referenceExecutorFactory;
+    private final ExecutorFactory executorFactory;
+    private final int threadCount;
+
+    /**
+     * @param referenceExecutorFactory creates the single-threaded reference executor
+     * @param executorFactory          creates the executor under test
+     * @param threadCount              number of threads of the executor under test, for the report
+     */
+    public ReproducibilityVerifier(ExecutorFactory referenceExecutorFactory, ExecutorFactory executorFactory,
+                                   int threadCount) {
+        this.referenceExecutorFactory = referenceExecutorFactory;
+        this.executorFactory = executorFactory;
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * Compares the states of indices {@code [0, steps]} of the variant computed by both executors.
+     */
+    public VerificationReport verify(ScenarioVariant variant, BoundaryCondition boundaryCondition, int steps)
+            throws ConductionCoefficientException, InterruptedException {
+        logger.info("Computing {} reference steps of \"{}\".", steps, variant.name());
+        var reference = new HashRecorder(steps, null);
+        run(variant, referenceExecutorFactory, boundaryCondition, steps, reference);
+
+        logger.info("Computing {} steps of \"{}\" on {} threads.", steps, variant.name(), threadCount);
+        var candidate = new HashRecorder(steps, reference);
+        run(variant, executorFactory, boundaryCondition, steps, candidate);
+        if (candidate.divergingState == null) {
+            return new VerificationReport(variant.name(), steps, threadCount, -1, null, List.of());
+        }
+
+        int divergingStep = candidate.divergingIndex;
+        var referenceState = new StateCapture(divergingStep);
+        run(variant, referenceExecutorFactory, boundaryCondition, divergingStep, referenceState);
+        State expected = referenceState.state;
+        State actual = candidate.divergingState;
+        int cell = StateHashUtils.firstDifferentCell(expected.grid(), actual.grid());
+        if (cell < 0) {
+            return new VerificationReport(variant.name(), steps, threadCount, divergingStep, null, List.of("time"));
+        }
+        return new VerificationReport(variant.name(), steps, threadCount, divergingStep,
+                IndexUtils.expandIndex(cell, expected.spaceSize()),
+                StateHashUtils.differentFields(expected.grid(), actual.grid(), cell));
+    }
+
+    private static void run(ScenarioVariant variant, ExecutorFactory executorFactory, BoundaryCondition boundaryCondition,
+                            int steps, StoppingConsumer consumer) throws ConductionCoefficientException, InterruptedException {
+        StepExecutor executor = executorFactory.create(variant.createAlgorithm());
+        Engine engine = new BasicEngine(variant.buildState(), consumer, executor, boundaryCondition, new UnboundedPacing());
+        engine.runUntil(steps);
+        engine.run();
+        try {
+            consumer.finished.await();
+        } finally {
+            engine.stop();
+        }
+    }
+
+    @FunctionalInterface
+    public interface ExecutorFactory {
+        StepExecutor create(Algorithm algorithm) throws ConductionCoefficientException;
+    }
+
+    /**
+     * Consumer releasing the waiting run once it got every state it needs.
+     */
+    private abstract static class StoppingConsumer implements StateConsumer {
+        protected final CountDownLatch finished = new CountDownLatch(1);
+    }
+
+    /**
+     * Keeps the hashes of the states or, given the hashes of a reference, keeps the first state differing
+     * from it. States skipped by executors computing several steps per call are not compared.
+     */
+    private static class HashRecorder extends StoppingConsumer {
+        private final int lastIndex;
+        private final HashRecorder reference;
+        private final long[] hashes;
+        private final BitSet recorded;
+        private int divergingIndex = -1;
+        private State divergingState;
+
+        private HashRecorder(int lastIndex, HashRecorder reference) {
+            this.lastIndex = lastIndex;
+            this.reference = reference;
+            this.hashes = new long[lastIndex + 1];
+            this.recorded = new BitSet(lastIndex + 1);
+        }
+
+        @Override
+        public void putState(State state, int index) {
+            if (finished.getCount() == 0) {
+                return;
+            }
+            if (index <= lastIndex) {
+                long hash = StateHashUtils.hash(state);
+                hashes[index] = hash;
+                recorded.set(index);
+                if (reference != null && reference.recorded.get(index) && reference.hashes[index] != hash) {
+                    divergingIndex = index;
+                    divergingState = state;
+                    finished.countDown();
+                    return;
+                }
+            }
+            if (index >= lastIndex) {
+                finished.countDown();
+            }
+        }
+    }
+
+    private static class StateCapture extends StoppingConsumer {
+        private final int index;
+        private State state;
+
+        private StateCapture(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void putState(State state, int index) {
+            if (index == this.index) {
+                this.state = state;
+                finished.countDown();
+            }
+        }
+    }
+}
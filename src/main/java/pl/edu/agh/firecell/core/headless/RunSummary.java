@@ -0,0 +1,32 @@
+package pl.edu.agh.firecell.core.headless;
+
+/**
+ * Outcome of a headless run.
+ *
+ * @param steps            number of computed steps
+ * @param simulatedSeconds simulated time of the last state
+ * @param cellCount        number of cells of the simulated space
+ * @param stepsPerSecond   steps per second of computation
+ * @param wallClockSeconds duration of the run including writing the states
+ * @param stopReason       why the run ended
+ */
+public record RunSummary(
+        String simulationName,
+        int steps,
+        double simulatedSeconds,
+        int cellCount,
+        double stepsPerSecond,
+        double wallClockSeconds,
+        StopReason stopReason
+) {
+    public double cellsPerSecond() {
+        return stepsPerSecond * cellCount;
+    }
+
+    @Override
+    public String toString() {
+        return "Simulation \"%s\": %d steps (%.1f s simulated) of %d cells in %.2f s%s, %.2f steps/s, %.3e cells/s".formatted(
+                simulationName, steps, simulatedSeconds, cellCount, wallClockSeconds,
+                stopReason.description(), stepsPerSecond, cellsPerSecond());
+    }
+}
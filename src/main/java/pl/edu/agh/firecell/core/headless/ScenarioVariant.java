@@ -0,0 +1,59 @@
+package pl.edu.agh.firecell.core.headless;
+
+import pl.edu.agh.firecell.core.statebuilder.ElementWrapper;
+import pl.edu.agh.firecell.core.statebuilder.StateBlueprint;
+import pl.edu.agh.firecell.core.statebuilder.StateBuilder;
+import pl.edu.agh.firecell.core.statebuilder.element.IgnitionElement;
+import pl.edu.agh.firecell.engine.algorithm.AdaptiveAlgorithm;
+import pl.edu.agh.firecell.engine.algorithm.Algorithm;
+import pl.edu.agh.firecell.engine.algorithm.FusedAlgorithm;
+import pl.edu.agh.firecell.model.Precision;
+import pl.edu.agh.firecell.model.State;
+import pl.edu.agh.firecell.model.exception.ConductionCoefficientException;
+
+import java.util.List;
+
+/**
+ * A single simulation of a headless run or a member of an ensemble.
+ *
+ * @param name        name of the stored simulation, without the timestamp
+ * @param ignitions   ignition elements replacing the ones of the blueprint, null to keep them
+ * @param stepTime    step time, the shortest one when adapted
+ * @param maxStepTime longest step time the step is adapted up to, at most {@code stepTime} for fixed steps
+ * @param precision   precision the temperature, smoke and oxygen of the simulation are stored in
+ */
+public record ScenarioVariant(
+        String name,
+        StateBlueprint blueprint,
+        List<IgnitionElement> ignitions,
+        double stepTime,
+        double maxStepTime,
+        Precision precision
+) {
+    public ScenarioVariant(String name, StateBlueprint blueprint, List<IgnitionElement> ignitions,
+                           double stepTime, double maxStepTime) {
+        this(name, blueprint, ignitions, stepTime, maxStepTime, Precision.DOUBLE);
+    }
+
+    public Algorithm createAlgorithm() throws ConductionCoefficientException {
+        return createAlgorithm(stepTime, maxStepTime);
+    }
+
+    static Algorithm createAlgorithm(double stepTime, double maxStepTime) throws ConductionCoefficientException {
+        return maxStepTime > stepTime ? new AdaptiveAlgorithm(stepTime, maxStepTime) : new FusedAlgorithm(stepTime);
+    }
+
+    public State buildState() {
+        StateBuilder stateBuilder = new StateBuilder(blueprint.spaceSize());
+        for (ElementWrapper elementWrapper : blueprint.elements()) {
+            if (ignitions == null || !(elementWrapper.element() instanceof IgnitionElement)) {
+                stateBuilder.addElement(elementWrapper.element());
+            }
+        }
+        if (ignitions != null) {
+            ignitions.forEach(stateBuilder::addElement);
+        }
+        State state = stateBuilder.build();
+        return precision == state.grid().precision() ? state : new State(state.grid().withPrecision(precision), state.time());
+    }
+}
@@ -0,0 +1,23 @@
+package pl.edu.agh.firecell.core.headless;
+
+/**
+ * Why a headless run ended.
+ */
+public enum StopReason {
+    STEP_LIMIT(""),
+    TIME_LIMIT(" (time limit reached)"),
+    STEADY_STATE(" (steady state reached)");
+
+    private final String description;
+
+    StopReason(String description) {
+        this.description = description;
+    }
+
+    /**
+     * @return note appended to the summary of the run, empty when it ran all its steps
+     */
+    public String description() {
+        return description;
+    }
+}
@@ -0,0 +1,14 @@
+package pl.edu.agh.firecell.core.headless;
+
+import pl.edu.agh.firecell.core.statebuilder.element.IgnitionElement;
+
+import java.util.List;
+
+/**
+ * Entry of a variants file, turned into a {@link ScenarioVariant} of the blueprint given on the command line.
+ *
+ * @param ignitions ignition elements replacing the ones of the blueprint, null to keep them
+ * @param stepTime  step time of the variant, null for the one given on the command line
+ */
+public record VariantSpec(String name, List<IgnitionElement> ignitions, Double stepTime) {
+}
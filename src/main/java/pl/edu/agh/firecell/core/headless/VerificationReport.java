@@ -0,0 +1,39 @@
+package pl.edu.agh.firecell.core.headless;
+
+import org.joml.Vector3i;
+
+import java.util.List;
+
+/**
+ * Outcome of a reproducibility check of a scenario.
+ *
+ * @param steps           index of the last compared state
+ * @param threadCount     thread count the single-threaded reference was compared with
+ * @param divergingStep   index of the first state differing from the reference, -1 when every state matched
+ * @param divergingCell   position of the first differing cell of that state, null when only its time differs
+ * @param differingFields fields of that cell, or the time, differing from the reference
+ */
+public record VerificationReport(
+        String scenarioName,
+        int steps,
+        int threadCount,
+        int divergingStep,
+        Vector3i divergingCell,
+        List<String> differingFields
+) {
+    public boolean reproducible() {
+        return divergingStep < 0;
+    }
+
+    @Override
+    public String toString() {
+        if (reproducible()) {
+            return "Scenario \"%s\": states 0 to %d are identical with 1 and %d threads.".formatted(
+                    scenarioName, steps, threadCount);
+        }
+        String location = divergingCell == null ? "time" :
+                "cell (%d, %d, %d)".formatted(divergingCell.x, divergingCell.y, divergingCell.z);
+        return "Scenario \"%s\": state %d differs with 1 and %d threads, first at %s in %s.".formatted(
+                scenarioName, divergingStep, threadCount, location, String.join(", ", differingFields));
+    }
+}
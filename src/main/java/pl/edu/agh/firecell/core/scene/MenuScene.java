@@ -33,13 +33,16 @@ public class MenuScene implements Scene {
     private final SimulationStorage simulationStorage = new SimulationStorage();
     private final SimulationConfig defaultConfig = createInitialSimulationConfig();
     private final Consumer<String> startStoredSimulationHandler;
+    private final Consumer<String> resumeStoredSimulationHandler;
     private final BiConsumer<SimulationConfig, String> startSimulationHandler;
     private Dialog currentDialog = null;
 
     public MenuScene(BiConsumer<SimulationConfig, String> startSimulationHandler,
-                     Consumer<String> startStoredSimulationHandler, Consumer<StateBlueprint> startStateBuilderHandler) {
+                     Consumer<String> startStoredSimulationHandler, Consumer<String> resumeStoredSimulationHandler,
+                     Consumer<StateBlueprint> startStateBuilderHandler) {
         this.startStateBuilderHandler = startStateBuilderHandler;
         this.startStoredSimulationHandler = startStoredSimulationHandler;
+        this.resumeStoredSimulationHandler = resumeStoredSimulationHandler;
         this.startSimulationHandler = startSimulationHandler;
     }
 
@@ -66,6 +69,11 @@ public class MenuScene implements Scene {
                             this::startStoredSimulationHandler);
                     logger.debug("Created start stored simulation dialog");
                 }
+                if (ImGui.menuItem("Resume stored simulation")) {
+                    currentDialog = new SimulationsListDialog("Resume stored simulation",
+                            simulationStorage.findResumableSimulations(), this::resumeStoredSimulationHandler);
+                    logger.debug("Created resume stored simulation dialog");
+                }
                 ImGui.endMenu();
             }
             if (ImGui.beginMenu("State builder")) {
@@ -119,6 +127,13 @@ public class MenuScene implements Scene {
         startStoredSimulationHandler.accept(simulationName);
     }
 
+    private void resumeStoredSimulationHandler(String simulationName) {
+        if (simulationName == null) {
+            return;
+        }
+        resumeStoredSimulationHandler.accept(simulationName);
+    }
+
     private void editRoomHandler(String roomName) {
         if (roomName == null) {
             return;
@@ -4,9 +4,13 @@ import pl.edu.agh.firecell.core.AbstractSimulationScene;
 import pl.edu.agh.firecell.core.io.IOListener;
 import pl.edu.agh.firecell.engine.BasicEngine;
 import pl.edu.agh.firecell.engine.Engine;
-import pl.edu.agh.firecell.engine.algorithm.BasicAlgorithm;
+import pl.edu.agh.firecell.engine.algorithm.FusedAlgorithm;
+import pl.edu.agh.firecell.engine.executor.ActiveRegionStepExecutor;
+import pl.edu.agh.firecell.engine.pacing.BoundedLookaheadPacing;
 import pl.edu.agh.firecell.model.SimulationConfig;
 import pl.edu.agh.firecell.model.exception.ConductionCoefficientException;
+import pl.edu.agh.firecell.storage.CheckpointStorage;
+import pl.edu.agh.firecell.storage.CheckpointingStateConsumer;
 import pl.edu.agh.firecell.storage.FileSystemStorage;
 import pl.edu.agh.firecell.storage.StateProvider;
 import pl.edu.agh.firecell.storage.serialization.BinaryStateSerializer;
@@ -17,16 +21,40 @@ import java.nio.file.Path;
 
 public class SimulationScene extends AbstractSimulationScene {
 
+    // states computed but not written to disk yet, bounds the memory used by the engine running ahead
+    private static final int MAX_PENDING_STATES = 64;
+
     private final Engine engine;
     private final FileSystemStorage storage;
+    private final CheckpointingStateConsumer checkpointingConsumer;
 
     public SimulationScene(SimulationConfig config, Runnable finishSimulationHandler,
-                           IOListener ioListener, float aspectRatio, Path stateStoragePath)
+                           IOListener ioListener, float aspectRatio, Path stateStoragePath, Path checkpointPath)
+            throws IOException, InvalidPathException, IllegalStateException, ConductionCoefficientException {
+        this(config, 0, finishSimulationHandler, ioListener, aspectRatio, stateStoragePath, checkpointPath);
+    }
+
+    /**
+     * Scene continuing a stored simulation from the state of the given index, the initial state of the config.
+     * States written after it are replaced.
+     */
+    public SimulationScene(SimulationConfig config, int initialStateIndex, Runnable finishSimulationHandler,
+                           IOListener ioListener, float aspectRatio, Path stateStoragePath, Path checkpointPath)
             throws IOException, InvalidPathException, IllegalStateException, ConductionCoefficientException {
         super(config, finishSimulationHandler, ioListener, aspectRatio);
         this.storage = new FileSystemStorage(new BinaryStateSerializer(), stateStoragePath);
-        this.storage.clearDirectory();
-        this.engine = new BasicEngine(config.initialState(), this.storage, new BasicAlgorithm(getStepTime()));
+        if (initialStateIndex == 0) {
+            this.storage.clearDirectory();
+        } else {
+            this.storage.removeStatesAfter(initialStateIndex);
+        }
+        this.checkpointingConsumer = new CheckpointingStateConsumer(this.storage,
+                new CheckpointStorage(new BinaryStateSerializer(), checkpointPath),
+                CheckpointingStateConsumer.DEFAULT_INTERVAL, getStepTime(), getStepTime(), config.boundaryCondition(),
+                this.storage.writeExecutor());
+        this.engine = new BasicEngine(config.initialState(), initialStateIndex, this.checkpointingConsumer,
+                new ActiveRegionStepExecutor(new FusedAlgorithm(getStepTime()), Runtime.getRuntime().availableProcessors()),
+                config.boundaryCondition(), new BoundedLookaheadPacing(MAX_PENDING_STATES));
         this.engine.run();
     }
 
@@ -34,6 +62,11 @@ public class SimulationScene extends AbstractSimulationScene {
     public void dispose() {
         super.dispose();
         engine.stop();
+        try {
+            checkpointingConsumer.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     @Override
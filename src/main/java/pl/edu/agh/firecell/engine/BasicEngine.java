@@ -3,18 +3,74 @@ package pl.edu.agh.firecell.engine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import pl.edu.agh.firecell.engine.algorithm.Algorithm;
+import pl.edu.agh.firecell.engine.executor.ActiveRegionStepExecutor;
+import pl.edu.agh.firecell.engine.executor.StepExecutor;
+import pl.edu.agh.firecell.engine.pacing.PacingPolicy;
+import pl.edu.agh.firecell.engine.pacing.UnboundedPacing;
+import pl.edu.agh.firecell.model.BoundaryCondition;
 import pl.edu.agh.firecell.model.State;
 import pl.edu.agh.firecell.storage.StateConsumer;
 
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
 public class BasicEngine implements Engine {
 
     private final Logger logger = LoggerFactory.getLogger(BasicEngine.class);
 
     private final Thread engineThread;
+    private final EngineControl control;
 
-    public BasicEngine(State initialState, StateConsumer stateConsumer, Algorithm algorithm) {
-        var engineRunnable = new BasicEngineRunnable(initialState, stateConsumer, algorithm);
+    public BasicEngine(State initialState, StateConsumer stateConsumer, StepExecutor stepExecutor) {
+        var engineRunnable = new BasicEngineRunnable(initialState, stateConsumer, stepExecutor);
+        this.engineThread = new Thread(engineRunnable, "engine-thread");
+        this.control = engineRunnable.control();
+    }
+
+    public BasicEngine(State initialState, StateConsumer stateConsumer, StepExecutor stepExecutor,
+                       BoundaryCondition boundaryCondition, PacingPolicy pacingPolicy) {
+        this(initialState, 0, stateConsumer, stepExecutor, boundaryCondition, pacingPolicy);
+    }
+
+    /**
+     * Engine continuing a simulation from the state of the given index, see
+     * {@link BasicEngineRunnable#BasicEngineRunnable(State, int, StateConsumer, StepExecutor, BoundaryCondition, PacingPolicy)}.
+     */
+    public BasicEngine(State initialState, int initialStateIndex, StateConsumer stateConsumer, StepExecutor stepExecutor,
+                       BoundaryCondition boundaryCondition, PacingPolicy pacingPolicy) {
+        this(initialState, initialStateIndex, stateConsumer, stepExecutor, boundaryCondition, pacingPolicy, null);
+    }
+
+    /**
+     * Engine stopping to compute once the simulation meets the criterion, see {@link Engine#stopReason()}.
+     */
+    public BasicEngine(State initialState, int initialStateIndex, StateConsumer stateConsumer, StepExecutor stepExecutor,
+                       BoundaryCondition boundaryCondition, PacingPolicy pacingPolicy,
+                       SteadyStateCriterion steadyStateCriterion) {
+        var engineRunnable = new BasicEngineRunnable(initialState, initialStateIndex, stateConsumer, stepExecutor,
+                boundaryCondition, pacingPolicy, steadyStateCriterion);
         this.engineThread = new Thread(engineRunnable, "engine-thread");
+        this.control = engineRunnable.control();
+    }
+
+    public BasicEngine(State initialState, StateConsumer stateConsumer, Algorithm algorithm,
+                       BoundaryCondition boundaryCondition, PacingPolicy pacingPolicy) {
+        this(initialState, stateConsumer,
+                new ActiveRegionStepExecutor(algorithm, Runtime.getRuntime().availableProcessors()),
+                boundaryCondition, pacingPolicy);
+    }
+
+    public BasicEngine(State initialState, StateConsumer stateConsumer, Algorithm algorithm,
+                       BoundaryCondition boundaryCondition) {
+        this(initialState, stateConsumer, algorithm, boundaryCondition, new UnboundedPacing());
+    }
+
+    public BasicEngine(State initialState, StateConsumer stateConsumer, Algorithm algorithm, int threadCount) {
+        this(initialState, stateConsumer, new ActiveRegionStepExecutor(algorithm, threadCount));
+    }
+
+    public BasicEngine(State initialState, StateConsumer stateConsumer, Algorithm algorithm) {
+        this(initialState, stateConsumer, algorithm, Runtime.getRuntime().availableProcessors());
     }
 
     @Override
@@ -31,4 +87,54 @@ public class BasicEngine implements Engine {
             logger.warn(String.format("Interrupted while joining %s.", engineThread.getName()), e);
         }
     }
+
+    @Override
+    public void pause() {
+        control.pause();
+    }
+
+    @Override
+    public void resume() {
+        control.resume();
+    }
+
+    @Override
+    public void step(int count) {
+        control.step(count);
+    }
+
+    @Override
+    public void runUntil(int stepIndex) {
+        control.runUntil(stepIndex);
+    }
+
+    @Override
+    public boolean isPaused() {
+        return control.isPaused();
+    }
+
+    @Override
+    public Optional<EngineStopReason> stopReason() {
+        return control.stopReason();
+    }
+
+    @Override
+    public int currentStepIndex() {
+        return control.currentStepIndex();
+    }
+
+    @Override
+    public double currentTime() {
+        return control.currentTime();
+    }
+
+    @Override
+    public double stepsPerSecond() {
+        return control.stepsPerSecond();
+    }
+
+    @Override
+    public boolean awaitStep(int stepIndex, long timeout, TimeUnit unit) throws InterruptedException {
+        return control.awaitStep(stepIndex, timeout, unit);
+    }
 }
@@ -1,61 +1,275 @@
 package pl.edu.agh.firecell.engine;
 
-import io.reactivex.rxjava3.core.Observable;
-import io.reactivex.rxjava3.schedulers.Schedulers;
-import org.joml.Vector3i;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import pl.edu.agh.firecell.engine.algorithm.Algorithm;
-import pl.edu.agh.firecell.model.Cell;
+import pl.edu.agh.firecell.engine.executor.SlabStepExecutor;
+import pl.edu.agh.firecell.engine.executor.StepExecutor;
+import pl.edu.agh.firecell.engine.pacing.PacingPolicy;
+import pl.edu.agh.firecell.engine.pacing.UnboundedPacing;
+import pl.edu.agh.firecell.model.BoundaryCondition;
+import pl.edu.agh.firecell.model.CellGrid;
 import pl.edu.agh.firecell.model.State;
-import pl.edu.agh.firecell.model.util.IndexUtils;
+import pl.edu.agh.firecell.model.util.HaloUtils;
 import pl.edu.agh.firecell.storage.StateConsumer;
 
-import java.util.List;
-
+/**
+ * Steps the simulation on two preallocated grids, reading from one and writing to the other and swapping
+ * them after every step. Consumers receive a copy of the current grid, so the buffers are never shared.
+ * The copies come from a {@link SnapshotPool}: consumers releasing the states they processed, e.g. file storage,
+ * hand the grids back for later copies, so a run whose consumer keeps up only allocates grids for the first states.
+ * Every put state is a newly allocated grid for consumers keeping their states, e.g. the renderer or in-memory
+ * storage.
+ * <p>
+ * Executors computing several steps per call get a grid for each of them, the intermediate states are put
+ * in storage unless the executor opts out. Before every call the executor reports the simulated time each of
+ * its steps advances by, which the put states carry.
+ * <p>
+ * When a {@link BoundaryCondition} is given, the buffers are padded grids whose ghost layer holds the condition,
+ * so the algorithm finds every neighbour of the interior cells. Consumers still receive the interior only.
+ * <p>
+ * A {@link PacingPolicy} decides how far the engine may run ahead of its consumer, by default it never waits.
+ * The {@link EngineControl} pauses, resumes and single-steps it. Given a {@link SteadyStateCriterion}, the engine
+ * checks every computed step against it, or lets the executor check it in its own pass over the cells, and once
+ * the simulation settled puts the steady state, leaves its loop and reports
+ * {@link EngineStopReason#STEADY_STATE} through the control.
+ */
 public class BasicEngineRunnable implements Runnable {
 
+    // returned snapshots kept for reuse, about the states written while the engine computes one
+    private static final int SNAPSHOT_POOL_CAPACITY = 4;
+
     private final Logger logger = LoggerFactory.getLogger(BasicEngineRunnable.class);
 
     private State currentState;
+    private final CellGrid[] nextGrids;
     private int currentStateIndex = 0;
+    private double deltaTime;
     private final StateConsumer stateConsumer;
-    private final Algorithm algorithm;
+    private final StepExecutor stepExecutor;
+    private final PacingPolicy pacingPolicy;
+    private final SteadyStateCriterion steadyStateCriterion;
+    private final EngineControl control = new EngineControl();
+    private boolean consumerAcknowledges;
+    private final SnapshotPool snapshotPool;
+    private boolean executorChecksSteadiness;
+    private int steadySteps = 0;
+    private boolean steadyStateReached = false;
+
+    /**
+     * @param boundaryCondition condition held by the ghost layer of the grids, null to step grids without one
+     */
+    public BasicEngineRunnable(State initialState, StateConsumer stateConsumer, StepExecutor stepExecutor,
+                               BoundaryCondition boundaryCondition, PacingPolicy pacingPolicy) {
+        this(initialState, 0, stateConsumer, stepExecutor, boundaryCondition, pacingPolicy);
+    }
+
+    /**
+     * Engine continuing a simulation from the state of the given index, e.g. one restored from a checkpoint.
+     * The state is put again under its index before the following ones are computed.
+     */
+    public BasicEngineRunnable(State initialState, int initialStateIndex, StateConsumer stateConsumer,
+                               StepExecutor stepExecutor, BoundaryCondition boundaryCondition, PacingPolicy pacingPolicy) {
+        this(initialState, initialStateIndex, stateConsumer, stepExecutor, boundaryCondition, pacingPolicy, null);
+    }
+
+    /**
+     * @param steadyStateCriterion criterion the engine stops computing at, null to run until stopped
+     */
+    public BasicEngineRunnable(State initialState, int initialStateIndex, StateConsumer stateConsumer,
+                               StepExecutor stepExecutor, BoundaryCondition boundaryCondition, PacingPolicy pacingPolicy,
+                               SteadyStateCriterion steadyStateCriterion) {
+        this(boundaryCondition == null ? initialState.grid().copy() : HaloUtils.pad(initialState.grid(), boundaryCondition),
+                initialState.time(), stateConsumer, stepExecutor, pacingPolicy, steadyStateCriterion);
+        if (initialStateIndex < 0) {
+            throw new IllegalArgumentException("Initial state index must not be negative, got %s.".formatted(initialStateIndex));
+        }
+        this.currentStateIndex = initialStateIndex;
+    }
+
+    public BasicEngineRunnable(State initialState, StateConsumer stateConsumer, StepExecutor stepExecutor,
+                               BoundaryCondition boundaryCondition) {
+        this(initialState, stateConsumer, stepExecutor, boundaryCondition, new UnboundedPacing());
+    }
+
+    public BasicEngineRunnable(State initialState, StateConsumer stateConsumer, StepExecutor stepExecutor) {
+        this(initialState, stateConsumer, stepExecutor, null);
+    }
 
     public BasicEngineRunnable(State initialState, StateConsumer stateConsumer, Algorithm algorithm) {
-        this.currentState = initialState;
+        this(initialState, stateConsumer, new SlabStepExecutor(algorithm));
+    }
+
+    private BasicEngineRunnable(CellGrid initialGrid, double initialTime, StateConsumer stateConsumer,
+                                StepExecutor stepExecutor, PacingPolicy pacingPolicy,
+                                SteadyStateCriterion steadyStateCriterion) {
+        this.currentState = new State(initialGrid, initialTime);
+        this.nextGrids = new CellGrid[stepExecutor.stepsPerCall()];
+        for (int i = 0; i < nextGrids.length; i++) {
+            nextGrids[i] = initialGrid.copy();
+        }
         this.stateConsumer = stateConsumer;
-        this.algorithm = algorithm;
+        this.stepExecutor = stepExecutor;
+        this.pacingPolicy = pacingPolicy;
+        this.steadyStateCriterion = steadyStateCriterion;
+        // snapshots are returned by the processed listener, consumers not reporting processed states never release
+        this.snapshotPool = new SnapshotPool(stateConsumer.releasesProcessedStates() ? SNAPSHOT_POOL_CAPACITY : 0);
     }
 
     @Override
     public void run() {
         logger.info("Engine run.");
-        while (!Thread.currentThread().isInterrupted()) {
-            stateConsumer.putState(currentState, currentStateIndex);
-            logger.debug("Putted new state in storage at index: " + currentStateIndex);
-            currentState = computeNewState(currentState);
-            currentStateIndex++;
+        EngineStopReason stopReason = EngineStopReason.STOPPED;
+        try {
+            start();
+            while (!Thread.currentThread().isInterrupted()) {
+                putCurrentState();
+                if (steadyStateReached) {
+                    stopReason = EngineStopReason.STEADY_STATE;
+                    break;
+                }
+                control.awaitPermission(currentStateIndex);
+                computeNextState();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            stopReason = EngineStopReason.FAILED;
+            throw e;
+        } finally {
+            finish(stopReason);
         }
         logger.info("Engine stopped.");
     }
 
-    private State computeNewState(State oldState) {
-        logger.debug("Computing state %s".formatted(currentStateIndex));
+    /**
+     * First of the parts of {@link #run()}, which a {@link SimulationHost} calls one at a time from its shared
+     * threads instead of running the loop.
+     */
+    void start() {
+        consumerAcknowledges = stateConsumer.addProcessedListener(index -> {
+            snapshotPool.release(index);
+            pacingPolicy.stateProcessed(index);
+        });
+        executorChecksSteadiness = steadyStateCriterion != null && nextGrids.length == 1
+                && stepExecutor.checkSteadiness(steadyStateCriterion);
+        stepExecutor.prepare(currentState);
+    }
+
+    void putCurrentState() throws InterruptedException {
+        putState(currentState.grid(), currentState.time());
+    }
 
-        List<Cell> newCells = Observable.range(0, oldState.cells().size())
-                .concatMapEager(flatIndex -> processCell(flatIndex, oldState))
-                .doOnError(throwable -> logger.error("Error during computing new state.", throwable))
-                .toList()
-                .blockingGet();
+    void computeNextState() throws InterruptedException {
+        computeNewStates();
+        boolean steady = checkSteadySteps();
+        putIntermediateStates();
+        swapStates();
+        currentStateIndex++;
+        if (steady) {
+            logger.info("Steady state reached at state {}.", currentStateIndex);
+            steadyStateReached = true;
+        }
+    }
 
-        return new State(newCells, oldState.spaceSize());
+    /**
+     * @return whether the current state met the steady state criterion, the engine stops once it is put
+     */
+    boolean steadyStateReached() {
+        return steadyStateReached;
     }
 
-    private Observable<Cell> processCell(int flatIndex, State state) {
-        Vector3i expandedIndex = IndexUtils.expandIndex(flatIndex, state.spaceSize());
-        Cell cell = algorithm.compute(state, expandedIndex);
-        return Observable.just(cell).subscribeOn(Schedulers.computation());
+    void finish(EngineStopReason stopReason) {
+        stepExecutor.shutdown();
+        control.engineStopped(stopReason);
     }
 
+    /**
+     * @return index of the current state, which is put before the following one is computed
+     */
+    int currentStateIndex() {
+        return currentStateIndex;
+    }
+
+    /**
+     * @return control of the engine, usable before and while it runs
+     */
+    public EngineControl control() {
+        return control;
+    }
+
+    private void putState(CellGrid grid, double time) throws InterruptedException {
+        pacingPolicy.awaitTurn(currentStateIndex, time);
+        stateConsumer.putState(snapshot(grid, time, currentStateIndex), currentStateIndex);
+        logger.debug("Putted new state in storage at index: " + currentStateIndex);
+        control.statePut(currentStateIndex, time);
+        if (!consumerAcknowledges) {
+            pacingPolicy.stateProcessed(currentStateIndex);
+        }
+    }
+
+    private State snapshot(CellGrid grid, double time, int index) {
+        CellGrid snapshot = snapshotPool.take();
+        if (snapshot == null) {
+            snapshot = grid.halo() == 0 ? grid.copy() : HaloUtils.unpad(grid);
+        } else if (grid.halo() == 0) {
+            snapshot.copyFrom(grid);
+        } else {
+            HaloUtils.unpad(grid, snapshot);
+        }
+        snapshotPool.lend(index, snapshot);
+        return new State(snapshot, time);
+    }
+
+    private void computeNewStates() {
+        logger.debug("Computing state %s".formatted(currentStateIndex));
+        try {
+            long start = System.nanoTime();
+            deltaTime = stepExecutor.beginStep(currentState);
+            stepExecutor.step(currentState, nextGrids);
+            control.stepsComputed(nextGrids.length, System.nanoTime() - start);
+        } catch (RuntimeException e) {
+            logger.error("Error during computing new state.", e);
+            throw e;
+        }
+    }
+
+    /**
+     * @return whether the steps of the call completed the consecutive steady steps required by the criterion
+     */
+    private boolean checkSteadySteps() {
+        if (steadyStateCriterion == null) {
+            return false;
+        }
+        if (executorChecksSteadiness) {
+            steadySteps = stepExecutor.lastStepSteady() ? steadySteps + 1 : 0;
+            return steadySteps >= steadyStateCriterion.requiredSteps();
+        }
+        CellGrid previousGrid = currentState.grid();
+        for (CellGrid nextGrid : nextGrids) {
+            steadySteps = steadyStateCriterion.isSteadyStep(previousGrid, nextGrid) ? steadySteps + 1 : 0;
+            previousGrid = nextGrid;
+        }
+        return steadySteps >= steadyStateCriterion.requiredSteps();
+    }
+
+    /**
+     * Advances the state index over every state computed before the last one of the call, putting them
+     * in storage when the executor emits them.
+     */
+    private void putIntermediateStates() throws InterruptedException {
+        for (int i = 0; i < nextGrids.length - 1; i++) {
+            currentStateIndex++;
+            if (stepExecutor.emitsIntermediateStates() && !Thread.currentThread().isInterrupted()) {
+                putState(nextGrids[i], currentState.time() + (i + 1) * deltaTime);
+            }
+        }
+    }
+
+    private void swapStates() {
+        int last = nextGrids.length - 1;
+        CellGrid previousGrid = currentState.grid();
+        currentState = new State(nextGrids[last], currentState.time() + nextGrids.length * deltaTime);
+        nextGrids[last] = previousGrid;
+    }
 }
@@ -1,6 +1,62 @@
 package pl.edu.agh.firecell.engine;
 
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
 public interface Engine {
     void run();
     void stop();
+
+    /**
+     * Holds the engine once the state being computed is stored, without using the CPU while paused.
+     */
+    void pause();
+
+    void resume();
+
+    /**
+     * Computes {@code count} more states and pauses.
+     */
+    void step(int count);
+
+    /**
+     * Runs until the state of the given index is stored and pauses.
+     */
+    void runUntil(int stepIndex);
+
+    boolean isPaused();
+
+    /**
+     * @return why the engine stopped computing states, empty while it runs or is paused
+     */
+    Optional<EngineStopReason> stopReason();
+
+    /**
+     * @return whether the engine stored a state meeting its {@link SteadyStateCriterion} and stopped
+     */
+    default boolean isSteady() {
+        return stopReason().orElse(null) == EngineStopReason.STEADY_STATE;
+    }
+
+    /**
+     * @return index of the last stored state, -1 before the initial state is stored
+     */
+    int currentStepIndex();
+
+    /**
+     * @return simulated time in seconds of the last stored state
+     */
+    double currentTime();
+
+    /**
+     * @return steps computed per second, paused time excluded
+     */
+    double stepsPerSecond();
+
+    /**
+     * Blocks until the state of the given index is stored, the engine stops before it or the timeout elapses.
+     *
+     * @return whether the state was stored, or the engine stopped, in time
+     */
+    boolean awaitStep(int stepIndex, long timeout, TimeUnit unit) throws InterruptedException;
 }
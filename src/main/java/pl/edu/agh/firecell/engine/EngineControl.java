@@ -0,0 +1,235 @@
+package pl.edu.agh.firecell.engine;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Controls how far the engine thread may advance. After putting a state the engine computes the next one only
+ * while the index of the put state is below the target step index, otherwise it waits on a condition until
+ * the target moves. Executors computing several steps per call are only held at call boundaries, so they may
+ * run past the target by less than one call. Once the engine stopped for good, e.g. after putting a steady state,
+ * {@link #stopReason()} tells why and nothing waits for further states.
+ */
+public class EngineControl {
+
+    private static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    private final Lock lock = new ReentrantLock();
+    private final Condition targetChanged = lock.newCondition();
+    private final Condition statePut = lock.newCondition();
+
+    private int targetStepIndex = UNBOUNDED;
+    private EngineStopReason stopReason;
+    private int currentStepIndex = -1;
+    private double currentTime = 0;
+    private long computedSteps = 0;
+    private long computingNanos = 0;
+
+    /**
+     * Stops the engine once the step being computed, if any, is put.
+     */
+    public void pause() {
+        step(0);
+    }
+
+    public void resume() {
+        setTarget(UNBOUNDED);
+    }
+
+    /**
+     * Lets the engine compute {@code count} more states after the current one and pause afterwards.
+     */
+    public void step(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Step count must not be negative, got %s.".formatted(count));
+        }
+        lock.lock();
+        try {
+            targetStepIndex = (int) Math.min(UNBOUNDED, (long) currentStepIndex + count);
+            targetChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Lets the engine run until it put the state of the given index and pause afterwards.
+     */
+    public void runUntil(int stepIndex) {
+        setTarget(stepIndex);
+    }
+
+    public boolean isPaused() {
+        lock.lock();
+        try {
+            return currentStepIndex >= targetStepIndex || stopReason != null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return why the engine stopped computing states, empty while it runs or waits for its target to move
+     */
+    public Optional<EngineStopReason> stopReason() {
+        lock.lock();
+        try {
+            return Optional.ofNullable(stopReason);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return whether the engine stopped after putting a state meeting its {@link SteadyStateCriterion}
+     */
+    public boolean isSteady() {
+        return stopReason().orElse(null) == EngineStopReason.STEADY_STATE;
+    }
+
+    /**
+     * @return index of the last state put by the engine, -1 before the initial state was put
+     */
+    public int currentStepIndex() {
+        lock.lock();
+        try {
+            return currentStepIndex;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return simulated time in seconds of the last state put by the engine
+     */
+    public double currentTime() {
+        lock.lock();
+        try {
+            return currentTime;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return steps computed per second of computation, time spent paused or waiting for the consumer excluded
+     */
+    public double stepsPerSecond() {
+        lock.lock();
+        try {
+            return computingNanos == 0 ? 0 : computedSteps * (double) TimeUnit.SECONDS.toNanos(1) / computingNanos;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until the engine put the state of the given index, or stopped before it.
+     */
+    public void awaitStep(int stepIndex) throws InterruptedException {
+        lock.lock();
+        try {
+            while (currentStepIndex < stepIndex && stopReason == null) {
+                statePut.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Same as {@link #awaitStep(int)}, giving up after the timeout.
+     *
+     * @return whether the state was put, or the engine stopped before it, before the timeout elapsed
+     */
+    public boolean awaitStep(int stepIndex, long timeout, TimeUnit unit) throws InterruptedException {
+        long remainingNanos = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (currentStepIndex < stepIndex && stopReason == null) {
+                if (remainingNanos <= 0) {
+                    return false;
+                }
+                remainingNanos = statePut.awaitNanos(remainingNanos);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void statePut(int stepIndex, double time) {
+        lock.lock();
+        try {
+            currentStepIndex = stepIndex;
+            currentTime = time;
+            statePut.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks the engine thread until it may compute the state following the one of the given index.
+     */
+    void awaitPermission(int stepIndex) throws InterruptedException {
+        lock.lock();
+        try {
+            while (stepIndex >= targetStepIndex) {
+                targetChanged.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return whether the engine may compute the state following the one of the given index without waiting
+     */
+    boolean mayCompute(int stepIndex) {
+        lock.lock();
+        try {
+            return stepIndex < targetStepIndex && stopReason == null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Called once the engine stopped for good, wakes everything waiting for its states.
+     */
+    void engineStopped(EngineStopReason reason) {
+        lock.lock();
+        try {
+            if (stopReason == null) {
+                stopReason = reason;
+            }
+            statePut.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void stepsComputed(int steps, long nanos) {
+        lock.lock();
+        try {
+            computedSteps += steps;
+            computingNanos += nanos;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void setTarget(int stepIndex) {
+        lock.lock();
+        try {
+            targetStepIndex = stepIndex;
+            targetChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
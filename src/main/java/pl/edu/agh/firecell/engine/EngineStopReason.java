@@ -0,0 +1,19 @@
+package pl.edu.agh.firecell.engine;
+
+/**
+ * Why an engine stopped computing states for good.
+ */
+public enum EngineStopReason {
+    /**
+     * The engine put a state meeting its {@link SteadyStateCriterion}, the following states would not differ.
+     */
+    STEADY_STATE,
+    /**
+     * The engine was stopped by its owner.
+     */
+    STOPPED,
+    /**
+     * Computing or putting a state failed.
+     */
+    FAILED
+}
@@ -0,0 +1,307 @@
+package pl.edu.agh.firecell.engine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.edu.agh.firecell.engine.executor.StepExecutor;
+import pl.edu.agh.firecell.engine.pacing.UnboundedPacing;
+import pl.edu.agh.firecell.model.BoundaryCondition;
+import pl.edu.agh.firecell.model.State;
+import pl.edu.agh.firecell.storage.StateConsumer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Engine stepped by a {@link SimulationHost} on the threads it shares among all its engines, instead of
+ * a thread of its own. Every turn puts the current state and computes the next one, then the engine queues up
+ * behind the other ready engines.
+ * <p>
+ * An engine that may not go on, because it is paused or its consumer lags {@code maxPendingStates} states
+ * behind, gives its thread up instead of blocking it and is queued again once the consumer processes a state
+ * or the engine is controlled. Once it put a steady state, the engine finishes like a stopped one and leaves
+ * the host.
+ */
+public class HostedEngine implements Engine {
+
+    private static final Logger logger = LoggerFactory.getLogger(HostedEngine.class);
+
+    private final BasicEngineRunnable engineRunnable;
+    private final EngineControl control;
+    private final SimulationHost host;
+    private final Executor steppingExecutor;
+    private final int maxPendingStates;
+    private final boolean consumerAcknowledges;
+    private final AtomicInteger lastProcessedIndex;
+    private final Lock turnLock = new ReentrantLock();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final AtomicBoolean parked = new AtomicBoolean();
+    private final List<StepWaiter> waiters = new ArrayList<>();
+    private final Runnable turn = this::takeTurn;
+
+    // written by turns only, read by threads deciding whether a parked engine may go on
+    private volatile boolean currentStatePut;
+    private volatile int currentStateIndex;
+
+    // written under turnLock
+    private boolean prepared;
+    private volatile boolean finished;
+
+    HostedEngine(SimulationHost host, Executor steppingExecutor, State initialState, int initialStateIndex,
+                 StateConsumer stateConsumer, StepExecutor stepExecutor, BoundaryCondition boundaryCondition,
+                 int maxPendingStates, SteadyStateCriterion steadyStateCriterion) {
+        if (maxPendingStates < 1) {
+            throw new IllegalArgumentException("Lookahead must be positive, got %s.".formatted(maxPendingStates));
+        }
+        this.engineRunnable = new BasicEngineRunnable(initialState, initialStateIndex, stateConsumer, stepExecutor,
+                boundaryCondition, new UnboundedPacing(), steadyStateCriterion);
+        this.control = engineRunnable.control();
+        this.host = host;
+        this.steppingExecutor = steppingExecutor;
+        this.maxPendingStates = maxPendingStates;
+        this.lastProcessedIndex = new AtomicInteger(initialStateIndex - 1);
+        this.currentStateIndex = initialStateIndex;
+        this.consumerAcknowledges = stateConsumer.addProcessedListener(this::stateProcessed);
+    }
+
+    @Override
+    public void run() {
+        if (!started.compareAndSet(false, true)) {
+            throw new IllegalStateException("Engine was run already.");
+        }
+        logger.info("Engine run.");
+        schedule();
+    }
+
+    /**
+     * Stops the engine once the turn it takes, if any, ends.
+     */
+    @Override
+    public void stop() {
+        turnLock.lock();
+        try {
+            finish(EngineStopReason.STOPPED, null);
+        } finally {
+            turnLock.unlock();
+        }
+        completeWaiters();
+    }
+
+    @Override
+    public void pause() {
+        control.pause();
+    }
+
+    @Override
+    public void resume() {
+        control.resume();
+        wake();
+    }
+
+    @Override
+    public void step(int count) {
+        control.step(count);
+        wake();
+    }
+
+    @Override
+    public void runUntil(int stepIndex) {
+        control.runUntil(stepIndex);
+        wake();
+    }
+
+    @Override
+    public boolean isPaused() {
+        return control.isPaused();
+    }
+
+    @Override
+    public Optional<EngineStopReason> stopReason() {
+        return control.stopReason();
+    }
+
+    @Override
+    public int currentStepIndex() {
+        return control.currentStepIndex();
+    }
+
+    @Override
+    public double currentTime() {
+        return control.currentTime();
+    }
+
+    @Override
+    public double stepsPerSecond() {
+        return control.stepsPerSecond();
+    }
+
+    @Override
+    public boolean awaitStep(int stepIndex, long timeout, TimeUnit unit) throws InterruptedException {
+        return control.awaitStep(stepIndex, timeout, unit);
+    }
+
+    /**
+     * Non-blocking counterpart of {@link #awaitStep(int, long, TimeUnit)}, letting a caller wait for many
+     * engines without a thread for each of them.
+     *
+     * @return future completed once the state of the given index, or a steady state before it, was put,
+     * from the thread that put it, or exceptionally when the engine is stopped or fails before
+     */
+    public CompletableFuture<Void> stepReached(int stepIndex) {
+        var future = new CompletableFuture<Void>();
+        synchronized (waiters) {
+            waiters.add(new StepWaiter(stepIndex, future));
+        }
+        completeWaiters();
+        return future;
+    }
+
+    private void takeTurn() {
+        boolean mayContinue;
+        // held by stop(), which finishes the engine
+        if (!turnLock.tryLock()) {
+            return;
+        }
+        try {
+            if (finished) {
+                return;
+            }
+            mayContinue = step();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            finish(EngineStopReason.STOPPED, e);
+            return;
+        } catch (RuntimeException e) {
+            finish(EngineStopReason.FAILED, e);
+            return;
+        } finally {
+            turnLock.unlock();
+            completeWaiters();
+        }
+        if (mayContinue) {
+            schedule();
+        } else {
+            park();
+        }
+    }
+
+    /**
+     * @return whether the engine may take its next turn right away
+     */
+    private boolean step() throws InterruptedException {
+        if (!prepared) {
+            engineRunnable.start();
+            prepared = true;
+        }
+        if (!currentStatePut) {
+            if (!lookaheadAvailable()) {
+                return false;
+            }
+            engineRunnable.putCurrentState();
+            currentStatePut = true;
+            if (engineRunnable.steadyStateReached()) {
+                finish(EngineStopReason.STEADY_STATE, null);
+                return false;
+            }
+        }
+        if (!control.mayCompute(currentStateIndex)) {
+            return false;
+        }
+        engineRunnable.computeNextState();
+        currentStateIndex = engineRunnable.currentStateIndex();
+        currentStatePut = false;
+        return true;
+    }
+
+    private boolean mayContinue() {
+        return currentStatePut ? control.mayCompute(currentStateIndex) : lookaheadAvailable();
+    }
+
+    private boolean lookaheadAvailable() {
+        return !consumerAcknowledges || currentStateIndex - lastProcessedIndex.get() <= maxPendingStates;
+    }
+
+    private void stateProcessed(int index) {
+        lastProcessedIndex.accumulateAndGet(index, Math::max);
+        wake();
+    }
+
+    private void park() {
+        parked.set(true);
+        // whatever lets the engine go on may have happened before it was parked
+        if (mayContinue()) {
+            wake();
+        }
+    }
+
+    private void wake() {
+        if (parked.compareAndSet(true, false)) {
+            schedule();
+        }
+    }
+
+    private void schedule() {
+        if (finished) {
+            return;
+        }
+        try {
+            steppingExecutor.execute(turn);
+        } catch (RejectedExecutionException e) {
+            // the host is closing and stops the engine
+            logger.debug("Turn rejected by a closing host.", e);
+        }
+    }
+
+    /**
+     * @param failure cause of the engine stopping, null when it was stopped or settled
+     */
+    private void finish(EngineStopReason stopReason, Throwable failure) {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        if (started.get()) {
+            engineRunnable.finish(stopReason);
+        } else {
+            control.engineStopped(stopReason);
+        }
+        // waiters for later states of a settled engine are completed by completeWaiters()
+        if (stopReason != EngineStopReason.STEADY_STATE) {
+            synchronized (waiters) {
+                for (StepWaiter waiter : waiters) {
+                    waiter.future().completeExceptionally(failure != null ? failure :
+                            new CancellationException("Engine stopped at step %s.".formatted(control.currentStepIndex())));
+                }
+                waiters.clear();
+            }
+        }
+        host.engineFinished(this);
+        if (failure != null) {
+            logger.error("Engine failed.", failure);
+        } else {
+            logger.info("Engine stopped{}.", stopReason == EngineStopReason.STEADY_STATE ? " at a steady state" : "");
+        }
+    }
+
+    private void completeWaiters() {
+        int stepIndex = control.isSteady() ? Integer.MAX_VALUE : control.currentStepIndex();
+        List<StepWaiter> reached = new ArrayList<>();
+        synchronized (waiters) {
+            waiters.removeIf(waiter -> waiter.stepIndex() <= stepIndex && reached.add(waiter));
+        }
+        // outside of the lock, callbacks may stop the engine
+        reached.forEach(waiter -> waiter.future().complete(null));
+    }
+
+    private record StepWaiter(int stepIndex, CompletableFuture<Void> future) {
+    }
+}
@@ -0,0 +1,126 @@
+package pl.edu.agh.firecell.engine;
+
+import pl.edu.agh.firecell.engine.executor.StepExecutor;
+import pl.edu.agh.firecell.model.BoundaryCondition;
+import pl.edu.agh.firecell.model.State;
+import pl.edu.agh.firecell.storage.StateConsumer;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs many simulations in one process on a fixed number of threads, however many simulations it hosts.
+ * <p>
+ * {@link HostedEngine}s take turns of a single step on a few stepping threads, queued in the order they became
+ * ready, so every simulation that may go on advances at the same pace in steps. An engine waiting for its
+ * consumer or paused holds no thread at all. Step executors are meant to compute on the {@link #computePool()}
+ * shared by all the engines, e.g. through
+ * {@link pl.edu.agh.firecell.engine.executor.ActiveRegionStepExecutor#ActiveRegionStepExecutor(pl.edu.agh.firecell.engine.algorithm.Algorithm, ForkJoinPool, int)},
+ * which keeps the processors busy without oversubscribing them.
+ * <p>
+ * The storages of hosted simulations are meant to serialize states on the compute pool too and to write them,
+ * and their checkpoints, on the {@link #ioPool()}, see
+ * {@link pl.edu.agh.firecell.storage.FileSystemStorage#FileSystemStorage(pl.edu.agh.firecell.storage.serialization.StateSerializer, java.nio.file.Path, java.util.concurrent.Executor, java.util.concurrent.Executor, int)},
+ * so storing states takes no threads per simulation either.
+ */
+public class SimulationHost implements AutoCloseable {
+    private static final long IDLE_IO_THREAD_SECONDS = 10;
+
+    private final ForkJoinPool computePool;
+    private final ExecutorService steppingPool;
+    private final ThreadPoolExecutor ioPool;
+    private final Set<HostedEngine> engines = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param computeThreadCount  threads of the pool the step executors compute on
+     * @param steppingThreadCount threads taking the turns of the engines, i.e. the most simulations stepped at once,
+     *                            and threads of the pool blocking on writes, so each of them may have one pending
+     */
+    public SimulationHost(int computeThreadCount, int steppingThreadCount) {
+        if (computeThreadCount < 1 || steppingThreadCount < 1) {
+            throw new IllegalArgumentException("Thread counts must be positive, got %s and %s."
+                    .formatted(computeThreadCount, steppingThreadCount));
+        }
+        this.computePool = new ForkJoinPool(computeThreadCount);
+        var threadIndex = new AtomicInteger();
+        this.steppingPool = Executors.newFixedThreadPool(steppingThreadCount, runnable ->
+                new Thread(runnable, "simulation-host-" + threadIndex.incrementAndGet()));
+        var ioThreadIndex = new AtomicInteger();
+        this.ioPool = new ThreadPoolExecutor(steppingThreadCount, steppingThreadCount, IDLE_IO_THREAD_SECONDS,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable ->
+                new Thread(runnable, "simulation-host-io-" + ioThreadIndex.incrementAndGet()));
+        this.ioPool.allowCoreThreadTimeOut(true);
+    }
+
+    public ForkJoinPool computePool() {
+        return computePool;
+    }
+
+    /**
+     * @return pool for the blocking writes of the hosted simulations, kept apart from the compute pool so waiting
+     * for the disk holds no computing thread. Tasks submitted before the host is closed still run.
+     */
+    public ExecutorService ioPool() {
+        return ioPool;
+    }
+
+    /**
+     * Creates an engine stepped by the host once it is run, see
+     * {@link BasicEngineRunnable#BasicEngineRunnable(State, int, StateConsumer, StepExecutor, BoundaryCondition, pl.edu.agh.firecell.engine.pacing.PacingPolicy)}.
+     *
+     * @param maxPendingStates number of states put but not processed by the consumer at which the engine waits
+     */
+    public HostedEngine createEngine(State initialState, int initialStateIndex, StateConsumer stateConsumer,
+                                     StepExecutor stepExecutor, BoundaryCondition boundaryCondition, int maxPendingStates) {
+        return createEngine(initialState, initialStateIndex, stateConsumer, stepExecutor, boundaryCondition,
+                maxPendingStates, null);
+    }
+
+    /**
+     * @param steadyStateCriterion criterion the engine stops computing at, null to run until stopped
+     */
+    public HostedEngine createEngine(State initialState, int initialStateIndex, StateConsumer stateConsumer,
+                                     StepExecutor stepExecutor, BoundaryCondition boundaryCondition, int maxPendingStates,
+                                     SteadyStateCriterion steadyStateCriterion) {
+        var engine = new HostedEngine(this, steppingPool, initialState, initialStateIndex, stateConsumer, stepExecutor,
+                boundaryCondition, maxPendingStates, steadyStateCriterion);
+        engines.add(engine);
+        return engine;
+    }
+
+    /**
+     * @return number of engines created and not stopped yet
+     */
+    public int engineCount() {
+        return engines.size();
+    }
+
+    /**
+     * Stops every hosted engine and shuts the threads down, once the pending writes are done.
+     */
+    @Override
+    public void close() {
+        List.copyOf(engines).forEach(HostedEngine::stop);
+        steppingPool.shutdown();
+        computePool.shutdown();
+        try {
+            steppingPool.awaitTermination(1, TimeUnit.MINUTES);
+            ioPool.shutdown();
+            ioPool.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    void engineFinished(HostedEngine engine) {
+        engines.remove(engine);
+    }
+}
@@ -0,0 +1,60 @@
+package pl.edu.agh.firecell.engine;
+
+import pl.edu.agh.firecell.model.CellGrid;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Grids the engine copies its states into before putting them. Once the consumer reports a state processed,
+ * the grid of the state is returned and reused for a later snapshot, so an engine whose consumer keeps up stops
+ * allocating snapshots after the first few states. At most {@code capacity} returned grids are kept, the others
+ * are left to the garbage collector.
+ * <p>
+ * A grid is still allocated for every snapshot taken while all returned grids are in use, i.e. while the consumer
+ * lags behind, and for every snapshot of a pool without capacity, which the engine uses for consumers keeping
+ * the states they processed, see {@link pl.edu.agh.firecell.storage.StateConsumer#releasesProcessedStates()}.
+ */
+class SnapshotPool {
+    private final int capacity;
+    private final Deque<CellGrid> free = new ArrayDeque<>();
+    private final Map<Integer, CellGrid> lent = new HashMap<>();
+
+    /**
+     * @param capacity number of returned grids kept for reuse, 0 to allocate every snapshot
+     */
+    SnapshotPool(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Pool capacity must not be negative, got %s.".formatted(capacity));
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return a returned grid to copy the next snapshot into, null when none is free
+     */
+    synchronized CellGrid take() {
+        return free.poll();
+    }
+
+    /**
+     * Records the grid as the snapshot put under the given index, returned by {@link #release(int)}.
+     */
+    synchronized void lend(int index, CellGrid grid) {
+        if (capacity > 0) {
+            lent.put(index, grid);
+        }
+    }
+
+    /**
+     * Returns the grid of the state of the given index, which the consumer no longer reads.
+     */
+    synchronized void release(int index) {
+        CellGrid grid = lent.remove(index);
+        if (grid != null && free.size() < capacity) {
+            free.push(grid);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package pl.edu.agh.firecell.engine;
+
+import pl.edu.agh.firecell.model.CellGrid;
+
+/**
+ * Criterion of a simulation having settled: no cell burns and no cell changed its temperature, smoke indicator
+ * or oxygen level by more than the thresholds in each of {@code requiredSteps} consecutive steps. An engine
+ * given the criterion stops computing once it is met, as the following states would not differ.
+ *
+ * @param maxTemperatureChange largest change of the temperature of a cell in a steady step, in degrees
+ * @param maxSmokeChange       largest change of the smoke indicator of a cell in a steady step
+ * @param maxOxygenChange      largest change of the oxygen level of a cell in a steady step
+ * @param requiredSteps        number of consecutive steady steps
+ */
+public record SteadyStateCriterion(
+        double maxTemperatureChange,
+        double maxSmokeChange,
+        double maxOxygenChange,
+        int requiredSteps
+) {
+    public static final double DEFAULT_MAX_CHANGE = 0.01;
+
+    public SteadyStateCriterion {
+        if (!(maxTemperatureChange >= 0) || !(maxSmokeChange >= 0) || !(maxOxygenChange >= 0)) {
+            throw new IllegalArgumentException("Steady state thresholds must not be negative, got %s, %s and %s."
+                    .formatted(maxTemperatureChange, maxSmokeChange, maxOxygenChange));
+        }
+        if (requiredSteps < 1) {
+            throw new IllegalArgumentException("Required steady steps must be positive, got %s.".formatted(requiredSteps));
+        }
+    }
+
+    public SteadyStateCriterion(int requiredSteps) {
+        this(DEFAULT_MAX_CHANGE, DEFAULT_MAX_CHANGE, DEFAULT_MAX_CHANGE, requiredSteps);
+    }
+
+    /**
+     * Compares the cells of the grids in flat index order, returning at the first burning or changing cell,
+     * so the check costs next to nothing while the fire spreads. Ghost cells of padded grids follow the interior
+     * or hold the boundary condition, so they are compared as well.
+     *
+     * @return whether the step from the previous grid to the next one is steady
+     */
+    public boolean isSteadyStep(CellGrid previous, CellGrid next) {
+        return isSteadyRange(previous, next, 0, next.cellCount());
+    }
+
+    /**
+     * Same as {@link #isSteadyStep(CellGrid, CellGrid)} for the cells of {@code [fromIndex, toIndex)}, which lets
+     * executors check the cells they just computed, see
+     * {@link pl.edu.agh.firecell.engine.executor.StepExecutor#checkSteadiness(SteadyStateCriterion)}.
+     */
+    public boolean isSteadyRange(CellGrid previous, CellGrid next, int fromIndex, int toIndex) {
+        for (int i = fromIndex; i < toIndex; i++) {
+            if (!isSteadyCell(previous, next, i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return whether the cell of the given index does not burn and did not change by more than the thresholds
+     */
+    public boolean isSteadyCell(CellGrid previous, CellGrid next, int index) {
+        return !next.isBurning(index)
+                && Math.abs(next.temperature(index) - previous.temperature(index)) <= maxTemperatureChange
+                && Math.abs(next.smokeIndicator(index) - previous.smokeIndicator(index)) <= maxSmokeChange
+                && Math.abs(next.oxygenLevel(index) - previous.oxygenLevel(index)) <= maxOxygenChange;
+    }
+}
@@ -0,0 +1,276 @@
+package pl.edu.agh.firecell.engine.algorithm;
+
+import org.joml.Vector3i;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.edu.agh.firecell.model.Cell;
+import pl.edu.agh.firecell.model.CellGrid;
+import pl.edu.agh.firecell.model.State;
+import pl.edu.agh.firecell.model.exception.ConductionCoefficientException;
+import pl.edu.agh.firecell.model.material.MaterialConductionMap;
+import pl.edu.agh.firecell.model.util.NeighbourStencil;
+
+import static pl.edu.agh.firecell.engine.algorithm.DiffusionGenerator.OXYGEN_DIFFUSION_COEFFICIENT;
+import static pl.edu.agh.firecell.engine.algorithm.DiffusionGenerator.OXYGEN_SUM_OF_WEIGHTS;
+import static pl.edu.agh.firecell.engine.algorithm.DiffusionGenerator.SMOKE_MAIN_WEIGHT;
+import static pl.edu.agh.firecell.engine.algorithm.DiffusionGenerator.TEMPERATURE_MAIN_WEIGHT;
+import static pl.edu.agh.firecell.engine.algorithm.SmokePropagator.MAX_SMOKE_LEVEL;
+import static pl.edu.agh.firecell.engine.algorithm.SmokePropagator.SMOKE_COEFFICIENT;
+import static pl.edu.agh.firecell.engine.algorithm.TemperaturePropagator.CONVECTION_COEFFICIENT;
+import static pl.edu.agh.firecell.model.util.NeighbourStencil.NONE;
+
+/**
+ * {@link FusedAlgorithm} choosing the time step of every step from the state it starts from.
+ * <p>
+ * The step times form a ladder {@code minDeltaTime * sqrt(2)^k} up to {@code maxDeltaTime}, one fused algorithm
+ * with precomputed kernels for each, sharing the conductance field. The rungs are created with {@code minDeltaTime}
+ * as their base step time, so the terms the propagators apply once per step rather than per simulated second
+ * (conduction along the Y and X axes, vertical smoke diffusion) advance at the rate they have at {@code minDeltaTime},
+ * and a run tracks a run of fixed {@code minDeltaTime} steps.
+ * <p>
+ * While anything burns the algorithm stays at {@code minDeltaTime}, as fire spreads and burns out by steps rather
+ * than by time. Otherwise the longest step is taken which keeps explicit conduction stable for the cells whose
+ * temperature differs from a neighbour's and bounds the change of temperature, smoke and oxygen of every cell
+ * per step, estimated from the differences to its neighbours. A cell settled to the temperature of its
+ * neighbours, e.g. cold wood away from the fire, does not limit the step: it has no difference for an unstable
+ * step to amplify, and once one grows past {@code SETTLED_TEMPERATURE_DIFFERENCE} the step drops at once. Oxygen diffusion stops growing with the step time
+ * at {@code 1 / OXYGEN_DIFFUSION_COEFFICIENT}, so longer steps are only taken while oxygen is uniform.
+ * The step grows by at most one rung at a time and drops at once.
+ * <p>
+ * The state is scanned over the ranges given by the step executor, see {@link #beginStep(State, CellRanges)}.
+ */
+public class AdaptiveAlgorithm implements Algorithm {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveAlgorithm.class);
+
+    // largest change per step of the temperature of a cell in degrees, of its smoke indicator and oxygen level
+    private static final double MAX_TEMPERATURE_CHANGE = 2.0;
+    private static final double MAX_SMOKE_CHANGE = 1.0;
+    private static final double MAX_OXYGEN_CHANGE = 0.5;
+    // fraction of the conduction stability limit used
+    private static final double STABILITY_SAFETY = 0.9;
+    // largest temperature difference in degrees to every neighbour of a cell not limiting the step by its conduction
+    private static final double SETTLED_TEMPERATURE_DIFFERENCE = 1e-3;
+
+    private final double minDeltaTime;
+    private final FusedAlgorithm[] algorithms;
+    private final MaterialConductionMap materialConductionMap;
+    private ConductanceField conductanceField;
+    private volatile int level = 0;
+
+    public AdaptiveAlgorithm(double minDeltaTime, double maxDeltaTime) throws ConductionCoefficientException {
+        if (!(minDeltaTime > 0) || maxDeltaTime < minDeltaTime) {
+            throw new IllegalArgumentException("Expected 0 < minDeltaTime <= maxDeltaTime, got %s and %s."
+                    .formatted(minDeltaTime, maxDeltaTime));
+        }
+        this.minDeltaTime = minDeltaTime;
+        // rungs a factor of sqrt(2) apart, so the step follows the stability limit of conduction closely
+        int levels = 1 + (int) Math.floor(2 * Math.log(maxDeltaTime / minDeltaTime) / Math.log(2) + 1e-9);
+        this.algorithms = new FusedAlgorithm[levels];
+        for (int i = 0; i < levels; i++) {
+            double deltaTime = minDeltaTime * (1L << (i / 2));
+            algorithms[i] = new FusedAlgorithm(i % 2 == 0 ? deltaTime : deltaTime * Math.sqrt(2), minDeltaTime);
+        }
+        this.materialConductionMap = new MaterialConductionMap();
+    }
+
+    @Override
+    public void prepare(State initialState) {
+        conductanceField = new ConductanceField(initialState.grid(), materialConductionMap);
+        for (FusedAlgorithm algorithm : algorithms) {
+            algorithm.prepare(conductanceField);
+        }
+    }
+
+    /**
+     * Chooses the step time scanning the whole state on the calling thread, e.g. for a coordinator leaving
+     * the computation to other processes.
+     */
+    @Override
+    public double beginStep(State oldState) {
+        chooseLevel(oldState, CellRanges.of(oldState.grid()));
+        return algorithms[level].beginStep(oldState);
+    }
+
+    @Override
+    public double beginStep(State oldState, CellRanges ranges) {
+        chooseLevel(oldState, ranges);
+        return algorithms[level].beginStep(oldState, ranges);
+    }
+
+    @Override
+    public void restoreDeltaTime(double lastDeltaTime) {
+        int restoredLevel = 0;
+        while (restoredLevel + 1 < algorithms.length && algorithms[restoredLevel + 1].deltaTime() <= lastDeltaTime * (1 + 1e-9)) {
+            restoredLevel++;
+        }
+        level = restoredLevel;
+    }
+
+    @Override
+    public double deltaTime() {
+        return algorithms[level].deltaTime();
+    }
+
+    @Override
+    public double baseDeltaTime() {
+        return minDeltaTime;
+    }
+
+    @Override
+    public Cell compute(State oldState, Vector3i cellIndex) {
+        return algorithms[level].compute(oldState, cellIndex);
+    }
+
+    @Override
+    public void compute(State oldState, int flatIndex, CellGrid newGrid) {
+        algorithms[level].compute(oldState, flatIndex, newGrid);
+    }
+
+    @Override
+    public void compute(State oldState, int fromIndex, int toIndex, CellGrid newGrid) {
+        algorithms[level].compute(oldState, fromIndex, toIndex, newGrid);
+    }
+
+    private void chooseLevel(State oldState, CellRanges ranges) {
+        double limit = deltaTimeLimit(oldState.grid(), ranges);
+        int targetLevel = 0;
+        while (targetLevel + 1 < algorithms.length && algorithms[targetLevel + 1].deltaTime() <= limit) {
+            targetLevel++;
+        }
+        int newLevel = Math.min(targetLevel, level + 1);
+        if (newLevel != level) {
+            logger.debug("Step time changed to {} s.", algorithms[newLevel].deltaTime());
+        }
+        level = newLevel;
+    }
+
+    /**
+     * @return factor turning the conductance of the face into a rate per simulated second, conduction along
+     * the Y and X axes being applied once per step of {@code minDeltaTime}
+     */
+    private double conductionScale(int face) {
+        return face == NeighbourStencil.NORTH || face == NeighbourStencil.SOUTH ? 1 : 1 / minDeltaTime;
+    }
+
+    /**
+     * @return longest step time allowed by the grid, 0 while anything burns
+     */
+    private double deltaTimeLimit(CellGrid grid, CellRanges ranges) {
+        ConductanceField field = conductanceField;
+        if (field == null || !field.matches(grid)) {
+            return 0;
+        }
+        Rates rates = new Rates();
+        ranges.forEach((fromIndex, toIndex) -> rates.merge(scan(grid, field, fromIndex, toIndex)));
+        if (rates.burning) {
+            return 0;
+        }
+
+        double limit = rates.conductanceSum > 0 ? STABILITY_SAFETY / rates.conductanceSum : Double.POSITIVE_INFINITY;
+        if (rates.temperature > 0) {
+            limit = Math.min(limit, MAX_TEMPERATURE_CHANGE / rates.temperature);
+        }
+        double smokeRate = NeighbourStencil.FACE_COUNT * SMOKE_COEFFICIENT * rates.smokeFlow + rates.smokeDiffusion;
+        if (smokeRate > 0) {
+            limit = Math.min(limit, MAX_SMOKE_CHANGE / smokeRate);
+        }
+        if (rates.oxygen > 0) {
+            limit = Math.min(limit, Math.min(MAX_OXYGEN_CHANGE / rates.oxygen, 1 / OXYGEN_DIFFUSION_COEFFICIENT));
+        }
+        return limit;
+    }
+
+    /**
+     * @return largest rates of change per simulated second of the cells in {@code [fromIndex, toIndex)} and
+     * the largest conductance sum of the ones not settled
+     */
+    private Rates scan(CellGrid grid, ConductanceField field, int fromIndex, int toIndex) {
+        NeighbourStencil stencil = grid.stencil();
+        Rates rates = new Rates();
+        for (int i = fromIndex; i < toIndex; i++) {
+            if (grid.isBurning(i) || grid.remainingFirePillar(i) > 0) {
+                rates.burning = true;
+                return rates;
+            }
+            double temperature = grid.temperature(i);
+            boolean fluid = grid.isFluid(i);
+            double smoke = grid.smokeIndicator(i);
+            double oxygen = grid.oxygenLevel(i);
+            double conductionRate = 0;
+            double conductanceSum = 0;
+            boolean settled = true;
+            double diffusionRate = 0;
+            double oxygenRate = 0;
+            for (int face = 0; face < NeighbourStencil.FACE_COUNT; face++) {
+                int neighbour = stencil.neighbour(i, face);
+                if (neighbour == NONE) {
+                    continue;
+                }
+                double temperatureDifference = Math.abs(grid.temperature(neighbour) - temperature);
+                double conductance = field.conductance(face, i) * conductionScale(face);
+                conductionRate += conductance * temperatureDifference;
+                conductanceSum += conductance;
+                settled &= temperatureDifference <= SETTLED_TEMPERATURE_DIFFERENCE;
+                if (!grid.isFluid(neighbour)) {
+                    continue;
+                }
+                // temperature and oxygen diffuse from fluid neighbours into any cell
+                diffusionRate += temperatureDifference;
+                oxygenRate += Math.abs(grid.oxygenLevel(neighbour) - oxygen);
+                if (!fluid) {
+                    continue;
+                }
+                double neighbourSmoke = grid.smokeIndicator(neighbour);
+                if (face == NeighbourStencil.UP) {
+                    // smoke rises into any capacity above, whatever the difference
+                    rates.smokeFlow = Math.max(rates.smokeFlow, Math.min(smoke, MAX_SMOKE_LEVEL - neighbourSmoke));
+                } else if (face == NeighbourStencil.DOWN) {
+                    rates.smokeFlow = Math.max(rates.smokeFlow, Math.min(neighbourSmoke, MAX_SMOKE_LEVEL - smoke));
+                } else {
+                    rates.smokeFlow = Math.max(rates.smokeFlow, Math.abs(smoke - neighbourSmoke));
+                }
+            }
+            double temperatureRate = conductionRate + diffusionRate / TEMPERATURE_MAIN_WEIGHT;
+            int up = stencil.up(i);
+            int down = stencil.down(i);
+            if (fluid && up != NONE && grid.isFluid(up) && grid.temperature(up) < temperature) {
+                temperatureRate += CONVECTION_COEFFICIENT * (temperature - grid.temperature(up));
+            }
+            if (fluid && down != NONE && grid.isFluid(down) && grid.temperature(down) > temperature) {
+                temperatureRate += CONVECTION_COEFFICIENT * (grid.temperature(down) - temperature);
+            }
+            rates.temperature = Math.max(rates.temperature, temperatureRate);
+            if (!settled) {
+                rates.conductanceSum = Math.max(rates.conductanceSum, conductanceSum);
+            }
+            if (fluid && up != NONE && down != NONE && grid.isFluid(up) && grid.isFluid(down)) {
+                double smokeCurvature = Math.abs(grid.smokeIndicator(up) + grid.smokeIndicator(down) - 2 * smoke);
+                rates.smokeDiffusion = Math.max(rates.smokeDiffusion, smokeCurvature / (SMOKE_MAIN_WEIGHT * minDeltaTime));
+            }
+            rates.oxygen = Math.max(rates.oxygen, OXYGEN_DIFFUSION_COEFFICIENT / OXYGEN_SUM_OF_WEIGHTS * oxygenRate);
+        }
+        return rates;
+    }
+
+    /**
+     * Largest rates of change found by a scan, merged from the ranges scanned concurrently.
+     */
+    private static final class Rates {
+        private boolean burning;
+        private double conductanceSum;
+        private double temperature;
+        private double smokeFlow;
+        private double smokeDiffusion;
+        private double oxygen;
+
+        private synchronized void merge(Rates other) {
+            burning |= other.burning;
+            conductanceSum = Math.max(conductanceSum, other.conductanceSum);
+            temperature = Math.max(temperature, other.temperature);
+            smokeFlow = Math.max(smokeFlow, other.smokeFlow);
+            smokeDiffusion = Math.max(smokeDiffusion, other.smokeDiffusion);
+            oxygen = Math.max(oxygen, other.oxygen);
+        }
+    }
+}
@@ -2,8 +2,73 @@ package pl.edu.agh.firecell.engine.algorithm;
 
 import org.joml.Vector3i;
 import pl.edu.agh.firecell.model.Cell;
+import pl.edu.agh.firecell.model.CellGrid;
 import pl.edu.agh.firecell.model.State;
+import pl.edu.agh.firecell.model.util.IndexUtils;
 
 public interface Algorithm {
     Cell compute(State oldState, Vector3i cellIndex);
+
+    /**
+     * Called once with the initial state before the first step of a simulation, lets implementations
+     * precompute data which stays constant during the run.
+     */
+    default void prepare(State initialState) {
+    }
+
+    /**
+     * @return simulated time in seconds a step advances by, the one chosen by the last {@link #beginStep(State)}
+     * for algorithms adapting it
+     */
+    double deltaTime();
+
+    /**
+     * Called once before the steps following {@code oldState} are computed, never concurrently with
+     * {@code compute}. Algorithms adapting their time step choose it here from the state.
+     *
+     * @return simulated time in seconds each of the following steps advances by
+     */
+    default double beginStep(State oldState) {
+        return deltaTime();
+    }
+
+    /**
+     * Same as {@link #beginStep(State)}, called by executors computing the following steps themselves. Algorithms
+     * scanning the state go through {@code ranges}, which the executor may process on the threads computing the cells.
+     */
+    default double beginStep(State oldState, CellRanges ranges) {
+        return beginStep(oldState);
+    }
+
+    /**
+     * @return step time the terms of the algorithm applied once per step, rather than per simulated second,
+     * are calibrated for, the step time itself for algorithms of a fixed time step
+     */
+    default double baseDeltaTime() {
+        return deltaTime();
+    }
+
+    /**
+     * Called before the first step of a simulation resumed from a checkpoint with the time step of the last
+     * step computed before it, so algorithms adapting their time step continue where they left off.
+     */
+    default void restoreDeltaTime(double lastDeltaTime) {
+    }
+
+    /**
+     * Computes the new value of the cell at {@code flatIndex} and stores it in {@code newGrid}.
+     * Implementations may override it to write the grid without creating intermediate {@link Cell} objects.
+     */
+    default void compute(State oldState, int flatIndex, CellGrid newGrid) {
+        newGrid.setCell(flatIndex, compute(oldState, IndexUtils.expandIndex(flatIndex, oldState.spaceSize())));
+    }
+
+    /**
+     * Computes the cells with flat indices in {@code [fromIndex, toIndex)} into {@code newGrid}.
+     */
+    default void compute(State oldState, int fromIndex, int toIndex, CellGrid newGrid) {
+        for (int flatIndex = fromIndex; flatIndex < toIndex; flatIndex++) {
+            compute(oldState, flatIndex, newGrid);
+        }
+    }
 }
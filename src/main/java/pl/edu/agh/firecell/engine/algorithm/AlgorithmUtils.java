@@ -1,39 +1,33 @@
 package pl.edu.agh.firecell.engine.algorithm;
 
-import org.joml.Vector3i;
 import pl.edu.agh.firecell.model.Cell;
-import pl.edu.agh.firecell.model.State;
+import pl.edu.agh.firecell.model.CellGrid;
 import pl.edu.agh.firecell.model.material.Material;
-import pl.edu.agh.firecell.model.util.NeighbourUtils;
-
-import java.util.stream.Stream;
+import pl.edu.agh.firecell.model.util.NeighbourStencil;
 
 public class AlgorithmUtils {
 
-    public static boolean isUpNeighbourAir(State state, Vector3i cellIndex) {
-        Vector3i upIndex = NeighbourUtils.up(cellIndex);
-        return state.hasCell(upIndex) && state.getCell(upIndex).material().equals(Material.AIR);
+    public static boolean isUpNeighbourAir(CellGrid grid, int cellIndex) {
+        int upIndex = grid.stencil().up(cellIndex);
+        return upIndex != NeighbourStencil.NONE && grid.material(upIndex) == Material.AIR;
     }
 
     public static boolean isCellBurning(Cell cell) {
         return cell.flammable() && cell.burningTime() > 0;
     }
 
-    public static Stream<Vector3i> getBurningHorizontalNeighbours(State oldState, Vector3i cellIndex) {
-        return Stream
-                .concat(NeighbourUtils.neighboursStream(cellIndex, NeighbourUtils.Axis.X), NeighbourUtils.neighboursStream(cellIndex, NeighbourUtils.Axis.Z))
-                .filter(neighbourIndex -> oldState.hasCell(neighbourIndex) &&
-                        isCellBurning(oldState.getCell(neighbourIndex)) &&
-                        oldState.getCell(neighbourIndex).remainingFirePillar() > 0 &&
-                        !isUpNeighbourAir(oldState, neighbourIndex));
+    public static boolean isBurningHorizontalNeighbour(CellGrid grid, int neighbourIndex) {
+        return grid.isBurning(neighbourIndex) &&
+                grid.remainingFirePillar(neighbourIndex) > 0 &&
+                !isUpNeighbourAir(grid, neighbourIndex);
     }
 
-    public static double tempDiffAbs(Cell cellOne, Cell cellTwo) {
-        return Math.abs(tempDiff(cellOne, cellTwo));
+    public static double tempDiffAbs(CellGrid grid, int cellOne, int cellTwo) {
+        return Math.abs(tempDiff(grid, cellOne, cellTwo));
     }
 
-    public static double tempDiff(Cell cellOne, Cell cellTwo) {
-        return cellOne.temperature() - cellTwo.temperature();
+    public static double tempDiff(CellGrid grid, int cellOne, int cellTwo) {
+        return grid.temperature(cellOne) - grid.temperature(cellTwo);
     }
 
 }
@@ -4,9 +4,10 @@ import org.joml.Vector3i;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import pl.edu.agh.firecell.model.Cell;
+import pl.edu.agh.firecell.model.CellGrid;
 import pl.edu.agh.firecell.model.exception.ConductionCoefficientException;
-import pl.edu.agh.firecell.model.material.MatterState;
 import pl.edu.agh.firecell.model.State;
+import pl.edu.agh.firecell.model.util.IndexUtils;
 
 
 public class BasicAlgorithm implements Algorithm {
@@ -17,8 +18,10 @@ public class BasicAlgorithm implements Algorithm {
     private final SmokePropagator smokePropagator;
     private final DiffusionGenerator diffusionGenerator;
     private final OxygenPropagator oxygenPropagator;
+    private final double deltaTime;
 
     public BasicAlgorithm(double deltaTime) throws ConductionCoefficientException {
+        this.deltaTime = deltaTime;
         this.temperaturePropagator = new TemperaturePropagator(deltaTime);
         this.firePropagator = new FirePropagator();
         this.diffusionGenerator = new DiffusionGenerator(deltaTime);
@@ -26,37 +29,51 @@ public class BasicAlgorithm implements Algorithm {
         this.oxygenPropagator = new OxygenPropagator(deltaTime);
     }
 
+    @Override
+    public double deltaTime() {
+        return deltaTime;
+    }
+
     @Override
     public Cell compute(State oldState, Vector3i cellIndex) {
+        return compute(oldState.grid(), IndexUtils.flattenIndex(cellIndex, oldState.spaceSize()));
+    }
+
+    @Override
+    public void compute(State oldState, int flatIndex, CellGrid newGrid) {
+        newGrid.setCell(flatIndex, compute(oldState.grid(), flatIndex));
+    }
+
+    private Cell compute(CellGrid oldGrid, int cellIndex) {
 
-        Cell oldCell = oldState.getCell(cellIndex);
+        boolean fluid = oldGrid.isFluid(cellIndex);
 
         // Temperature propagation
-        double newTemperature = temperaturePropagator.computeConduction(oldState, cellIndex, oldCell.temperature());
-        if (oldCell.material().getMatterState().equals(MatterState.FLUID))
-            newTemperature = temperaturePropagator.computeConvection(oldState, cellIndex, newTemperature);
+        double newTemperature = temperaturePropagator.computeConduction(oldGrid, cellIndex, oldGrid.temperature(cellIndex));
+        if (fluid)
+            newTemperature = temperaturePropagator.computeConvection(oldGrid, cellIndex, newTemperature);
 
         // Fire propagation
-        int newRemainingFirePillar = firePropagator.computeFirePillar(oldState, oldCell, cellIndex, oldCell.remainingFirePillar());
-        int newBurningTime = firePropagator.computeBurningTime(oldState, oldCell, cellIndex, newTemperature);
-        boolean newFlammable = firePropagator.computeNewFlammable(oldState, cellIndex, newBurningTime);
-        newTemperature = temperaturePropagator.updateTemperatureBasedOnFire(oldCell, newTemperature);
+        int newRemainingFirePillar = firePropagator.computeFirePillar(oldGrid, cellIndex, oldGrid.remainingFirePillar(cellIndex));
+        int newBurningTime = firePropagator.computeBurningTime(oldGrid, cellIndex, newTemperature);
+        boolean newFlammable = firePropagator.computeNewFlammable(oldGrid, cellIndex, newBurningTime);
+        newTemperature = temperaturePropagator.updateTemperatureBasedOnFire(oldGrid, cellIndex, newTemperature);
 
         // Smoke propagation
-        double newSmokeIndicator = smokePropagator.computeNewSmokeIndicator(oldState, cellIndex, oldCell);
+        double newSmokeIndicator = smokePropagator.computeNewSmokeIndicator(oldGrid, cellIndex);
 
         // Diffusion
-        if (oldCell.isFluid())
-            newSmokeIndicator = diffusionGenerator.smokeUpdate(oldState, cellIndex, newSmokeIndicator);
-        newTemperature = diffusionGenerator.temperatureUpdate(oldState, cellIndex, newTemperature);
-        double newOxygenLevel = oxygenPropagator.makeUseOfOxygen(oldState, cellIndex, oldCell.oxygenLevel());
-        newOxygenLevel = diffusionGenerator.oxygenUpdate(oldState, cellIndex, newOxygenLevel);
+        if (fluid)
+            newSmokeIndicator = diffusionGenerator.smokeUpdate(oldGrid, cellIndex, newSmokeIndicator);
+        newTemperature = diffusionGenerator.temperatureUpdate(oldGrid, cellIndex, newTemperature);
+        double newOxygenLevel = oxygenPropagator.makeUseOfOxygen(oldGrid, cellIndex, oldGrid.oxygenLevel(cellIndex));
+        newOxygenLevel = diffusionGenerator.oxygenUpdate(oldGrid, cellIndex, newOxygenLevel);
 
         return new Cell(
                 newTemperature,
                 newBurningTime,
                 newFlammable,
-                oldCell.material(),
+                oldGrid.material(cellIndex),
                 newRemainingFirePillar,
                 newSmokeIndicator,
                 newOxygenLevel
@@ -0,0 +1,51 @@
+package pl.edu.agh.firecell.engine.algorithm;
+
+import org.joml.Vector3i;
+import pl.edu.agh.firecell.model.CellGrid;
+
+/**
+ * Flat index ranges covering the computed cells of a grid, as a step executor splits them between its threads.
+ * On padded grids only the interior part of every interior row is covered.
+ */
+@FunctionalInterface
+public interface CellRanges {
+
+    /**
+     * Runs {@code action} for every range and returns once all of them finished. Ranges may be processed
+     * concurrently, in any order.
+     */
+    void forEach(RangeAction action);
+
+    /**
+     * @return ranges of the computed cells of the grid, processed one after another on the calling thread
+     */
+    static CellRanges of(CellGrid grid) {
+        return action -> forEachComputedRange(grid, 0, grid.cellCount(), action);
+    }
+
+    /**
+     * Runs {@code action} for the cells of {@code [fromIndex, toIndex)} which are computed: the whole range
+     * on plain grids, the interior part of every interior row on padded ones. The range must consist of whole rows.
+     */
+    static void forEachComputedRange(CellGrid grid, int fromIndex, int toIndex, RangeAction action) {
+        int halo = grid.halo();
+        if (halo == 0) {
+            action.run(fromIndex, toIndex);
+            return;
+        }
+        Vector3i spaceSize = grid.spaceSize();
+        for (int rowStart = fromIndex; rowStart < toIndex; rowStart += spaceSize.x) {
+            int row = rowStart / spaceSize.x;
+            int y = row % spaceSize.y;
+            int z = row / spaceSize.y;
+            if (y >= halo && y < spaceSize.y - halo && z >= halo && z < spaceSize.z - halo) {
+                action.run(rowStart + halo, rowStart + spaceSize.x - halo);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface RangeAction {
+        void run(int fromIndex, int toIndex);
+    }
+}
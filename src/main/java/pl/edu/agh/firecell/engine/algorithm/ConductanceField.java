@@ -0,0 +1,52 @@
+package pl.edu.agh.firecell.engine.algorithm;
+
+import org.joml.Vector3i;
+import pl.edu.agh.firecell.model.CellGrid;
+import pl.edu.agh.firecell.model.material.MaterialConductionMap;
+import pl.edu.agh.firecell.model.util.NeighbourStencil;
+
+/**
+ * Conduction coefficient between every cell and each of its face neighbours, looked up once from
+ * {@link MaterialConductionMap}. Materials do not change during a simulation, so the field built from its
+ * initial state serves every step. Faces on the boundary of the space have zero conductance.
+ */
+public class ConductanceField {
+
+    private final Vector3i spaceSize;
+    private final double[][] faceConductance;
+
+    public ConductanceField(CellGrid grid, MaterialConductionMap materialConductionMap) {
+        this.spaceSize = new Vector3i(grid.spaceSize());
+        NeighbourStencil stencil = grid.stencil();
+        int cellCount = grid.cellCount();
+        this.faceConductance = new double[NeighbourStencil.FACE_COUNT][cellCount];
+        for (int face = 0; face < NeighbourStencil.FACE_COUNT; face++) {
+            double[] conductance = faceConductance[face];
+            for (int i = 0; i < cellCount; i++) {
+                int neighbour = stencil.neighbour(i, face);
+                if (neighbour != NeighbourStencil.NONE) {
+                    conductance[i] = materialConductionMap.getCoefficient(grid.materialOrdinal(neighbour), grid.materialOrdinal(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return whether the field can be used for the grid, which is assumed to hold the same materials
+     * as the grid the field was built from
+     */
+    public boolean matches(CellGrid grid) {
+        return spaceSize.equals(grid.spaceSize()) && faceConductance[0].length == grid.cellCount();
+    }
+
+    public double conductance(int face, int index) {
+        return faceConductance[face][index];
+    }
+
+    /**
+     * @return conductance of the given face for every cell, indexed by the flat cell index
+     */
+    public double[] faceConductance(int face) {
+        return faceConductance[face];
+    }
+}
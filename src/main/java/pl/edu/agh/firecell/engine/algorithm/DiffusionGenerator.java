@@ -1,56 +1,68 @@
 package pl.edu.agh.firecell.engine.algorithm;
 
-import org.joml.Vector3i;
-import pl.edu.agh.firecell.model.Cell;
-import pl.edu.agh.firecell.model.material.Material;
-import pl.edu.agh.firecell.model.State;
-import pl.edu.agh.firecell.model.util.NeighbourUtils;
+import pl.edu.agh.firecell.model.CellGrid;
+import pl.edu.agh.firecell.model.util.NeighbourStencil;
+
+import static pl.edu.agh.firecell.model.util.NeighbourStencil.NONE;
 
 public class DiffusionGenerator {
+    // weights of the cell itself in the smoke and temperature diffusion, each neighbour weighs 1
+    public static final double SMOKE_MAIN_WEIGHT = 100;
+    public static final double TEMPERATURE_MAIN_WEIGHT = 20;
+    // the cell and its six neighbours weigh 1 each in the oxygen diffusion
+    public static final double OXYGEN_SUM_OF_WEIGHTS = 7;
+    // to speed up oxygen diffusion
+    public static final double OXYGEN_DIFFUSION_COEFFICIENT = 2;
+
     private final double deltaTime;
 
     public DiffusionGenerator(double deltaTime) {
         this.deltaTime = deltaTime;
     }
 
-    public double smokeUpdate(State oldState, Vector3i cellIndex, double currentSmoke) {
+    public double smokeUpdate(CellGrid oldGrid, int cellIndex, double currentSmoke) {
         double upNeighbourWeight = 1;
         double downNeighbourWeight = 1;
-        double mainWeight = 100;
+        double mainWeight = SMOKE_MAIN_WEIGHT;
         double sumOfWeights = upNeighbourWeight + downNeighbourWeight + mainWeight;
-        Vector3i indexAbove = NeighbourUtils.up(cellIndex);
-        Vector3i indexUnder = NeighbourUtils.down(cellIndex);
-        Cell underCell = oldState.hasCell(indexUnder) ? oldState.getCell(indexUnder) : null;
-        Cell aboveCell = oldState.hasCell(indexAbove) ? oldState.getCell(indexAbove) : null;
-        if ((underCell == null || !underCell.isFluid()) ||
-                (aboveCell == null || !aboveCell.isFluid())) {
+        int indexAbove = oldGrid.stencil().up(cellIndex);
+        int indexUnder = oldGrid.stencil().down(cellIndex);
+        if ((indexUnder == NONE || !oldGrid.isFluid(indexUnder)) ||
+                (indexAbove == NONE || !oldGrid.isFluid(indexAbove))) {
             return currentSmoke;
         }
-        return (downNeighbourWeight / sumOfWeights * underCell.smokeIndicator()
+        return (downNeighbourWeight / sumOfWeights * oldGrid.smokeIndicator(indexUnder)
                 + mainWeight / sumOfWeights * currentSmoke
-                + upNeighbourWeight / sumOfWeights * aboveCell.smokeIndicator());
+                + upNeighbourWeight / sumOfWeights * oldGrid.smokeIndicator(indexAbove));
     }
 
-    public double temperatureUpdate(State oldState, Vector3i cellIndex, double currentTemperature) {
+    public double temperatureUpdate(CellGrid oldGrid, int cellIndex, double currentTemperature) {
         int neighbourWeight = 1;
-        int mainWeight = 20;
-        return (NeighbourUtils.neighboursStream(cellIndex)
-                .map(index -> oldState.hasCell(index) && oldState.getCell(index).isFluid() ?
-                        oldState.getCell(index) :
-                        new Cell(currentTemperature, 0, true, Material.WOOD))
-                .map(neighbourCell -> deltaTime * neighbourWeight * neighbourCell.temperature())
-                .mapToDouble(Double::doubleValue).sum() + mainWeight * currentTemperature) / (6 * deltaTime * neighbourWeight + mainWeight);
+        double mainWeight = TEMPERATURE_MAIN_WEIGHT;
+        NeighbourStencil stencil = oldGrid.stencil();
+        double neighboursSum = 0;
+        for (int face = 0; face < NeighbourStencil.FACE_COUNT; face++) {
+            int index = stencil.neighbour(cellIndex, face);
+            double neighbourTemperature = index != NONE && oldGrid.isFluid(index) ?
+                    oldGrid.temperature(index) :
+                    currentTemperature;
+            neighboursSum += deltaTime * neighbourWeight * neighbourTemperature;
+        }
+        return (neighboursSum + mainWeight * currentTemperature) / (6 * deltaTime * neighbourWeight + mainWeight);
     }
 
-    public double oxygenUpdate(State oldState, Vector3i cellIndex, double currentOxygen) {
+    public double oxygenUpdate(CellGrid oldGrid, int cellIndex, double currentOxygen) {
         double neighbourWeight = 1;
         double mainWeight = 1;
-        // to speed up diffusion
-        int internalOxygenDiffusionCoe = 2;
-        double sumOfWeights = 6 * neighbourWeight + mainWeight;
-        return currentOxygen - Math.min(deltaTime * internalOxygenDiffusionCoe, 1) * (currentOxygen - (NeighbourUtils.neighboursStream(cellIndex)
-                .map(index -> oldState.hasCell(index) && oldState.getCell(index).isFluid() ?
-                        oldState.getCell(index).oxygenLevel() * neighbourWeight / sumOfWeights : currentOxygen * neighbourWeight / sumOfWeights)
-                .mapToDouble(Double::doubleValue).sum() + mainWeight / sumOfWeights * currentOxygen));
+        double sumOfWeights = OXYGEN_SUM_OF_WEIGHTS;
+        NeighbourStencil stencil = oldGrid.stencil();
+        double neighboursSum = 0;
+        for (int face = 0; face < NeighbourStencil.FACE_COUNT; face++) {
+            int index = stencil.neighbour(cellIndex, face);
+            neighboursSum += index != NONE && oldGrid.isFluid(index) ?
+                    oldGrid.oxygenLevel(index) * neighbourWeight / sumOfWeights : currentOxygen * neighbourWeight / sumOfWeights;
+        }
+        return currentOxygen - Math.min(deltaTime * OXYGEN_DIFFUSION_COEFFICIENT, 1) * (currentOxygen - (neighboursSum
+                + mainWeight / sumOfWeights * currentOxygen));
     }
-}
\ No newline at end of file
+}
@@ -1,61 +1,64 @@
 package pl.edu.agh.firecell.engine.algorithm;
 
-import org.joml.Vector3i;
-import pl.edu.agh.firecell.model.Cell;
+import pl.edu.agh.firecell.model.CellGrid;
 import pl.edu.agh.firecell.model.material.Material;
-import pl.edu.agh.firecell.model.State;
-import pl.edu.agh.firecell.model.util.NeighbourUtils;
+import pl.edu.agh.firecell.model.util.NeighbourStencil;
 
-import java.util.stream.Stream;
+import static pl.edu.agh.firecell.model.util.NeighbourStencil.NONE;
 
 
 public class FirePropagator {
 
-    private static final int MAX_BURNING_TIME = 50;
+    static final int MAX_BURNING_TIME = 50;
     // Required time period to set on fire neighbour cell with temperature
     // higher than ignition temperature
-    private static final int REQUIRED_TIME = 25;
+    static final int REQUIRED_TIME = 25;
     // Value how much percentage of oxygen one cell should use
     // it also define how much must be accessible
     public static final double OXYGEN_USAGE_IN_FIRE = 5;
 
-    public boolean computeNewFlammable(State oldState, Vector3i cellIndex, int newBurningTime) {
-        Cell oldCell = oldState.getCell(cellIndex);
-        return switch (oldCell.material()) {
-            case WOOD -> newBurningTime < MAX_BURNING_TIME && haveAccessToOxygen(oldState, cellIndex);
-            case AIR -> oldCell.oxygenLevel() > 0;
+    public boolean computeNewFlammable(CellGrid oldGrid, int cellIndex, int newBurningTime) {
+        return switch (oldGrid.material(cellIndex)) {
+            case WOOD -> newBurningTime < MAX_BURNING_TIME && haveAccessToOxygen(oldGrid, cellIndex);
+            case AIR -> oldGrid.oxygenLevel(cellIndex) > 0;
             case CELLULAR_CONCRETE -> false;
         };
     }
 
-    public int computeBurningTime(State oldState, Cell oldCell, Vector3i cellIndex, double newTemperature) {
-        return switch (oldCell.material()) {
-            case WOOD -> computeBurningTimeWood(oldState, cellIndex, newTemperature, oldCell.burningTime());
-            case AIR -> oldState.getCell(cellIndex).remainingFirePillar() > 0 ? 1 : 0;
+    public int computeBurningTime(CellGrid oldGrid, int cellIndex, double newTemperature) {
+        return switch (oldGrid.material(cellIndex)) {
+            case WOOD -> computeBurningTimeWood(oldGrid, cellIndex, newTemperature, oldGrid.burningTime(cellIndex));
+            case AIR -> oldGrid.remainingFirePillar(cellIndex) > 0 ? 1 : 0;
             case CELLULAR_CONCRETE -> 0;
         };
     }
 
-    public int computeFirePillar(State oldState, Cell oldCell, Vector3i cellIndex, int currentFirePillar) {
-        if (!oldCell.material().equals(Material.AIR))
+    public int computeFirePillar(CellGrid oldGrid, int cellIndex, int currentFirePillar) {
+        if (oldGrid.material(cellIndex) != Material.AIR)
             return currentFirePillar;
 
+        NeighbourStencil stencil = oldGrid.stencil();
+
         // from under
         int downFirePillar = 0;
-        if (oldState.hasCell(NeighbourUtils.down(cellIndex)) &&
-                AlgorithmUtils.isCellBurning(oldState.getCell(NeighbourUtils.down(cellIndex))) &&
-                oldState.getCell(NeighbourUtils.down(cellIndex)).remainingFirePillar() > 1) {
-            downFirePillar = oldState.getCell(NeighbourUtils.down(cellIndex)).remainingFirePillar() - 1;
+        int indexUnder = stencil.down(cellIndex);
+        if (indexUnder != NONE &&
+                oldGrid.isBurning(indexUnder) &&
+                oldGrid.remainingFirePillar(indexUnder) > 1) {
+            downFirePillar = oldGrid.remainingFirePillar(indexUnder) - 1;
         }
 
         // from neighbour
         int neighbourFirePillar = 0;
-        int horizontalNeighbourFirePillar = AlgorithmUtils.getBurningHorizontalNeighbours(oldState, cellIndex)
-                .filter(neighbourIndex -> !AlgorithmUtils.isUpNeighbourAir(oldState, neighbourIndex) &&
-                        oldState.getCell(neighbourIndex).remainingFirePillar() - 1 > 0)
-                .map(neighbourIndex -> oldState.getCell(neighbourIndex).remainingFirePillar())
-                .max(Integer::compareTo)
-                .orElse(0);
+        int horizontalNeighbourFirePillar = 0;
+        for (int face = NeighbourStencil.EAST; face < NeighbourStencil.FACE_COUNT; face++) {
+            int neighbourIndex = stencil.neighbour(cellIndex, face);
+            if (neighbourIndex != NONE &&
+                    AlgorithmUtils.isBurningHorizontalNeighbour(oldGrid, neighbourIndex) &&
+                    oldGrid.remainingFirePillar(neighbourIndex) - 1 > 0) {
+                horizontalNeighbourFirePillar = Math.max(horizontalNeighbourFirePillar, oldGrid.remainingFirePillar(neighbourIndex));
+            }
+        }
         if (horizontalNeighbourFirePillar > currentFirePillar) {
             neighbourFirePillar = horizontalNeighbourFirePillar - 1;
         }
@@ -65,45 +68,46 @@ public class FirePropagator {
 
 
 
-    private int computeBurningTimeWood(State oldState, Vector3i cellIndex, double newTemperature, int currenBurningTime) {
-        Cell oldCell = oldState.getCell(cellIndex);
+    private int computeBurningTimeWood(CellGrid oldGrid, int cellIndex, double newTemperature, int currenBurningTime) {
+        int oldBurningTime = oldGrid.burningTime(cellIndex);
 
-        if (oldCell.burningTime() == 0 && MAX_BURNING_TIME != 0 && oldCell.flammable()) {
+        if (oldBurningTime == 0 && MAX_BURNING_TIME != 0 && oldGrid.flammable(cellIndex)) {
 
             if (newTemperature > Material.WOOD.autoIgnitionTemperature()) {
                 return 1;
 
-            } else if (shouldIgniteFromNeighbour(oldState, cellIndex)
+            } else if (shouldIgniteFromNeighbour(oldGrid, cellIndex)
                     && newTemperature > Material.WOOD.ignitionTemperature()) {
                 return 1;
             }
         }
 
-        if (oldCell.burningTime() > 0 && oldCell.burningTime() <= MAX_BURNING_TIME) {
+        if (oldBurningTime > 0 && oldBurningTime <= MAX_BURNING_TIME) {
             return currenBurningTime + 1;
         }
         return currenBurningTime;
     }
 
-    private boolean shouldIgniteFromNeighbour(State oldState, Vector3i cellIndex) {
-        return Stream.concat(NeighbourUtils.neighboursStream(cellIndex, NeighbourUtils.Axis.X),
-                        NeighbourUtils.neighboursStream(cellIndex, NeighbourUtils.Axis.Z))
-                .filter(oldState::hasCell)
-                .map(oldState::getCell)
-                .anyMatch(cell -> cell.burningTime() > REQUIRED_TIME);
+    private boolean shouldIgniteFromNeighbour(CellGrid oldGrid, int cellIndex) {
+        NeighbourStencil stencil = oldGrid.stencil();
+        for (int face = NeighbourStencil.EAST; face < NeighbourStencil.FACE_COUNT; face++) {
+            int neighbourIndex = stencil.neighbour(cellIndex, face);
+            if (neighbourIndex != NONE && oldGrid.burningTime(neighbourIndex) > REQUIRED_TIME) {
+                return true;
+            }
+        }
+        return false;
     }
 
-    private boolean haveAccessToOxygen(State oldState, Vector3i cellIndex) {
-        double sumOfOxygen = NeighbourUtils.neighboursStream(cellIndex)
-                .filter(oldState::hasCell)
-                .map(oldState::getCell)
-                .filter(cell -> cell.material().equals(Material.AIR))
-                .mapToDouble(Cell::oxygenLevel)
-                .sum();
+    private boolean haveAccessToOxygen(CellGrid oldGrid, int cellIndex) {
+        NeighbourStencil stencil = oldGrid.stencil();
+        double sumOfOxygen = 0;
+        for (int face = 0; face < NeighbourStencil.FACE_COUNT; face++) {
+            int neighbourIndex = stencil.neighbour(cellIndex, face);
+            if (neighbourIndex != NONE && oldGrid.material(neighbourIndex) == Material.AIR) {
+                sumOfOxygen += oldGrid.oxygenLevel(neighbourIndex);
+            }
+        }
         return sumOfOxygen >= OXYGEN_USAGE_IN_FIRE;
     }
-
-    private static boolean isCellBurning(Cell cell) {
-        return cell.flammable() && cell.burningTime() > 0;
-    }
 }
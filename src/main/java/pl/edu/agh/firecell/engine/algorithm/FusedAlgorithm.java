@@ -0,0 +1,393 @@
+package pl.edu.agh.firecell.engine.algorithm;
+
+import org.joml.Vector3i;
+import pl.edu.agh.firecell.engine.algorithm.kernel.DiffusionKernel;
+import pl.edu.agh.firecell.engine.algorithm.kernel.ScalarDiffusionKernel;
+import pl.edu.agh.firecell.model.Cell;
+import pl.edu.agh.firecell.model.CellGrid;
+import pl.edu.agh.firecell.model.PackedCellState;
+import pl.edu.agh.firecell.model.State;
+import pl.edu.agh.firecell.model.exception.ConductionCoefficientException;
+import pl.edu.agh.firecell.model.material.Material;
+import pl.edu.agh.firecell.model.material.MaterialConductionMap;
+import pl.edu.agh.firecell.model.util.IndexUtils;
+import pl.edu.agh.firecell.model.util.NeighbourStencil;
+
+import static pl.edu.agh.firecell.engine.algorithm.DiffusionGenerator.SMOKE_MAIN_WEIGHT;
+import static pl.edu.agh.firecell.engine.algorithm.FirePropagator.MAX_BURNING_TIME;
+import static pl.edu.agh.firecell.engine.algorithm.FirePropagator.OXYGEN_USAGE_IN_FIRE;
+import static pl.edu.agh.firecell.engine.algorithm.FirePropagator.REQUIRED_TIME;
+import static pl.edu.agh.firecell.engine.algorithm.SmokePropagator.DEVIATION;
+import static pl.edu.agh.firecell.engine.algorithm.SmokePropagator.MAX_SMOKE_LEVEL;
+import static pl.edu.agh.firecell.engine.algorithm.SmokePropagator.SMOKE_COEFFICIENT;
+import static pl.edu.agh.firecell.engine.algorithm.SmokePropagator.SMOKE_LIMIT_VALUE;
+import static pl.edu.agh.firecell.engine.algorithm.TemperaturePropagator.BURNING_TEMPERATURE_COEFFICIENT;
+import static pl.edu.agh.firecell.engine.algorithm.TemperaturePropagator.CONVECTION_COEFFICIENT;
+import static pl.edu.agh.firecell.model.util.NeighbourStencil.NONE;
+
+/**
+ * Single pass variant of {@link BasicAlgorithm}. The neighbours of a cell are looked up once and every
+ * quantity is computed from them directly into the new grid, without intermediate objects.
+ * Conduction, the first stage, and temperature and oxygen diffusion, the last one, are applied to whole
+ * ranges of cells by a {@link DiffusionKernel}. Conduction reads the {@link ConductanceField} built in
+ * {@link #prepare(State)}, states of other space sizes fall back to the material conduction table.
+ * Formulas and their evaluation order are the ones of the propagators, so results are bit-identical
+ * to {@link BasicAlgorithm}.
+ * <p>
+ * Conduction along the Y and X axes and the vertical smoke diffusion are applied once per step. An algorithm created
+ * with a base step time scales them by the ratio of its step time to the base one, so that algorithms of different
+ * step times, like the rungs of {@link AdaptiveAlgorithm}, advance them at the same rate per simulated second.
+ * With the default base step time, the step time itself, the ratio is 1 and the results stay the ones of the propagators.
+ * <p>
+ * {@link #beginStep(State, CellRanges)} finds the z-planes of the state where fire and smoke are quiet, see
+ * {@link PlaneActivity}, scanning the ranges of the executor on its threads. Computing from that state, cells
+ * of quiet planes other than wood skip gathering fire and smoke from their neighbours and the smoke propagation,
+ * which could not change anything. Before ignition and after the fire died out, most of the space only conducts
+ * and diffuses heat and oxygen.
+ */
+public class FusedAlgorithm implements Algorithm {
+
+    private static final Vector3i SINGLE_CELL = new Vector3i(1, 1, 1);
+
+    private final double deltaTime;
+    private final double baseDeltaTime;
+    private final double stepRatio;
+    private final MaterialConductionMap materialConductionMap;
+    private final DiffusionKernel diffusionKernel;
+    private final ScalarDiffusionKernel scalarDiffusionKernel;
+    private volatile ConductanceField conductanceField;
+    private volatile PlaneActivity planeActivity;
+
+    public FusedAlgorithm(double deltaTime) throws ConductionCoefficientException {
+        this(deltaTime, deltaTime);
+    }
+
+    /**
+     * @param baseDeltaTime step time the terms applied once per step are calibrated for
+     */
+    public FusedAlgorithm(double deltaTime, double baseDeltaTime) throws ConductionCoefficientException {
+        this(deltaTime, baseDeltaTime, DiffusionKernel.create(deltaTime, baseDeltaTime));
+    }
+
+    public FusedAlgorithm(double deltaTime, DiffusionKernel diffusionKernel) throws ConductionCoefficientException {
+        this(deltaTime, deltaTime, diffusionKernel);
+    }
+
+    /**
+     * @param diffusionKernel kernel created for the same step times
+     */
+    public FusedAlgorithm(double deltaTime, double baseDeltaTime, DiffusionKernel diffusionKernel)
+            throws ConductionCoefficientException {
+        this.deltaTime = deltaTime;
+        this.baseDeltaTime = baseDeltaTime;
+        this.stepRatio = DiffusionKernel.stepRatio(deltaTime, baseDeltaTime);
+        this.diffusionKernel = diffusionKernel;
+        this.scalarDiffusionKernel = new ScalarDiffusionKernel(deltaTime, baseDeltaTime);
+        this.materialConductionMap = new MaterialConductionMap();
+    }
+
+    @Override
+    public void prepare(State initialState) {
+        prepare(new ConductanceField(initialState.grid(), materialConductionMap));
+    }
+
+    /**
+     * Prepares the algorithm with a field already built for the initial state, e.g. shared between algorithms
+     * of different time steps.
+     */
+    void prepare(ConductanceField conductanceField) {
+        this.conductanceField = conductanceField;
+    }
+
+    @Override
+    public double deltaTime() {
+        return deltaTime;
+    }
+
+    @Override
+    public double baseDeltaTime() {
+        return baseDeltaTime;
+    }
+
+    /**
+     * Gathers no {@link PlaneActivity}, the following steps compute every cell in full. Used e.g. by coordinators
+     * leaving the computation to other processes.
+     */
+    @Override
+    public double beginStep(State oldState) {
+        planeActivity = null;
+        return deltaTime;
+    }
+
+    @Override
+    public double beginStep(State oldState, CellRanges ranges) {
+        planeActivity = PlaneActivity.of(oldState, ranges);
+        return deltaTime;
+    }
+
+    @Override
+    public Cell compute(State oldState, Vector3i cellIndex) {
+        CellGrid oldGrid = oldState.grid();
+        int flatIndex = IndexUtils.flattenIndex(cellIndex, oldState.spaceSize());
+        CellGrid result = new CellGrid(SINGLE_CELL);
+        ConductanceField field = conductanceField;
+        boolean conducted = field != null && field.matches(oldGrid);
+        if (conducted) {
+            result.setTemperature(0, scalarDiffusionKernel.conduction(oldGrid, field, flatIndex));
+        }
+        computeCell(oldGrid, flatIndex, result, 0, conducted, false);
+        result.setTemperature(0, scalarDiffusionKernel.temperature(oldGrid, flatIndex, result.temperature(0)));
+        result.setOxygenLevel(0, scalarDiffusionKernel.oxygen(oldGrid, flatIndex, result.oxygenLevel(0)));
+        return result.getCell(0);
+    }
+
+    @Override
+    public void compute(State oldState, int flatIndex, CellGrid newGrid) {
+        compute(oldState, flatIndex, flatIndex + 1, newGrid);
+    }
+
+    @Override
+    public void compute(State oldState, int fromIndex, int toIndex, CellGrid newGrid) {
+        CellGrid oldGrid = oldState.grid();
+        ConductanceField field = conductanceField;
+        boolean conducted = field != null && field.matches(oldGrid);
+        if (conducted) {
+            diffusionKernel.conduct(oldGrid, field, newGrid, fromIndex, toIndex);
+        }
+        PlaneActivity activity = planeActivity;
+        boolean activityKnown = activity != null && activity.describes(oldState);
+        for (int flatIndex = fromIndex; flatIndex < toIndex; flatIndex++) {
+            computeCell(oldGrid, flatIndex, newGrid, flatIndex, conducted, activityKnown && activity.isQuiet(flatIndex));
+        }
+        diffusionKernel.diffuse(oldGrid, newGrid, fromIndex, toIndex);
+    }
+
+    /**
+     * Computes everything but the temperature and oxygen diffusion, which the caller applies afterwards.
+     * When {@code conducted} is set, the temperature after conduction is already stored in the target cell.
+     * When {@code quiet} is set, the cell lies in a quiet plane of {@link PlaneActivity}.
+     */
+    private void computeCell(CellGrid oldGrid, int cellIndex, CellGrid newGrid, int targetIndex, boolean conducted,
+                             boolean quiet) {
+        NeighbourStencil stencil = oldGrid.stencil();
+        int up = stencil.up(cellIndex);
+        int down = stencil.down(cellIndex);
+
+        int oldState = oldGrid.packedState(cellIndex);
+        Material material = PackedCellState.material(oldState);
+        boolean fluid = oldGrid.isFluid(cellIndex);
+        boolean burning = PackedCellState.burning(oldState);
+        double oldTemperature = oldGrid.temperature(cellIndex);
+        int oldBurningTime = PackedCellState.burningTime(oldState);
+        int oldFirePillar = PackedCellState.remainingFirePillar(oldState);
+        double oldSmoke = oldGrid.smokeIndicator(cellIndex);
+        double oldOxygen = oldGrid.oxygenLevel(cellIndex);
+
+        boolean hasUp = up != NONE;
+        boolean hasDown = down != NONE;
+        boolean upFluid = hasUp && oldGrid.isFluid(up);
+        boolean downFluid = hasDown && oldGrid.isFluid(down);
+        // values gathered from the neighbours keep their initial ones, the ones of a quiet neighbourhood
+        boolean fireAndSmokeQuiet = quiet && material != Material.WOOD;
+
+        // single pass over the horizontal neighbours gathering everything derived from them
+        int horizontalFirePillar = 0;
+        boolean neighbourBurnsLongEnough = false;
+        double sumOfOxygen = 0;
+        if (hasUp && oldGrid.material(up) == Material.AIR) {
+            sumOfOxygen += oldGrid.oxygenLevel(up);
+        }
+        if (hasDown && oldGrid.material(down) == Material.AIR) {
+            sumOfOxygen += oldGrid.oxygenLevel(down);
+        }
+        double smokeFromNeighbours = 0;
+        int neighboursWithSmokeCapacity = 0;
+        for (int face = NeighbourStencil.EAST; face < NeighbourStencil.FACE_COUNT && !fireAndSmokeQuiet; face++) {
+            int neighbour = stencil.neighbour(cellIndex, face);
+            if (neighbour == NONE) {
+                continue;
+            }
+            int neighbourUp = stencil.up(neighbour);
+            int neighbourState = oldGrid.packedState(neighbour);
+            Material neighbourMaterial = PackedCellState.material(neighbourState);
+            boolean neighbourBurning = PackedCellState.burning(neighbourState);
+            int neighbourFirePillar = PackedCellState.remainingFirePillar(neighbourState);
+            boolean neighbourUpAir = neighbourUp != NONE && oldGrid.material(neighbourUp) == Material.AIR;
+
+            if (neighbourBurning && neighbourFirePillar > 0 && !neighbourUpAir && neighbourFirePillar - 1 > 0) {
+                horizontalFirePillar = Math.max(horizontalFirePillar, neighbourFirePillar);
+            }
+            if (PackedCellState.burningTime(neighbourState) > REQUIRED_TIME) {
+                neighbourBurnsLongEnough = true;
+            }
+            if (neighbourMaterial == Material.AIR) {
+                sumOfOxygen += oldGrid.oxygenLevel(neighbour);
+            }
+            if ((neighbourUp == NONE || oldGrid.isSolid(neighbourUp)) && neighbourBurning && oldGrid.isSolid(neighbour)) {
+                smokeFromNeighbours += neighbourMaterial.smokeCoe() / 4.0;
+            }
+            if (oldGrid.smokeIndicator(neighbour) < MAX_SMOKE_LEVEL) {
+                neighboursWithSmokeCapacity++;
+            }
+        }
+
+        // Temperature propagation
+        double newTemperature = conducted ?
+                newGrid.temperature(targetIndex) :
+                oldTemperature + deltaTime * axisConduction(oldGrid, stencil.north(cellIndex), cellIndex, stencil.south(cellIndex)) +
+                        stepRatio * axisConduction(oldGrid, up, cellIndex, down) +
+                        stepRatio * axisConduction(oldGrid, stencil.east(cellIndex), cellIndex, stencil.west(cellIndex));
+        if (fluid) {
+            double temperatureDifference = 0;
+            if (downFluid && oldGrid.temperature(down) > oldTemperature)
+                temperatureDifference += CONVECTION_COEFFICIENT * Math.abs(oldTemperature - oldGrid.temperature(down));
+            if (upFluid && oldGrid.temperature(up) < oldTemperature)
+                temperatureDifference -= CONVECTION_COEFFICIENT * Math.abs(oldTemperature - oldGrid.temperature(up));
+            newTemperature = newTemperature + deltaTime * temperatureDifference;
+        }
+
+        // Fire propagation
+        int newRemainingFirePillar = oldFirePillar;
+        if (material == Material.AIR) {
+            int downFirePillar = 0;
+            if (hasDown && oldGrid.isBurning(down) && oldGrid.remainingFirePillar(down) > 1) {
+                downFirePillar = oldGrid.remainingFirePillar(down) - 1;
+            }
+            int neighbourFirePillar = 0;
+            if (horizontalFirePillar > oldFirePillar) {
+                neighbourFirePillar = horizontalFirePillar - 1;
+            }
+            newRemainingFirePillar = Math.max(downFirePillar, neighbourFirePillar);
+        }
+
+        int newBurningTime = switch (material) {
+            case WOOD -> burningTimeWood(PackedCellState.flammable(oldState), oldBurningTime, newTemperature, neighbourBurnsLongEnough);
+            case AIR -> oldFirePillar > 0 ? 1 : 0;
+            case CELLULAR_CONCRETE -> 0;
+        };
+        boolean newFlammable = switch (material) {
+            case WOOD -> newBurningTime < MAX_BURNING_TIME && sumOfOxygen >= OXYGEN_USAGE_IN_FIRE;
+            case AIR -> oldOxygen > 0;
+            case CELLULAR_CONCRETE -> false;
+        };
+        if (burning) {
+            double diffToMaterialBurningTemperature = material.getBurningTemperature() - newTemperature;
+            if (diffToMaterialBurningTemperature > 0)
+                newTemperature = newTemperature + diffToMaterialBurningTemperature * deltaTime * BURNING_TEMPERATURE_COEFFICIENT;
+        }
+
+        // Smoke propagation, without smoke or fire around every term is zero and the result is clamped to 0.0
+        double newSmokeIndicator = 0.0;
+        if (!fireAndSmokeQuiet) {
+            double smokeFromFire = 0;
+            if (hasDown && oldGrid.isBurning(down) && oldGrid.isSolid(down)) {
+                smokeFromFire = oldGrid.material(down).smokeCoe();
+            }
+            smokeFromFire = smokeFromFire + smokeFromNeighbours;
+            double smokeDifference = smokeDifference(oldGrid, cellIndex, oldSmoke, up, upFluid, down, downFluid,
+                    neighboursWithSmokeCapacity + 1);
+            newSmokeIndicator = Math.min(oldSmoke + (smokeDifference + smokeFromFire) * deltaTime * SMOKE_COEFFICIENT, MAX_SMOKE_LEVEL);
+            newSmokeIndicator = newSmokeIndicator < DEVIATION ? 0.0 : newSmokeIndicator;
+
+            // Smoke diffusion
+            if (fluid && downFluid && upFluid) {
+                double upNeighbourWeight = 1;
+                double downNeighbourWeight = 1;
+                double mainWeight = SMOKE_MAIN_WEIGHT / stepRatio;
+                double sumOfWeights = upNeighbourWeight + downNeighbourWeight + mainWeight;
+                newSmokeIndicator = (downNeighbourWeight / sumOfWeights * oldGrid.smokeIndicator(down)
+                        + mainWeight / sumOfWeights * newSmokeIndicator
+                        + upNeighbourWeight / sumOfWeights * oldGrid.smokeIndicator(up));
+            }
+        }
+
+        // Oxygen usage
+        double newOxygenLevel = oldOxygen;
+        if (burning && material == Material.AIR && newOxygenLevel > 0) {
+            newOxygenLevel = Math.max(0, newOxygenLevel - (deltaTime * OXYGEN_USAGE_IN_FIRE));
+        }
+
+        newGrid.setTemperature(targetIndex, newTemperature);
+        newGrid.setPackedState(targetIndex, PackedCellState.pack(material, newFlammable, newBurningTime, newRemainingFirePillar));
+        newGrid.setSmokeIndicator(targetIndex, newSmokeIndicator);
+        newGrid.setOxygenLevel(targetIndex, newOxygenLevel);
+    }
+
+    private double axisConduction(CellGrid oldGrid, int formerIndex, int middleIndex, int furtherIndex) {
+        if (formerIndex == NONE && furtherIndex == NONE) {
+            return 0.0;
+        }
+        int former = formerIndex == NONE ? middleIndex : formerIndex;
+        int further = furtherIndex == NONE ? middleIndex : furtherIndex;
+        double middleTemperature = oldGrid.temperature(middleIndex);
+        int middleMaterial = oldGrid.materialOrdinal(middleIndex);
+        return -(materialConductionMap.getCoefficient(oldGrid.materialOrdinal(former), middleMaterial) * (middleTemperature - oldGrid.temperature(former))
+                + materialConductionMap.getCoefficient(oldGrid.materialOrdinal(further), middleMaterial) * (middleTemperature - oldGrid.temperature(further)));
+    }
+
+    private static int burningTimeWood(boolean flammable, int oldBurningTime, double newTemperature,
+                                       boolean neighbourBurnsLongEnough) {
+        if (oldBurningTime == 0 && MAX_BURNING_TIME != 0 && flammable) {
+            if (newTemperature > Material.WOOD.autoIgnitionTemperature()) {
+                return 1;
+            } else if (neighbourBurnsLongEnough && newTemperature > Material.WOOD.ignitionTemperature()) {
+                return 1;
+            }
+        }
+        if (oldBurningTime > 0 && oldBurningTime <= MAX_BURNING_TIME) {
+            return oldBurningTime + 1;
+        }
+        return oldBurningTime;
+    }
+
+    private static double smokeDifference(CellGrid oldGrid, int cellIndex, double oldSmoke,
+                                          int up, boolean upFluid, int down, boolean downFluid,
+                                          int numberOfNeighboursMine) {
+        double valueOfSmokeDuringComputing = oldSmoke;
+
+        double diffFromAbove = 0;
+        if (upFluid) {
+            diffFromAbove = -Math.min(oldSmoke, MAX_SMOKE_LEVEL - oldGrid.smokeIndicator(up));
+            valueOfSmokeDuringComputing += diffFromAbove;
+        }
+        double diffFromDown = 0;
+        if (downFluid) {
+            diffFromDown = Math.min(oldGrid.smokeIndicator(down), MAX_SMOKE_LEVEL - oldSmoke);
+            valueOfSmokeDuringComputing += diffFromDown;
+        }
+
+        NeighbourStencil stencil = oldGrid.stencil();
+        boolean cellAboveCanNotTakeSmoke = !upFluid || oldGrid.smokeIndicator(up) >= SMOKE_LIMIT_VALUE;
+        double diffFromAround = 0;
+        for (int face = NeighbourStencil.EAST; face < NeighbourStencil.FACE_COUNT; face++) {
+            int neighbour = stencil.neighbour(cellIndex, face);
+            if (neighbour == NONE || !oldGrid.isFluid(neighbour)) {
+                continue;
+            }
+            int numberOfNeighboursHim = 1;
+            for (int neighbourFace = NeighbourStencil.EAST; neighbourFace < NeighbourStencil.FACE_COUNT; neighbourFace++) {
+                int index = stencil.neighbour(neighbour, neighbourFace);
+                if (index != NONE && oldGrid.smokeIndicator(index) < MAX_SMOKE_LEVEL) {
+                    numberOfNeighboursHim++;
+                }
+            }
+            int neighbourUp = stencil.up(neighbour);
+            boolean neighbourAboveCanNotTakeSmoke = neighbourUp == NONE ||
+                    !oldGrid.isFluid(neighbourUp) ||
+                    oldGrid.smokeIndicator(neighbourUp) >= SMOKE_LIMIT_VALUE;
+            double neighbourSmoke = oldGrid.smokeIndicator(neighbour);
+            double diff = 0.0;
+            if (cellAboveCanNotTakeSmoke) {
+                diff -= Math.min((MAX_SMOKE_LEVEL - neighbourSmoke) / numberOfNeighboursHim,
+                        valueOfSmokeDuringComputing / numberOfNeighboursMine);
+            }
+            if (neighbourAboveCanNotTakeSmoke) {
+                diff += Math.min((MAX_SMOKE_LEVEL - valueOfSmokeDuringComputing) / numberOfNeighboursMine,
+                        neighbourSmoke / numberOfNeighboursHim);
+            }
+            diffFromAround += diff;
+        }
+
+        return diffFromAbove + diffFromDown + diffFromAround;
+    }
+}
@@ -1,8 +1,6 @@
 package pl.edu.agh.firecell.engine.algorithm;
 
-import org.joml.Vector3i;
-import pl.edu.agh.firecell.model.Cell;
-import pl.edu.agh.firecell.model.State;
+import pl.edu.agh.firecell.model.CellGrid;
 import pl.edu.agh.firecell.model.material.Material;
 
 public class OxygenPropagator {
@@ -13,10 +11,9 @@ public class OxygenPropagator {
         this.deltaTime = deltaTime;
     }
 
-    public double makeUseOfOxygen(State oldState, Vector3i cellIndex, double currentOxygenLevel) {
-        Cell oldCell = oldState.getCell(cellIndex);
-        if (AlgorithmUtils.isCellBurning(oldCell) &&
-                oldCell.material().equals(Material.AIR) &&
+    public double makeUseOfOxygen(CellGrid oldGrid, int cellIndex, double currentOxygenLevel) {
+        if (oldGrid.isBurning(cellIndex) &&
+                oldGrid.material(cellIndex) == Material.AIR &&
                 currentOxygenLevel > 0) {
             return Math.max(0, currentOxygenLevel - (deltaTime * FirePropagator.OXYGEN_USAGE_IN_FIRE));
         }
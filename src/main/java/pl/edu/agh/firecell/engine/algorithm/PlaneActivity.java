@@ -0,0 +1,69 @@
+package pl.edu.agh.firecell.engine.algorithm;
+
+import pl.edu.agh.firecell.model.CellGrid;
+import pl.edu.agh.firecell.model.PackedCellState;
+import pl.edu.agh.firecell.model.State;
+
+/**
+ * Z-planes of a state in which fire and smoke are quiet: no cell of the plane or of the planes next to it burns,
+ * carries a fire pillar or holds smoke. Every cell a cell reads its fire pillar, burning time, smoke and oxygen
+ * usage from lies in these three planes, so in a quiet plane these keep their quiet values and need not be
+ * computed. Only wood may still ignite, from its temperature or from a burned out neighbour.
+ * <p>
+ * Only computed cells are scanned. Ghost cells of padded grids never burn and the smoke of wall ghosts never
+ * moves, as they are solid, so a plane next to them stays quiet.
+ */
+final class PlaneActivity {
+
+    private final State state;
+    private final int planeSize;
+    private final boolean[] quietPlanes;
+
+    private PlaneActivity(State state, int planeSize, boolean[] quietPlanes) {
+        this.state = state;
+        this.planeSize = planeSize;
+        this.quietPlanes = quietPlanes;
+    }
+
+    /**
+     * @param ranges computed cells of the state, scanned possibly concurrently
+     */
+    static PlaneActivity of(State state, CellRanges ranges) {
+        CellGrid grid = state.grid();
+        int planeSize = grid.spaceSize().x * grid.spaceSize().y;
+        int planeCount = grid.spaceSize().z;
+        // ranges sharing a plane may both mark it, writing the same value
+        boolean[] activePlanes = new boolean[planeCount];
+        ranges.forEach((fromIndex, toIndex) -> {
+            for (int i = fromIndex; i < toIndex; i++) {
+                int cellState = grid.packedState(i);
+                if (PackedCellState.burning(cellState) || PackedCellState.remainingFirePillar(cellState) > 0
+                        || grid.smokeIndicator(i) != 0) {
+                    int plane = i / planeSize;
+                    activePlanes[plane] = true;
+                    // continue with the next plane
+                    i = (plane + 1) * planeSize - 1;
+                }
+            }
+        });
+        boolean[] quietPlanes = new boolean[planeCount];
+        for (int plane = 0; plane < planeCount; plane++) {
+            quietPlanes[plane] = !activePlanes[plane]
+                    && (plane == 0 || !activePlanes[plane - 1])
+                    && (plane == planeCount - 1 || !activePlanes[plane + 1]);
+        }
+        return new PlaneActivity(state, planeSize, quietPlanes);
+    }
+
+    /**
+     * @return whether the activity was gathered from this very state, engines reuse the grids of past states
+     * for the following ones
+     */
+    boolean describes(State state) {
+        return this.state == state;
+    }
+
+    boolean isQuiet(int flatIndex) {
+        return quietPlanes[flatIndex / planeSize];
+    }
+}
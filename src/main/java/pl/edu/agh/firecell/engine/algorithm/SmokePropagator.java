@@ -1,120 +1,122 @@
 package pl.edu.agh.firecell.engine.algorithm;
 
-import org.joml.Vector3i;
-import pl.edu.agh.firecell.model.Cell;
-import pl.edu.agh.firecell.model.State;
-import pl.edu.agh.firecell.model.util.NeighbourUtils;
+import pl.edu.agh.firecell.model.CellGrid;
+import pl.edu.agh.firecell.model.util.NeighbourStencil;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.stream.Stream;
+import static pl.edu.agh.firecell.model.util.NeighbourStencil.NONE;
 
 public class SmokePropagator {
 
     private final double deltaTime;
     // Maximum level of smoke in cell
-    private static final int MAX_SMOKE_LEVEL = 100;
+    static final int MAX_SMOKE_LEVEL = 100;
     // Value of smoke with which we acknowledge cell is dense covered by smoke
-    private static final int SMOKE_LIMIT_VALUE = 50;
+    static final int SMOKE_LIMIT_VALUE = 50;
     // Due to inaccuracies and zenon's paradox, there is need to set the limit to interpret result as zero
-    private static final double DEVIATION = 0.0005;
+    static final double DEVIATION = 0.0005;
     // Internal smoke coefficient to improve smoke simulation
-    private static final double SMOKE_COEFFICIENT = 2;
+    static final double SMOKE_COEFFICIENT = 2;
 
     public SmokePropagator(double deltaTime) {
         this.deltaTime = deltaTime;
     }
 
-    public double computeNewSmokeIndicator(State oldState, Vector3i cellIndex, Cell oldCell) {
-        double smokeFromFire = generateSmoke(oldState, cellIndex);
-        double smokeDifference = getSmokeIndicatorDifference(oldState, cellIndex);
+    public double computeNewSmokeIndicator(CellGrid oldGrid, int cellIndex) {
+        double smokeFromFire = generateSmoke(oldGrid, cellIndex);
+        double smokeDifference = getSmokeIndicatorDifference(oldGrid, cellIndex);
 
-        double result = Math.min(oldCell.smokeIndicator() + (smokeDifference + smokeFromFire) * deltaTime * SMOKE_COEFFICIENT, MAX_SMOKE_LEVEL);
+        double result = Math.min(oldGrid.smokeIndicator(cellIndex) + (smokeDifference + smokeFromFire) * deltaTime * SMOKE_COEFFICIENT, MAX_SMOKE_LEVEL);
         return result < DEVIATION ? 0.0 : result;
     }
 
-    private double generateSmoke(State oldState, Vector3i cellIndex) {
+    private double generateSmoke(CellGrid oldGrid, int cellIndex) {
+        NeighbourStencil stencil = oldGrid.stencil();
         double smokeFromFire = 0;
-        if (oldState.hasCell(NeighbourUtils.down(cellIndex)) &&
-                AlgorithmUtils.isCellBurning(oldState.getCell(NeighbourUtils.down(cellIndex))) &&
-                oldState.getCell(NeighbourUtils.down(cellIndex)).isSolid()) {
-            smokeFromFire = oldState.getCell(NeighbourUtils.down(cellIndex)).material().smokeCoe();
+        int indexUnder = stencil.down(cellIndex);
+        if (indexUnder != NONE &&
+                oldGrid.isBurning(indexUnder) &&
+                oldGrid.isSolid(indexUnder)) {
+            smokeFromFire = oldGrid.material(indexUnder).smokeCoe();
         }
 
-        smokeFromFire += Stream.concat(NeighbourUtils.neighboursStream(cellIndex, NeighbourUtils.Axis.X),
-                NeighbourUtils.neighboursStream(cellIndex, NeighbourUtils.Axis.Z))
-                        .filter(index -> oldState.hasCell(index) && (
-                                !oldState.hasCell(NeighbourUtils.up(index))
-                                        || oldState.getCell(NeighbourUtils.up(index)).isSolid()
-                            )
-                        )
-                        .map(oldState::getCell)
-                        .filter(cell -> AlgorithmUtils.isCellBurning(cell)&&cell.isSolid())
-                        .mapToDouble(cell -> cell.material().smokeCoe() / 4.0).sum();
-        return smokeFromFire;
+        double smokeFromNeighbours = 0;
+        for (int face = NeighbourStencil.EAST; face < NeighbourStencil.FACE_COUNT; face++) {
+            int index = stencil.neighbour(cellIndex, face);
+            if (index == NONE) {
+                continue;
+            }
+            int indexAbove = stencil.up(index);
+            if ((indexAbove == NONE || oldGrid.isSolid(indexAbove)) &&
+                    oldGrid.isBurning(index) && oldGrid.isSolid(index)) {
+                smokeFromNeighbours += oldGrid.material(index).smokeCoe() / 4.0;
+            }
+        }
+        return smokeFromFire + smokeFromNeighbours;
     }
 
-    private double getSmokeIndicatorDifference(State oldState, Vector3i cellIndex) {
-        Cell oldCell = oldState.getCell(cellIndex);
-        double valueOfSmokeDuringComputing = oldCell.smokeIndicator();
+    private double getSmokeIndicatorDifference(CellGrid oldGrid, int cellIndex) {
+        NeighbourStencil stencil = oldGrid.stencil();
+        double oldSmoke = oldGrid.smokeIndicator(cellIndex);
+        double valueOfSmokeDuringComputing = oldSmoke;
 
         // up
         double diffFromAbove = 0;
-        if (oldState.hasCell(NeighbourUtils.up(cellIndex)) && oldState.getCell(NeighbourUtils.up(cellIndex)).isFluid()) {
-            Cell cellAbove = oldState.getCell(NeighbourUtils.up(cellIndex));
-            diffFromAbove = -Math.min(oldCell.smokeIndicator(), MAX_SMOKE_LEVEL - cellAbove.smokeIndicator());
+        int indexAbove = stencil.up(cellIndex);
+        if (indexAbove != NONE && oldGrid.isFluid(indexAbove)) {
+            diffFromAbove = -Math.min(oldSmoke, MAX_SMOKE_LEVEL - oldGrid.smokeIndicator(indexAbove));
             valueOfSmokeDuringComputing += diffFromAbove;
         }
         // down
         double diffFromDown = 0;
-        if (oldState.hasCell(NeighbourUtils.down(cellIndex)) && oldState.getCell(NeighbourUtils.down(cellIndex)).isFluid()) {
-            Cell cellUnder = oldState.getCell(NeighbourUtils.down(cellIndex));
-            diffFromDown = Math.min(cellUnder.smokeIndicator(), MAX_SMOKE_LEVEL - oldCell.smokeIndicator());
+        int indexUnder = stencil.down(cellIndex);
+        if (indexUnder != NONE && oldGrid.isFluid(indexUnder)) {
+            diffFromDown = Math.min(oldGrid.smokeIndicator(indexUnder), MAX_SMOKE_LEVEL - oldSmoke);
             valueOfSmokeDuringComputing += diffFromDown;
         }
 
-        final double valueOfSmokeDuringComputingFinal = valueOfSmokeDuringComputing;
         // around
-        double diffFromAround = Stream.concat(NeighbourUtils.neighboursStream(cellIndex, NeighbourUtils.Axis.X),
-                NeighbourUtils.neighboursStream(cellIndex, NeighbourUtils.Axis.Z))
-                .filter(oldState::hasCell)
-                .filter(index -> oldState.getCell(index).isFluid())
-                .map(neighbourIndex -> {
-                    int numberOfNeighboursMine = numberOfHorizontalNeighboursWithSmokeCapacity(oldState, cellIndex) + 1;
-                    int numberOfNeighboursHim = numberOfHorizontalNeighboursWithSmokeCapacity(oldState, neighbourIndex) + 1;
-                    double diff = 0.0;
-                    if (cellAboveCanNotTakeSmoke(oldState, cellIndex)) {
-                        diff -= Math.min((MAX_SMOKE_LEVEL - oldState.getCell(neighbourIndex).smokeIndicator()) / numberOfNeighboursHim,
-                                valueOfSmokeDuringComputingFinal / numberOfNeighboursMine);
-                    }
-                    if (cellAboveCanNotTakeSmoke(oldState, neighbourIndex)) {
-                        diff += Math.min((MAX_SMOKE_LEVEL - valueOfSmokeDuringComputingFinal) / numberOfNeighboursMine,
-                                (oldState.getCell(neighbourIndex).smokeIndicator()) / numberOfNeighboursHim);
-                    }
-                    return diff;
-                }).mapToDouble(Double::doubleValue).sum();
+        double diffFromAround = 0;
+        int numberOfNeighboursMine = numberOfHorizontalNeighboursWithSmokeCapacity(oldGrid, cellIndex) + 1;
+        boolean cellAboveCanNotTakeSmoke = cellAboveCanNotTakeSmoke(oldGrid, cellIndex);
+        for (int face = NeighbourStencil.EAST; face < NeighbourStencil.FACE_COUNT; face++) {
+            int neighbourIndex = stencil.neighbour(cellIndex, face);
+            if (neighbourIndex == NONE || !oldGrid.isFluid(neighbourIndex)) {
+                continue;
+            }
+            int numberOfNeighboursHim = numberOfHorizontalNeighboursWithSmokeCapacity(oldGrid, neighbourIndex) + 1;
+            double neighbourSmoke = oldGrid.smokeIndicator(neighbourIndex);
+            double diff = 0.0;
+            if (cellAboveCanNotTakeSmoke) {
+                diff -= Math.min((MAX_SMOKE_LEVEL - neighbourSmoke) / numberOfNeighboursHim,
+                        valueOfSmokeDuringComputing / numberOfNeighboursMine);
+            }
+            if (cellAboveCanNotTakeSmoke(oldGrid, neighbourIndex)) {
+                diff += Math.min((MAX_SMOKE_LEVEL - valueOfSmokeDuringComputing) / numberOfNeighboursMine,
+                        neighbourSmoke / numberOfNeighboursHim);
+            }
+            diffFromAround += diff;
+        }
 
         return diffFromAbove + diffFromDown + diffFromAround;
     }
 
-    private boolean cellAboveCanNotTakeSmoke(State state, Vector3i index) {
-        Vector3i cellAbove = NeighbourUtils.up(index);
-        return (state.hasCell(cellAbove) && state.getCell(cellAbove).smokeIndicator() >= SMOKE_LIMIT_VALUE) ||
-                (state.hasCell(cellAbove) && !state.getCell(cellAbove).isFluid()) ||
-                !state.hasCell(cellAbove);
+    private boolean cellAboveCanNotTakeSmoke(CellGrid grid, int index) {
+        int indexAbove = grid.stencil().up(index);
+        return indexAbove == NONE ||
+                !grid.isFluid(indexAbove) ||
+                grid.smokeIndicator(indexAbove) >= SMOKE_LIMIT_VALUE;
     }
 
-    private int numberOfHorizontalNeighboursWithSmokeCapacity(State state, Vector3i cellIndex) {
-        List<Cell> res = new ArrayList<>();
-        NeighbourUtils.neighboursStream(cellIndex, NeighbourUtils.Axis.X)
-                .filter(state::hasCell)
-                .filter(index -> state.getCell(index).smokeIndicator() < MAX_SMOKE_LEVEL)
-                .forEach(index -> res.add(state.getCell(index)));
-        NeighbourUtils.neighboursStream(cellIndex, NeighbourUtils.Axis.Z)
-                .filter(state::hasCell)
-                .filter(index -> state.getCell(index).smokeIndicator() < MAX_SMOKE_LEVEL)
-                .forEach(index -> res.add(state.getCell(index)));
-        return res.size();
+    private int numberOfHorizontalNeighboursWithSmokeCapacity(CellGrid grid, int cellIndex) {
+        NeighbourStencil stencil = grid.stencil();
+        int count = 0;
+        for (int face = NeighbourStencil.EAST; face < NeighbourStencil.FACE_COUNT; face++) {
+            int index = stencil.neighbour(cellIndex, face);
+            if (index != NONE && grid.smokeIndicator(index) < MAX_SMOKE_LEVEL) {
+                count++;
+            }
+        }
+        return count;
     }
 
 }
@@ -1,17 +1,17 @@
 package pl.edu.agh.firecell.engine.algorithm;
 
-import org.joml.Vector3i;
-import pl.edu.agh.firecell.model.Cell;
+import pl.edu.agh.firecell.model.CellGrid;
 import pl.edu.agh.firecell.model.exception.ConductionCoefficientException;
 import pl.edu.agh.firecell.model.material.MaterialConductionMap;
-import pl.edu.agh.firecell.model.State;
-import pl.edu.agh.firecell.model.util.NeighbourUtils;
+import pl.edu.agh.firecell.model.util.NeighbourStencil;
+
+import static pl.edu.agh.firecell.model.util.NeighbourStencil.NONE;
 
 
 public class TemperaturePropagator {
 
-    private static final double BURNING_TEMPERATURE_COEFFICIENT = 0.3;
-    private static final double CONVECTION_COEFFICIENT = 1;
+    static final double BURNING_TEMPERATURE_COEFFICIENT = 0.3;
+    public static final double CONVECTION_COEFFICIENT = 1;
 
     private final double deltaTime;
     private final MaterialConductionMap materialConductionMap;
@@ -21,69 +21,55 @@ public class TemperaturePropagator {
         this.materialConductionMap = new MaterialConductionMap();
     }
 
-    public double computeConduction(State oldState, Vector3i cellIndex, double currentTemperature) {
-        Cell oldCell = oldState.getCell(cellIndex);
-        return currentTemperature + deltaTime * calculateAxisDifference(oldState, NeighbourUtils.north(cellIndex), oldCell, NeighbourUtils.south(cellIndex)) +
-                calculateAxisDifference(oldState, NeighbourUtils.up(cellIndex), oldCell, NeighbourUtils.down(cellIndex)) +
-                calculateAxisDifference(oldState, NeighbourUtils.east(cellIndex), oldCell, NeighbourUtils.west(cellIndex));
+    public double computeConduction(CellGrid oldGrid, int cellIndex, double currentTemperature) {
+        NeighbourStencil stencil = oldGrid.stencil();
+        return currentTemperature + deltaTime * calculateAxisDifference(oldGrid, stencil.north(cellIndex), cellIndex, stencil.south(cellIndex)) +
+                calculateAxisDifference(oldGrid, stencil.up(cellIndex), cellIndex, stencil.down(cellIndex)) +
+                calculateAxisDifference(oldGrid, stencil.east(cellIndex), cellIndex, stencil.west(cellIndex));
     }
 
-    private double calculateAxisDifference(State oldState, Vector3i formerIndex, Cell middleCell, Vector3i furtherIndex) {
-        if(oldState.hasCell(formerIndex) && oldState.hasCell(furtherIndex)){
-            return computeConductivity(oldState.getCell(formerIndex), middleCell,
-                    oldState.getCell(furtherIndex),
-                    getCoe(oldState.getCell(formerIndex), middleCell),
-                    getCoe(oldState.getCell(furtherIndex), middleCell));
-        }
-        if(!oldState.hasCell(formerIndex) && oldState.hasCell(furtherIndex)){
-            Cell tmp = new Cell(middleCell);
-            return computeConductivity(tmp, middleCell, oldState.getCell(furtherIndex),
-                    getCoe(tmp, middleCell),
-                    getCoe(oldState.getCell(furtherIndex), middleCell));
-        }
-        if(oldState.hasCell(formerIndex) && !oldState.hasCell(furtherIndex)){
-            Cell tmp = new Cell(middleCell);
-            return computeConductivity(oldState.getCell(formerIndex), middleCell, tmp,
-                    getCoe(oldState.getCell(formerIndex), middleCell),
-                    getCoe(tmp, middleCell));
+    private double calculateAxisDifference(CellGrid oldGrid, int formerIndex, int middleIndex, int furtherIndex) {
+        if (formerIndex == NONE && furtherIndex == NONE) {
+            return 0.0;
         }
-        return 0.0;
+        // a missing neighbour acts as a copy of the middle cell
+        int former = formerIndex == NONE ? middleIndex : formerIndex;
+        int further = furtherIndex == NONE ? middleIndex : furtherIndex;
+        return computeConductivity(oldGrid, former, middleIndex, further,
+                getCoe(oldGrid, former, middleIndex),
+                getCoe(oldGrid, further, middleIndex));
     }
 
-    private double getCoe(Cell neighbour, Cell middleCell) {
-        return materialConductionMap.getCoefficient(neighbour.material(), middleCell.material());
+    private double getCoe(CellGrid oldGrid, int neighbourIndex, int middleIndex) {
+        return materialConductionMap.getCoefficient(oldGrid.material(neighbourIndex), oldGrid.material(middleIndex));
     }
 
-    private double computeConductivity(Cell former, Cell middle, Cell latter, double conductivityCoeFormer, double conductivityCoeFurther) {
-        return -(conductivityCoeFormer * AlgorithmUtils.tempDiff(middle, former)
-                        + conductivityCoeFurther * AlgorithmUtils.tempDiff(middle, latter));
+    private double computeConductivity(CellGrid oldGrid, int former, int middle, int latter,
+                                       double conductivityCoeFormer, double conductivityCoeFurther) {
+        return -(conductivityCoeFormer * AlgorithmUtils.tempDiff(oldGrid, middle, former)
+                        + conductivityCoeFurther * AlgorithmUtils.tempDiff(oldGrid, middle, latter));
     }
 
-    public double computeConvection(State oldState, Vector3i cellIndex, double currentTemperature) {
-        Cell oldCell = oldState.getCell(cellIndex);
+    public double computeConvection(CellGrid oldGrid, int cellIndex, double currentTemperature) {
         double temperatureDifference = 0;
+        double oldTemperature = oldGrid.temperature(cellIndex);
 
-        try {
-            Cell cellUnder = oldState.getCell(NeighbourUtils.down(cellIndex));
-            if (cellUnder.isFluid() && cellUnder.temperature() > oldCell.temperature())
-                temperatureDifference += CONVECTION_COEFFICIENT * AlgorithmUtils.tempDiffAbs(oldCell, cellUnder);
-        } catch (IndexOutOfBoundsException ignored) {
-        }
+        int indexUnder = oldGrid.stencil().down(cellIndex);
+        if (indexUnder != NONE && oldGrid.isFluid(indexUnder) && oldGrid.temperature(indexUnder) > oldTemperature)
+            temperatureDifference += CONVECTION_COEFFICIENT * AlgorithmUtils.tempDiffAbs(oldGrid, cellIndex, indexUnder);
+
+        int indexAbove = oldGrid.stencil().up(cellIndex);
+        if (indexAbove != NONE && oldGrid.isFluid(indexAbove) && oldGrid.temperature(indexAbove) < oldTemperature)
+            temperatureDifference -= CONVECTION_COEFFICIENT * AlgorithmUtils.tempDiffAbs(oldGrid, cellIndex, indexAbove);
 
-        try {
-            Cell cellAbove = oldState.getCell(NeighbourUtils.up(cellIndex));
-            if (cellAbove.isFluid() && cellAbove.temperature() < oldCell.temperature())
-                temperatureDifference -= CONVECTION_COEFFICIENT * AlgorithmUtils.tempDiffAbs(oldCell, cellAbove);
-        } catch (IndexOutOfBoundsException ignored) {
-        }
         return currentTemperature + deltaTime * temperatureDifference;
     }
 
-    public double updateTemperatureBasedOnFire(Cell oldCell, double currentTemperature) {
-        if (!AlgorithmUtils.isCellBurning(oldCell))
+    public double updateTemperatureBasedOnFire(CellGrid oldGrid, int cellIndex, double currentTemperature) {
+        if (!oldGrid.isBurning(cellIndex))
             return currentTemperature;
 
-        double diffToMaterialBurningTemperature = oldCell.material().getBurningTemperature() - currentTemperature;
+        double diffToMaterialBurningTemperature = oldGrid.material(cellIndex).getBurningTemperature() - currentTemperature;
         if (diffToMaterialBurningTemperature > 0)
             return currentTemperature + diffToMaterialBurningTemperature * deltaTime * BURNING_TEMPERATURE_COEFFICIENT;
 
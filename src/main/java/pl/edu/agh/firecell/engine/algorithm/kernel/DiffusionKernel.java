@@ -0,0 +1,70 @@
+package pl.edu.agh.firecell.engine.algorithm.kernel;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.edu.agh.firecell.engine.algorithm.ConductanceField;
+import pl.edu.agh.firecell.model.CellGrid;
+
+/**
+ * Temperature conduction and temperature and oxygen diffusion over ranges of cells.
+ * Implementations must give bit-identical results.
+ */
+public interface DiffusionKernel {
+
+    /**
+     * System property selecting the kernel: {@code scalar}, {@code vector} or {@code auto} (default), which
+     * uses the vector kernel whenever the {@code jdk.incubator.vector} module is available.
+     */
+    String KERNEL_PROPERTY = "firecell.kernel";
+
+    /**
+     * Diffuses temperature and oxygen of the cells with flat indices in {@code [fromIndex, toIndex)}.
+     * The current values are taken from {@code newGrid} and replaced in place, neighbour values are read
+     * from {@code oldGrid}.
+     */
+    void diffuse(CellGrid oldGrid, CellGrid newGrid, int fromIndex, int toIndex);
+
+    /**
+     * Computes the temperature after conduction of the cells with flat indices in {@code [fromIndex, toIndex)}
+     * from {@code oldGrid} and stores it in {@code newGrid}.
+     */
+    void conduct(CellGrid oldGrid, ConductanceField conductanceField, CellGrid newGrid, int fromIndex, int toIndex);
+
+    /**
+     * @return factor scaling the terms applied once per step for the step time, exactly 1 for the base step time
+     */
+    static double stepRatio(double deltaTime, double baseDeltaTime) {
+        return deltaTime == baseDeltaTime ? 1 : deltaTime / baseDeltaTime;
+    }
+
+    static DiffusionKernel create(double deltaTime) {
+        return create(deltaTime, deltaTime);
+    }
+
+    /**
+     * @param baseDeltaTime see {@link ScalarDiffusionKernel#ScalarDiffusionKernel(double, double)}
+     */
+    static DiffusionKernel create(double deltaTime, double baseDeltaTime) {
+        Logger logger = LoggerFactory.getLogger(DiffusionKernel.class);
+        String kernel = System.getProperty(KERNEL_PROPERTY, "auto");
+        boolean vectorAvailable = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+        switch (kernel) {
+            case "scalar":
+                return new ScalarDiffusionKernel(deltaTime, baseDeltaTime);
+            case "vector":
+                if (!vectorAvailable) {
+                    throw new IllegalStateException(
+                            "Vector kernel requested, but module jdk.incubator.vector is not available.");
+                }
+                return new VectorDiffusionKernel(deltaTime, baseDeltaTime);
+            case "auto":
+                if (vectorAvailable) {
+                    return new VectorDiffusionKernel(deltaTime, baseDeltaTime);
+                }
+                logger.info("Module jdk.incubator.vector is not available, using scalar diffusion kernel.");
+                return new ScalarDiffusionKernel(deltaTime, baseDeltaTime);
+            default:
+                throw new IllegalArgumentException("Unknown diffusion kernel '%s'.".formatted(kernel));
+        }
+    }
+}
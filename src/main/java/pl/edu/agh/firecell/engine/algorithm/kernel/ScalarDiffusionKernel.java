@@ -0,0 +1,99 @@
+package pl.edu.agh.firecell.engine.algorithm.kernel;
+
+import pl.edu.agh.firecell.engine.algorithm.ConductanceField;
+import pl.edu.agh.firecell.model.CellGrid;
+import pl.edu.agh.firecell.model.util.NeighbourStencil;
+
+import static pl.edu.agh.firecell.engine.algorithm.DiffusionGenerator.OXYGEN_DIFFUSION_COEFFICIENT;
+import static pl.edu.agh.firecell.engine.algorithm.DiffusionGenerator.OXYGEN_SUM_OF_WEIGHTS;
+import static pl.edu.agh.firecell.engine.algorithm.DiffusionGenerator.TEMPERATURE_MAIN_WEIGHT;
+import static pl.edu.agh.firecell.model.util.NeighbourStencil.NONE;
+
+/**
+ * Cell by cell kernel, following {@link pl.edu.agh.firecell.engine.algorithm.TemperaturePropagator} and
+ * {@link pl.edu.agh.firecell.engine.algorithm.DiffusionGenerator}.
+ */
+public class ScalarDiffusionKernel implements DiffusionKernel {
+
+    private final double deltaTime;
+    private final double stepRatio;
+
+    public ScalarDiffusionKernel(double deltaTime) {
+        this(deltaTime, deltaTime);
+    }
+
+    /**
+     * @param baseDeltaTime step time the conduction along the Y and X axes, applied once per step, is calibrated for,
+     *                      it is scaled by {@code deltaTime / baseDeltaTime}
+     */
+    public ScalarDiffusionKernel(double deltaTime, double baseDeltaTime) {
+        this.deltaTime = deltaTime;
+        this.stepRatio = DiffusionKernel.stepRatio(deltaTime, baseDeltaTime);
+    }
+
+    @Override
+    public void diffuse(CellGrid oldGrid, CellGrid newGrid, int fromIndex, int toIndex) {
+        for (int i = fromIndex; i < toIndex; i++) {
+            newGrid.setTemperature(i, temperature(oldGrid, i, newGrid.temperature(i)));
+            newGrid.setOxygenLevel(i, oxygen(oldGrid, i, newGrid.oxygenLevel(i)));
+        }
+    }
+
+    @Override
+    public void conduct(CellGrid oldGrid, ConductanceField conductanceField, CellGrid newGrid, int fromIndex, int toIndex) {
+        for (int i = fromIndex; i < toIndex; i++) {
+            newGrid.setTemperature(i, conduction(oldGrid, conductanceField, i));
+        }
+    }
+
+    public double conduction(CellGrid oldGrid, ConductanceField conductanceField, int cellIndex) {
+        return oldGrid.temperature(cellIndex) + deltaTime * axisConduction(oldGrid, conductanceField, cellIndex, NeighbourStencil.NORTH, NeighbourStencil.SOUTH) +
+                stepRatio * axisConduction(oldGrid, conductanceField, cellIndex, NeighbourStencil.UP, NeighbourStencil.DOWN) +
+                stepRatio * axisConduction(oldGrid, conductanceField, cellIndex, NeighbourStencil.EAST, NeighbourStencil.WEST);
+    }
+
+    private double axisConduction(CellGrid oldGrid, ConductanceField conductanceField, int cellIndex, int formerFace, int furtherFace) {
+        NeighbourStencil stencil = oldGrid.stencil();
+        int former = stencil.neighbour(cellIndex, formerFace);
+        int further = stencil.neighbour(cellIndex, furtherFace);
+        if (former == NONE && further == NONE) {
+            return 0.0;
+        }
+        // a missing neighbour has zero conductance and no temperature difference
+        double temperature = oldGrid.temperature(cellIndex);
+        double formerTemperature = former == NONE ? temperature : oldGrid.temperature(former);
+        double furtherTemperature = further == NONE ? temperature : oldGrid.temperature(further);
+        return -(conductanceField.conductance(formerFace, cellIndex) * (temperature - formerTemperature)
+                + conductanceField.conductance(furtherFace, cellIndex) * (temperature - furtherTemperature));
+    }
+
+    public double temperature(CellGrid oldGrid, int cellIndex, double currentTemperature) {
+        int neighbourWeight = 1;
+        double mainWeight = TEMPERATURE_MAIN_WEIGHT;
+        NeighbourStencil stencil = oldGrid.stencil();
+        double neighboursSum = 0;
+        for (int face = 0; face < NeighbourStencil.FACE_COUNT; face++) {
+            int index = stencil.neighbour(cellIndex, face);
+            double neighbourTemperature = index != NONE && oldGrid.isFluid(index) ?
+                    oldGrid.temperature(index) :
+                    currentTemperature;
+            neighboursSum += deltaTime * neighbourWeight * neighbourTemperature;
+        }
+        return (neighboursSum + mainWeight * currentTemperature) / (6 * deltaTime * neighbourWeight + mainWeight);
+    }
+
+    public double oxygen(CellGrid oldGrid, int cellIndex, double currentOxygen) {
+        double neighbourWeight = 1;
+        double mainWeight = 1;
+        double sumOfWeights = OXYGEN_SUM_OF_WEIGHTS;
+        NeighbourStencil stencil = oldGrid.stencil();
+        double neighboursSum = 0;
+        for (int face = 0; face < NeighbourStencil.FACE_COUNT; face++) {
+            int index = stencil.neighbour(cellIndex, face);
+            neighboursSum += index != NONE && oldGrid.isFluid(index) ?
+                    oldGrid.oxygenLevel(index) * neighbourWeight / sumOfWeights : currentOxygen * neighbourWeight / sumOfWeights;
+        }
+        return currentOxygen - Math.min(deltaTime * OXYGEN_DIFFUSION_COEFFICIENT, 1) * (currentOxygen - (neighboursSum
+                + mainWeight / sumOfWeights * currentOxygen));
+    }
+}
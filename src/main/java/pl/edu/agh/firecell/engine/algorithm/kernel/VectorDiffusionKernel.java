@@ -0,0 +1,252 @@
+package pl.edu.agh.firecell.engine.algorithm.kernel;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+import pl.edu.agh.firecell.engine.algorithm.ConductanceField;
+import pl.edu.agh.firecell.model.CellGrid;
+import pl.edu.agh.firecell.model.ScalarField;
+import pl.edu.agh.firecell.model.util.NeighbourStencil;
+
+import static pl.edu.agh.firecell.engine.algorithm.DiffusionGenerator.OXYGEN_DIFFUSION_COEFFICIENT;
+import static pl.edu.agh.firecell.engine.algorithm.DiffusionGenerator.OXYGEN_SUM_OF_WEIGHTS;
+import static pl.edu.agh.firecell.engine.algorithm.DiffusionGenerator.TEMPERATURE_MAIN_WEIGHT;
+
+/**
+ * Kernel processing cells along the X axis in vector lanes. Every lane performs the operations
+ * of {@link ScalarDiffusionKernel} in the same order, so the results are bit-identical. The first and the last
+ * cell of a row lack one X neighbour and, together with the tails shorter than a vector, are left to the
+ * scalar kernel. Executors computing only active cells call the kernel for short runs within rows, so splitting
+ * the ranges into rows and lanes allocates nothing.
+ * <p>
+ * Single precision fields are widened to doubles when loaded and rounded when stored, like the accessors of the grid
+ * used by the scalar kernel do.
+ */
+public class VectorDiffusionKernel implements DiffusionKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    // as many lanes as SPECIES
+    private static final VectorSpecies<Float> FLOAT_SPECIES =
+            VectorSpecies.of(float.class, VectorShape.forBitSize(SPECIES.vectorBitSize() / 2));
+
+    private static final double OXYGEN_MAIN_WEIGHT = 1 / OXYGEN_SUM_OF_WEIGHTS;
+
+    private final double deltaTime;
+    private final double stepRatio;
+    private final double temperatureDenominator;
+    private final double oxygenRate;
+    private final ScalarDiffusionKernel scalarKernel;
+
+    public VectorDiffusionKernel(double deltaTime) {
+        this(deltaTime, deltaTime);
+    }
+
+    /**
+     * @param baseDeltaTime see {@link ScalarDiffusionKernel#ScalarDiffusionKernel(double, double)}
+     */
+    public VectorDiffusionKernel(double deltaTime, double baseDeltaTime) {
+        this.deltaTime = deltaTime;
+        this.stepRatio = DiffusionKernel.stepRatio(deltaTime, baseDeltaTime);
+        this.temperatureDenominator = 6 * deltaTime + TEMPERATURE_MAIN_WEIGHT;
+        this.oxygenRate = Math.min(deltaTime * OXYGEN_DIFFUSION_COEFFICIENT, 1);
+        this.scalarKernel = new ScalarDiffusionKernel(deltaTime, baseDeltaTime);
+    }
+
+    @Override
+    public void diffuse(CellGrid oldGrid, CellGrid newGrid, int fromIndex, int toIndex) {
+        int rowLength = oldGrid.spaceSize().x;
+        int index = fromIndex;
+        while (index < toIndex) {
+            int rowEnd = rowEnd(index, rowLength, toIndex);
+            int laneFrom = laneFrom(index, rowLength);
+            int laneTo = laneTo(index, laneFrom, rowEnd, rowLength);
+            if (laneTo == laneFrom) {
+                scalarKernel.diffuse(oldGrid, newGrid, index, rowEnd);
+            } else {
+                scalarKernel.diffuse(oldGrid, newGrid, index, laneFrom);
+                diffuseLanes(oldGrid, newGrid, presentFaces(oldGrid.stencil(), laneFrom), laneFrom, laneTo);
+                scalarKernel.diffuse(oldGrid, newGrid, laneTo, rowEnd);
+            }
+            index = rowEnd;
+        }
+    }
+
+    @Override
+    public void conduct(CellGrid oldGrid, ConductanceField conductanceField, CellGrid newGrid, int fromIndex, int toIndex) {
+        int rowLength = oldGrid.spaceSize().x;
+        int index = fromIndex;
+        while (index < toIndex) {
+            int rowEnd = rowEnd(index, rowLength, toIndex);
+            int laneFrom = laneFrom(index, rowLength);
+            int laneTo = laneTo(index, laneFrom, rowEnd, rowLength);
+            if (laneTo == laneFrom) {
+                scalarKernel.conduct(oldGrid, conductanceField, newGrid, index, rowEnd);
+            } else {
+                scalarKernel.conduct(oldGrid, conductanceField, newGrid, index, laneFrom);
+                conductLanes(oldGrid, conductanceField, newGrid, presentFaces(oldGrid.stencil(), laneFrom),
+                        laneFrom, laneTo);
+                scalarKernel.conduct(oldGrid, conductanceField, newGrid, laneTo, rowEnd);
+            }
+            index = rowEnd;
+        }
+    }
+
+    /**
+     * @return end of the part of the range within the row of {@code index}
+     */
+    private static int rowEnd(int index, int rowLength, int toIndex) {
+        return Math.min(index - index % rowLength + rowLength, toIndex);
+    }
+
+    /**
+     * @return first cell of the row of {@code index}, from {@code index} on, with both X neighbours
+     */
+    private static int laneFrom(int index, int rowLength) {
+        return Math.max(index, index - index % rowLength + 1);
+    }
+
+    /**
+     * @return end of the cells from {@code laneFrom} processed in vector lanes, {@code laneFrom} when there are too
+     * few of them to fill a vector
+     */
+    private static int laneTo(int index, int laneFrom, int rowEnd, int rowLength) {
+        int rowStart = index - index % rowLength;
+        int withBothNeighbours = Math.min(rowEnd, rowStart + rowLength - 1) - laneFrom;
+        if (withBothNeighbours < SPECIES.length()) {
+            return laneFrom;
+        }
+        return laneFrom + SPECIES.loopBound(withBothNeighbours);
+    }
+
+    /**
+     * @return faces of the cell with a neighbour, as bits indexed by face. Y and Z neighbours exist either for
+     * the whole row or for none of its cells, X neighbours exist for every cell between the first and the last one.
+     */
+    private static int presentFaces(NeighbourStencil stencil, int index) {
+        int presentFaces = 0;
+        for (int face = 0; face < NeighbourStencil.FACE_COUNT; face++) {
+            if (stencil.hasNeighbour(index, face)) {
+                presentFaces |= 1 << face;
+            }
+        }
+        return presentFaces;
+    }
+
+    private static boolean isPresent(int presentFaces, int face) {
+        return (presentFaces & 1 << face) != 0;
+    }
+
+    private void diffuseLanes(CellGrid oldGrid, CellGrid newGrid, int presentFaces, int fromIndex, int toIndex) {
+        NeighbourStencil stencil = oldGrid.stencil();
+        ScalarField oldTemperature = oldGrid.temperatureField();
+        ScalarField oldOxygen = oldGrid.oxygenLevelField();
+        boolean[] fluid = oldGrid.fluidArray();
+        ScalarField newTemperature = newGrid.temperatureField();
+        ScalarField newOxygen = newGrid.oxygenLevelField();
+
+        for (int i = fromIndex; i < toIndex; i += SPECIES.length()) {
+            DoubleVector temperature = load(newTemperature, i);
+            DoubleVector oxygen = load(newOxygen, i);
+            DoubleVector temperatureSum = DoubleVector.zero(SPECIES);
+            DoubleVector oxygenSum = DoubleVector.zero(SPECIES);
+
+            for (int face = 0; face < NeighbourStencil.FACE_COUNT; face++) {
+                DoubleVector neighbourTemperature = temperature;
+                DoubleVector neighbourOxygen = oxygen;
+                if (isPresent(presentFaces, face)) {
+                    int neighbour = i + stencil.offset(face);
+                    VectorMask<Double> fluidNeighbours = VectorMask.fromArray(SPECIES, fluid, neighbour);
+                    neighbourTemperature = temperature.blend(load(oldTemperature, neighbour), fluidNeighbours);
+                    neighbourOxygen = oxygen.blend(load(oldOxygen, neighbour), fluidNeighbours);
+                }
+                temperatureSum = temperatureSum.add(neighbourTemperature.mul(deltaTime));
+                oxygenSum = oxygenSum.add(neighbourOxygen.div(OXYGEN_SUM_OF_WEIGHTS));
+            }
+
+            store(temperatureSum.add(temperature.mul(TEMPERATURE_MAIN_WEIGHT))
+                    .div(temperatureDenominator), newTemperature, i);
+            store(oxygen.sub(oxygen.sub(oxygenSum.add(oxygen.mul(OXYGEN_MAIN_WEIGHT))).mul(oxygenRate)),
+                    newOxygen, i);
+        }
+    }
+
+    private void conductLanes(CellGrid oldGrid, ConductanceField conductanceField, CellGrid newGrid,
+                              int presentFaces, int fromIndex, int toIndex) {
+        NeighbourStencil stencil = oldGrid.stencil();
+        ScalarField oldTemperature = oldGrid.temperatureField();
+        ScalarField newTemperature = newGrid.temperatureField();
+        // a missing neighbour is read at the cell itself, giving no temperature difference across its zero conductance,
+        // an axis without neighbours contributes exactly zero, as in the scalar kernel
+        int northOffset = isPresent(presentFaces, NeighbourStencil.NORTH) ? stencil.offset(NeighbourStencil.NORTH) : 0;
+        int southOffset = isPresent(presentFaces, NeighbourStencil.SOUTH) ? stencil.offset(NeighbourStencil.SOUTH) : 0;
+        int upOffset = isPresent(presentFaces, NeighbourStencil.UP) ? stencil.offset(NeighbourStencil.UP) : 0;
+        int downOffset = isPresent(presentFaces, NeighbourStencil.DOWN) ? stencil.offset(NeighbourStencil.DOWN) : 0;
+        int eastOffset = stencil.offset(NeighbourStencil.EAST);
+        int westOffset = stencil.offset(NeighbourStencil.WEST);
+        VectorMask<Double> noZAxis = SPECIES.maskAll(!isPresent(presentFaces, NeighbourStencil.NORTH)
+                && !isPresent(presentFaces, NeighbourStencil.SOUTH));
+        VectorMask<Double> noYAxis = SPECIES.maskAll(!isPresent(presentFaces, NeighbourStencil.UP)
+                && !isPresent(presentFaces, NeighbourStencil.DOWN));
+        double[] northConductance = conductanceField.faceConductance(NeighbourStencil.NORTH);
+        double[] southConductance = conductanceField.faceConductance(NeighbourStencil.SOUTH);
+        double[] upConductance = conductanceField.faceConductance(NeighbourStencil.UP);
+        double[] downConductance = conductanceField.faceConductance(NeighbourStencil.DOWN);
+        double[] eastConductance = conductanceField.faceConductance(NeighbourStencil.EAST);
+        double[] westConductance = conductanceField.faceConductance(NeighbourStencil.WEST);
+        DoubleVector zero = DoubleVector.zero(SPECIES);
+
+        for (int i = fromIndex; i < toIndex; i += SPECIES.length()) {
+            DoubleVector temperature = load(oldTemperature, i);
+            DoubleVector zAxis = axisConduction(temperature,
+                    load(oldTemperature, i + northOffset),
+                    load(oldTemperature, i + southOffset),
+                    DoubleVector.fromArray(SPECIES, northConductance, i),
+                    DoubleVector.fromArray(SPECIES, southConductance, i))
+                    .blend(zero, noZAxis);
+            DoubleVector yAxis = axisConduction(temperature,
+                    load(oldTemperature, i + upOffset),
+                    load(oldTemperature, i + downOffset),
+                    DoubleVector.fromArray(SPECIES, upConductance, i),
+                    DoubleVector.fromArray(SPECIES, downConductance, i))
+                    .blend(zero, noYAxis);
+            DoubleVector xAxis = axisConduction(temperature,
+                    load(oldTemperature, i + eastOffset),
+                    load(oldTemperature, i + westOffset),
+                    DoubleVector.fromArray(SPECIES, eastConductance, i),
+                    DoubleVector.fromArray(SPECIES, westConductance, i));
+            store(temperature.add(zAxis.mul(deltaTime))
+                    .add(yAxis.mul(stepRatio))
+                    .add(xAxis.mul(stepRatio)), newTemperature, i);
+        }
+    }
+
+    private static DoubleVector load(ScalarField field, int index) {
+        double[] doubles = field.doubleArray();
+        if (doubles != null) {
+            return DoubleVector.fromArray(SPECIES, doubles, index);
+        }
+        return (DoubleVector) FloatVector.fromArray(FLOAT_SPECIES, field.floatArray(), index)
+                .convertShape(VectorOperators.F2D, SPECIES, 0);
+    }
+
+    private static void store(DoubleVector vector, ScalarField field, int index) {
+        double[] doubles = field.doubleArray();
+        if (doubles != null) {
+            vector.intoArray(doubles, index);
+        } else {
+            ((FloatVector) vector.convertShape(VectorOperators.D2F, FLOAT_SPECIES, 0))
+                    .intoArray(field.floatArray(), index);
+        }
+    }
+
+    private static DoubleVector axisConduction(DoubleVector temperature,
+                                               DoubleVector formerTemperature, DoubleVector furtherTemperature,
+                                               DoubleVector formerConductance, DoubleVector furtherConductance) {
+        return formerConductance.mul(temperature.sub(formerTemperature))
+                .add(furtherConductance.mul(temperature.sub(furtherTemperature)))
+                .neg();
+    }
+}
@@ -0,0 +1,164 @@
+package pl.edu.agh.firecell.engine.distributed;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.edu.agh.firecell.engine.algorithm.Algorithm;
+import pl.edu.agh.firecell.engine.executor.StepExecutor;
+import pl.edu.agh.firecell.model.CellGrid;
+import pl.edu.agh.firecell.model.State;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Executor splitting the grid along the z axis into subdomains stepped by {@link SubdomainWorker} processes,
+ * possibly on other machines. The executor runs in the engine as the coordinator: it sends every worker its
+ * planes, the step time chosen by the algorithm for each step and collects the computed planes into the new
+ * grid, so the engine hands out global states as usual. Between steps the workers exchange the
+ * {@link Subdomain#HALO_PLANES} boundary planes a cell depends on directly with each other.
+ * <p>
+ * The workers keep their planes between steps. When a step starts from a grid other than the one computed
+ * in the previous step, e.g. the first one, the planes are sent again. Results are the ones of a
+ * {@link pl.edu.agh.firecell.engine.algorithm.FusedAlgorithm} of the chosen and the base step time on a single machine.
+ */
+public class DistributedStepExecutor implements StepExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(DistributedStepExecutor.class);
+
+    private final Algorithm algorithm;
+    private final List<InetSocketAddress> workerAddresses;
+    private final List<WorkerConnection> connections = new ArrayList<>();
+    private CellGrid lastComputedGrid;
+
+    /**
+     * @param algorithm       algorithm choosing the step time of every step, see {@link Algorithm#beginStep(State)}
+     * @param workerAddresses addresses of the workers, stepping subdomains from the bottom of the grid up
+     */
+    public DistributedStepExecutor(Algorithm algorithm, List<InetSocketAddress> workerAddresses) {
+        if (workerAddresses.isEmpty()) {
+            throw new IllegalArgumentException("At least one worker is required.");
+        }
+        this.algorithm = algorithm;
+        this.workerAddresses = List.copyOf(workerAddresses);
+    }
+
+    @Override
+    public void prepare(State initialState) {
+        algorithm.prepare(initialState);
+    }
+
+    @Override
+    public double beginStep(State oldState) {
+        return algorithm.beginStep(oldState);
+    }
+
+    @Override
+    public void step(State oldState, CellGrid newGrid) {
+        CellGrid oldGrid = oldState.grid();
+        try {
+            if (connections.isEmpty()) {
+                connect(oldGrid);
+            } else if (oldGrid != lastComputedGrid) {
+                load(oldGrid);
+            }
+            for (WorkerConnection connection : connections) {
+                connection.output.writeByte(WorkerProtocol.STEP);
+                connection.output.writeDouble(algorithm.deltaTime());
+                connection.output.writeDouble(algorithm.baseDeltaTime());
+                connection.output.flush();
+            }
+            int planeSize = oldGrid.spaceSize().x * oldGrid.spaceSize().y;
+            for (WorkerConnection connection : connections) {
+                Subdomain subdomain = connection.subdomain;
+                WorkerProtocol.readCells(connection.input, newGrid, subdomain.fromPlane() * planeSize,
+                        (subdomain.toPlane() - subdomain.fromPlane()) * planeSize);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Distributed step failed.", e);
+        }
+        lastComputedGrid = newGrid;
+    }
+
+    @Override
+    public void shutdown() {
+        for (WorkerConnection connection : connections) {
+            try (Socket socket = connection.socket) {
+                connection.output.writeByte(WorkerProtocol.CLOSE);
+                connection.output.flush();
+            } catch (IOException e) {
+                logger.warn("Could not close subdomain {}.", connection.subdomain.index(), e);
+            }
+        }
+        connections.clear();
+    }
+
+    private void connect(CellGrid grid) throws IOException {
+        List<Subdomain> subdomains = Subdomain.split(grid.spaceSize().z, workerAddresses.size());
+        for (Subdomain subdomain : subdomains) {
+            connections.add(new WorkerConnection(subdomain, workerAddresses.get(subdomain.index())));
+        }
+        for (WorkerConnection connection : connections) {
+            Subdomain subdomain = connection.subdomain;
+            DataOutputStream output = connection.output;
+            output.writeByte(WorkerProtocol.INIT);
+            output.writeInt(subdomain.index());
+            output.writeInt(grid.spaceSize().x);
+            output.writeInt(grid.spaceSize().y);
+            output.writeInt(grid.spaceSize().z);
+            output.writeInt(grid.halo());
+            output.writeInt(grid.boundaryCondition() == null ? -1 : grid.boundaryCondition().ordinal());
+            output.writeInt(grid.precision().ordinal());
+            output.writeInt(subdomain.fromPlane());
+            output.writeInt(subdomain.toPlane());
+            output.writeInt(subdomain.fromStoredPlane());
+            output.writeInt(subdomain.toStoredPlane());
+            InetSocketAddress upper = subdomain.hasUpperNeighbour() ? workerAddresses.get(subdomain.index() + 1) : null;
+            output.writeUTF(upper == null ? "" : upper.getHostString());
+            output.writeInt(upper == null ? -1 : upper.getPort());
+            writeStoredPlanes(connection, grid);
+        }
+        for (WorkerConnection connection : connections) {
+            WorkerProtocol.expect(WorkerProtocol.READY, connection.input.readByte());
+        }
+        logger.info("Grid of {} planes split between {} workers.", grid.spaceSize().z, connections.size());
+    }
+
+    private void load(CellGrid grid) throws IOException {
+        for (WorkerConnection connection : connections) {
+            connection.output.writeByte(WorkerProtocol.LOAD);
+            writeStoredPlanes(connection, grid);
+        }
+    }
+
+    private static void writeStoredPlanes(WorkerConnection connection, CellGrid grid) throws IOException {
+        int planeSize = grid.spaceSize().x * grid.spaceSize().y;
+        Subdomain subdomain = connection.subdomain;
+        WorkerProtocol.writeCells(connection.output, grid, subdomain.fromStoredPlane() * planeSize,
+                subdomain.storedPlanes() * planeSize);
+        connection.output.flush();
+    }
+
+    private static class WorkerConnection {
+        private final Subdomain subdomain;
+        private final Socket socket;
+        private final DataInputStream input;
+        private final DataOutputStream output;
+
+        private WorkerConnection(Subdomain subdomain, InetSocketAddress address) throws IOException {
+            this.subdomain = subdomain;
+            this.socket = new Socket(address.getHostString(), address.getPort());
+            socket.setTcpNoDelay(true);
+            this.input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            output.writeByte(WorkerProtocol.COORDINATOR_CONNECTION);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package pl.edu.agh.firecell.engine.distributed;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Part of the grid stepped by one worker: the z-planes {@code [fromPlane, toPlane)} it computes, extended by
+ * the halo planes {@code [fromStoredPlane, toStoredPlane)} it stores, which the neighbouring workers own.
+ */
+record Subdomain(int index, int fromPlane, int toPlane, int fromStoredPlane, int toStoredPlane) {
+
+    /**
+     * Number of planes a cell depends on in each direction, i.e. the halo planes exchanged every step.
+     */
+    static final int HALO_PLANES = 2;
+
+    /**
+     * Splits {@code planeCount} planes as evenly as possible. Every subdomain owns at least {@link #HALO_PLANES}
+     * planes, so halos only come from the adjacent subdomains.
+     */
+    static List<Subdomain> split(int planeCount, int workerCount) {
+        if (workerCount < 1 || planeCount < workerCount * HALO_PLANES) {
+            throw new IllegalArgumentException("Cannot split %s planes between %s workers, each needs at least %s."
+                    .formatted(planeCount, workerCount, HALO_PLANES));
+        }
+        List<Subdomain> subdomains = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            int fromPlane = (int) ((long) planeCount * i / workerCount);
+            int toPlane = (int) ((long) planeCount * (i + 1) / workerCount);
+            subdomains.add(new Subdomain(i, fromPlane, toPlane,
+                    Math.max(0, fromPlane - HALO_PLANES), Math.min(planeCount, toPlane + HALO_PLANES)));
+        }
+        return subdomains;
+    }
+
+    int storedPlanes() {
+        return toStoredPlane - fromStoredPlane;
+    }
+
+    boolean hasLowerNeighbour() {
+        return fromStoredPlane < fromPlane;
+    }
+
+    boolean hasUpperNeighbour() {
+        return toStoredPlane > toPlane;
+    }
+}
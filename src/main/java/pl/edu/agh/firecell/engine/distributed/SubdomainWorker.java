@@ -0,0 +1,271 @@
+package pl.edu.agh.firecell.engine.distributed;
+
+import org.joml.Vector3i;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.edu.agh.firecell.engine.algorithm.Algorithm;
+import pl.edu.agh.firecell.engine.algorithm.FusedAlgorithm;
+import pl.edu.agh.firecell.model.BoundaryCondition;
+import pl.edu.agh.firecell.model.CellGrid;
+import pl.edu.agh.firecell.model.Precision;
+import pl.edu.agh.firecell.model.State;
+import pl.edu.agh.firecell.model.exception.ConductionCoefficientException;
+import pl.edu.agh.firecell.model.util.HaloUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Process side of a {@link DistributedStepExecutor}: listens on a port and steps the subdomain the coordinator
+ * assigns to it, one simulation at a time.
+ * <p>
+ * The worker keeps the planes it owns and the halo planes around them in two plain grids used alternately.
+ * Every step it first swaps boundary planes with the workers of the neighbouring subdomains, then refreshes
+ * the ghost cells of its planes, computes the interior cells of the owned planes with a {@link FusedAlgorithm}
+ * of the step times sent by the coordinator and sends them back.
+ */
+public class SubdomainWorker implements Runnable, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubdomainWorker.class);
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService haloSender = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "halo-sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param port port to listen on, 0 for any free one
+     */
+    public SubdomainWorker(int port) throws IOException {
+        this.serverSocket = new ServerSocket(port);
+    }
+
+    public int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Serves coordinators one after another until the worker is closed.
+     */
+    @Override
+    public void run() {
+        logger.info("Worker listening on port {}.", port());
+        while (!serverSocket.isClosed()) {
+            try (Socket socket = serverSocket.accept()) {
+                socket.setTcpNoDelay(true);
+                var input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                var output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                if (input.readByte() != WorkerProtocol.COORDINATOR_CONNECTION) {
+                    logger.warn("Ignoring connection from {} outside of a simulation.", socket.getRemoteSocketAddress());
+                    continue;
+                }
+                new Session(input, output).serve();
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    logger.warn("Simulation session failed.", e);
+                }
+            }
+        }
+        logger.info("Worker stopped.");
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        haloSender.shutdownNow();
+    }
+
+    private class Session {
+        private final DataInputStream coordinatorInput;
+        private final DataOutputStream coordinatorOutput;
+        private final Map<Double, Algorithm> algorithms = new HashMap<>();
+
+        private Vector3i paddedSize;
+        private int halo;
+        private BoundaryCondition boundaryCondition;
+        private Subdomain subdomain;
+        private int planeSize;
+        private CellGrid currentGrid;
+        private CellGrid nextGrid;
+        private Socket lowerPeer;
+        private Socket upperPeer;
+        private DataInputStream lowerInput;
+        private DataOutputStream lowerOutput;
+        private DataInputStream upperInput;
+        private DataOutputStream upperOutput;
+
+        private Session(DataInputStream coordinatorInput, DataOutputStream coordinatorOutput) {
+            this.coordinatorInput = coordinatorInput;
+            this.coordinatorOutput = coordinatorOutput;
+        }
+
+        private void serve() throws IOException {
+            try {
+                initialize();
+                while (true) {
+                    byte message = coordinatorInput.readByte();
+                    switch (message) {
+                        case WorkerProtocol.LOAD -> WorkerProtocol.readCells(coordinatorInput, currentGrid, 0, currentGrid.cellCount());
+                        case WorkerProtocol.STEP -> step(coordinatorInput.readDouble(), coordinatorInput.readDouble());
+                        case WorkerProtocol.CLOSE -> {
+                            logger.info("Subdomain {} closed.", subdomain.index());
+                            return;
+                        }
+                        default -> throw new IOException("Unexpected message %s.".formatted(message));
+                    }
+                }
+            } finally {
+                closePeers();
+            }
+        }
+
+        private void initialize() throws IOException {
+            WorkerProtocol.expect(WorkerProtocol.INIT, coordinatorInput.readByte());
+            int index = coordinatorInput.readInt();
+            paddedSize = new Vector3i(coordinatorInput.readInt(), coordinatorInput.readInt(), coordinatorInput.readInt());
+            halo = coordinatorInput.readInt();
+            int boundaryConditionOrdinal = coordinatorInput.readInt();
+            boundaryCondition = boundaryConditionOrdinal < 0 ? null : BoundaryCondition.values()[boundaryConditionOrdinal];
+            Precision precision = Precision.values()[coordinatorInput.readInt()];
+            subdomain = new Subdomain(index, coordinatorInput.readInt(), coordinatorInput.readInt(),
+                    coordinatorInput.readInt(), coordinatorInput.readInt());
+            String upperHost = coordinatorInput.readUTF();
+            int upperPort = coordinatorInput.readInt();
+
+            planeSize = paddedSize.x * paddedSize.y;
+            currentGrid = new CellGrid(new Vector3i(paddedSize.x, paddedSize.y, subdomain.storedPlanes()), precision);
+            WorkerProtocol.readCells(coordinatorInput, currentGrid, 0, currentGrid.cellCount());
+            // ghost cells are never computed, so the other grid keeps them from the start
+            nextGrid = currentGrid.copy();
+
+            // the connection is queued by the worker above until it gets to accepting it, so this cannot block
+            if (subdomain.hasUpperNeighbour()) {
+                upperPeer = new Socket(upperHost, upperPort);
+                upperPeer.setTcpNoDelay(true);
+                upperInput = new DataInputStream(new BufferedInputStream(upperPeer.getInputStream()));
+                upperOutput = new DataOutputStream(new BufferedOutputStream(upperPeer.getOutputStream()));
+                upperOutput.writeByte(WorkerProtocol.PEER_CONNECTION);
+                upperOutput.flush();
+            }
+            if (subdomain.hasLowerNeighbour()) {
+                lowerPeer = serverSocket.accept();
+                lowerPeer.setTcpNoDelay(true);
+                lowerInput = new DataInputStream(new BufferedInputStream(lowerPeer.getInputStream()));
+                lowerOutput = new DataOutputStream(new BufferedOutputStream(lowerPeer.getOutputStream()));
+                WorkerProtocol.expect(WorkerProtocol.PEER_CONNECTION, lowerInput.readByte());
+            }
+
+            coordinatorOutput.writeByte(WorkerProtocol.READY);
+            coordinatorOutput.flush();
+            logger.info("Stepping planes [{}, {}) as subdomain {}.", subdomain.fromPlane(), subdomain.toPlane(), index);
+        }
+
+        private void step(double deltaTime, double baseDeltaTime) throws IOException {
+            exchangeHalo();
+            if (boundaryCondition != null) {
+                HaloUtils.refreshSlabHalo(currentGrid, paddedSize, halo, boundaryCondition, subdomain.fromStoredPlane());
+            }
+
+            Algorithm algorithm = algorithm(deltaTime, baseDeltaTime);
+            State state = new State(currentGrid);
+            int fromPlane = Math.max(subdomain.fromPlane(), halo);
+            int toPlane = Math.min(subdomain.toPlane(), paddedSize.z - halo);
+            for (int z = fromPlane; z < toPlane; z++) {
+                for (int y = halo; y < paddedSize.y - halo; y++) {
+                    int rowStart = ((z - subdomain.fromStoredPlane()) * paddedSize.y + y) * paddedSize.x;
+                    algorithm.compute(state, rowStart + halo, rowStart + paddedSize.x - halo, nextGrid);
+                }
+            }
+
+            WorkerProtocol.writeCells(coordinatorOutput, nextGrid, localIndex(subdomain.fromPlane()),
+                    (subdomain.toPlane() - subdomain.fromPlane()) * planeSize);
+            coordinatorOutput.flush();
+            CellGrid computedGrid = nextGrid;
+            nextGrid = currentGrid;
+            currentGrid = computedGrid;
+        }
+
+        /**
+         * Sends the owned planes next to each neighbour on a separate thread while receiving theirs, so
+         * the exchange never waits for both sides to read.
+         */
+        private void exchangeHalo() throws IOException {
+            CellGrid grid = currentGrid;
+            int haloPlanes = Subdomain.HALO_PLANES;
+            Future<?> sent = haloSender.submit(() -> {
+                if (lowerOutput != null) {
+                    WorkerProtocol.writeCells(lowerOutput, grid, localIndex(subdomain.fromPlane()), haloPlanes * planeSize);
+                    lowerOutput.flush();
+                }
+                if (upperOutput != null) {
+                    WorkerProtocol.writeCells(upperOutput, grid, localIndex(subdomain.toPlane() - haloPlanes), haloPlanes * planeSize);
+                    upperOutput.flush();
+                }
+                return null;
+            });
+            if (lowerInput != null) {
+                WorkerProtocol.readCells(lowerInput, grid, 0, (subdomain.fromPlane() - subdomain.fromStoredPlane()) * planeSize);
+            }
+            if (upperInput != null) {
+                WorkerProtocol.readCells(upperInput, grid, localIndex(subdomain.toPlane()),
+                        (subdomain.toStoredPlane() - subdomain.toPlane()) * planeSize);
+            }
+            try {
+                sent.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while sending halo planes.", e);
+            } catch (ExecutionException e) {
+                throw new IOException("Sending halo planes failed.", e.getCause());
+            }
+        }
+
+        /**
+         * @return algorithm of the step time, the base step time stays the same during a simulation
+         */
+        private Algorithm algorithm(double deltaTime, double baseDeltaTime) {
+            Algorithm algorithm = algorithms.get(deltaTime);
+            if (algorithm == null) {
+                try {
+                    algorithm = new FusedAlgorithm(deltaTime, baseDeltaTime);
+                } catch (ConductionCoefficientException e) {
+                    throw new IllegalStateException("Conduction coefficients are not defined.", e);
+                }
+                // materials never change, so the conductances of the current grid serve every step
+                algorithm.prepare(new State(currentGrid));
+                algorithms.put(deltaTime, algorithm);
+            }
+            return algorithm;
+        }
+
+        private int localIndex(int plane) {
+            return (plane - subdomain.fromStoredPlane()) * planeSize;
+        }
+
+        private void closePeers() {
+            for (Socket peer : new Socket[]{lowerPeer, upperPeer}) {
+                if (peer == null) {
+                    continue;
+                }
+                try {
+                    peer.close();
+                } catch (IOException e) {
+                    logger.warn("Could not close connection to a neighbouring worker.", e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package pl.edu.agh.firecell.engine.distributed;
+
+import pl.edu.agh.firecell.model.CellGrid;
+import pl.edu.agh.firecell.model.Precision;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Messages exchanged over the connections of a distributed simulation and the encoding of cells in them.
+ * <p>
+ * A connection starts with a byte telling whether the coordinator or the worker stepping the subdomain below
+ * opened it. The coordinator then sends {@link #INIT} once, followed by any number of {@link #LOAD} and
+ * {@link #STEP} messages and finally {@link #CLOSE}. A worker answers {@code INIT} with {@link #READY} and
+ * every {@code STEP} with its owned planes. Workers of neighbouring subdomains send each other their boundary
+ * planes at the beginning of every step.
+ */
+final class WorkerProtocol {
+
+    static final byte COORDINATOR_CONNECTION = 1;
+    static final byte PEER_CONNECTION = 2;
+
+    /**
+     * Index of the subdomain, padded grid size and halo, boundary condition ordinal or -1, precision ordinal,
+     * owned and stored planes, address of the worker above or an empty host, then the stored planes.
+     */
+    static final byte INIT = 10;
+    /**
+     * Stored planes, replacing the state of the worker.
+     */
+    static final byte LOAD = 11;
+    /**
+     * Step time of the step to compute and the base step time of the algorithm, see
+     * {@link pl.edu.agh.firecell.engine.algorithm.Algorithm#baseDeltaTime()}.
+     */
+    static final byte STEP = 12;
+    static final byte CLOSE = 13;
+    static final byte READY = 20;
+
+    // packed material, flags and counters, followed by temperature, smoke and oxygen
+    private static final int FIXED_BYTES_PER_CELL = Integer.BYTES;
+
+    private WorkerProtocol() {
+    }
+
+    /**
+     * Writes {@code length} consecutive cells of the grid starting at {@code fromIndex}, field by field,
+     * with the scalar fields in the precision of the grid.
+     */
+    static void writeCells(DataOutputStream output, CellGrid grid, int fromIndex, int length) throws IOException {
+        boolean singlePrecision = grid.precision() == Precision.FLOAT;
+        ByteBuffer buffer = ByteBuffer.allocate(length * bytesPerCell(grid));
+        int toIndex = fromIndex + length;
+        for (int i = fromIndex; i < toIndex; i++) {
+            putScalar(buffer, grid.temperature(i), singlePrecision);
+        }
+        for (int i = fromIndex; i < toIndex; i++) {
+            buffer.putInt(grid.packedState(i));
+        }
+        for (int i = fromIndex; i < toIndex; i++) {
+            putScalar(buffer, grid.smokeIndicator(i), singlePrecision);
+        }
+        for (int i = fromIndex; i < toIndex; i++) {
+            putScalar(buffer, grid.oxygenLevel(i), singlePrecision);
+        }
+        output.write(buffer.array());
+    }
+
+    /**
+     * Reads {@code length} cells written by {@link #writeCells} into the grid starting at {@code fromIndex}.
+     */
+    static void readCells(DataInputStream input, CellGrid grid, int fromIndex, int length) throws IOException {
+        boolean singlePrecision = grid.precision() == Precision.FLOAT;
+        byte[] bytes = new byte[length * bytesPerCell(grid)];
+        input.readFully(bytes);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int toIndex = fromIndex + length;
+        for (int i = fromIndex; i < toIndex; i++) {
+            grid.setTemperature(i, getScalar(buffer, singlePrecision));
+        }
+        for (int i = fromIndex; i < toIndex; i++) {
+            grid.setPackedState(i, buffer.getInt());
+        }
+        for (int i = fromIndex; i < toIndex; i++) {
+            grid.setSmokeIndicator(i, getScalar(buffer, singlePrecision));
+        }
+        for (int i = fromIndex; i < toIndex; i++) {
+            grid.setOxygenLevel(i, getScalar(buffer, singlePrecision));
+        }
+    }
+
+    private static int bytesPerCell(CellGrid grid) {
+        int scalarBytes = grid.precision() == Precision.FLOAT ? Float.BYTES : Double.BYTES;
+        return FIXED_BYTES_PER_CELL + 3 * scalarBytes;
+    }
+
+    private static void putScalar(ByteBuffer buffer, double value, boolean singlePrecision) {
+        if (singlePrecision) {
+            buffer.putFloat((float) value);
+        } else {
+            buffer.putDouble(value);
+        }
+    }
+
+    private static double getScalar(ByteBuffer buffer, boolean singlePrecision) {
+        return singlePrecision ? buffer.getFloat() : buffer.getDouble();
+    }
+
+    static void expect(byte expected, byte actual) throws IOException {
+        if (expected != actual) {
+            throw new IOException("Expected message %s, got %s.".formatted(expected, actual));
+        }
+    }
+}
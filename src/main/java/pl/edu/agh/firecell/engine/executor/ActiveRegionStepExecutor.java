@@ -0,0 +1,159 @@
+package pl.edu.agh.firecell.engine.executor;
+
+import org.joml.Vector3i;
+import pl.edu.agh.firecell.engine.SteadyStateCriterion;
+import pl.edu.agh.firecell.engine.algorithm.Algorithm;
+import pl.edu.agh.firecell.model.CellGrid;
+import pl.edu.agh.firecell.model.State;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Slab executor which only evaluates the algorithm for cells that can change. A cell is active when any cell
+ * it depends on changed in the previous step, every other cell is copied from the old state. With zero epsilon
+ * the result is exactly the one of {@link SlabStepExecutor}, a positive epsilon additionally freezes cells whose
+ * neighbourhood changes by less than epsilon per step.
+ * <p>
+ * Ghost cells of padded grids are never marked as changed. The only ghost field that changes is a mirrored
+ * temperature, read solely by the conduction of the interior cell it mirrors, which is then marked itself.
+ * <p>
+ * The executor keeps the tracking data between steps, so it serves a single simulation.
+ */
+public class ActiveRegionStepExecutor extends SlabStepExecutor {
+
+    private final double epsilon;
+    private final LongAdder activeCellCounter = new LongAdder();
+
+    private boolean[] changed;
+    private boolean[] dilatedX;
+    private boolean[] dilatedXY;
+    private boolean[] active;
+    private CellGrid lastComputedGrid;
+    private long lastActiveCellCount;
+
+    public ActiveRegionStepExecutor(Algorithm algorithm, int threadCount, double epsilon) {
+        super(algorithm, threadCount);
+        if (epsilon < 0) {
+            throw new IllegalArgumentException("Epsilon must not be negative, got %s.".formatted(epsilon));
+        }
+        this.epsilon = epsilon;
+    }
+
+    public ActiveRegionStepExecutor(Algorithm algorithm, int threadCount) {
+        this(algorithm, threadCount, 0);
+    }
+
+    /**
+     * Exact executor running on a pool shared with other simulations, see
+     * {@link SlabStepExecutor#SlabStepExecutor(Algorithm, ForkJoinPool, int)}.
+     */
+    public ActiveRegionStepExecutor(Algorithm algorithm, ForkJoinPool sharedPool, int threadCount) {
+        super(algorithm, sharedPool, threadCount);
+        this.epsilon = 0;
+    }
+
+    @Override
+    public void step(State oldState, CellGrid newGrid) {
+        CellGrid oldGrid = oldState.grid();
+        Vector3i spaceSize = oldState.spaceSize();
+        int cellCount = oldGrid.cellCount();
+        boolean trackable = spaceSize.x * spaceSize.y * spaceSize.z == cellCount;
+
+        if (active == null || active.length != cellCount) {
+            changed = new boolean[cellCount];
+            dilatedX = new boolean[cellCount];
+            dilatedXY = new boolean[cellCount];
+            active = new boolean[cellCount];
+            lastComputedGrid = null;
+        }
+        // tracking is only valid when we continue from the grid computed in the previous step
+        if (!trackable || oldGrid != lastComputedGrid) {
+            Arrays.fill(active, true);
+        }
+
+        activeCellCounter.reset();
+        beginSteadinessCheck();
+        forEachSlab(cellCount, spaceSize.x, (fromIndex, toIndex) -> forEachComputedRange(oldGrid, fromIndex, toIndex,
+                (computedFrom, computedTo) -> computeActiveCells(oldState, newGrid, computedFrom, computedTo)));
+        lastActiveCellCount = activeCellCounter.sum();
+
+        if (trackable) {
+            int strideY = spaceSize.x;
+            int strideZ = spaceSize.x * spaceSize.y;
+            forEachSlab(cellCount, spaceSize.x, (fromIndex, toIndex) ->
+                    dilate(changed, dilatedX, fromIndex, toIndex, 1, spaceSize.x, strideY));
+            forEachSlab(cellCount, spaceSize.x, (fromIndex, toIndex) ->
+                    dilate(dilatedX, dilatedXY, fromIndex, toIndex, strideY, spaceSize.y, strideZ));
+            forEachSlab(cellCount, spaceSize.x, (fromIndex, toIndex) ->
+                    dilate(dilatedXY, active, fromIndex, toIndex, strideZ, spaceSize.z, cellCount));
+            lastComputedGrid = newGrid;
+        }
+    }
+
+    /**
+     * @return number of cells evaluated in the last step
+     */
+    public long lastActiveCellCount() {
+        return lastActiveCellCount;
+    }
+
+    /**
+     * Computes the runs of consecutive active cells as ranges, so algorithms processing whole rows at once (e.g.
+     * {@link pl.edu.agh.firecell.engine.algorithm.FusedAlgorithm} and its vector kernel) keep doing so, and copies
+     * the runs of inactive cells. The steady state check of computed cells shares the pass marking changed cells.
+     */
+    private void computeActiveCells(State oldState, CellGrid newGrid, int fromIndex, int toIndex) {
+        CellGrid oldGrid = oldState.grid();
+        int activeCells = 0;
+        int runStart = fromIndex;
+        while (runStart < toIndex) {
+            boolean runActive = active[runStart];
+            int runEnd = runStart + 1;
+            while (runEnd < toIndex && active[runEnd] == runActive) {
+                runEnd++;
+            }
+            if (runActive) {
+                algorithm().compute(oldState, runStart, runEnd, newGrid);
+                SteadyStateCriterion criterion = pendingSteadyStateCriterion();
+                for (int i = runStart; i < runEnd; i++) {
+                    changed[i] = newGrid.cellDiffers(i, oldGrid, epsilon);
+                    if (criterion != null && !criterion.isSteadyCell(oldGrid, newGrid, i)) {
+                        markUnsteadyStep();
+                        criterion = null;
+                    }
+                }
+                activeCells += runEnd - runStart;
+            } else {
+                newGrid.copyRange(oldGrid, runStart, runStart, runEnd - runStart);
+                Arrays.fill(changed, runStart, runEnd, false);
+                // copied cells did not change, but may burn with a positive epsilon
+                checkSteadiness(oldGrid, newGrid, runStart, runEnd);
+            }
+            runStart = runEnd;
+        }
+        activeCellCounter.add(activeCells);
+    }
+
+    /**
+     * One separable pass of the box dilation: marks a cell when any cell up to {@link #DEPENDENCY_RADIUS}
+     * positions away along the axis with the given stride is marked in {@code source}.
+     *
+     * @param axisSize number of cells along the axis
+     * @param axisPeriod stride of the next axis, i.e. the length of one full line along this axis
+     */
+    private static void dilate(boolean[] source, boolean[] target, int fromIndex, int toIndex,
+                               int stride, int axisSize, int axisPeriod) {
+        for (int i = fromIndex; i < toIndex; i++) {
+            int position = i % axisPeriod / stride;
+            int from = Math.max(0, position - DEPENDENCY_RADIUS);
+            int to = Math.min(axisSize - 1, position + DEPENDENCY_RADIUS);
+            boolean marked = false;
+            for (int p = from; p <= to && !marked; p++) {
+                marked = source[i + (p - position) * stride];
+            }
+            target[i] = marked;
+        }
+    }
+}
@@ -0,0 +1,404 @@
+package pl.edu.agh.firecell.engine.executor;
+
+import org.joml.Vector3i;
+import pl.edu.agh.firecell.engine.algorithm.AdaptiveAlgorithm;
+import pl.edu.agh.firecell.engine.algorithm.Algorithm;
+import pl.edu.agh.firecell.engine.algorithm.FusedAlgorithm;
+import pl.edu.agh.firecell.engine.algorithm.kernel.DiffusionKernel;
+import pl.edu.agh.firecell.model.CellGrid;
+import pl.edu.agh.firecell.model.State;
+import pl.edu.agh.firecell.model.exception.ConductionCoefficientException;
+import pl.edu.agh.firecell.model.material.Material;
+import pl.edu.agh.firecell.model.material.MaterialConductionMap;
+import pl.edu.agh.firecell.model.util.NeighbourStencil;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import static pl.edu.agh.firecell.engine.algorithm.DiffusionGenerator.OXYGEN_DIFFUSION_COEFFICIENT;
+import static pl.edu.agh.firecell.engine.algorithm.DiffusionGenerator.OXYGEN_SUM_OF_WEIGHTS;
+import static pl.edu.agh.firecell.engine.algorithm.DiffusionGenerator.TEMPERATURE_MAIN_WEIGHT;
+import static pl.edu.agh.firecell.engine.algorithm.TemperaturePropagator.CONVECTION_COEFFICIENT;
+import static pl.edu.agh.firecell.model.util.NeighbourStencil.NONE;
+
+/**
+ * Slab executor splitting the space into cubic bricks, each stepped either at full resolution by the algorithm
+ * or, while quiet, as a single coarse cell.
+ * <p>
+ * The bricks only skip computation, they save no memory: grids stay dense, a coarse brick still stores each of
+ * its cells, all set to the same values, and so do the states passed to storage and the renderer. Storing a quiet
+ * brick as one value is not done, it would need grids indexed by brick, dense only in refined bricks, which
+ * the algorithms, halos, serializers and the other executors reading {@link CellGrid} by cell index do not
+ * support. Spaces too large for memory at full resolution are therefore still out of reach.
+ * <p>
+ * A brick of air or concrete is coarsened when nothing burns or smokes in it or around it and its temperature
+ * and oxygen level are nearly uniform. All its cells are then set to their mean, which keeps the heat and oxygen
+ * of the brick, and stay equal afterwards, so the full resolution cells around read it like any other cells.
+ * A coarse brick is stepped as a lump: conduction, convection and diffusion are evaluated with the formulas of
+ * the algorithm only for the pairs of cells across its faces and their sum is spread over the brick, matching
+ * the exchange computed on the other side of each face. As soon as fire, smoke or a larger temperature or oxygen
+ * difference reaches the cells around a coarse brick, it is refined before the next step, i.e. its cells are
+ * computed by the algorithm again.
+ * <p>
+ * Coarse bricks are checked after every step, full resolution ones every {@link #COARSEN_INTERVAL} steps.
+ * Like {@link ActiveRegionStepExecutor} the executor keeps the classification between steps, so it serves
+ * a single simulation.
+ */
+public class BrickRefinementStepExecutor extends SlabStepExecutor {
+
+    // materials which never burn
+    private static final Set<Material> COARSENABLE_MATERIALS = EnumSet.of(Material.AIR, Material.CELLULAR_CONCRETE);
+    // differences to the cells around which refine a coarse brick, the smaller ones are required to coarsen it
+    private static final double REFINE_TEMPERATURE_DIFFERENCE = 0.5;
+    private static final double REFINE_OXYGEN_DIFFERENCE = 0.2;
+    private static final double COARSEN_TEMPERATURE_DIFFERENCE = 0.1;
+    private static final double COARSEN_OXYGEN_DIFFERENCE = 0.05;
+    private static final int COARSEN_INTERVAL = 8;
+
+    private final int brickSize;
+    private final MaterialConductionMap materialConductionMap;
+    private final LongAdder coarseBrickCounter = new LongAdder();
+
+    private Brick[] bricks;
+    private boolean[] coarse;
+    private boolean[] switching;
+    private CellGrid lastComputedGrid;
+    private long stepCount;
+    private long lastCoarseBrickCount;
+
+    /**
+     * @param algorithm {@link FusedAlgorithm} or {@link AdaptiveAlgorithm}, whose formulas coarse bricks are stepped with
+     */
+    public BrickRefinementStepExecutor(Algorithm algorithm, int threadCount, int brickSize)
+            throws ConductionCoefficientException {
+        super(algorithm, threadCount);
+        if (!(algorithm instanceof FusedAlgorithm) && !(algorithm instanceof AdaptiveAlgorithm)) {
+            throw new IllegalArgumentException("Bricks are stepped with the formulas of the fused algorithm, got %s."
+                    .formatted(algorithm.getClass().getSimpleName()));
+        }
+        if (brickSize < 2) {
+            throw new IllegalArgumentException("Brick size must be at least 2, got %s.".formatted(brickSize));
+        }
+        this.brickSize = brickSize;
+        this.materialConductionMap = new MaterialConductionMap();
+    }
+
+    @Override
+    public void step(State oldState, CellGrid newGrid) {
+        CellGrid oldGrid = oldState.grid();
+        if (bricks == null || bricks.length == 0 || !bricks[0].fits(oldGrid)) {
+            layOutBricks(oldGrid);
+        }
+        // the classification is only valid when we continue from the grid computed in the previous step
+        if (oldGrid != lastComputedGrid) {
+            Arrays.fill(coarse, false);
+        }
+        double deltaTime = algorithm().deltaTime();
+        double stepRatio = DiffusionKernel.stepRatio(deltaTime, algorithm().baseDeltaTime());
+
+        beginSteadinessCheck();
+        forEachSlab(bricks.length, 1, (fromBrick, toBrick) -> {
+            for (int brick = fromBrick; brick < toBrick; brick++) {
+                if (coarse[brick]) {
+                    stepCoarseBrick(bricks[brick], oldGrid, newGrid, deltaTime, stepRatio);
+                } else {
+                    stepFineBrick(bricks[brick], oldState, newGrid);
+                }
+            }
+        });
+
+        // all bricks are classified before any of them changes, so no check reads a brick being rewritten
+        boolean coarsening = ++stepCount % COARSEN_INTERVAL == 0;
+        forEachSlab(bricks.length, 1, (fromBrick, toBrick) -> {
+            for (int brick = fromBrick; brick < toBrick; brick++) {
+                switching[brick] = coarse[brick] ?
+                        !coarseBrickQuiet(bricks[brick], newGrid) :
+                        coarsening && canCoarsen(bricks[brick], newGrid);
+            }
+        });
+        coarseBrickCounter.reset();
+        forEachSlab(bricks.length, 1, (fromBrick, toBrick) -> {
+            int coarseBricks = 0;
+            for (int brick = fromBrick; brick < toBrick; brick++) {
+                if (switching[brick]) {
+                    if (!coarse[brick]) {
+                        coarsen(bricks[brick], newGrid);
+                    }
+                    coarse[brick] = !coarse[brick];
+                }
+                if (coarse[brick]) {
+                    coarseBricks++;
+                }
+            }
+            coarseBrickCounter.add(coarseBricks);
+        });
+        lastCoarseBrickCount = coarseBrickCounter.sum();
+        lastComputedGrid = newGrid;
+    }
+
+    /**
+     * @return number of bricks which will be stepped as a single cell in the next step
+     */
+    public long lastCoarseBrickCount() {
+        return lastCoarseBrickCount;
+    }
+
+    /**
+     * @return number of bricks the space is split into, 0 before the first step
+     */
+    public int brickCount() {
+        return bricks == null ? 0 : bricks.length;
+    }
+
+    private void layOutBricks(CellGrid grid) {
+        Vector3i spaceSize = grid.spaceSize();
+        int halo = grid.halo();
+        int sizeX = spaceSize.x - 2 * halo;
+        int sizeY = spaceSize.y - 2 * halo;
+        int sizeZ = spaceSize.z - 2 * halo;
+        int countX = (sizeX + brickSize - 1) / brickSize;
+        int countY = (sizeY + brickSize - 1) / brickSize;
+        int countZ = (sizeZ + brickSize - 1) / brickSize;
+
+        // bricks at the far ends of the interior are clipped
+        bricks = new Brick[countX * countY * countZ];
+        int brick = 0;
+        for (int z = 0; z < countZ; z++) {
+            for (int y = 0; y < countY; y++) {
+                for (int x = 0; x < countX; x++) {
+                    int x0 = halo + x * brickSize;
+                    int y0 = halo + y * brickSize;
+                    int z0 = halo + z * brickSize;
+                    bricks[brick++] = new Brick(new Vector3i(spaceSize), halo,
+                            x0, Math.min(x0 + brickSize, halo + sizeX),
+                            y0, Math.min(y0 + brickSize, halo + sizeY),
+                            z0, Math.min(z0 + brickSize, halo + sizeZ));
+                }
+            }
+        }
+        coarse = new boolean[bricks.length];
+        switching = new boolean[bricks.length];
+        lastComputedGrid = null;
+    }
+
+    private void stepFineBrick(Brick brick, State oldState, CellGrid newGrid) {
+        for (int z = brick.z0; z < brick.z1; z++) {
+            for (int y = brick.y0; y < brick.y1; y++) {
+                int rowStart = brick.index(0, y, z);
+                algorithm().compute(oldState, rowStart + brick.x0, rowStart + brick.x1, newGrid);
+                checkSteadiness(oldState.grid(), newGrid, rowStart + brick.x0, rowStart + brick.x1);
+            }
+        }
+    }
+
+    /**
+     * Steps a uniform brick as one cell. Following the algorithm, conduction is only scaled by the step time
+     * along the north-south axis and by the step ratio along the others, temperature diffusion and the oxygen
+     * exchange only take fluid neighbours into account and convection only runs between fluid cells.
+     */
+    private void stepCoarseBrick(Brick brick, CellGrid oldGrid, CellGrid newGrid, double deltaTime, double stepRatio) {
+        NeighbourStencil stencil = oldGrid.stencil();
+        int first = brick.index(brick.x0, brick.y0, brick.z0);
+        Material material = oldGrid.material(first);
+        boolean fluid = oldGrid.isFluid(first);
+        double temperature = oldGrid.temperature(first);
+        double oxygen = oldGrid.oxygenLevel(first);
+        double temperatureDiffusionWeight = deltaTime / (NeighbourStencil.FACE_COUNT * deltaTime + TEMPERATURE_MAIN_WEIGHT);
+        double oxygenDiffusionWeight = Math.min(deltaTime * OXYGEN_DIFFUSION_COEFFICIENT, 1) / OXYGEN_SUM_OF_WEIGHTS;
+
+        double heat = 0;
+        double oxygenFlow = 0;
+        for (int face = 0; face < NeighbourStencil.FACE_COUNT; face++) {
+            for (int z = brick.faceZ0(face); z < brick.faceZ1(face); z++) {
+                for (int y = brick.faceY0(face); y < brick.faceY1(face); y++) {
+                    for (int x = brick.faceX0(face); x < brick.faceX1(face); x++) {
+                        int neighbour = stencil.neighbour(brick.index(x, y, z), face);
+                        if (neighbour == NONE) {
+                            continue;
+                        }
+                        double temperatureDifference = oldGrid.temperature(neighbour) - temperature;
+                        double conduction = materialConductionMap.getCoefficient(oldGrid.materialOrdinal(neighbour),
+                                material.ordinal()) * temperatureDifference;
+                        heat += face == NeighbourStencil.NORTH || face == NeighbourStencil.SOUTH ?
+                                deltaTime * conduction : stepRatio * conduction;
+                        if (!oldGrid.isFluid(neighbour)) {
+                            continue;
+                        }
+                        heat += temperatureDiffusionWeight * temperatureDifference;
+                        oxygenFlow += oxygenDiffusionWeight * (oldGrid.oxygenLevel(neighbour) - oxygen);
+                        if (fluid && (face == NeighbourStencil.DOWN && temperatureDifference > 0 ||
+                                face == NeighbourStencil.UP && temperatureDifference < 0)) {
+                            heat += deltaTime * CONVECTION_COEFFICIENT * temperatureDifference;
+                        }
+                    }
+                }
+            }
+        }
+
+        int volume = brick.volume();
+        double newOxygen = oxygen + oxygenFlow / volume;
+        newGrid.copyCell(first, oldGrid);
+        newGrid.setTemperature(first, temperature + heat / volume);
+        newGrid.setOxygenLevel(first, newOxygen);
+        newGrid.setFlammable(first, material == Material.AIR && oxygen > 0);
+        // the cells of a coarse brick are equal before and after the step, so the first one tells for all
+        checkSteadiness(oldGrid, newGrid, first, first + 1);
+        fill(brick, newGrid, first);
+    }
+
+    /**
+     * @return whether nothing around the coarse brick requires it to be computed at full resolution
+     */
+    private static boolean coarseBrickQuiet(Brick brick, CellGrid grid) {
+        int first = brick.index(brick.x0, brick.y0, brick.z0);
+        return surroundingsQuiet(brick, grid, grid.temperature(first), grid.oxygenLevel(first),
+                REFINE_TEMPERATURE_DIFFERENCE, REFINE_OXYGEN_DIFFERENCE);
+    }
+
+    private static boolean canCoarsen(Brick brick, CellGrid grid) {
+        int first = brick.index(brick.x0, brick.y0, brick.z0);
+        Material material = grid.material(first);
+        boolean flammable = grid.flammable(first);
+        if (!COARSENABLE_MATERIALS.contains(material)) {
+            return false;
+        }
+        double minTemperature = Double.POSITIVE_INFINITY;
+        double maxTemperature = Double.NEGATIVE_INFINITY;
+        double minOxygen = Double.POSITIVE_INFINITY;
+        double maxOxygen = Double.NEGATIVE_INFINITY;
+        for (int z = brick.z0; z < brick.z1; z++) {
+            for (int y = brick.y0; y < brick.y1; y++) {
+                for (int i = brick.index(brick.x0, y, z); i < brick.index(brick.x1, y, z); i++) {
+                    if (grid.material(i) != material || grid.flammable(i) != flammable ||
+                            grid.burningTime(i) != 0 || grid.remainingFirePillar(i) != 0 || grid.smokeIndicator(i) != 0) {
+                        return false;
+                    }
+                    minTemperature = Math.min(minTemperature, grid.temperature(i));
+                    maxTemperature = Math.max(maxTemperature, grid.temperature(i));
+                    minOxygen = Math.min(minOxygen, grid.oxygenLevel(i));
+                    maxOxygen = Math.max(maxOxygen, grid.oxygenLevel(i));
+                }
+            }
+        }
+        if (maxTemperature - minTemperature > COARSEN_TEMPERATURE_DIFFERENCE || maxOxygen - minOxygen > COARSEN_OXYGEN_DIFFERENCE) {
+            return false;
+        }
+        return surroundingsQuiet(brick, grid, (minTemperature + maxTemperature) / 2, (minOxygen + maxOxygen) / 2,
+                COARSEN_TEMPERATURE_DIFFERENCE, COARSEN_OXYGEN_DIFFERENCE);
+    }
+
+    /**
+     * @return whether no cell adjacent to the brick burns, has a fire pillar or smoke, or differs from the given
+     * temperature and oxygen level by more than the given differences, oxygen only compared for fluid cells
+     */
+    private static boolean surroundingsQuiet(Brick brick, CellGrid grid, double temperature, double oxygen,
+                                             double temperatureDifference, double oxygenDifference) {
+        NeighbourStencil stencil = grid.stencil();
+        for (int face = 0; face < NeighbourStencil.FACE_COUNT; face++) {
+            for (int z = brick.faceZ0(face); z < brick.faceZ1(face); z++) {
+                for (int y = brick.faceY0(face); y < brick.faceY1(face); y++) {
+                    for (int x = brick.faceX0(face); x < brick.faceX1(face); x++) {
+                        int neighbour = stencil.neighbour(brick.index(x, y, z), face);
+                        if (neighbour == NONE) {
+                            continue;
+                        }
+                        if (grid.isBurning(neighbour) || grid.remainingFirePillar(neighbour) > 0 ||
+                                Math.abs(grid.temperature(neighbour) - temperature) > temperatureDifference) {
+                            return false;
+                        }
+                        // the ghost cells of closed boundaries are solid and full of smoke, which never moves
+                        if (grid.isFluid(neighbour) && (grid.smokeIndicator(neighbour) > 0 ||
+                                Math.abs(grid.oxygenLevel(neighbour) - oxygen) > oxygenDifference)) {
+                            return false;
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sets every cell of the brick to its mean temperature and oxygen level.
+     */
+    private static void coarsen(Brick brick, CellGrid grid) {
+        double temperatureSum = 0;
+        double oxygenSum = 0;
+        for (int z = brick.z0; z < brick.z1; z++) {
+            for (int y = brick.y0; y < brick.y1; y++) {
+                for (int i = brick.index(brick.x0, y, z); i < brick.index(brick.x1, y, z); i++) {
+                    temperatureSum += grid.temperature(i);
+                    oxygenSum += grid.oxygenLevel(i);
+                }
+            }
+        }
+        int first = brick.index(brick.x0, brick.y0, brick.z0);
+        grid.setTemperature(first, temperatureSum / brick.volume());
+        grid.setOxygenLevel(first, oxygenSum / brick.volume());
+        fill(brick, grid, first);
+    }
+
+    /**
+     * Copies the first cell of the brick to all its other cells.
+     */
+    private static void fill(Brick brick, CellGrid grid, int first) {
+        int rowLength = brick.x1 - brick.x0;
+        for (int filled = 1; filled < rowLength; filled *= 2) {
+            grid.copyRange(grid, first, first + filled, Math.min(filled, rowLength - filled));
+        }
+        for (int z = brick.z0; z < brick.z1; z++) {
+            for (int y = brick.y0; y < brick.y1; y++) {
+                int rowStart = brick.index(brick.x0, y, z);
+                if (rowStart != first) {
+                    grid.copyRange(grid, first, rowStart, rowLength);
+                }
+            }
+        }
+    }
+
+    /**
+     * Cells {@code [x0, x1) x [y0, y1) x [z0, z1)} of a grid of the given size and halo.
+     */
+    private record Brick(Vector3i spaceSize, int halo, int x0, int x1, int y0, int y1, int z0, int z1) {
+
+        boolean fits(CellGrid grid) {
+            return grid.spaceSize().equals(spaceSize) && grid.halo() == halo;
+        }
+
+        int index(int x, int y, int z) {
+            return x + (y + z * spaceSize.y) * spaceSize.x;
+        }
+
+        int volume() {
+            return (x1 - x0) * (y1 - y0) * (z1 - z0);
+        }
+
+        // ranges of the cells on the given face of the brick
+
+        int faceX0(int face) {
+            return face == NeighbourStencil.EAST ? x1 - 1 : x0;
+        }
+
+        int faceX1(int face) {
+            return face == NeighbourStencil.WEST ? x0 + 1 : x1;
+        }
+
+        int faceY0(int face) {
+            return face == NeighbourStencil.UP ? y1 - 1 : y0;
+        }
+
+        int faceY1(int face) {
+            return face == NeighbourStencil.DOWN ? y0 + 1 : y1;
+        }
+
+        int faceZ0(int face) {
+            return face == NeighbourStencil.NORTH ? z1 - 1 : z0;
+        }
+
+        int faceZ1(int face) {
+            return face == NeighbourStencil.SOUTH ? z0 + 1 : z1;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package pl.edu.agh.firecell.engine.executor;
+
+import pl.edu.agh.firecell.engine.SteadyStateCriterion;
+import pl.edu.agh.firecell.engine.algorithm.Algorithm;
+import pl.edu.agh.firecell.engine.algorithm.CellRanges;
+import pl.edu.agh.firecell.model.CellGrid;
+import pl.edu.agh.firecell.model.State;
+
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Splits the grid into slabs of whole x-rows (z-slabs on tall grids, thinner tiles otherwise) and updates them
+ * on a fork/join pool. With a single thread the slabs are processed on the calling thread. The pool is either
+ * owned by the executor or shared with executors of other simulations.
+ * On padded grids only the interior is computed, the ghost layer is left to the owner of the grids.
+ * Given a {@link SteadyStateCriterion}, every slab checks the cells right after computing them, the slabs stopping
+ * to check once any of them found a changing cell.
+ */
+public class SlabStepExecutor implements StepExecutor {
+
+    // the propagators read the neighbours of horizontal neighbours (e.g. smoke capacity, fire pillars),
+    // so a cell depends on cells up to two cells away
+    protected static final int DEPENDENCY_RADIUS = 2;
+
+    // more slabs than threads lets work stealing even out slabs that take longer (e.g. burning regions)
+    private static final int SLABS_PER_THREAD = 4;
+
+    private final Algorithm algorithm;
+    private final int threadCount;
+    private final ForkJoinPool pool;
+    private final boolean ownsPool;
+
+    private SteadyStateCriterion steadyStateCriterion;
+    // set by any slab finding a cell which is not steady, read after all slabs finished
+    private volatile boolean unsteadyStep;
+
+    public SlabStepExecutor(Algorithm algorithm, int threadCount) {
+        this(algorithm, threadCount, threadCount > 1 ? new ForkJoinPool(threadCount) : null, true);
+    }
+
+    /**
+     * Runs the slabs on a pool shared with other executors, also with a single thread, so the work of all of them
+     * is bounded by the pool. The pool is left running on {@link #shutdown()}.
+     *
+     * @param threadCount number of threads the grid is split for
+     */
+    public SlabStepExecutor(Algorithm algorithm, ForkJoinPool sharedPool, int threadCount) {
+        this(algorithm, threadCount, Objects.requireNonNull(sharedPool), false);
+    }
+
+    private SlabStepExecutor(Algorithm algorithm, int threadCount, ForkJoinPool pool, boolean ownsPool) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Thread count must be positive, got %s.".formatted(threadCount));
+        }
+        this.algorithm = algorithm;
+        this.threadCount = threadCount;
+        this.pool = pool;
+        this.ownsPool = ownsPool;
+    }
+
+    public SlabStepExecutor(Algorithm algorithm) {
+        this(algorithm, Runtime.getRuntime().availableProcessors());
+    }
+
+    @Override
+    public void prepare(State initialState) {
+        algorithm.prepare(initialState);
+    }
+
+    @Override
+    public double beginStep(State oldState) {
+        CellGrid oldGrid = oldState.grid();
+        return algorithm.beginStep(oldState, action -> forEachSlab(oldGrid.cellCount(), oldState.spaceSize().x,
+                (fromIndex, toIndex) -> forEachComputedRange(oldGrid, fromIndex, toIndex, action::run)));
+    }
+
+    @Override
+    public void step(State oldState, CellGrid newGrid) {
+        CellGrid oldGrid = oldState.grid();
+        beginSteadinessCheck();
+        forEachSlab(oldGrid.cellCount(), oldState.spaceSize().x, (fromIndex, toIndex) ->
+                forEachComputedRange(oldGrid, fromIndex, toIndex, (computedFrom, computedTo) -> {
+                    algorithm.compute(oldState, computedFrom, computedTo, newGrid);
+                    checkSteadiness(oldGrid, newGrid, computedFrom, computedTo);
+                }));
+    }
+
+    @Override
+    public boolean checkSteadiness(SteadyStateCriterion criterion) {
+        steadyStateCriterion = criterion;
+        return true;
+    }
+
+    @Override
+    public boolean lastStepSteady() {
+        if (steadyStateCriterion == null) {
+            return StepExecutor.super.lastStepSteady();
+        }
+        return !unsteadyStep;
+    }
+
+    /**
+     * Runs {@code action} for consecutive flat index ranges covering {@code [0, cellCount)}, each made of whole
+     * rows of {@code rowLength} cells, and returns once all of them finished.
+     */
+    protected void forEachSlab(int cellCount, int rowLength, SlabAction action) {
+        forEachSlab(0, cellCount, rowLength, action);
+    }
+
+    /**
+     * Same as {@link #forEachSlab(int, int, SlabAction)} for ranges covering {@code [fromIndex, toIndex)},
+     * {@code fromIndex} being the start of a row.
+     */
+    protected void forEachSlab(int fromIndex, int toIndex, int rowLength, SlabAction action) {
+        int cellCount = toIndex - fromIndex;
+        int slabRowLength = Math.max(1, rowLength);
+        int rowCount = (cellCount + slabRowLength - 1) / slabRowLength;
+        int rowsPerSlab = Math.max(1, (rowCount + threadCount * SLABS_PER_THREAD - 1) / (threadCount * SLABS_PER_THREAD));
+        int slabSize = rowsPerSlab * slabRowLength;
+        int slabCount = (cellCount + slabSize - 1) / slabSize;
+
+        var task = new SlabTask(action, fromIndex, toIndex, slabSize, 0, slabCount);
+        if (pool == null) {
+            task.runSlabs();
+        } else {
+            pool.invoke(task);
+        }
+    }
+
+    /**
+     * Runs {@code action} for the cells of {@code [fromIndex, toIndex)} which are computed: the whole range
+     * on plain grids, the interior part of every interior row on padded ones. The range must consist of whole rows.
+     */
+    protected static void forEachComputedRange(CellGrid grid, int fromIndex, int toIndex, SlabAction action) {
+        CellRanges.forEachComputedRange(grid, fromIndex, toIndex, action::run);
+    }
+
+    /**
+     * Called at the start of every step computed by {@link #step(State, CellGrid)}.
+     */
+    protected void beginSteadinessCheck() {
+        unsteadyStep = false;
+    }
+
+    /**
+     * Checks the computed cells of {@code [fromIndex, toIndex)} against the steady state criterion, unless
+     * the step is known not to be steady already or no criterion was given.
+     */
+    protected void checkSteadiness(CellGrid oldGrid, CellGrid newGrid, int fromIndex, int toIndex) {
+        SteadyStateCriterion criterion = pendingSteadyStateCriterion();
+        if (criterion != null && !criterion.isSteadyRange(oldGrid, newGrid, fromIndex, toIndex)) {
+            unsteadyStep = true;
+        }
+    }
+
+    /**
+     * Marks the current step as not steady, for executors checking the cells themselves.
+     */
+    protected void markUnsteadyStep() {
+        unsteadyStep = true;
+    }
+
+    /**
+     * @return the criterion the cells of the current step still have to be checked against, null when no
+     * criterion was given or some cell already failed it
+     */
+    protected SteadyStateCriterion pendingSteadyStateCriterion() {
+        return unsteadyStep ? null : steadyStateCriterion;
+    }
+
+    @Override
+    public void shutdown() {
+        if (pool != null && ownsPool) {
+            pool.shutdown();
+        }
+    }
+
+    public int threadCount() {
+        return threadCount;
+    }
+
+    protected Algorithm algorithm() {
+        return algorithm;
+    }
+
+    @FunctionalInterface
+    protected interface SlabAction {
+        void run(int fromIndex, int toIndex);
+    }
+
+    private static class SlabTask extends RecursiveAction {
+        private final SlabAction action;
+        private final int fromIndex;
+        private final int toIndex;
+        private final int slabSize;
+        private final int fromSlab;
+        private final int toSlab;
+
+        private SlabTask(SlabAction action, int fromIndex, int toIndex, int slabSize, int fromSlab, int toSlab) {
+            this.action = action;
+            this.fromIndex = fromIndex;
+            this.toIndex = toIndex;
+            this.slabSize = slabSize;
+            this.fromSlab = fromSlab;
+            this.toSlab = toSlab;
+        }
+
+        @Override
+        protected void compute() {
+            if (toSlab - fromSlab <= 1) {
+                runSlabs();
+                return;
+            }
+            int middleSlab = (fromSlab + toSlab) >>> 1;
+            invokeAll(new SlabTask(action, fromIndex, toIndex, slabSize, fromSlab, middleSlab),
+                    new SlabTask(action, fromIndex, toIndex, slabSize, middleSlab, toSlab));
+        }
+
+        private void runSlabs() {
+            action.run(fromIndex + fromSlab * slabSize, Math.min(fromIndex + toSlab * slabSize, toIndex));
+        }
+    }
+}
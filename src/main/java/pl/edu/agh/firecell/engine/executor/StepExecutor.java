@@ -0,0 +1,83 @@
+package pl.edu.agh.firecell.engine.executor;
+
+import pl.edu.agh.firecell.engine.SteadyStateCriterion;
+import pl.edu.agh.firecell.model.CellGrid;
+import pl.edu.agh.firecell.model.State;
+import pl.edu.agh.firecell.model.util.HaloUtils;
+
+/**
+ * Computes the next states of the engine. The states must not depend on the number of threads or on their
+ * scheduling: cells are computed from the old state only and no floating point value is accumulated across
+ * threads, so runs can be reproduced bit for bit, see
+ * {@link pl.edu.agh.firecell.core.headless.ReproducibilityVerifier}.
+ */
+public interface StepExecutor {
+    /**
+     * Called once with the initial state before the first step.
+     */
+    default void prepare(State initialState) {
+    }
+
+    /**
+     * Called by the engine before every call of {@link #step(State, CellGrid[])}, lets the algorithm choose
+     * the time step of the call from the state.
+     *
+     * @return simulated time in seconds each step of the call advances by
+     */
+    double beginStep(State oldState);
+
+    /**
+     * Computes every cell of the next state from {@code oldState} into {@code newGrid}.
+     */
+    void step(State oldState, CellGrid newGrid);
+
+    /**
+     * Computes {@code newGrids.length} consecutive states following {@code oldState}, the i-th of them into
+     * {@code newGrids[i]}. The ghost layer of padded grids is brought up to date before every step.
+     */
+    default void step(State oldState, CellGrid[] newGrids) {
+        State state = oldState;
+        for (CellGrid newGrid : newGrids) {
+            if (state.grid().halo() > 0) {
+                HaloUtils.refreshHalo(state.grid());
+            }
+            step(state, newGrid);
+            state = new State(newGrid);
+        }
+    }
+
+    /**
+     * Lets the executor check every following step computed by {@link #step(State, CellGrid)} against
+     * the criterion, while it computes the cells, instead of the engine comparing the grids again afterwards.
+     *
+     * @return whether the executor checks the steps, see {@link #lastStepSteady()}, false when it leaves
+     * the check to the engine
+     */
+    default boolean checkSteadiness(SteadyStateCriterion criterion) {
+        return false;
+    }
+
+    /**
+     * @return whether the last step computed by {@link #step(State, CellGrid)} met the criterion given to
+     * {@link #checkSteadiness(SteadyStateCriterion)}
+     */
+    default boolean lastStepSteady() {
+        throw new UnsupportedOperationException("%s does not check steps.".formatted(getClass().getSimpleName()));
+    }
+
+    /**
+     * @return number of states the engine requests from a single call of {@link #step(State, CellGrid[])}
+     */
+    default int stepsPerCall() {
+        return 1;
+    }
+
+    /**
+     * @return whether the states computed before the last one of a call are published to consumers
+     */
+    default boolean emitsIntermediateStates() {
+        return true;
+    }
+
+    void shutdown();
+}
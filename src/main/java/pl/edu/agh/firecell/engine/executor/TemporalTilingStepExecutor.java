@@ -0,0 +1,126 @@
+package pl.edu.agh.firecell.engine.executor;
+
+import org.joml.Vector3i;
+import pl.edu.agh.firecell.engine.SteadyStateCriterion;
+import pl.edu.agh.firecell.engine.algorithm.Algorithm;
+import pl.edu.agh.firecell.model.CellGrid;
+import pl.edu.agh.firecell.model.State;
+import pl.edu.agh.firecell.model.util.HaloUtils;
+
+/**
+ * Slab executor advancing the grid by several steps per call. The z-planes are split into tiles small enough
+ * to stay in cache, and every tile is taken through all the steps before the next one is touched, instead of
+ * streaming the whole grid through memory once per step.
+ * <p>
+ * The tiles are skewed: at every further step a tile starts and ends {@link #DEPENDENCY_RADIUS} planes earlier,
+ * so the planes it reads from the previous step were computed either by itself or by the tiles before it.
+ * Every cell of every step is computed exactly once, with the same inputs as in step by step execution, so the
+ * resulting states are identical. Each step is written into its own grid, which also makes the intermediate
+ * states available to consumers.
+ */
+public class TemporalTilingStepExecutor extends SlabStepExecutor {
+
+    private static final int TILE_BYTES = 1 << 20;
+
+    private final int stepsPerCall;
+    private final int planesPerTile;
+    private final boolean emitIntermediateStates;
+
+    /**
+     * @param planesPerTile number of z-planes of a tile, 0 to derive it from the plane size
+     */
+    public TemporalTilingStepExecutor(Algorithm algorithm, int threadCount, int stepsPerCall,
+                                      int planesPerTile, boolean emitIntermediateStates) {
+        super(algorithm, threadCount);
+        if (stepsPerCall < 1) {
+            throw new IllegalArgumentException("Steps per call must be positive, got %s.".formatted(stepsPerCall));
+        }
+        if (planesPerTile < 0) {
+            throw new IllegalArgumentException("Planes per tile must not be negative, got %s.".formatted(planesPerTile));
+        }
+        this.stepsPerCall = stepsPerCall;
+        this.planesPerTile = planesPerTile;
+        this.emitIntermediateStates = emitIntermediateStates;
+    }
+
+    public TemporalTilingStepExecutor(Algorithm algorithm, int threadCount, int stepsPerCall) {
+        this(algorithm, threadCount, stepsPerCall, 0, true);
+    }
+
+    @Override
+    public void step(State oldState, CellGrid[] newGrids) {
+        CellGrid oldGrid = oldState.grid();
+        Vector3i spaceSize = oldGrid.spaceSize();
+        int halo = oldGrid.halo();
+        int planeSize = spaceSize.x * spaceSize.y;
+        int firstPlane = halo;
+        int lastPlane = spaceSize.z - halo;
+        int tilePlanes = planesPerTile > 0 ? planesPerTile : tilePlanes(planeSize, oldGrid.bytesPerCell(), newGrids.length);
+        int tileCount = Math.max(1, (lastPlane - firstPlane + tilePlanes - 1) / tilePlanes);
+
+        State[] states = new State[newGrids.length + 1];
+        states[0] = oldState;
+        for (int i = 0; i < newGrids.length; i++) {
+            states[i + 1] = new State(newGrids[i]);
+        }
+        if (halo > 0) {
+            HaloUtils.refreshHalo(oldGrid);
+        }
+
+        for (int tile = 0; tile < tileCount; tile++) {
+            for (int step = 0; step < newGrids.length; step++) {
+                int fromPlane = tileStart(tile, step, tileCount, tilePlanes, firstPlane, lastPlane);
+                int toPlane = tileStart(tile + 1, step, tileCount, tilePlanes, firstPlane, lastPlane);
+                if (fromPlane < toPlane) {
+                    State state = states[step];
+                    CellGrid newGrid = newGrids[step];
+                    forEachSlab(fromPlane * planeSize, toPlane * planeSize, spaceSize.x, (fromIndex, toIndex) ->
+                            forEachComputedRange(oldGrid, fromIndex, toIndex,
+                                    (computedFrom, computedTo) -> algorithm().compute(state, computedFrom, computedTo, newGrid)));
+                    if (halo > 0) {
+                        HaloUtils.refreshHalo(newGrid, fromPlane, toPlane);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Tiles are computed by {@link #step(State, CellGrid[])}, leaving the check of the steps to the engine.
+     */
+    @Override
+    public boolean checkSteadiness(SteadyStateCriterion criterion) {
+        return false;
+    }
+
+    @Override
+    public int stepsPerCall() {
+        return stepsPerCall;
+    }
+
+    @Override
+    public boolean emitsIntermediateStates() {
+        return emitIntermediateStates;
+    }
+
+    /**
+     * @return first plane of the tile in the given step (counted from 0 within the call), the first plane after
+     * the computed space for {@code tile == tileCount}
+     */
+    private static int tileStart(int tile, int step, int tileCount, int tilePlanes, int firstPlane, int lastPlane) {
+        if (tile == 0) {
+            return firstPlane;
+        }
+        if (tile == tileCount) {
+            return lastPlane;
+        }
+        int start = firstPlane + tile * tilePlanes - step * DEPENDENCY_RADIUS;
+        return Math.max(firstPlane, Math.min(lastPlane, start));
+    }
+
+    private static int tilePlanes(int planeSize, int cellBytes, int steps) {
+        // every step of a tile reads the planes of the previous one and writes its own
+        long bytesPerPlane = (long) planeSize * cellBytes * (steps + 1);
+        return (int) Math.max(DEPENDENCY_RADIUS, TILE_BYTES / bytesPerPlane);
+    }
+}
@@ -0,0 +1,38 @@
+package pl.edu.agh.firecell.engine.pacing;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Lets the engine run at most a fixed number of states ahead of its consumer: once that many states are
+ * put but not processed yet, the engine waits for the consumer. Memory held by pending states stays bounded.
+ */
+public class BoundedLookaheadPacing implements PacingPolicy {
+
+    private final int maxPendingStates;
+    private final Semaphore permits;
+
+    public BoundedLookaheadPacing(int maxPendingStates) {
+        if (maxPendingStates < 1) {
+            throw new IllegalArgumentException("Lookahead must be positive, got %s.".formatted(maxPendingStates));
+        }
+        this.maxPendingStates = maxPendingStates;
+        this.permits = new Semaphore(maxPendingStates);
+    }
+
+    @Override
+    public void awaitTurn(int index, double time) throws InterruptedException {
+        permits.acquire();
+    }
+
+    @Override
+    public void stateProcessed(int index) {
+        permits.release();
+    }
+
+    /**
+     * @return number of states put but not processed yet
+     */
+    public int pendingStates() {
+        return maxPendingStates - permits.availablePermits();
+    }
+}
@@ -0,0 +1,30 @@
+package pl.edu.agh.firecell.engine.pacing;
+
+/**
+ * Pacing policies selectable by name, e.g. from the command line.
+ */
+public enum PacingMode {
+    /**
+     * See {@link UnboundedPacing}.
+     */
+    UNBOUNDED,
+    /**
+     * See {@link BoundedLookaheadPacing}.
+     */
+    BOUNDED_LOOKAHEAD,
+    /**
+     * See {@link WallClockPacing}, in real time.
+     */
+    WALL_CLOCK;
+
+    /**
+     * @param maxPendingStates lookahead of {@link #BOUNDED_LOOKAHEAD}
+     */
+    public PacingPolicy createPolicy(int maxPendingStates) {
+        return switch (this) {
+            case UNBOUNDED -> new UnboundedPacing();
+            case BOUNDED_LOOKAHEAD -> new BoundedLookaheadPacing(maxPendingStates);
+            case WALL_CLOCK -> new WallClockPacing();
+        };
+    }
+}
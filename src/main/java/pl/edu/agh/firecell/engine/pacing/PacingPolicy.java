@@ -0,0 +1,19 @@
+package pl.edu.agh.firecell.engine.pacing;
+
+/**
+ * Decides when the engine may hand the next state to its consumer. The engine thread calls
+ * {@link #awaitTurn(int, double)} before putting every state, {@link #stateProcessed(int)} is called once
+ * the consumer is done with the state, from the consumer's thread when it processes states asynchronously.
+ */
+public interface PacingPolicy {
+
+    /**
+     * Blocks until the state of the given index may be put.
+     *
+     * @param time simulated time of the state in seconds, which may advance by a different step every state
+     */
+    void awaitTurn(int index, double time) throws InterruptedException;
+
+    default void stateProcessed(int index) {
+    }
+}
@@ -0,0 +1,11 @@
+package pl.edu.agh.firecell.engine.pacing;
+
+/**
+ * Never blocks, the engine runs as fast as it can and the consumer buffers whatever it did not process yet.
+ */
+public class UnboundedPacing implements PacingPolicy {
+
+    @Override
+    public void awaitTurn(int index, double time) {
+    }
+}
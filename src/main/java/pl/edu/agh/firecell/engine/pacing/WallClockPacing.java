@@ -0,0 +1,45 @@
+package pl.edu.agh.firecell.engine.pacing;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Releases states in simulated time: a state simulating {@code t} seconds after the first one is put no earlier
+ * than {@code t / speed} seconds after it. The engine then produces states no faster than they are played back,
+ * also when the adaptive step varies the simulated time between states.
+ */
+public class WallClockPacing implements PacingPolicy {
+
+    private final double speed;
+    private double firstTime;
+    private long firstNanos;
+    private boolean started = false;
+
+    public WallClockPacing() {
+        this(1);
+    }
+
+    /**
+     * @param speed simulated seconds per second of wall-clock time
+     */
+    public WallClockPacing(double speed) {
+        if (!(speed > 0)) {
+            throw new IllegalArgumentException("Speed must be positive, got %s.".formatted(speed));
+        }
+        this.speed = speed;
+    }
+
+    @Override
+    public void awaitTurn(int index, double time) throws InterruptedException {
+        long now = System.nanoTime();
+        if (!started) {
+            firstTime = time;
+            firstNanos = now;
+            started = true;
+            return;
+        }
+        long remainingNanos = firstNanos + Math.round((time - firstTime) / speed * TimeUnit.SECONDS.toNanos(1)) - now;
+        if (remainingNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(remainingNanos);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package pl.edu.agh.firecell.model;
+
+import pl.edu.agh.firecell.model.material.Material;
+
+/**
+ * Describes what lies beyond the simulated space, expressed as the content of the ghost cells of a
+ * padded {@link CellGrid}. Ghost cells never burn and are not computed, so their fields stay as filled.
+ */
+public enum BoundaryCondition {
+    /**
+     * Insulating wall, nothing crosses the boundary. The ghost is solid, saturated with smoke and mirrors the
+     * temperature of the interior cell next to it, so results are the ones of a space without ghost cells.
+     */
+    ADIABATIC_MIRROR(true),
+    /**
+     * Wall held at the ambient temperature, heat is conducted through it but smoke and oxygen stay inside.
+     */
+    FIXED_AMBIENT(false),
+    /**
+     * Still ambient air outside the space, heat, smoke and oxygen are exchanged with it.
+     */
+    OPEN(false);
+
+    public static final double AMBIENT_TEMPERATURE = 20;
+    // a full ghost is never counted as a neighbour able to take smoke
+    private static final double FULL_SMOKE_LEVEL = 100;
+
+    private final boolean mirrorsTemperature;
+
+    BoundaryCondition(boolean mirrorsTemperature) {
+        this.mirrorsTemperature = mirrorsTemperature;
+    }
+
+    /**
+     * @return whether ghost temperatures follow the interior and have to be refreshed before every step
+     */
+    public boolean mirrorsTemperature() {
+        return mirrorsTemperature;
+    }
+
+    /**
+     * Fills the ghost cell of the grid at {@code ghostIndex}, {@code interiorIndex} being the nearest interior cell.
+     */
+    public void fillGhost(CellGrid grid, int ghostIndex, int interiorIndex) {
+        Cell ghost = switch (this) {
+            case ADIABATIC_MIRROR -> wall(grid.temperature(interiorIndex));
+            case FIXED_AMBIENT -> wall(AMBIENT_TEMPERATURE);
+            case OPEN -> new Cell(AMBIENT_TEMPERATURE, 0, false, Material.AIR, 0);
+        };
+        grid.setCell(ghostIndex, ghost);
+    }
+
+    private static Cell wall(double temperature) {
+        return new Cell(temperature, 0, false, Material.CELLULAR_CONCRETE, 0, FULL_SMOKE_LEVEL, 0);
+    }
+}
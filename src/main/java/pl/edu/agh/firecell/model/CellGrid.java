@@ -0,0 +1,368 @@
+package pl.edu.agh.firecell.model;
+
+import org.joml.Vector3i;
+import pl.edu.agh.firecell.model.material.Material;
+import pl.edu.agh.firecell.model.material.MatterState;
+import pl.edu.agh.firecell.model.util.NeighbourStencil;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Structure-of-arrays storage of cells. The {@link Cell} fields are kept in primitive arrays
+ * indexed by the flat cell index (see {@link pl.edu.agh.firecell.model.util.IndexUtils#flattenIndex}),
+ * so hot loops read contiguous memory instead of chasing one object per cell.
+ * <p>
+ * A padded grid (see {@link #padded(Vector3i, BoundaryCondition)}) surrounds the simulated interior with a layer
+ * of ghost cells holding its boundary condition. Its space size and flat indices include the ghost layer, so every interior
+ * cell has all six neighbours.
+ * <p>
+ * The temperature, smoke indicator and oxygen level are stored in the {@link Precision} of the grid, copies keep it.
+ * The material, flammable flag, burning time and remaining fire pillar share one int per cell, encoded
+ * by {@link PackedCellState}.
+ */
+public class CellGrid {
+
+    private static final Material[] MATERIALS = Material.values();
+    private static final boolean[] FLUID_MATERIALS = new boolean[MATERIALS.length];
+
+    static {
+        for (Material material : MATERIALS) {
+            FLUID_MATERIALS[material.ordinal()] = material.getMatterState() == MatterState.FLUID;
+        }
+    }
+
+    private final Vector3i spaceSize;
+    private final int cellCount;
+    private final int halo;
+    private final BoundaryCondition boundaryCondition;
+
+    private final ScalarField temperature;
+    // material, flammable flag, burning time and remaining fire pillar, see PackedCellState
+    private final int[] state;
+    private final ScalarField smokeIndicator;
+    private final ScalarField oxygenLevel;
+    // derived from material, kept up to date by every write of the material
+    private final boolean[] fluid;
+
+    private NeighbourStencil stencil;
+
+    public CellGrid(Vector3i spaceSize, int cellCount) {
+        this(spaceSize, cellCount, Precision.DOUBLE);
+    }
+
+    public CellGrid(Vector3i spaceSize, int cellCount, Precision precision) {
+        this(spaceSize, cellCount, 0, null, precision);
+    }
+
+    private CellGrid(Vector3i spaceSize, int cellCount, int halo, BoundaryCondition boundaryCondition, Precision precision) {
+        this.spaceSize = new Vector3i(spaceSize);
+        this.cellCount = cellCount;
+        this.halo = halo;
+        this.boundaryCondition = boundaryCondition;
+        this.temperature = new ScalarField(cellCount, precision);
+        this.state = new int[cellCount];
+        this.smokeIndicator = new ScalarField(cellCount, precision);
+        this.oxygenLevel = new ScalarField(cellCount, precision);
+        this.fluid = new boolean[cellCount];
+        // a fresh state array holds the first material everywhere
+        Arrays.fill(fluid, FLUID_MATERIALS[0]);
+    }
+
+    public CellGrid(Vector3i spaceSize) {
+        this(spaceSize, Precision.DOUBLE);
+    }
+
+    public CellGrid(Vector3i spaceSize, Precision precision) {
+        this(spaceSize, spaceSize.x * spaceSize.y * spaceSize.z, precision);
+    }
+
+    /**
+     * @return grid of the given interior size surrounded by a one cell thick ghost layer, which is yet to be
+     * filled according to {@code boundaryCondition}
+     */
+    public static CellGrid padded(Vector3i interiorSize, BoundaryCondition boundaryCondition) {
+        return padded(interiorSize, boundaryCondition, Precision.DOUBLE);
+    }
+
+    public static CellGrid padded(Vector3i interiorSize, BoundaryCondition boundaryCondition, Precision precision) {
+        Vector3i spaceSize = new Vector3i(interiorSize).add(2, 2, 2);
+        return new CellGrid(spaceSize, spaceSize.x * spaceSize.y * spaceSize.z, 1, boundaryCondition, precision);
+    }
+
+    public static CellGrid of(List<Cell> cells, Vector3i spaceSize) {
+        CellGrid grid = new CellGrid(spaceSize, cells.size());
+        for (int i = 0; i < cells.size(); i++) {
+            grid.setCell(i, cells.get(i));
+        }
+        return grid;
+    }
+
+    public CellGrid copy() {
+        return withPrecision(precision());
+    }
+
+    /**
+     * @return copy of the grid storing its scalar fields in the given precision
+     */
+    public CellGrid withPrecision(Precision precision) {
+        CellGrid copy = new CellGrid(spaceSize, cellCount, halo, boundaryCondition, precision);
+        copy.copyFrom(this);
+        copy.stencil = stencil;
+        return copy;
+    }
+
+    public void copyFrom(CellGrid other) {
+        if (other.cellCount != cellCount) {
+            throw new IllegalArgumentException("Cannot copy grid of %s cells into grid of %s cells."
+                    .formatted(other.cellCount, cellCount));
+        }
+        copyRange(other, 0, 0, cellCount);
+    }
+
+    /**
+     * Copies {@code length} consecutive cells of {@code source} starting at {@code sourceIndex} to this grid
+     * starting at {@code targetIndex}.
+     */
+    public void copyRange(CellGrid source, int sourceIndex, int targetIndex, int length) {
+        temperature.copyRange(source.temperature, sourceIndex, targetIndex, length);
+        System.arraycopy(source.state, sourceIndex, state, targetIndex, length);
+        smokeIndicator.copyRange(source.smokeIndicator, sourceIndex, targetIndex, length);
+        oxygenLevel.copyRange(source.oxygenLevel, sourceIndex, targetIndex, length);
+        System.arraycopy(source.fluid, sourceIndex, fluid, targetIndex, length);
+    }
+
+    public void copyCell(int index, CellGrid source) {
+        temperature.set(index, source.temperature.get(index));
+        state[index] = source.state[index];
+        smokeIndicator.set(index, source.smokeIndicator.get(index));
+        oxygenLevel.set(index, source.oxygenLevel.get(index));
+        fluid[index] = source.fluid[index];
+    }
+
+    /**
+     * @return whether the cell at {@code index} differs from the same cell in {@code other}, with scalar
+     * fields compared up to {@code epsilon}
+     */
+    public boolean cellDiffers(int index, CellGrid other, double epsilon) {
+        return state[index] != other.state[index] ||
+                Math.abs(temperature.get(index) - other.temperature.get(index)) > epsilon ||
+                Math.abs(smokeIndicator.get(index) - other.smokeIndicator.get(index)) > epsilon ||
+                Math.abs(oxygenLevel.get(index) - other.oxygenLevel.get(index)) > epsilon;
+    }
+
+    public Vector3i spaceSize() {
+        return spaceSize;
+    }
+
+    public int cellCount() {
+        return cellCount;
+    }
+
+    public Precision precision() {
+        return temperature.precision();
+    }
+
+    /**
+     * @return memory taken by the fields of one cell, in bytes
+     */
+    public int bytesPerCell() {
+        int scalarBytes = precision() == Precision.DOUBLE ? Double.BYTES : Float.BYTES;
+        // temperature, smoke and oxygen, the packed state and the fluid flag
+        return 3 * scalarBytes + Integer.BYTES + 1;
+    }
+
+    /**
+     * @return thickness of the ghost layer, 0 for grids without one
+     */
+    public int halo() {
+        return halo;
+    }
+
+    /**
+     * @return condition held by the ghost layer, null for grids without one
+     */
+    public BoundaryCondition boundaryCondition() {
+        return boundaryCondition;
+    }
+
+    /**
+     * @return neighbour stencil of the grid's space size, created on first use and shared with copies
+     */
+    public NeighbourStencil stencil() {
+        // the stencil is immutable, so a racy initialization at worst creates it more than once
+        NeighbourStencil result = stencil;
+        if (result == null) {
+            result = new NeighbourStencil(spaceSize);
+            stencil = result;
+        }
+        return result;
+    }
+
+    public Cell getCell(int index) {
+        int cellState = state[index];
+        return new Cell(temperature.get(index), PackedCellState.burningTime(cellState), PackedCellState.flammable(cellState),
+                PackedCellState.material(cellState), PackedCellState.remainingFirePillar(cellState),
+                smokeIndicator.get(index), oxygenLevel.get(index));
+    }
+
+    public void setCell(int index, Cell cell) {
+        temperature.set(index, cell.temperature());
+        setPackedState(index, PackedCellState.pack(cell.material(), cell.flammable(), cell.burningTime(),
+                cell.remainingFirePillar()));
+        smokeIndicator.set(index, cell.smokeIndicator());
+        oxygenLevel.set(index, cell.oxygenLevel());
+    }
+
+    /**
+     * @return read-only list of {@link Cell} views, each created on access
+     */
+    public List<Cell> asCellList() {
+        return new CellListView();
+    }
+
+    public double temperature(int index) {
+        return temperature.get(index);
+    }
+
+    public void setTemperature(int index, double value) {
+        temperature.set(index, value);
+    }
+
+    /**
+     * @return material, flammable flag, burning time and remaining fire pillar of the cell, decoded
+     * by {@link PackedCellState}, for code reading several of them at once
+     */
+    public int packedState(int index) {
+        return state[index];
+    }
+
+    public void setPackedState(int index, int value) {
+        state[index] = value;
+        fluid[index] = FLUID_MATERIALS[PackedCellState.materialOrdinal(value)];
+    }
+
+    public int burningTime(int index) {
+        return PackedCellState.burningTime(state[index]);
+    }
+
+    public void setBurningTime(int index, int value) {
+        state[index] = PackedCellState.withBurningTime(state[index], value);
+    }
+
+    public boolean flammable(int index) {
+        return PackedCellState.flammable(state[index]);
+    }
+
+    public void setFlammable(int index, boolean value) {
+        state[index] = PackedCellState.withFlammable(state[index], value);
+    }
+
+    public Material material(int index) {
+        return PackedCellState.material(state[index]);
+    }
+
+    public int materialOrdinal(int index) {
+        return PackedCellState.materialOrdinal(state[index]);
+    }
+
+    public void setMaterial(int index, Material value) {
+        state[index] = PackedCellState.withMaterial(state[index], value);
+        fluid[index] = FLUID_MATERIALS[value.ordinal()];
+    }
+
+    public int remainingFirePillar(int index) {
+        return PackedCellState.remainingFirePillar(state[index]);
+    }
+
+    public void setRemainingFirePillar(int index, int value) {
+        state[index] = PackedCellState.withRemainingFirePillar(state[index], value);
+    }
+
+    public double smokeIndicator(int index) {
+        return smokeIndicator.get(index);
+    }
+
+    public void setSmokeIndicator(int index, double value) {
+        smokeIndicator.set(index, value);
+    }
+
+    public double oxygenLevel(int index) {
+        return oxygenLevel.get(index);
+    }
+
+    public void setOxygenLevel(int index, double value) {
+        oxygenLevel.set(index, value);
+    }
+
+    public boolean isSolid(int index) {
+        return material(index).getMatterState() == MatterState.SOLID;
+    }
+
+    public boolean isFluid(int index) {
+        return fluid[index];
+    }
+
+    public boolean isBurning(int index) {
+        return PackedCellState.burning(state[index]);
+    }
+
+    /**
+     * Backing fields and arrays, exposed for kernels processing whole rows of cells. They are indexed by the flat
+     * cell index and must only be written by the owner of the grid.
+     */
+    public ScalarField temperatureField() {
+        return temperature;
+    }
+
+    public ScalarField oxygenLevelField() {
+        return oxygenLevel;
+    }
+
+    public boolean[] fluidArray() {
+        return fluid;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof CellGrid g)) {
+            return false;
+        }
+        return spaceSize.equals(g.spaceSize) &&
+                cellCount == g.cellCount &&
+                halo == g.halo &&
+                boundaryCondition == g.boundaryCondition &&
+                temperature.equals(g.temperature) &&
+                Arrays.equals(state, g.state) &&
+                smokeIndicator.equals(g.smokeIndicator) &&
+                oxygenLevel.equals(g.oxygenLevel);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = spaceSize.hashCode();
+        result = 31 * result + temperature.hashCode();
+        result = 31 * result + Arrays.hashCode(state);
+        result = 31 * result + smokeIndicator.hashCode();
+        result = 31 * result + oxygenLevel.hashCode();
+        return result;
+    }
+
+    private class CellListView extends AbstractList<Cell> implements RandomAccess {
+
+        @Override
+        public Cell get(int index) {
+            return getCell(index);
+        }
+
+        @Override
+        public int size() {
+            return cellCount;
+        }
+    }
+}
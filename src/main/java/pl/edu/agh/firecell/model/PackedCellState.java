@@ -0,0 +1,87 @@
+package pl.edu.agh.firecell.model;
+
+import pl.edu.agh.firecell.model.material.Material;
+
+/**
+ * Encoding of the discrete fields of a cell in a single int: the material ordinal in the lowest four bits,
+ * the flammable flag above them, then twelve bits of burning time and twelve bits of remaining fire pillar.
+ * <p>
+ * Burning time is capped by {@code FirePropagator.MAX_BURNING_TIME} and fire pillars are a few cells high,
+ * so both fit with a wide margin.
+ */
+public final class PackedCellState {
+
+    public static final int MAX_COUNTER = (1 << 12) - 1;
+
+    private static final int MATERIAL_MASK = 0xf;
+    private static final int FLAMMABLE_BIT = 1 << 4;
+    private static final int BURNING_TIME_SHIFT = 8;
+    private static final int FIRE_PILLAR_SHIFT = 20;
+    private static final int BURNING_TIME_MASK = MAX_COUNTER << BURNING_TIME_SHIFT;
+    private static final int FIRE_PILLAR_MASK = MAX_COUNTER << FIRE_PILLAR_SHIFT;
+    private static final Material[] MATERIALS = Material.values();
+
+    static {
+        if (MATERIALS.length > MATERIAL_MASK + 1) {
+            throw new ExceptionInInitializerError("Too many materials to pack: " + MATERIALS.length);
+        }
+    }
+
+    private PackedCellState() {
+    }
+
+    public static int pack(Material material, boolean flammable, int burningTime, int remainingFirePillar) {
+        return withRemainingFirePillar(withBurningTime(material.ordinal() | (flammable ? FLAMMABLE_BIT : 0), burningTime),
+                remainingFirePillar);
+    }
+
+    public static int materialOrdinal(int state) {
+        return state & MATERIAL_MASK;
+    }
+
+    public static Material material(int state) {
+        return MATERIALS[state & MATERIAL_MASK];
+    }
+
+    public static boolean flammable(int state) {
+        return (state & FLAMMABLE_BIT) != 0;
+    }
+
+    public static int burningTime(int state) {
+        return (state & BURNING_TIME_MASK) >>> BURNING_TIME_SHIFT;
+    }
+
+    public static int remainingFirePillar(int state) {
+        return (state & FIRE_PILLAR_MASK) >>> FIRE_PILLAR_SHIFT;
+    }
+
+    /**
+     * @return whether the cell is flammable and has a positive burning time
+     */
+    public static boolean burning(int state) {
+        return (state & FLAMMABLE_BIT) != 0 && (state & BURNING_TIME_MASK) != 0;
+    }
+
+    public static int withMaterial(int state, Material material) {
+        return (state & ~MATERIAL_MASK) | material.ordinal();
+    }
+
+    public static int withFlammable(int state, boolean flammable) {
+        return flammable ? state | FLAMMABLE_BIT : state & ~FLAMMABLE_BIT;
+    }
+
+    public static int withBurningTime(int state, int burningTime) {
+        return (state & ~BURNING_TIME_MASK) | checkCounter(burningTime, "Burning time") << BURNING_TIME_SHIFT;
+    }
+
+    public static int withRemainingFirePillar(int state, int remainingFirePillar) {
+        return (state & ~FIRE_PILLAR_MASK) | checkCounter(remainingFirePillar, "Remaining fire pillar") << FIRE_PILLAR_SHIFT;
+    }
+
+    private static int checkCounter(int value, String name) {
+        if ((value & ~MAX_COUNTER) != 0) {
+            throw new IllegalArgumentException("%s must be between 0 and %s, got %s.".formatted(name, MAX_COUNTER, value));
+        }
+        return value;
+    }
+}
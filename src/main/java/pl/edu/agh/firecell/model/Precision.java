@@ -0,0 +1,13 @@
+package pl.edu.agh.firecell.model;
+
+/**
+ * Precision the temperature, smoke indicator and oxygen level of a {@link CellGrid} are stored in.
+ * Computations are carried out in double precision either way, single precision grids round every stored value.
+ */
+public enum Precision {
+    DOUBLE,
+    /**
+     * Half the memory and storage of {@link #DOUBLE}, with about seven significant digits.
+     */
+    FLOAT
+}
@@ -0,0 +1,81 @@
+package pl.edu.agh.firecell.model;
+
+import java.util.Arrays;
+
+/**
+ * Array of a scalar cell field stored in double or single precision. Values are read and written as doubles,
+ * a single precision field rounds every written value to the nearest float.
+ */
+public final class ScalarField {
+
+    // exactly one of the arrays is present
+    private final double[] doubles;
+    private final float[] floats;
+
+    public ScalarField(int length, Precision precision) {
+        this.doubles = precision == Precision.DOUBLE ? new double[length] : null;
+        this.floats = precision == Precision.FLOAT ? new float[length] : null;
+    }
+
+    public Precision precision() {
+        return doubles != null ? Precision.DOUBLE : Precision.FLOAT;
+    }
+
+    public double get(int index) {
+        return doubles != null ? doubles[index] : floats[index];
+    }
+
+    public void set(int index, double value) {
+        if (doubles != null) {
+            doubles[index] = value;
+        } else {
+            floats[index] = (float) value;
+        }
+    }
+
+    /**
+     * Copies {@code length} values of {@code source} starting at {@code sourceIndex} to this field starting
+     * at {@code targetIndex}, converting them when the precisions differ.
+     */
+    public void copyRange(ScalarField source, int sourceIndex, int targetIndex, int length) {
+        if (doubles != null && source.doubles != null) {
+            System.arraycopy(source.doubles, sourceIndex, doubles, targetIndex, length);
+        } else if (floats != null && source.floats != null) {
+            System.arraycopy(source.floats, sourceIndex, floats, targetIndex, length);
+        } else {
+            for (int i = 0; i < length; i++) {
+                set(targetIndex + i, source.get(sourceIndex + i));
+            }
+        }
+    }
+
+    /**
+     * Backing array of a double precision field, null for single precision ones.
+     */
+    public double[] doubleArray() {
+        return doubles;
+    }
+
+    /**
+     * Backing array of a single precision field, null for double precision ones.
+     */
+    public float[] floatArray() {
+        return floats;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof ScalarField f)) {
+            return false;
+        }
+        return Arrays.equals(doubles, f.doubles) && Arrays.equals(floats, f.floats);
+    }
+
+    @Override
+    public int hashCode() {
+        return doubles != null ? Arrays.hashCode(doubles) : Arrays.hashCode(floats);
+    }
+}
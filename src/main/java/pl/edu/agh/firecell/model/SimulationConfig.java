@@ -2,6 +2,10 @@ package pl.edu.agh.firecell.model;
 
 public record SimulationConfig(
         State initialState,
-        double stepTime
+        double stepTime,
+        BoundaryCondition boundaryCondition
 ) {
+    public SimulationConfig(State initialState, double stepTime) {
+        this(initialState, stepTime, BoundaryCondition.ADIABATIC_MIRROR);
+    }
 }
@@ -7,13 +7,53 @@ import java.util.List;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
-public record State(List<Cell> cells, Vector3i spaceSize) {
+/**
+ * Simulation state backed by a {@link CellGrid}. Once a state is handed out its grid must not be modified.
+ * The state also carries the simulated time it was reached at, as steps may advance by different times.
+ */
+public class State {
+
+    private final CellGrid grid;
+    private final double time;
+
+    public State(CellGrid grid, double time) {
+        this.grid = grid;
+        this.time = time;
+    }
+
+    public State(CellGrid grid) {
+        this(grid, 0);
+    }
+
+    public State(List<Cell> cells, Vector3i spaceSize) {
+        this(CellGrid.of(cells, spaceSize));
+    }
+
+    public CellGrid grid() {
+        return grid;
+    }
+
+    /**
+     * @return simulated time of the state in seconds, counted from the initial state
+     */
+    public double time() {
+        return time;
+    }
+
+    public List<Cell> cells() {
+        return grid.asCellList();
+    }
+
+    public Vector3i spaceSize() {
+        return grid.spaceSize();
+    }
 
     public Cell getCell(Vector3i index) {
-        return cells.get(IndexUtils.flattenIndex(index, spaceSize));
+        return grid.getCell(IndexUtils.flattenIndex(index, grid.spaceSize()));
     }
 
     public boolean hasCell(Vector3i index) {
+        Vector3i spaceSize = grid.spaceSize();
         return 0 <= index.x && index.x < spaceSize.x &&
                 0 <= index.y && index.y < spaceSize.y &&
                 0 <= index.z && index.z < spaceSize.z;
@@ -21,12 +61,32 @@ public record State(List<Cell> cells, Vector3i spaceSize) {
     }
 
     public double getTemp(Vector3i index) {
-        return cells.get(IndexUtils.flattenIndex(index, spaceSize)).temperature();
+        return grid.temperature(IndexUtils.flattenIndex(index, grid.spaceSize()));
     }
 
     public Stream<IndexedCell> getIndexedCellsStream() {
-        return IntStream.range(0, cells.size())
-                .mapToObj(flatIndex -> IndexUtils.expandIndex(flatIndex, spaceSize))
-                .map(expandedIndex -> new IndexedCell(expandedIndex, getCell(expandedIndex)));
+        return IntStream.range(0, grid.cellCount())
+                .mapToObj(flatIndex -> new IndexedCell(IndexUtils.expandIndex(flatIndex, spaceSize()), grid.getCell(flatIndex)));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof State s)) {
+            return false;
+        }
+        return Double.compare(time, s.time) == 0 && grid.equals(s.grid);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * grid.hashCode() + Double.hashCode(time);
+    }
+
+    @Override
+    public String toString() {
+        return "State[spaceSize=%s, cells=%s, time=%s]".formatted(spaceSize(), grid.cellCount(), time);
     }
 }
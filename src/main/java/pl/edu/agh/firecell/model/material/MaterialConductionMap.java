@@ -7,7 +7,11 @@ import java.util.Map;
 
 public class MaterialConductionMap {
 
+    private static final Material[] MATERIALS = Material.values();
+
     private final Map<UnorderedMaterialPair, Double> coefficientMap;
+    // every pair of the map, indexed by ordinal * material count + ordinal, so lookups neither hash nor allocate
+    private final double[] coefficientTable;
 
     public MaterialConductionMap() throws ConductionCoefficientException {
         coefficientMap = new HashMap<>();
@@ -22,10 +26,21 @@ public class MaterialConductionMap {
         coefficientMap.put(new UnorderedMaterialPair(Material.CELLULAR_CONCRETE, Material.CELLULAR_CONCRETE),                  /**/ 0.1);
         //==================================================================================================================
         validate();
+        coefficientTable = new double[MATERIALS.length * MATERIALS.length];
+        for (Material m1 : MATERIALS) {
+            for (Material m2 : MATERIALS) {
+                coefficientTable[m1.ordinal() * MATERIALS.length + m2.ordinal()] =
+                        coefficientMap.get(new UnorderedMaterialPair(m1, m2));
+            }
+        }
     }
 
     public double getCoefficient(Material m1, Material m2) {
-        return coefficientMap.get(new UnorderedMaterialPair(m1, m2));
+        return getCoefficient(m1.ordinal(), m2.ordinal());
+    }
+
+    public double getCoefficient(int materialOrdinal1, int materialOrdinal2) {
+        return coefficientTable[materialOrdinal1 * MATERIALS.length + materialOrdinal2];
     }
 
     public int coefficientMapSize() {
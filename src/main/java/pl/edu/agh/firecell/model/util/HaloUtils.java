@@ -0,0 +1,147 @@
+package pl.edu.agh.firecell.model.util;
+
+import org.joml.Vector3i;
+import pl.edu.agh.firecell.model.BoundaryCondition;
+import pl.edu.agh.firecell.model.CellGrid;
+
+/**
+ * Conversions between plain grids and padded grids (see {@link CellGrid#padded(Vector3i, BoundaryCondition)})
+ * and filling of their ghost layer according to the grid's boundary condition. Ghost cells outside the faces
+ * of the interior (edges and corners of the padded grid) take the values of the nearest interior cell as well.
+ */
+public class HaloUtils {
+
+    private HaloUtils() {
+    }
+
+    /**
+     * @return padded copy of {@code grid} with the ghost layer filled according to {@code boundaryCondition}
+     */
+    public static CellGrid pad(CellGrid grid, BoundaryCondition boundaryCondition) {
+        CellGrid padded = CellGrid.padded(grid.spaceSize(), boundaryCondition, grid.precision());
+        forEachInteriorRow(padded, (paddedIndex, interiorIndex, length) ->
+                padded.copyRange(grid, interiorIndex, paddedIndex, length));
+        fillHalo(padded);
+        return padded;
+    }
+
+    /**
+     * @return copy of the interior of the padded grid
+     */
+    public static CellGrid unpad(CellGrid padded) {
+        CellGrid grid = new CellGrid(interiorSize(padded), padded.precision());
+        unpad(padded, grid);
+        return grid;
+    }
+
+    /**
+     * Copies the interior of the padded grid into {@code grid}, a plain grid of the interior size.
+     */
+    public static void unpad(CellGrid padded, CellGrid grid) {
+        forEachInteriorRow(padded, (paddedIndex, interiorIndex, length) ->
+                grid.copyRange(padded, paddedIndex, interiorIndex, length));
+    }
+
+    public static Vector3i interiorSize(CellGrid padded) {
+        int halo = padded.halo();
+        return new Vector3i(padded.spaceSize()).sub(2 * halo, 2 * halo, 2 * halo);
+    }
+
+    public static void fillHalo(CellGrid padded) {
+        BoundaryCondition boundaryCondition = padded.boundaryCondition();
+        forEachGhost(padded.spaceSize(), padded.halo(), 0, 0, padded.spaceSize().z,
+                (ghostIndex, interiorIndex) -> boundaryCondition.fillGhost(padded, ghostIndex, interiorIndex));
+    }
+
+    /**
+     * Brings the ghost layer up to date with the interior. Only needed for conditions whose ghosts follow
+     * the interior, the others are left untouched.
+     */
+    public static void refreshHalo(CellGrid padded) {
+        refreshHalo(padded, padded.halo(), padded.spaceSize().z - padded.halo());
+    }
+
+    /**
+     * Same as {@link #refreshHalo(CellGrid)} limited to the ghosts next to the interior z-planes
+     * {@code [fromPlane, toPlane)} of the padded grid.
+     */
+    public static void refreshHalo(CellGrid padded, int fromPlane, int toPlane) {
+        if (!padded.boundaryCondition().mirrorsTemperature()) {
+            return;
+        }
+        int halo = padded.halo();
+        int planeCount = padded.spaceSize().z;
+        // the ghost planes in front of and behind the interior mirror its first and last plane
+        int fromGhostPlane = fromPlane == halo ? 0 : fromPlane;
+        int toGhostPlane = toPlane == planeCount - halo ? planeCount : toPlane;
+        forEachGhost(padded.spaceSize(), halo, 0, fromGhostPlane, toGhostPlane, (ghostIndex, interiorIndex) ->
+                padded.setTemperature(ghostIndex, padded.temperature(interiorIndex)));
+    }
+
+    /**
+     * Same as {@link #refreshHalo(CellGrid)} for a plain grid holding the z-planes {@code [firstPlane, firstPlane + planes)}
+     * of a padded grid of the given size, halo and boundary condition, e.g. the part of the grid stepped by one
+     * process. Ghosts whose nearest interior cell lies outside the slab are left untouched.
+     */
+    public static void refreshSlabHalo(CellGrid slab, Vector3i paddedSize, int halo, BoundaryCondition boundaryCondition,
+                                       int firstPlane) {
+        if (halo == 0 || !boundaryCondition.mirrorsTemperature()) {
+            return;
+        }
+        forEachGhost(paddedSize, halo, firstPlane, firstPlane, firstPlane + slab.spaceSize().z, (ghostIndex, interiorIndex) ->
+                slab.setTemperature(ghostIndex, slab.temperature(interiorIndex)));
+    }
+
+    private static void forEachInteriorRow(CellGrid padded, RowAction action) {
+        Vector3i spaceSize = padded.spaceSize();
+        Vector3i interiorSize = interiorSize(padded);
+        int halo = padded.halo();
+        for (int z = 0; z < interiorSize.z; z++) {
+            for (int y = 0; y < interiorSize.y; y++) {
+                int paddedIndex = ((z + halo) * spaceSize.y + y + halo) * spaceSize.x + halo;
+                action.run(paddedIndex, (z * interiorSize.y + y) * interiorSize.x, interiorSize.x);
+            }
+        }
+    }
+
+    /**
+     * Runs {@code action} for the ghosts of the planes {@code [fromPlane, toPlane)} of a padded grid of the given
+     * size, with indices of a grid starting at plane {@code firstPlane} and holding the planes up to {@code toPlane}.
+     */
+    private static void forEachGhost(Vector3i spaceSize, int halo, int firstPlane, int fromPlane, int toPlane,
+                                     GhostAction action) {
+        for (int z = fromPlane; z < toPlane; z++) {
+            int nearestPlane = clamp(z, halo, spaceSize.z);
+            if (nearestPlane < firstPlane || nearestPlane >= toPlane) {
+                continue;
+            }
+            for (int y = 0; y < spaceSize.y; y++) {
+                int rowStart = ((z - firstPlane) * spaceSize.y + y) * spaceSize.x;
+                int nearestRowStart = ((nearestPlane - firstPlane) * spaceSize.y + clamp(y, halo, spaceSize.y)) * spaceSize.x;
+                boolean ghostRow = y < halo || y >= spaceSize.y - halo || z < halo || z >= spaceSize.z - halo;
+                for (int x = 0; x < spaceSize.x; x++) {
+                    if (ghostRow || x < halo || x >= spaceSize.x - halo) {
+                        action.run(rowStart + x, nearestRowStart + clamp(x, halo, spaceSize.x));
+                    } else {
+                        // skip the interior part of the row
+                        x = spaceSize.x - halo - 1;
+                    }
+                }
+            }
+        }
+    }
+
+    private static int clamp(int position, int halo, int size) {
+        return Math.max(halo, Math.min(size - halo - 1, position));
+    }
+
+    @FunctionalInterface
+    private interface RowAction {
+        void run(int paddedIndex, int interiorIndex, int length);
+    }
+
+    @FunctionalInterface
+    private interface GhostAction {
+        void run(int ghostIndex, int interiorIndex);
+    }
+}
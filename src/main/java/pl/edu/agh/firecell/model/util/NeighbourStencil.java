@@ -0,0 +1,104 @@
+package pl.edu.agh.firecell.model.util;
+
+import org.joml.Vector3i;
+
+/**
+ * Allocation-free access to the six face neighbours of a cell by flat index. Neighbour offsets
+ * ({@code +-1, +-x, +-x*y}) and a mask of existing neighbours for every cell are computed once per space size.
+ * <p>
+ * Faces follow the order of {@link NeighbourUtils#neighboursStream(Vector3i)}, so looping from {@link #UP}
+ * to {@link #SOUTH} visits neighbours in the same order, and {@link #EAST} to {@link #SOUTH} visits
+ * the horizontal (X, then Z axis) ones.
+ */
+public class NeighbourStencil {
+
+    public static final int NONE = -1;
+
+    public static final int UP = 0;
+    public static final int DOWN = 1;
+    public static final int EAST = 2;
+    public static final int WEST = 3;
+    public static final int NORTH = 4;
+    public static final int SOUTH = 5;
+    public static final int FACE_COUNT = 6;
+
+    private final Vector3i spaceSize;
+    private final int[] offsets;
+    private final byte[] boundaryMasks;
+
+    public NeighbourStencil(Vector3i spaceSize) {
+        this.spaceSize = new Vector3i(spaceSize);
+        int strideY = spaceSize.x;
+        int strideZ = spaceSize.x * spaceSize.y;
+        this.offsets = new int[]{strideY, -strideY, 1, -1, strideZ, -strideZ};
+        this.boundaryMasks = new byte[strideZ * spaceSize.z];
+
+        int index = 0;
+        for (int z = 0; z < spaceSize.z; z++) {
+            for (int y = 0; y < spaceSize.y; y++) {
+                for (int x = 0; x < spaceSize.x; x++) {
+                    boundaryMasks[index++] = (byte) (faceBit(UP, y + 1 < spaceSize.y)
+                            | faceBit(DOWN, y > 0)
+                            | faceBit(EAST, x + 1 < spaceSize.x)
+                            | faceBit(WEST, x > 0)
+                            | faceBit(NORTH, z + 1 < spaceSize.z)
+                            | faceBit(SOUTH, z > 0));
+                }
+            }
+        }
+    }
+
+    public Vector3i spaceSize() {
+        return spaceSize;
+    }
+
+    public int offset(int face) {
+        return offsets[face];
+    }
+
+    /**
+     * @return bit mask of the faces of the cell which have a neighbour, bit {@code n} standing for face {@code n}
+     */
+    public int boundaryMask(int index) {
+        return boundaryMasks[index];
+    }
+
+    public boolean hasNeighbour(int index, int face) {
+        return (boundaryMasks[index] & (1 << face)) != 0;
+    }
+
+    /**
+     * @return flat index of the neighbour or {@link #NONE} when the cell lies on that boundary of the space
+     */
+    public int neighbour(int index, int face) {
+        return hasNeighbour(index, face) ? index + offsets[face] : NONE;
+    }
+
+    public int up(int index) {
+        return neighbour(index, UP);
+    }
+
+    public int down(int index) {
+        return neighbour(index, DOWN);
+    }
+
+    public int east(int index) {
+        return neighbour(index, EAST);
+    }
+
+    public int west(int index) {
+        return neighbour(index, WEST);
+    }
+
+    public int north(int index) {
+        return neighbour(index, NORTH);
+    }
+
+    public int south(int index) {
+        return neighbour(index, SOUTH);
+    }
+
+    private static int faceBit(int face, boolean present) {
+        return present ? 1 << face : 0;
+    }
+}
@@ -0,0 +1,105 @@
+package pl.edu.agh.firecell.model.util;
+
+import pl.edu.agh.firecell.model.CellGrid;
+import pl.edu.agh.firecell.model.State;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bitwise fingerprints and comparisons of states, for checking that two runs computed exactly the same states.
+ * Doubles are compared by their bits, so even a difference in the last bit counts, while every NaN is equal.
+ */
+public class StateHashUtils {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private StateHashUtils() {
+    }
+
+    /**
+     * @return 64-bit FNV-1a hash of the simulated time, the space size and every field of every cell,
+     * taken field by field in flat index order
+     */
+    public static long hash(State state) {
+        CellGrid grid = state.grid();
+        int cellCount = grid.cellCount();
+        long hash = FNV_OFFSET_BASIS;
+        hash = mix(hash, Double.doubleToLongBits(state.time()));
+        hash = mix(hash, grid.spaceSize().x);
+        hash = mix(hash, grid.spaceSize().y);
+        hash = mix(hash, grid.spaceSize().z);
+        for (int i = 0; i < cellCount; i++) {
+            hash = mix(hash, Double.doubleToLongBits(grid.temperature(i)));
+        }
+        for (int i = 0; i < cellCount; i++) {
+            hash = mix(hash, grid.burningTime(i));
+        }
+        for (int i = 0; i < cellCount; i++) {
+            hash = mix(hash, grid.flammable(i) ? 1 : 0);
+        }
+        for (int i = 0; i < cellCount; i++) {
+            hash = mix(hash, grid.materialOrdinal(i));
+        }
+        for (int i = 0; i < cellCount; i++) {
+            hash = mix(hash, grid.remainingFirePillar(i));
+        }
+        for (int i = 0; i < cellCount; i++) {
+            hash = mix(hash, Double.doubleToLongBits(grid.smokeIndicator(i)));
+        }
+        for (int i = 0; i < cellCount; i++) {
+            hash = mix(hash, Double.doubleToLongBits(grid.oxygenLevel(i)));
+        }
+        return hash;
+    }
+
+    /**
+     * @return flat index of the first cell differing between the grids of the same size, -1 when none does
+     */
+    public static int firstDifferentCell(CellGrid grid, CellGrid other) {
+        for (int i = 0; i < grid.cellCount(); i++) {
+            if (!differentFields(grid, other, i).isEmpty()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return names of the fields of the cell differing between the grids
+     */
+    public static List<String> differentFields(CellGrid grid, CellGrid other, int index) {
+        List<String> fields = new ArrayList<>();
+        if (Double.doubleToLongBits(grid.temperature(index)) != Double.doubleToLongBits(other.temperature(index))) {
+            fields.add("temperature");
+        }
+        if (grid.burningTime(index) != other.burningTime(index)) {
+            fields.add("burningTime");
+        }
+        if (grid.flammable(index) != other.flammable(index)) {
+            fields.add("flammable");
+        }
+        if (grid.materialOrdinal(index) != other.materialOrdinal(index)) {
+            fields.add("material");
+        }
+        if (grid.remainingFirePillar(index) != other.remainingFirePillar(index)) {
+            fields.add("remainingFirePillar");
+        }
+        if (Double.doubleToLongBits(grid.smokeIndicator(index)) != Double.doubleToLongBits(other.smokeIndicator(index))) {
+            fields.add("smokeIndicator");
+        }
+        if (Double.doubleToLongBits(grid.oxygenLevel(index)) != Double.doubleToLongBits(other.oxygenLevel(index))) {
+            fields.add("oxygenLevel");
+        }
+        return fields;
+    }
+
+    private static long mix(long hash, long value) {
+        for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+            hash ^= (value >>> shift) & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+}
@@ -1,11 +1,11 @@
 package pl.edu.agh.firecell.renderer.mesh;
 
+import org.joml.Vector3i;
 import org.lwjgl.system.MemoryUtil;
-import pl.edu.agh.firecell.model.IndexedCell;
+import pl.edu.agh.firecell.model.CellGrid;
 
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
-import java.util.List;
 
 import static org.lwjgl.opengl.GL11.GL_FLOAT;
 import static org.lwjgl.opengl.GL15.*;
@@ -18,9 +18,9 @@ import static org.lwjgl.opengl.GL33.glVertexAttribDivisor;
 public class InstancedCubeMesh extends Mesh {
     private final int cellCount;
 
-    public InstancedCubeMesh(float[] vertices, List<IndexedCell> indexedCells) {
+    public InstancedCubeMesh(float[] vertices, CellGrid grid, int[] cellIndices) {
         super(vertices);
-        cellCount = indexedCells.size();
+        cellCount = cellIndices.length;
 
         var positionBuffer = MemoryUtil.memAllocFloat(cellCount * 3);
         var temperatureBuffer = MemoryUtil.memAllocFloat(cellCount);
@@ -29,17 +29,18 @@ public class InstancedCubeMesh extends Mesh {
         var smokeIndicatorBuffer = MemoryUtil.memAllocFloat(cellCount);
         var oxygenLevelBuffer = MemoryUtil.memAllocFloat(cellCount);
 
-        int bufferIndex = 0;
-        for (IndexedCell indexedCell : indexedCells) {
-            positionBuffer.put(bufferIndex * 3, (float) indexedCell.index().x);
-            positionBuffer.put(bufferIndex * 3 + 1, (float) indexedCell.index().y);
-            positionBuffer.put(bufferIndex * 3 + 2, (float) indexedCell.index().z);
-            temperatureBuffer.put(bufferIndex, (float) indexedCell.cell().temperature());
-            materialBuffer.put(bufferIndex, indexedCell.cell().material().ordinal());
-            burningTimeBuffer.put(bufferIndex, indexedCell.cell().burningTime());
-            smokeIndicatorBuffer.put(bufferIndex, (float)indexedCell.cell().smokeIndicator());
-            oxygenLevelBuffer.put(bufferIndex, (float)indexedCell.cell().oxygenLevel());
-            bufferIndex++;
+        Vector3i spaceSize = grid.spaceSize();
+        int spaceSizeXY = spaceSize.x * spaceSize.y;
+        for (int bufferIndex = 0; bufferIndex < cellCount; bufferIndex++) {
+            int cellIndex = cellIndices[bufferIndex];
+            positionBuffer.put(bufferIndex * 3, (float) (cellIndex % spaceSize.x));
+            positionBuffer.put(bufferIndex * 3 + 1, (float) (cellIndex % spaceSizeXY / spaceSize.x));
+            positionBuffer.put(bufferIndex * 3 + 2, (float) (cellIndex / spaceSizeXY));
+            temperatureBuffer.put(bufferIndex, (float) grid.temperature(cellIndex));
+            materialBuffer.put(bufferIndex, grid.materialOrdinal(cellIndex));
+            burningTimeBuffer.put(bufferIndex, grid.burningTime(cellIndex));
+            smokeIndicatorBuffer.put(bufferIndex, (float) grid.smokeIndicator(cellIndex));
+            oxygenLevelBuffer.put(bufferIndex, (float) grid.oxygenLevel(cellIndex));
         }
 
         glBindVertexArray(vaoID);
@@ -1,11 +1,14 @@
 package pl.edu.agh.firecell.renderer.rendermode;
 
 import org.joml.Vector3f;
-import pl.edu.agh.firecell.model.IndexedCell;
+import org.joml.Vector3i;
+import pl.edu.agh.firecell.model.CellGrid;
 import pl.edu.agh.firecell.model.State;
 import pl.edu.agh.firecell.renderer.camera.Camera;
 
-import java.util.Comparator;
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
 
 public abstract class RenderStrategy {
 
@@ -17,9 +20,30 @@ public abstract class RenderStrategy {
 
     public abstract void renderState(State state);
 
-    protected Comparator<IndexedCell> cameraDistanceCellComparator(Vector3f cameraPosition) {
-        return Comparator.comparingDouble(
-                indexedCell -> new Vector3f(indexedCell.index()).distance(cameraPosition)
-        );
+    protected int[] selectCells(CellGrid grid, IntPredicate predicate) {
+        return IntStream.range(0, grid.cellCount())
+                .filter(predicate)
+                .toArray();
+    }
+
+    /**
+     * Sorts flat cell indices by ascending distance to the camera, keeping index order for equal distances.
+     */
+    protected int[] sortByCameraDistance(int[] cellIndices, Vector3i spaceSize, Vector3f cameraPosition) {
+        int spaceSizeXY = spaceSize.x * spaceSize.y;
+        // distances are non-negative, so their float bits order the same way as the values themselves
+        long[] keys = new long[cellIndices.length];
+        for (int i = 0; i < cellIndices.length; i++) {
+            int cellIndex = cellIndices[i];
+            float distance = cameraPosition.distance(
+                    cellIndex % spaceSize.x, cellIndex % spaceSizeXY / spaceSize.x, cellIndex / spaceSizeXY);
+            keys[i] = ((long) Float.floatToIntBits(distance) << 32) | cellIndex;
+        }
+        Arrays.sort(keys);
+        int[] sortedIndices = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            sortedIndices[i] = (int) keys[i];
+        }
+        return sortedIndices;
     }
 }
@@ -30,21 +30,19 @@ public class StandardRenderStrategy extends RenderStrategy {
     }
 
     private void renderSolidsByMaterial(State state) {
-        var notAirCellsList = state.getIndexedCellsStream()
-                .filter(indexedCell -> !indexedCell.cell().material().equals(Material.AIR))
-                .toList();
-        var mesh = new InstancedCubeMesh(MeshUtils.CUBE_VERTICES, notAirCellsList);
+        var grid = state.grid();
+        var notAirCells = selectCells(grid, index -> grid.material(index) != Material.AIR);
+        var mesh = new InstancedCubeMesh(MeshUtils.CUBE_VERTICES, grid, notAirCells);
         opaqueMaterialShader.bind();
         mesh.draw();
     }
 
     private void renderSmoke(State state) {
         glDepthMask(false);
-        var smokeCellsList = state.getIndexedCellsStream()
-                .filter(indexedCell -> indexedCell.cell().material().equals(Material.AIR))
-                .filter(indexedCell -> indexedCell.cell().smokeIndicator() > 0 && indexedCell.cell().smokeIndicator() <= 100)
-                .toList();
-        var mesh = new InstancedCubeMesh(MeshUtils.CUBE_VERTICES, smokeCellsList);
+        var grid = state.grid();
+        var smokeCells = selectCells(grid, index -> grid.material(index) == Material.AIR
+                && grid.smokeIndicator(index) > 0 && grid.smokeIndicator(index) <= 100);
+        var mesh = new InstancedCubeMesh(MeshUtils.CUBE_VERTICES, grid, smokeCells);
         smokeShader.bind();
         mesh.draw();
         glDepthMask(true);
@@ -52,12 +50,11 @@ public class StandardRenderStrategy extends RenderStrategy {
 
     private void renderFire(State state) {
         glDepthMask(false);
-        var burningCellsList = state.getIndexedCellsStream()
-                .filter(indexedCell -> indexedCell.cell().burningTime() > 0
-                        && indexedCell.cell().material().equals(Material.AIR))
-                .sorted(cameraDistanceCellComparator(camera.position()))
-                .toList();
-        var mesh = new InstancedCubeMesh(MeshUtils.CUBE_VERTICES, burningCellsList);
+        var grid = state.grid();
+        var burningCells = sortByCameraDistance(selectCells(grid, index -> grid.burningTime(index) > 0
+                        && grid.material(index) == Material.AIR),
+                grid.spaceSize(), camera.position());
+        var mesh = new InstancedCubeMesh(MeshUtils.CUBE_VERTICES, grid, burningCells);
         fireShader.bind();
         mesh.draw();
         glDepthMask(true);
@@ -27,21 +27,19 @@ public class TemperatureAirRenderStrategy extends RenderStrategy {
     }
 
     private void renderSolidsByMaterial(State state) {
-        var notAirCellsList = state.getIndexedCellsStream()
-                .filter(indexedCell -> !indexedCell.cell().material().equals(Material.AIR))
-                .toList();
-        var mesh = new InstancedCubeMesh(MeshUtils.CUBE_VERTICES, notAirCellsList);
+        var grid = state.grid();
+        var notAirCells = selectCells(grid, index -> grid.material(index) != Material.AIR);
+        var mesh = new InstancedCubeMesh(MeshUtils.CUBE_VERTICES, grid, notAirCells);
         opaqueMaterialShader.bind();
         mesh.draw();
     }
 
     protected void renderAirByTemperature(State state) {
         glDepthMask(false);
-        var airCells = state.getIndexedCellsStream()
-                .filter(indexedCell -> indexedCell.cell().material().equals(Material.AIR))
-                .sorted(cameraDistanceCellComparator(camera.position()))
-                .toList();
-        var mesh = new InstancedCubeMesh(MeshUtils.CUBE_VERTICES, airCells);
+        var grid = state.grid();
+        var airCells = sortByCameraDistance(selectCells(grid, index -> grid.material(index) == Material.AIR),
+                grid.spaceSize(), camera.position());
+        var mesh = new InstancedCubeMesh(MeshUtils.CUBE_VERTICES, grid, airCells);
         transparentTempShader.bind();
         mesh.draw();
         glDepthMask(true);
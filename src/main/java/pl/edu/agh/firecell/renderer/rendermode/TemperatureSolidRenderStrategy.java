@@ -25,11 +25,10 @@ public class TemperatureSolidRenderStrategy extends RenderStrategy {
 
     protected void renderSolidsByTemperature(State state) {
         glDepthMask(false);
-        var airCells = state.getIndexedCellsStream()
-                .filter(indexedCell -> !indexedCell.cell().material().equals(Material.AIR))
-                .sorted(cameraDistanceCellComparator(camera.position()))
-                .toList();
-        var mesh = new InstancedCubeMesh(MeshUtils.CUBE_VERTICES, airCells);
+        var grid = state.grid();
+        var airCells = sortByCameraDistance(selectCells(grid, index -> grid.material(index) != Material.AIR),
+                grid.spaceSize(), camera.position());
+        var mesh = new InstancedCubeMesh(MeshUtils.CUBE_VERTICES, grid, airCells);
         transparentTempShader.bind();
         mesh.draw();
         glDepthMask(true);
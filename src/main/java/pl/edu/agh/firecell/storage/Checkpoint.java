@@ -0,0 +1,24 @@
+package pl.edu.agh.firecell.storage;
+
+import pl.edu.agh.firecell.model.BoundaryCondition;
+import pl.edu.agh.firecell.model.State;
+
+/**
+ * Everything needed to continue a simulation from one of its states.
+ *
+ * @param stepIndex         index of the state
+ * @param state             the state, with the simulated time it was reached at
+ * @param lastDeltaTime     time step of the step computing the state, 0 for the initial one
+ * @param stepTime          step time of the algorithm, the shortest one when adapted
+ * @param maxStepTime       longest step time the step is adapted up to, {@code stepTime} for fixed steps
+ * @param boundaryCondition boundary condition of the simulated space, null when the space is not padded
+ */
+public record Checkpoint(
+        int stepIndex,
+        State state,
+        double lastDeltaTime,
+        double stepTime,
+        double maxStepTime,
+        BoundaryCondition boundaryCondition
+) {
+}
@@ -0,0 +1,110 @@
+package pl.edu.agh.firecell.storage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.edu.agh.firecell.model.BoundaryCondition;
+import pl.edu.agh.firecell.model.State;
+import pl.edu.agh.firecell.storage.serialization.StateSerializer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Directory holding the latest checkpoint of a simulation: the state in a file named after its index and the
+ * remaining fields in a JSON file pointing at it.
+ * <p>
+ * Both files are written under temporary names and moved in place, the JSON file last, so a run killed while
+ * saving leaves the previous checkpoint intact.
+ */
+public class CheckpointStorage {
+    private static final Logger logger = LoggerFactory.getLogger(CheckpointStorage.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    static final String METADATA_FILE_NAME = "checkpoint.json";
+    private static final String STATE_FILE_SUFFIX = ".state";
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+
+    private final StateSerializer serializer;
+    private final Path path;
+
+    public CheckpointStorage(StateSerializer serializer, Path path) {
+        this.serializer = serializer;
+        this.path = path;
+    }
+
+    /**
+     * Saves the checkpoint, replacing the previous one.
+     */
+    public void save(Checkpoint checkpoint) throws IOException {
+        Files.createDirectories(path);
+        Path stateFile = path.resolve(checkpoint.stepIndex() + STATE_FILE_SUFFIX);
+        Path temporaryStateFile = path.resolve(stateFile.getFileName() + TEMPORARY_FILE_SUFFIX);
+        try (var fileStream = new FileOutputStream(temporaryStateFile.toFile());
+             var stream = new BufferedOutputStream(fileStream)) {
+            serializer.writeTo(checkpoint.state(), stream);
+            stream.flush();
+            fileStream.getFD().sync();
+        }
+        Files.move(temporaryStateFile, stateFile, REPLACE_EXISTING, ATOMIC_MOVE);
+
+        Path metadataFile = path.resolve(METADATA_FILE_NAME);
+        Path temporaryMetadataFile = path.resolve(METADATA_FILE_NAME + TEMPORARY_FILE_SUFFIX);
+        MAPPER.writeValue(temporaryMetadataFile.toFile(), new CheckpointMetadata(checkpoint.stepIndex(),
+                checkpoint.lastDeltaTime(), checkpoint.stepTime(), checkpoint.maxStepTime(),
+                checkpoint.boundaryCondition()));
+        Files.move(temporaryMetadataFile, metadataFile, REPLACE_EXISTING, ATOMIC_MOVE);
+
+        removeStateFilesExcept(stateFile.getFileName().toString());
+        logger.debug("Saved checkpoint of state {}.", checkpoint.stepIndex());
+    }
+
+    /**
+     * @return the latest saved checkpoint, empty when there is none
+     */
+    public Optional<Checkpoint> load() throws IOException {
+        File metadataFile = path.resolve(METADATA_FILE_NAME).toFile();
+        if (!metadataFile.exists()) {
+            return Optional.empty();
+        }
+        CheckpointMetadata metadata = MAPPER.readValue(metadataFile, CheckpointMetadata.class);
+        State state;
+        try (InputStream stream = new BufferedInputStream(
+                Files.newInputStream(path.resolve(metadata.stepIndex() + STATE_FILE_SUFFIX)))) {
+            state = serializer.parseFrom(stream);
+        }
+        return Optional.of(new Checkpoint(metadata.stepIndex(), state, metadata.lastDeltaTime(),
+                metadata.stepTime(), metadata.maxStepTime(), metadata.boundaryCondition()));
+    }
+
+    private void removeStateFilesExcept(String keptFileName) {
+        File[] files = path.toFile().listFiles((directory, name) ->
+                !name.equals(keptFileName) && (name.endsWith(STATE_FILE_SUFFIX) || name.endsWith(TEMPORARY_FILE_SUFFIX)));
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (!file.delete()) {
+                logger.warn("Could not remove old checkpoint file {}.", file);
+            }
+        }
+    }
+
+    record CheckpointMetadata(
+            int stepIndex,
+            double lastDeltaTime,
+            double stepTime,
+            double maxStepTime,
+            BoundaryCondition boundaryCondition
+    ) {
+    }
+}
@@ -0,0 +1,189 @@
+package pl.edu.agh.firecell.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.edu.agh.firecell.model.BoundaryCondition;
+import pl.edu.agh.firecell.model.State;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+/**
+ * Consumer passing states on to another one and saving every state whose index is a multiple of the interval
+ * as a checkpoint. When the engine puts only some of its states, the first put state past every multiple is
+ * saved instead.
+ * <p>
+ * When the consumer it passes states to reports processed states, a checkpoint is saved only once its state
+ * was processed. Consumers writing states in order, like {@link FileSystemStorage}, then have written every
+ * state up to the checkpoint, so a simulation resumed from it continues a complete directory of states. Once
+ * the consumer reports a state it failed to process, no checkpoint at or past that state is saved, as the directory
+ * is missing it.
+ * Checkpoints are saved one at a time on an executor that may be shared with other simulations, e.g. the one
+ * writing the states, see {@link FileSystemStorage#writeExecutor()}. States awaiting their checkpoint are copied,
+ * so the consumer releases processed states whenever the one it passes them to does.
+ * The last put state is saved by {@link #close()} without a copy, after the engine stopped putting states.
+ */
+public class CheckpointingStateConsumer implements StateConsumer {
+    public static final int DEFAULT_INTERVAL = 100;
+
+    private static final Logger logger = LoggerFactory.getLogger(CheckpointingStateConsumer.class);
+
+    private final StateConsumer stateConsumer;
+    private final CheckpointStorage checkpointStorage;
+    private final int interval;
+    private final double stepTime;
+    private final double maxStepTime;
+    private final BoundaryCondition boundaryCondition;
+    private final boolean consumerAcknowledges;
+    private final Map<Integer, Checkpoint> pendingCheckpoints = new ConcurrentHashMap<>();
+    private final SequentialQueue saveQueue;
+    // executor started by the consumer itself, shut down once it is closed
+    private final ExecutorService ownedExecutor;
+
+    private int firstIndex = -1;
+    private int lastIndex = -1;
+    private double lastTime;
+    private double lastDeltaTime = 0;
+    private volatile Checkpoint latestCheckpoint;
+    private volatile int lastProcessedIndex = -1;
+    private volatile int firstFailedIndex = Integer.MAX_VALUE;
+    private int lastSavedIndex = -1;
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a consumer saving checkpoints on a daemon thread of its own.
+     *
+     * @param interval number of steps between checkpoints
+     */
+    public CheckpointingStateConsumer(StateConsumer stateConsumer, CheckpointStorage checkpointStorage, int interval,
+                                      double stepTime, double maxStepTime, BoundaryCondition boundaryCondition) {
+        this(stateConsumer, checkpointStorage, interval, stepTime, maxStepTime, boundaryCondition,
+                Executors.newSingleThreadExecutor(runnable -> {
+                    var thread = new Thread(runnable, "checkpoint-writer");
+                    thread.setDaemon(true);
+                    return thread;
+                }), true);
+    }
+
+    /**
+     * @param interval     number of steps between checkpoints
+     * @param saveExecutor executor saving the checkpoints, which are saved one at a time. It is not shut down
+     *                     by the consumer.
+     */
+    public CheckpointingStateConsumer(StateConsumer stateConsumer, CheckpointStorage checkpointStorage, int interval,
+                                      double stepTime, double maxStepTime, BoundaryCondition boundaryCondition,
+                                      Executor saveExecutor) {
+        this(stateConsumer, checkpointStorage, interval, stepTime, maxStepTime, boundaryCondition, saveExecutor, false);
+    }
+
+    private CheckpointingStateConsumer(StateConsumer stateConsumer, CheckpointStorage checkpointStorage, int interval,
+                                       double stepTime, double maxStepTime, BoundaryCondition boundaryCondition,
+                                       Executor saveExecutor, boolean ownsExecutor) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Checkpoint interval must be positive, got %s.".formatted(interval));
+        }
+        this.stateConsumer = stateConsumer;
+        this.checkpointStorage = checkpointStorage;
+        this.interval = interval;
+        this.stepTime = stepTime;
+        this.maxStepTime = maxStepTime;
+        this.boundaryCondition = boundaryCondition;
+        this.saveQueue = new SequentialQueue(saveExecutor);
+        this.ownedExecutor = ownsExecutor ? (ExecutorService) saveExecutor : null;
+        stateConsumer.addFailureListener(this::stateFailed);
+        this.consumerAcknowledges = stateConsumer.addProcessedListener(this::stateProcessed);
+    }
+
+    @Override
+    public void putState(State state, int index) {
+        boolean due = firstIndex >= 0 && index / interval > lastIndex / interval;
+        if (firstIndex < 0) {
+            firstIndex = index;
+        } else if (index > lastIndex) {
+            // states computed between put ones advance the index too
+            lastDeltaTime = (state.time() - lastTime) / (index - lastIndex);
+        }
+        lastIndex = index;
+        lastTime = state.time();
+        var checkpoint = new Checkpoint(index, state, lastDeltaTime, stepTime, maxStepTime, boundaryCondition);
+        latestCheckpoint = checkpoint;
+        if (due && consumerAcknowledges) {
+            // saved after the state was processed, when the engine may reuse its grid
+            pendingCheckpoints.put(index, new Checkpoint(index, new State(state.grid().copy(), state.time()),
+                    lastDeltaTime, stepTime, maxStepTime, boundaryCondition));
+        }
+        stateConsumer.putState(state, index);
+        if (due && !consumerAcknowledges && !closed) {
+            saveQueue.add(() -> save(checkpoint));
+        }
+    }
+
+    @Override
+    public boolean addProcessedListener(IntConsumer listener) {
+        return stateConsumer.addProcessedListener(listener);
+    }
+
+    @Override
+    public boolean releasesProcessedStates() {
+        return stateConsumer.releasesProcessedStates();
+    }
+
+    @Override
+    public void addFailureListener(IntConsumer listener) {
+        stateConsumer.addFailureListener(listener);
+    }
+
+    /**
+     * Saves the last put state as a checkpoint, if it and every state before it were processed already, and waits until every checkpoint
+     * is saved. Called after the engine stopped, so a stopped simulation resumes where it ended.
+     */
+    public void close() throws InterruptedException {
+        closed = true;
+        Checkpoint checkpoint = latestCheckpoint;
+        if (checkpoint != null && checkpoint.stepIndex() != firstIndex
+                && (!consumerAcknowledges || checkpoint.stepIndex() <= lastProcessedIndex)
+                && checkpoint.stepIndex() < firstFailedIndex) {
+            saveQueue.add(() -> save(checkpoint));
+        }
+        if (!saveQueue.awaitDrained(1, TimeUnit.MINUTES)) {
+            logger.warn("Checkpoint is still being saved.");
+        }
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+
+    private void stateFailed(int index) {
+        if (index < firstFailedIndex) {
+            firstFailedIndex = index;
+            logger.warn("State {} was not processed, no later checkpoint is saved.", index);
+        }
+    }
+
+    private void stateProcessed(int index) {
+        lastProcessedIndex = index;
+        Checkpoint checkpoint = pendingCheckpoints.remove(index);
+        if (checkpoint != null && !closed && index < firstFailedIndex) {
+            saveQueue.add(() -> save(checkpoint));
+        }
+    }
+
+    private void save(Checkpoint checkpoint) {
+        if (checkpoint.stepIndex() <= lastSavedIndex) {
+            return;
+        }
+        try {
+            checkpointStorage.save(checkpoint);
+            lastSavedIndex = checkpoint.stepIndex();
+            logger.info("Saved checkpoint at step {}.", checkpoint.stepIndex());
+        } catch (IOException e) {
+            logger.error("Failed to save checkpoint at step {}.", checkpoint.stepIndex(), e);
+        }
+    }
+}
@@ -1,9 +1,6 @@
 package pl.edu.agh.firecell.storage;
 
-import io.reactivex.rxjava3.disposables.Disposable;
-import io.reactivex.rxjava3.schedulers.Schedulers;
-import io.reactivex.rxjava3.subjects.PublishSubject;
-import io.reactivex.rxjava3.subjects.Subject;
+import org.apache.commons.lang3.ArrayUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import pl.edu.agh.firecell.model.State;
@@ -12,24 +9,64 @@ import pl.edu.agh.firecell.storage.serialization.StateSerializer;
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
-
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.IntConsumer;
+
+/**
+ * Directory of states, one file per state named after its index. Put states are serialized and written by
+ * a {@link StateWritePipeline}, so putting a state returns as soon as it is handed over.
+ */
 public class FileSystemStorage implements StateProvider, StateConsumer {
+    public static final int DEFAULT_SERIALIZATION_THREAD_COUNT = 2;
+    // matches the lookahead of the engines writing to storage, which then never wait in putState
+    public static final int DEFAULT_PIPELINE_CAPACITY = 64;
     private static final Path DEFAULT_PATH = Path.of("states");
 
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
-    private final Subject<StateHolder> stateSubject = PublishSubject.create();
+    private final List<IntConsumer> processedListeners = new CopyOnWriteArrayList<>();
+    private final List<IntConsumer> failureListeners = new CopyOnWriteArrayList<>();
     private final StateSerializer serializer;
     private final Path path;
+    private final StateWritePipeline pipeline;
+
+    /**
+     * @param serializationThreadCount number of threads serializing states in parallel
+     * @param pipelineCapacity         number of states put and not written yet, beyond which putting a state waits
+     */
+    public FileSystemStorage(StateSerializer serializer, Path path, int serializationThreadCount, int pipelineCapacity)
+            throws IOException {
+        this.serializer = serializer;
+        this.path = path;
+        this.pipeline = new StateWritePipeline(serializer, this::writeState, this::stateProcessed,
+                serializationThreadCount, pipelineCapacity);
+        Files.createDirectories(path);
+    }
 
-    private Disposable subscription;
-
-    public FileSystemStorage(StateSerializer serializer, Path path) throws IOException {
+    /**
+     * Creates a storage serializing and writing states on executors shared with other storages, e.g. the pools
+     * of a {@link pl.edu.agh.firecell.engine.SimulationHost}, instead of threads of its own. The states of this
+     * storage are still written one at a time in the order they were put.
+     *
+     * @param serializationExecutor executor serializing states, may run many of them at once
+     * @param writeExecutor         executor writing the files of states, neither executor is shut down by the storage
+     * @param pipelineCapacity      number of states put and not written yet, beyond which putting a state waits
+     */
+    public FileSystemStorage(StateSerializer serializer, Path path, Executor serializationExecutor,
+                             Executor writeExecutor, int pipelineCapacity) throws IOException {
         this.serializer = serializer;
         this.path = path;
-        initialize();
+        this.pipeline = new StateWritePipeline(serializer, this::writeState, this::stateProcessed,
+                serializationExecutor, writeExecutor, pipelineCapacity);
+        Files.createDirectories(path);
+    }
+
+    public FileSystemStorage(StateSerializer serializer, Path path) throws IOException {
+        this(serializer, path, DEFAULT_SERIALIZATION_THREAD_COUNT, DEFAULT_PIPELINE_CAPACITY);
     }
 
     public FileSystemStorage(StateSerializer serializer) throws IOException {
@@ -40,7 +77,34 @@ public class FileSystemStorage implements StateProvider, StateConsumer {
 
     @Override
     public void putState(State state, int index) {
-        stateSubject.onNext(new StateHolder(state, index));
+        pipeline.put(state, index);
+    }
+
+    /**
+     * States are written in the order they were put by the write executor of the pipeline, listeners are notified
+     * from it once a state was written (or failed to be).
+     */
+    @Override
+    public boolean addProcessedListener(IntConsumer listener) {
+        processedListeners.add(listener);
+        return true;
+    }
+
+    /**
+     * States are serialized before they are written, nothing reads them once the listeners are notified.
+     */
+    @Override
+    public boolean releasesProcessedStates() {
+        return true;
+    }
+
+    /**
+     * Listeners are notified from the write executor of the pipeline once serializing or writing a state failed,
+     * right before the processed listeners.
+     */
+    @Override
+    public void addFailureListener(IntConsumer listener) {
+        failureListeners.add(listener);
     }
 
     @Override
@@ -57,35 +121,61 @@ public class FileSystemStorage implements StateProvider, StateConsumer {
         }
     }
 
-    private void initialize() throws IOException {
-        Files.createDirectories(path);
-        subscription = stateSubject.subscribeOn(Schedulers.io())
-                .subscribe(this::saveState);
+    private void writeState(int index, byte[] serializedState) throws IOException {
+        File file = getFile(index);
+        try (OutputStream stream = new FileOutputStream(file)) {
+            stream.write(serializedState);
+        }
+        logger.debug("Written file " + file.getName());
     }
 
-    private void saveState(StateHolder stateHolder) {
-        File file = getFile(stateHolder.index);
-        try {
-            if (file.createNewFile()) {
-                logger.debug("Created file " + file.getName());
-            }
-            try (OutputStream stream = new FileOutputStream(file)) {
-                serializer.writeTo(stateHolder.state, stream);
-            }
-        } catch (IOException e) {
-            logger.error("Failed to create file for state " + stateHolder.index);
-            e.printStackTrace();
+    private void stateProcessed(int index, boolean written) {
+        if (!written) {
+            failureListeners.forEach(listener -> listener.accept(index));
         }
+        processedListeners.forEach(listener -> listener.accept(index));
+    }
+
+    /**
+     * @return metrics of the stages of putting, serializing and writing states
+     */
+    public List<PipelineStageMetrics> pipelineMetrics() {
+        return pipeline.metrics();
     }
 
+    /**
+     * @return executor writing the states, for other writes of the simulation, e.g. checkpoints, to share.
+     * The executor of a storage that started its own threads stops once the storage is disposed and has written
+     * its states.
+     */
+    public Executor writeExecutor() {
+        return pipeline.writeExecutor();
+    }
+
+    /**
+     * Stops accepting states, the ones put already are still written.
+     */
     public void dispose() {
-        subscription.dispose();
+        pipeline.close();
     }
 
     private File getFile(int index) {
         return path.resolve(String.valueOf(index)).toFile();
     }
 
+    /**
+     * Removes the states following the given index, e.g. ones written after the checkpoint a simulation
+     * is resumed from, which may be incomplete.
+     */
+    public void removeStatesAfter(int index) {
+        File[] files = path.toFile().listFiles((directory, name) -> name.matches("\\d+") && Integer.parseInt(name) > index);
+        for (File file : ArrayUtils.nullToEmpty(files, File[].class)) {
+            if (!file.delete()) {
+                logger.warn("Could not remove state file {}", file);
+            }
+        }
+    }
+
     public void clearDirectory() {
         if (removeDirectoryContent(path.toFile())) {
             logger.warn("Directory was not removed completely: {}", path);
@@ -106,7 +196,4 @@ public class FileSystemStorage implements StateProvider, StateConsumer {
         }
         return failed;
     }
-
-    private record StateHolder(State state, int index) {
-    }
 }
@@ -0,0 +1,89 @@
+package pl.edu.agh.firecell.storage;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of one stage of the {@link StateWritePipeline}: how many states it processed, how long they waited
+ * for it and how long it took, and how many states are queued for it. Updated from the threads of the pipeline,
+ * readable at any time.
+ */
+public class PipelineStageMetrics {
+
+    private final String name;
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+    private final LongAdder processedCount = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAdder totalServiceNanos = new LongAdder();
+    private final AtomicLong maxServiceNanos = new AtomicLong();
+
+    PipelineStageMetrics(String name) {
+        this.name = name;
+    }
+
+    void enqueued() {
+        maxQueueDepth.accumulateAndGet(queueDepth.incrementAndGet(), Math::max);
+    }
+
+    void started(long waitNanos) {
+        queueDepth.decrementAndGet();
+        totalWaitNanos.add(waitNanos);
+    }
+
+    void finished(long serviceNanos) {
+        processedCount.increment();
+        totalServiceNanos.add(serviceNanos);
+        maxServiceNanos.accumulateAndGet(serviceNanos, Math::max);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * @return number of states queued for the stage and not started yet
+     */
+    public int queueDepth() {
+        return queueDepth.get();
+    }
+
+    public int maxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    public long processedCount() {
+        return processedCount.sum();
+    }
+
+    /**
+     * @return mean time a state waited in the queue of the stage
+     */
+    public double meanWaitMillis() {
+        return mean(totalWaitNanos.sum());
+    }
+
+    /**
+     * @return mean time the stage took for a state
+     */
+    public double meanServiceMillis() {
+        return mean(totalServiceNanos.sum());
+    }
+
+    public double maxServiceMillis() {
+        return maxServiceNanos.get() / 1e6;
+    }
+
+    private double mean(long totalNanos) {
+        long count = processedCount();
+        return count == 0 ? 0 : totalNanos / 1e6 / count;
+    }
+
+    @Override
+    public String toString() {
+        return "%s: %d states, %.2f ms mean (%.2f ms max), %.2f ms mean wait, queue %d (max %d)".formatted(
+                name, processedCount(), meanServiceMillis(), maxServiceMillis(), meanWaitMillis(),
+                queueDepth(), maxQueueDepth());
+    }
+}
@@ -0,0 +1,64 @@
+package pl.edu.agh.firecell.storage;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Queue of tasks run one after another in the order they were added, each on an executor shared with other
+ * queues. No thread is held while a task waits for the previous one, so any number of queues share a few threads
+ * and still keep their own order. A failed task does not stop the following ones.
+ */
+class SequentialQueue {
+    private final Executor executor;
+    private CompletableFuture<Void> last = CompletableFuture.completedFuture(null);
+
+    SequentialQueue(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Runs the task once the previously added one finished.
+     */
+    CompletableFuture<Void> add(Runnable task) {
+        return add(task, CompletableFuture.completedFuture(null));
+    }
+
+    /**
+     * Runs the task once both the previously added one and {@code dependency} finished, whether or not they
+     * failed.
+     */
+    synchronized CompletableFuture<Void> add(Runnable task, CompletableFuture<?> dependency) {
+        last = CompletableFuture.allOf(last, dependency).handleAsync((result, failure) -> {
+            task.run();
+            return null;
+        }, executor);
+        return last;
+    }
+
+    /**
+     * @return future completed once every task added so far finished
+     */
+    synchronized CompletableFuture<Void> drained() {
+        return last.handle((result, failure) -> null);
+    }
+
+    /**
+     * Waits until every task added so far finished.
+     *
+     * @return false if the tasks are still running once the timeout passed
+     */
+    boolean awaitDrained(long timeout, TimeUnit unit) throws InterruptedException {
+        try {
+            drained().get(timeout, unit);
+            return true;
+        } catch (ExecutionException e) {
+            // a drained queue completes normally whether or not its tasks failed
+            throw new IllegalStateException(e);
+        } catch (TimeoutException e) {
+            return false;
+        }
+    }
+}
@@ -20,6 +20,7 @@ public class SimulationStorage {
     private static final String CONFIG_FILE_NAME = "config.json";
     private static final Path SAVED_SIMULATIONS_PATH = Path.of("simulations");
     private static final String STATES_DIRECTORY_NAME = "states";
+    private static final String CHECKPOINT_DIRECTORY_NAME = "checkpoint";
 
     public void initializeSimulation(String name, StoredSimulationConfig config) throws IOException {
         Path path = resolvePath(name);
@@ -45,6 +46,15 @@ public class SimulationStorage {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * @return stored simulations with a checkpoint to resume from
+     */
+    public List<String> findResumableSimulations() {
+        return findStoredSimulations().stream()
+                .filter(name -> resolveCheckpointPath(name).resolve(CheckpointStorage.METADATA_FILE_NAME).toFile().exists())
+                .collect(Collectors.toList());
+    }
+
     private boolean fileMatches(File file) {
         if (!file.isDirectory()) {
             return false;
@@ -60,4 +70,8 @@ public class SimulationStorage {
     public Path resolveStatesPath(String name) {
         return resolvePath(name).resolve(STATES_DIRECTORY_NAME);
     }
+
+    public Path resolveCheckpointPath(String name) {
+        return resolvePath(name).resolve(CHECKPOINT_DIRECTORY_NAME);
+    }
 }
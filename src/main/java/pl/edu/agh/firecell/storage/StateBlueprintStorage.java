@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.commons.lang3.ArrayUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import pl.edu.agh.firecell.core.headless.VariantSpec;
 import pl.edu.agh.firecell.core.statebuilder.StateBlueprint;
 
 import java.io.File;
@@ -51,6 +52,30 @@ public class StateBlueprintStorage {
         }
     }
 
+    /**
+     * Loads a blueprint from a JSON file outside the room directory.
+     */
+    public StateBlueprint loadBlueprint(Path file) throws IOException {
+        try {
+            return MAPPER.readValue(file.toFile(), StateBlueprint.class);
+        } catch (IOException e) {
+            logger.error("Failed to load room from \"{}\".", file, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Loads the scenario variants of an ensemble from a JSON file.
+     */
+    public List<VariantSpec> loadVariants(Path file) throws IOException {
+        try {
+            return List.of(MAPPER.readValue(file.toFile(), VariantSpec[].class));
+        } catch (IOException e) {
+            logger.error("Failed to load variants from \"{}\".", file, e);
+            throw e;
+        }
+    }
+
     public List<String> getBlueprintNames() {
         File[] files = ArrayUtils.nullToEmpty(BASE_PATH.toFile().listFiles(this::fileMatches), File[].class);
         return Arrays.stream(files)
@@ -2,6 +2,36 @@ package pl.edu.agh.firecell.storage;
 
 import pl.edu.agh.firecell.model.State;
 
+import java.util.function.IntConsumer;
+
 public interface StateConsumer {
     void putState(State state, int index);
+
+    /**
+     * Registers a listener called with the index of every put state once the consumer is done with it,
+     * e.g. after the state was written out.
+     *
+     * @return false when the consumer is done with a state as soon as {@link #putState} returns, in which case
+     * the listener is not registered
+     */
+    default boolean addProcessedListener(IntConsumer listener) {
+        return false;
+    }
+
+    /**
+     * @return whether the consumer reads no put state any more once it reported it processed, so the engine may
+     * copy a later state into the grid of the state. Consumers keeping states, e.g. in memory, must not claim so.
+     */
+    default boolean releasesProcessedStates() {
+        return false;
+    }
+
+    /**
+     * Registers a listener called with the index of every put state the consumer failed to process, e.g. because
+     * writing it failed. Processed listeners are still called with the index, after this one, so the engines
+     * pacing themselves to them go on. Consumers done with a state as soon as {@link #putState} returns report
+     * failures by throwing from it instead.
+     */
+    default void addFailureListener(IntConsumer listener) {
+    }
 }
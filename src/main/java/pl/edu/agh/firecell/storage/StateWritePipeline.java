@@ -0,0 +1,220 @@
+package pl.edu.agh.firecell.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.edu.agh.firecell.model.State;
+import pl.edu.agh.firecell.storage.serialization.StateSerializer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes states in stages following the engine computing them: the states are serialized in parallel,
+ * so serializing one overlaps with computing the following steps and with serializing and writing the others,
+ * and written one at a time in the order they were put.
+ * <p>
+ * Both stages run on executors that may be shared by the pipelines of many simulations, a write waits for
+ * the serialization of its state and for the previous write without holding a thread. The pipeline holds at most
+ * {@code capacity} states, once that many states are put and not written yet, putting another waits until
+ * the writes catch up, engines pacing themselves to fewer pending states never wait. Pipelines without given
+ * executors start their own daemon threads on the first put state and stop them when idle.
+ */
+class StateWritePipeline {
+    private static final Logger logger = LoggerFactory.getLogger(StateWritePipeline.class);
+    private static final long IDLE_THREAD_SECONDS = 10;
+
+    private final StateSerializer serializer;
+    private final StateWriter writer;
+    private final ProcessedListener processedListener;
+    private final Semaphore freeSlots;
+    private final Executor serializationExecutor;
+    private final Executor writeExecutor;
+    private final SequentialQueue writeQueue;
+    // executors started by the pipeline itself, shut down once it is closed and drained
+    private final List<ExecutorService> ownedExecutors;
+    private final PipelineStageMetrics putMetrics = new PipelineStageMetrics("put");
+    private final PipelineStageMetrics serializationMetrics = new PipelineStageMetrics("serialize");
+    private final PipelineStageMetrics writeMetrics = new PipelineStageMetrics("write");
+    private volatile boolean closed = false;
+
+    /**
+     * @param processedListener called from the write executor with the index of every state once it was written,
+     *                          or failed to be
+     */
+    StateWritePipeline(StateSerializer serializer, StateWriter writer, ProcessedListener processedListener,
+                       int serializationThreadCount, int capacity) {
+        this(serializer, writer, processedListener,
+                createExecutor(checkThreadCount(serializationThreadCount), "state-serializer-"),
+                createExecutor(1, "state-writer-"), capacity, true);
+    }
+
+    /**
+     * @param serializationExecutor executor serializing states, may run many of them at once
+     * @param writeExecutor         executor writing states, the writes of the pipeline are run one at a time
+     *                              in order. Neither executor is shut down by the pipeline.
+     */
+    StateWritePipeline(StateSerializer serializer, StateWriter writer, ProcessedListener processedListener,
+                       Executor serializationExecutor, Executor writeExecutor, int capacity) {
+        this(serializer, writer, processedListener, serializationExecutor, writeExecutor, capacity, false);
+    }
+
+    private StateWritePipeline(StateSerializer serializer, StateWriter writer, ProcessedListener processedListener,
+                               Executor serializationExecutor, Executor writeExecutor, int capacity,
+                               boolean ownsExecutors) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Pipeline capacity must be positive, got %s.".formatted(capacity));
+        }
+        this.serializer = serializer;
+        this.writer = writer;
+        this.processedListener = processedListener;
+        this.freeSlots = new Semaphore(capacity);
+        this.serializationExecutor = serializationExecutor;
+        this.writeExecutor = writeExecutor;
+        this.writeQueue = new SequentialQueue(writeExecutor);
+        this.ownedExecutors = ownsExecutors ?
+                List.of((ExecutorService) serializationExecutor, (ExecutorService) writeExecutor) : List.of();
+    }
+
+    /**
+     * Hands the state over to the pipeline, waiting while it is full. The state must not be modified afterwards.
+     */
+    void put(State state, int index) {
+        long putTime = System.nanoTime();
+        putMetrics.enqueued();
+        acquireSlot();
+        long queuedTime = System.nanoTime();
+        putMetrics.started(queuedTime - putTime);
+        serializationMetrics.enqueued();
+        CompletableFuture<SerializedState> serialized =
+                CompletableFuture.supplyAsync(() -> serialize(state, queuedTime), serializationExecutor);
+        writeQueue.add(() -> write(serialized, index), serialized);
+        putMetrics.finished(System.nanoTime() - putTime);
+    }
+
+    /**
+     * @return metrics of putting, serializing and writing states, in this order. Putting waits only for a free
+     * slot, its queue holds the engine while it does.
+     */
+    List<PipelineStageMetrics> metrics() {
+        return List.of(putMetrics, serializationMetrics, writeMetrics);
+    }
+
+    Executor writeExecutor() {
+        return writeExecutor;
+    }
+
+    /**
+     * Stops accepting states, the ones put already are still written.
+     */
+    void close() {
+        closed = true;
+        if (!ownedExecutors.isEmpty()) {
+            // writes are handed to the executor once their state is serialized, so it is shut down only after them
+            writeQueue.drained().thenRun(() -> ownedExecutors.forEach(ExecutorService::shutdown));
+        }
+    }
+
+    private void acquireSlot() {
+        if (closed) {
+            throw new IllegalStateException("State pipeline is closed.");
+        }
+        // the writer frees slots on its own, so waiting always ends, an interrupted engine stops after this state
+        boolean interrupted = false;
+        while (true) {
+            try {
+                freeSlots.acquire();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private SerializedState serialize(State state, long queuedTime) {
+        long startTime = System.nanoTime();
+        serializationMetrics.started(startTime - queuedTime);
+        var stream = new ByteArrayOutputStream();
+        try {
+            serializer.writeTo(state, stream);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            serializationMetrics.finished(System.nanoTime() - startTime);
+        }
+        writeMetrics.enqueued();
+        return new SerializedState(stream.toByteArray(), System.nanoTime());
+    }
+
+    private void write(CompletableFuture<SerializedState> serialized, int index) {
+        boolean written = false;
+        try {
+            SerializedState state = serialized.join();
+            long startTime = System.nanoTime();
+            writeMetrics.started(startTime - state.serializedTime());
+            try {
+                writer.write(index, state.bytes());
+                written = true;
+            } finally {
+                writeMetrics.finished(System.nanoTime() - startTime);
+            }
+        } catch (CompletionException | IOException e) {
+            logger.error("Failed to write state {}.", index, e);
+        } finally {
+            freeSlots.release();
+            processedListener.stateProcessed(index, written);
+        }
+    }
+
+    private static int checkThreadCount(int serializationThreadCount) {
+        if (serializationThreadCount < 1) {
+            throw new IllegalArgumentException(
+                    "Serialization thread count must be positive, got %s.".formatted(serializationThreadCount));
+        }
+        return serializationThreadCount;
+    }
+
+    private static ThreadPoolExecutor createExecutor(int threadCount, String threadNamePrefix) {
+        var threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            var thread = new Thread(runnable, threadNamePrefix + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+        // the free slots bound the queued states
+        var executor = new ThreadPoolExecutor(threadCount, threadCount, IDLE_THREAD_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    @FunctionalInterface
+    interface StateWriter {
+        void write(int index, byte[] serializedState) throws IOException;
+    }
+
+    @FunctionalInterface
+    interface ProcessedListener {
+        /**
+         * @param written false if serializing or writing the state failed
+         */
+        void stateProcessed(int index, boolean written);
+    }
+
+    private record SerializedState(byte[] bytes, long serializedTime) {
+    }
+}
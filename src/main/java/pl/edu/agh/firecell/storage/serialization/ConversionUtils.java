@@ -2,6 +2,8 @@ package pl.edu.agh.firecell.storage.serialization;
 
 import org.joml.Vector3i;
 import pl.edu.agh.firecell.model.Cell;
+import pl.edu.agh.firecell.model.CellGrid;
+import pl.edu.agh.firecell.model.Precision;
 import pl.edu.agh.firecell.model.material.Material;
 import pl.edu.agh.firecell.model.State;
 import pl.edu.agh.firecell.storage.proto.ProtoCell;
@@ -14,22 +16,28 @@ import java.util.List;
 public class ConversionUtils {
 
     public static ProtoState convertToProto(State state) {
+        CellGrid grid = state.grid();
         ProtoCell.Builder cellBuilder = ProtoCell.newBuilder();
-        List<ProtoCell> cells = state.cells().stream().map(cell -> convertToProto(cellBuilder, cell)).toList();
-        return ProtoState.newBuilder()
-                .addAllCells(cells)
+        ProtoState.Builder stateBuilder = ProtoState.newBuilder()
                 .setSpaceSize(convertToProto(state.spaceSize()))
-                .build();
+                .setTime(state.time());
+        if (grid.precision() == Precision.FLOAT) {
+            stateBuilder.setSinglePrecision(true);
+        }
+        for (int i = 0; i < grid.cellCount(); i++) {
+            stateBuilder.addCells(convertToProto(cellBuilder, grid, i));
+        }
+        return stateBuilder.build();
     }
 
     public static Cell convertFromProto(ProtoCell proto) {
-        return new Cell(proto.getTemperature(),
+        return new Cell(temperature(proto),
                 proto.getBurningTime(),
                 proto.getFlammable(),
                 convertFromProto(proto.getMaterial()),
                 proto.getRemainingFirePillar(),
-                proto.getSmokeIndicator(),
-                proto.getOxygenLevel()
+                smokeIndicator(proto),
+                oxygenLevel(proto)
         );
     }
 
@@ -54,6 +62,23 @@ public class ConversionUtils {
                 .build();
     }
 
+    public static ProtoCell convertToProto(ProtoCell.Builder builder, CellGrid grid, int index) {
+        builder.setBurningTime(grid.burningTime(index))
+                .setFlammable(grid.flammable(index))
+                .setMaterial(convertToProto(grid.material(index)))
+                .setRemainingFirePillar(grid.remainingFirePillar(index));
+        if (grid.precision() == Precision.FLOAT) {
+            builder.setTemperature32((float) grid.temperature(index))
+                    .setSmokeIndicator32((float) grid.smokeIndicator(index))
+                    .setOxygenLevel32((float) grid.oxygenLevel(index));
+        } else {
+            builder.setTemperature(grid.temperature(index))
+                    .setSmokeIndicator(grid.smokeIndicator(index))
+                    .setOxygenLevel(grid.oxygenLevel(index));
+        }
+        return builder.build();
+    }
+
     public static ProtoMaterial convertToProto(Material material) {
         return switch (material) {
             case WOOD -> ProtoMaterial.WOOD;
@@ -72,7 +97,40 @@ public class ConversionUtils {
     }
 
     public static State convertFromProto(ProtoState proto) {
-        return new State(convertFromProto(proto.getCellsList()), convertFromProto(proto.getSpaceSize()));
+        Precision precision = proto.getSinglePrecision() ? Precision.FLOAT : Precision.DOUBLE;
+        return new State(convertFromProto(proto.getCellsList(), convertFromProto(proto.getSpaceSize()), precision),
+                proto.getTime());
+    }
+
+    public static CellGrid convertFromProto(List<ProtoCell> proto, Vector3i spaceSize) {
+        return convertFromProto(proto, spaceSize, Precision.DOUBLE);
+    }
+
+    public static CellGrid convertFromProto(List<ProtoCell> proto, Vector3i spaceSize, Precision precision) {
+        CellGrid grid = new CellGrid(spaceSize, proto.size(), precision);
+        for (int i = 0; i < proto.size(); i++) {
+            ProtoCell protoCell = proto.get(i);
+            grid.setTemperature(i, temperature(protoCell));
+            grid.setBurningTime(i, protoCell.getBurningTime());
+            grid.setFlammable(i, protoCell.getFlammable());
+            grid.setMaterial(i, convertFromProto(protoCell.getMaterial()));
+            grid.setRemainingFirePillar(i, protoCell.getRemainingFirePillar());
+            grid.setSmokeIndicator(i, smokeIndicator(protoCell));
+            grid.setOxygenLevel(i, oxygenLevel(protoCell));
+        }
+        return grid;
+    }
+
+    private static double temperature(ProtoCell proto) {
+        return proto.hasTemperature32() ? proto.getTemperature32() : proto.getTemperature();
+    }
+
+    private static double smokeIndicator(ProtoCell proto) {
+        return proto.hasSmokeIndicator32() ? proto.getSmokeIndicator32() : proto.getSmokeIndicator();
+    }
+
+    private static double oxygenLevel(ProtoCell proto) {
+        return proto.hasOxygenLevel32() ? proto.getOxygenLevel32() : proto.getOxygenLevel();
     }
 
     public static Vector3i convertFromProto(ProtoVector3i proto) {
@@ -0,0 +1,112 @@
+package pl.edu.agh.firecell.core.headless;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import pl.edu.agh.firecell.engine.SteadyStateCriterion;
+import pl.edu.agh.firecell.engine.pacing.PacingMode;
+import pl.edu.agh.firecell.model.BoundaryCondition;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HeadlessOptionsTest {
+
+    @Test
+    public void parseTest() {
+        // given
+        String[] args = {"--blueprint", "rooms/kitchen.json", "--steps", "300", "--max-seconds", "12.5",
+                "--threads", "3", "--boundary", "open", "--workers", "node1:7400,node2:7401"};
+
+        // when
+        HeadlessOptions options = HeadlessOptions.parse(args);
+
+        // then
+        assertNull(options.roomName());
+        assertEquals(Path.of("rooms/kitchen.json"), options.blueprintPath());
+        assertEquals(300, options.steps());
+        assertEquals(12.5, options.maxSeconds());
+        assertEquals(0.5, options.stepTime());
+        assertEquals(0.5, options.maxStepTime());
+        assertEquals(3, options.threadCount());
+        assertEquals(BoundaryCondition.OPEN, options.boundaryCondition());
+        assertNull(options.simulationName());
+        assertEquals(0, options.brickSize());
+        assertEquals(1, options.stepsPerCall());
+        assertTrue(options.storeIntermediateStates());
+        assertEquals(PacingMode.BOUNDED_LOOKAHEAD, options.pacingMode());
+        assertEquals(100, options.checkpointInterval());
+        assertNull(options.resumedSimulation());
+        assertEquals(0, options.verifyThreadCount());
+        assertNull(options.steadyStateCriterion());
+        assertEquals(List.of(InetSocketAddress.createUnresolved("node1", 7400), InetSocketAddress.createUnresolved("node2", 7401)),
+                options.workers());
+    }
+
+    @Test
+    public void parseResumeTest() {
+        // given
+        String[] args = {"--resume", "01_01_2024_12_00_00_kitchen", "--steps", "600", "--checkpoint-every", "50",
+                "--stop-when-steady", "20", "--steady-thresholds", "0.1,0.5,0.02", "--steps-per-call", "4",
+                "--store-intermediate", "false", "--pacing", "wall-clock"};
+
+        // when
+        HeadlessOptions options = HeadlessOptions.parse(args);
+
+        // then
+        assertNull(options.roomName());
+        assertNull(options.blueprintPath());
+        assertEquals("01_01_2024_12_00_00_kitchen", options.resumedSimulation());
+        assertEquals(600, options.steps());
+        assertEquals(50, options.checkpointInterval());
+        assertEquals(4, options.stepsPerCall());
+        assertFalse(options.storeIntermediateStates());
+        assertEquals(PacingMode.WALL_CLOCK, options.pacingMode());
+        assertEquals(new SteadyStateCriterion(0.1, 0.5, 0.02, 20), options.steadyStateCriterion());
+    }
+
+    @ParameterizedTest(name = "Invalid arguments {0} are accepted.")
+    @MethodSource("invalidArguments")
+    public void invalidArgumentsTest(String[] args) {
+        assertThrows(IllegalArgumentException.class, () -> HeadlessOptions.parse(args));
+    }
+
+    public static Stream<Arguments> invalidArguments() {
+        return Stream.of(
+                Arguments.of((Object) new String[]{"--steps", "10"}),
+                Arguments.of((Object) new String[]{"--room", "kitchen", "--blueprint", "kitchen.json", "--steps", "10"}),
+                Arguments.of((Object) new String[]{"--room", "kitchen"}),
+                Arguments.of((Object) new String[]{"--room", "kitchen", "--steps", "ten"}),
+                Arguments.of((Object) new String[]{"--room", "kitchen", "--steps", "10", "--threads"}),
+                Arguments.of((Object) new String[]{"--room", "kitchen", "--steps", "10", "--boundary", "wall"}),
+                Arguments.of((Object) new String[]{"--room", "kitchen", "--steps", "10", "--speed", "2"}),
+                Arguments.of((Object) new String[]{"--room", "kitchen", "--steps", "10", "--brick-size", "1"}),
+                Arguments.of((Object) new String[]{"--room", "kitchen", "--steps", "10", "--workers", "node1"}),
+                Arguments.of((Object) new String[]{"--room", "kitchen", "--steps", "10", "--steps-per-call", "0"}),
+                Arguments.of((Object) new String[]{"--room", "kitchen", "--steps", "10", "--pacing", "fast"}),
+                Arguments.of((Object) new String[]{"--room", "kitchen", "--steps", "10", "--pacing", "unbounded",
+                        "--variants", "v.json"}),
+                Arguments.of((Object) new String[]{"--room", "kitchen", "--steps", "10", "--steps-per-call", "4",
+                        "--brick-size", "8"}),
+                Arguments.of((Object) new String[]{"--room", "kitchen", "--steps", "10", "--store-intermediate", "false"}),
+                Arguments.of((Object) new String[]{"--room", "kitchen", "--steps", "10", "--steps-per-call", "4",
+                        "--store-intermediate", "no"}),
+                Arguments.of((Object) new String[]{"--room", "kitchen", "--resume", "kitchen", "--steps", "10"}),
+                Arguments.of((Object) new String[]{"--resume", "kitchen", "--steps", "10", "--variants", "v.json"}),
+                Arguments.of((Object) new String[]{"--room", "kitchen", "--steps", "10", "--checkpoint-every", "-1"}),
+                Arguments.of((Object) new String[]{"--room", "kitchen", "--steps", "10", "--verify", "4", "--variants", "v.json"}),
+                Arguments.of((Object) new String[]{"--room", "kitchen", "--steps", "10", "--steady-thresholds", "1,1,1"}),
+                Arguments.of((Object) new String[]{"--room", "kitchen", "--steps", "10", "--stop-when-steady", "5",
+                        "--steady-thresholds", "1,1"})
+        );
+    }
+}
@@ -0,0 +1,79 @@
+package pl.edu.agh.firecell.core.headless;
+
+import org.joml.Vector3i;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import pl.edu.agh.firecell.core.statebuilder.ElementWrapper;
+import pl.edu.agh.firecell.core.statebuilder.StateBlueprint;
+import pl.edu.agh.firecell.core.statebuilder.element.CuboidElement;
+import pl.edu.agh.firecell.core.statebuilder.element.IgnitionElement;
+import pl.edu.agh.firecell.engine.executor.ActiveRegionStepExecutor;
+import pl.edu.agh.firecell.engine.executor.SlabStepExecutor;
+import pl.edu.agh.firecell.model.BoundaryCondition;
+import pl.edu.agh.firecell.model.CellGrid;
+import pl.edu.agh.firecell.model.State;
+import pl.edu.agh.firecell.model.exception.ConductionCoefficientException;
+import pl.edu.agh.firecell.model.material.Material;
+import pl.edu.agh.firecell.model.util.IndexUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReproducibilityVerifierTest {
+    private static final Vector3i SPACE_SIZE = new Vector3i(12, 8, 10);
+
+    @ParameterizedTest(name = "Run on {0} threads differs from single-threaded run.")
+    @ValueSource(ints = {2, 5})
+    public void reproducibleTest(int threadCount) throws ConductionCoefficientException, InterruptedException {
+        // given
+        var verifier = new ReproducibilityVerifier(
+                algorithm -> new ActiveRegionStepExecutor(algorithm, 1),
+                algorithm -> new ActiveRegionStepExecutor(algorithm, threadCount),
+                threadCount);
+
+        // when
+        VerificationReport report = verifier.verify(createVariant(), BoundaryCondition.ADIABATIC_MIRROR, 30);
+
+        // then
+        assertTrue(report.reproducible(), report.toString());
+    }
+
+    @Test
+    public void divergenceTest() throws ConductionCoefficientException, InterruptedException {
+        // given
+        Vector3i perturbedCell = new Vector3i(3, 2, 4);
+        var verifier = new ReproducibilityVerifier(
+                algorithm -> new SlabStepExecutor(algorithm, 1),
+                algorithm -> new SlabStepExecutor(algorithm, 3) {
+                    private int steps = 0;
+
+                    @Override
+                    public void step(State oldState, CellGrid newGrid) {
+                        super.step(oldState, newGrid);
+                        if (++steps == 3) {
+                            int index = IndexUtils.flattenIndex(perturbedCell, SPACE_SIZE);
+                            newGrid.setTemperature(index, Math.nextUp(newGrid.temperature(index)));
+                        }
+                    }
+                },
+                3);
+
+        // when
+        VerificationReport report = verifier.verify(createVariant(), null, 10);
+
+        // then
+        assertEquals(3, report.divergingStep());
+        assertEquals(perturbedCell, report.divergingCell());
+        assertEquals(List.of("temperature"), report.differingFields());
+    }
+
+    private static ScenarioVariant createVariant() {
+        var blueprint = new StateBlueprint(SPACE_SIZE, "room", List.of(
+                new ElementWrapper(new CuboidElement(new Vector3i(2, 0, 2), new Vector3i(4, 2, 3), Material.WOOD), "table"),
+                new ElementWrapper(new IgnitionElement(new Vector3i(3, 1, 3), new Vector3i(1, 1, 1)), "ignition")));
+        return new ScenarioVariant("room", blueprint, null, 0.5, 2);
+    }
+}
@@ -0,0 +1,42 @@
+package pl.edu.agh.firecell.core.headless;
+
+import org.joml.Vector3i;
+import org.junit.jupiter.api.Test;
+import pl.edu.agh.firecell.core.statebuilder.ElementWrapper;
+import pl.edu.agh.firecell.core.statebuilder.StateBlueprint;
+import pl.edu.agh.firecell.core.statebuilder.element.CuboidElement;
+import pl.edu.agh.firecell.core.statebuilder.element.IgnitionElement;
+import pl.edu.agh.firecell.model.CellGrid;
+import pl.edu.agh.firecell.model.material.Material;
+import pl.edu.agh.firecell.model.util.IndexUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ScenarioVariantTest {
+
+    @Test
+    public void ignitionOverrideTest() {
+        // given
+        Vector3i spaceSize = new Vector3i(6, 2, 2);
+        var blueprint = new StateBlueprint(spaceSize, "room", List.of(
+                new ElementWrapper(new CuboidElement(new Vector3i(0, 0, 0), spaceSize, Material.WOOD), "wood"),
+                new ElementWrapper(new IgnitionElement(new Vector3i(0, 0, 0), new Vector3i(1, 1, 1)), "ignition")));
+        var keptVariant = new ScenarioVariant("kept", blueprint, null, 0.5, 0.5);
+        var overriddenVariant = new ScenarioVariant("overridden", blueprint,
+                List.of(new IgnitionElement(new Vector3i(5, 1, 1), new Vector3i(1, 1, 1))), 0.5, 0.5);
+
+        // when
+        CellGrid keptGrid = keptVariant.buildState().grid();
+        CellGrid overriddenGrid = overriddenVariant.buildState().grid();
+
+        // then
+        int first = IndexUtils.flattenIndex(new Vector3i(0, 0, 0), spaceSize);
+        int last = IndexUtils.flattenIndex(new Vector3i(5, 1, 1), spaceSize);
+        assertEquals(1, keptGrid.burningTime(first));
+        assertEquals(0, keptGrid.burningTime(last));
+        assertEquals(0, overriddenGrid.burningTime(first));
+        assertEquals(1, overriddenGrid.burningTime(last));
+    }
+}
@@ -0,0 +1,155 @@
+package pl.edu.agh.firecell.engine;
+
+import org.joml.Vector3i;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import pl.edu.agh.firecell.engine.algorithm.BasicAlgorithm;
+import pl.edu.agh.firecell.engine.executor.SlabStepExecutor;
+import pl.edu.agh.firecell.engine.executor.StepExecutor;
+import pl.edu.agh.firecell.engine.executor.TemporalTilingStepExecutor;
+import pl.edu.agh.firecell.engine.pacing.UnboundedPacing;
+import pl.edu.agh.firecell.model.Cell;
+import pl.edu.agh.firecell.model.State;
+import pl.edu.agh.firecell.model.exception.ConductionCoefficientException;
+import pl.edu.agh.firecell.model.material.Material;
+import pl.edu.agh.firecell.storage.InMemoryStorage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EngineControlTest {
+    // time the engine gets to run past the target if it did not pause
+    private static final long SETTLE_MILLIS = 50;
+
+    @Test
+    public void pauseAndStepTest() throws Exception {
+        // given
+        InMemoryStorage storage = new InMemoryStorage();
+        BasicEngineRunnable engineRunnable = createEngine(storage);
+        EngineControl control = engineRunnable.control();
+        Thread engineThread = new Thread(engineRunnable);
+
+        try {
+            // when
+            control.runUntil(5);
+            engineThread.start();
+            control.awaitStep(5);
+            TimeUnit.MILLISECONDS.sleep(SETTLE_MILLIS);
+
+            // then
+            assertEquals(5, control.currentStepIndex());
+            assertTrue(control.isPaused());
+            assertTrue(storage.getState(5).isPresent());
+            assertFalse(storage.getState(6).isPresent());
+
+            // when
+            control.step(3);
+            control.awaitStep(8);
+            TimeUnit.MILLISECONDS.sleep(SETTLE_MILLIS);
+
+            // then
+            assertEquals(8, control.currentStepIndex());
+            assertTrue(control.isPaused());
+
+            // when
+            control.resume();
+            control.awaitStep(20);
+
+            // then
+            assertFalse(control.isPaused());
+            assertTrue(control.stepsPerSecond() > 0);
+        } finally {
+            engineThread.interrupt();
+            engineThread.join();
+        }
+    }
+
+    // a single step per call is checked by the executor while it computes the cells, tiles of two steps by the engine
+    @ParameterizedTest(name = "Engine computing {0} steps per call does not stop at a steady state.")
+    @ValueSource(ints = {1, 2})
+    public void steadyStateTest(int stepsPerCall) throws Exception {
+        // given
+        var criterion = new SteadyStateCriterion(0.5, 0.5, 0.5, 3);
+        InMemoryStorage storage = new InMemoryStorage();
+        BasicEngineRunnable engineRunnable = createEngine(storage, criterion, stepsPerCall);
+        EngineControl control = engineRunnable.control();
+        Thread engineThread = new Thread(engineRunnable);
+
+        try {
+            // when
+            engineThread.start();
+            boolean stopped = control.awaitStep(Integer.MAX_VALUE, 10, TimeUnit.SECONDS);
+            engineThread.join(TimeUnit.SECONDS.toMillis(10));
+
+            // then the engine left its loop on its own
+            assertTrue(stopped);
+            assertFalse(engineThread.isAlive());
+            assertEquals(Optional.of(EngineStopReason.STEADY_STATE), control.stopReason());
+            assertTrue(control.isSteady());
+            assertTrue(control.isPaused());
+            int steadyIndex = control.currentStepIndex();
+            assertTrue(storage.getState(steadyIndex).isPresent());
+            assertFalse(storage.getState(steadyIndex + 1).isPresent());
+            int steadySteps = 0;
+            while (steadySteps < steadyIndex && criterion.isSteadyStep(
+                    storage.getState(steadyIndex - steadySteps - 1).orElseThrow().grid(),
+                    storage.getState(steadyIndex - steadySteps).orElseThrow().grid())) {
+                steadySteps++;
+            }
+            // the call completing the required steady steps may compute further ones
+            assertTrue(steadySteps >= criterion.requiredSteps());
+            assertTrue(steadySteps < criterion.requiredSteps() + stepsPerCall);
+        } finally {
+            engineThread.interrupt();
+            engineThread.join();
+        }
+    }
+
+    @Test
+    public void stopReasonTest() throws Exception {
+        // given
+        BasicEngineRunnable engineRunnable = createEngine(new InMemoryStorage());
+        EngineControl control = engineRunnable.control();
+        Thread engineThread = new Thread(engineRunnable);
+
+        // when
+        engineThread.start();
+        control.awaitStep(3);
+
+        // then
+        assertEquals(Optional.empty(), control.stopReason());
+
+        // when
+        engineThread.interrupt();
+        engineThread.join();
+
+        // then
+        assertEquals(Optional.of(EngineStopReason.STOPPED), control.stopReason());
+        assertTrue(control.awaitStep(Integer.MAX_VALUE, 10, TimeUnit.SECONDS));
+    }
+
+    private static BasicEngineRunnable createEngine(InMemoryStorage storage) throws ConductionCoefficientException {
+        return createEngine(storage, null, 1);
+    }
+
+    private static BasicEngineRunnable createEngine(InMemoryStorage storage, SteadyStateCriterion steadyStateCriterion,
+                                                    int stepsPerCall) throws ConductionCoefficientException {
+        Vector3i spaceSize = new Vector3i(3, 3, 3);
+        List<Cell> cells = new ArrayList<>();
+        for (int i = 0; i < spaceSize.x * spaceSize.y * spaceSize.z; i++) {
+            cells.add(new Cell(20 + i, 0, true, Material.AIR, 0));
+        }
+        StepExecutor executor = stepsPerCall == 1 ?
+                new SlabStepExecutor(new BasicAlgorithm(0.5), 1) :
+                new TemporalTilingStepExecutor(new BasicAlgorithm(0.5), 1, stepsPerCall);
+        return new BasicEngineRunnable(new State(cells, spaceSize), 0, storage, executor, null, new UnboundedPacing(),
+                steadyStateCriterion);
+    }
+}
@@ -0,0 +1,160 @@
+package pl.edu.agh.firecell.engine;
+
+import org.joml.Vector3i;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import pl.edu.agh.firecell.engine.algorithm.BasicAlgorithm;
+import pl.edu.agh.firecell.engine.executor.ActiveRegionStepExecutor;
+import pl.edu.agh.firecell.engine.executor.SlabStepExecutor;
+import pl.edu.agh.firecell.model.BoundaryCondition;
+import pl.edu.agh.firecell.model.Cell;
+import pl.edu.agh.firecell.model.State;
+import pl.edu.agh.firecell.model.material.Material;
+import pl.edu.agh.firecell.storage.InMemoryStorage;
+import pl.edu.agh.firecell.storage.StateConsumer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SimulationHostTest {
+    private static final int STEPS = 12;
+    private static final int SIMULATIONS = 40;
+    // time a parked engine gets to run on if it did not wait
+    private static final long SETTLE_MILLIS = 50;
+
+    @ParameterizedTest(name = "Simulations hosted on {0} stepping threads differ from a simulation on its own thread.")
+    @ValueSource(ints = {1, 3})
+    public void manySimulationsTest(int steppingThreadCount) throws Exception {
+        // given
+        State initialState = createState();
+        InMemoryStorage referenceStorage = new InMemoryStorage();
+        BasicEngineRunnable referenceEngine = new BasicEngineRunnable(initialState, referenceStorage,
+                new SlabStepExecutor(new BasicAlgorithm(0.5), 1), BoundaryCondition.ADIABATIC_MIRROR);
+        referenceEngine.control().runUntil(STEPS);
+        Thread referenceThread = new Thread(referenceEngine);
+        referenceThread.start();
+        referenceEngine.control().awaitStep(STEPS);
+        referenceThread.interrupt();
+        referenceThread.join();
+
+        try (var host = new SimulationHost(2, steppingThreadCount)) {
+            List<InMemoryStorage> storages = new ArrayList<>();
+            List<CompletableFuture<Void>> finishedRuns = new ArrayList<>();
+            for (int i = 0; i < SIMULATIONS; i++) {
+                InMemoryStorage storage = new InMemoryStorage();
+                HostedEngine engine = host.createEngine(initialState, 0, storage,
+                        new ActiveRegionStepExecutor(new BasicAlgorithm(0.5), host.computePool(), 2),
+                        BoundaryCondition.ADIABATIC_MIRROR, 4);
+                storages.add(storage);
+                engine.runUntil(STEPS);
+                engine.run();
+                finishedRuns.add(engine.stepReached(STEPS).whenComplete((reached, failure) -> engine.stop()));
+            }
+
+            // when
+            CompletableFuture.allOf(finishedRuns.toArray(CompletableFuture[]::new)).get(1, TimeUnit.MINUTES);
+
+            // then
+            for (InMemoryStorage storage : storages) {
+                assertEquals(referenceStorage.getState(STEPS), storage.getState(STEPS));
+                assertFalse(storage.getState(STEPS + 1).isPresent());
+            }
+            assertEquals(0, host.engineCount());
+            long hostThreads = Thread.getAllStackTraces().keySet().stream()
+                    .filter(thread -> thread.getName().startsWith("simulation-host-"))
+                    .count();
+            assertTrue(hostThreads <= steppingThreadCount);
+        }
+    }
+
+    @Test
+    public void laggingConsumerTest() throws Exception {
+        // given
+        var laggingConsumer = new ManualConsumer();
+        var storage = new InMemoryStorage();
+
+        try (var host = new SimulationHost(1, 1)) {
+            HostedEngine laggingEngine = host.createEngine(createState(), 0, laggingConsumer,
+                    new SlabStepExecutor(new BasicAlgorithm(0.5), 1), null, 2);
+            HostedEngine engine = host.createEngine(createState(), 0, storage,
+                    new SlabStepExecutor(new BasicAlgorithm(0.5), 1), null, 2);
+
+            // when
+            laggingEngine.run();
+            engine.runUntil(STEPS);
+            engine.run();
+            engine.stepReached(STEPS).get(1, TimeUnit.MINUTES);
+            TimeUnit.MILLISECONDS.sleep(SETTLE_MILLIS);
+
+            // then the lagging engine waits without holding the only stepping thread
+            assertEquals(1, laggingEngine.currentStepIndex());
+
+            // when
+            laggingConsumer.process(0);
+            laggingEngine.stepReached(2).get(1, TimeUnit.MINUTES);
+            TimeUnit.MILLISECONDS.sleep(SETTLE_MILLIS);
+
+            // then
+            assertEquals(2, laggingEngine.currentStepIndex());
+        }
+    }
+
+    @Test
+    public void steadyStateTest() throws Exception {
+        // given
+        var storage = new InMemoryStorage();
+
+        try (var host = new SimulationHost(1, 1)) {
+            HostedEngine engine = host.createEngine(createState(), 0, storage,
+                    new ActiveRegionStepExecutor(new BasicAlgorithm(0.5), host.computePool(), 1), null, 2,
+                    new SteadyStateCriterion(0.5, 0.5, 0.5, 3));
+
+            // when
+            engine.run();
+            engine.stepReached(Integer.MAX_VALUE).get(1, TimeUnit.MINUTES);
+
+            // then the settled engine finished and left the host
+            assertEquals(Optional.of(EngineStopReason.STEADY_STATE), engine.stopReason());
+            assertEquals(0, host.engineCount());
+            assertTrue(storage.getState(engine.currentStepIndex()).isPresent());
+            assertFalse(storage.getState(engine.currentStepIndex() + 1).isPresent());
+        }
+    }
+
+    private static State createState() {
+        Vector3i spaceSize = new Vector3i(4, 3, 5);
+        List<Cell> cells = new ArrayList<>();
+        for (int i = 0; i < spaceSize.x * spaceSize.y * spaceSize.z; i++) {
+            cells.add(new Cell(20 + i * 7 % 300, 0, true, i % 9 == 0 ? Material.WOOD : Material.AIR, 0));
+        }
+        return new State(cells, spaceSize);
+    }
+
+    private static class ManualConsumer implements StateConsumer {
+        private final List<IntConsumer> listeners = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void putState(State state, int index) {
+        }
+
+        @Override
+        public boolean addProcessedListener(IntConsumer listener) {
+            listeners.add(listener);
+            return true;
+        }
+
+        void process(int index) {
+            listeners.forEach(listener -> listener.accept(index));
+        }
+    }
+}
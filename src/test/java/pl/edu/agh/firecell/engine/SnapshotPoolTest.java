@@ -0,0 +1,133 @@
+package pl.edu.agh.firecell.engine;
+
+import org.joml.Vector3i;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import pl.edu.agh.firecell.engine.algorithm.BasicAlgorithm;
+import pl.edu.agh.firecell.engine.executor.SlabStepExecutor;
+import pl.edu.agh.firecell.engine.pacing.UnboundedPacing;
+import pl.edu.agh.firecell.model.BoundaryCondition;
+import pl.edu.agh.firecell.model.Cell;
+import pl.edu.agh.firecell.model.CellGrid;
+import pl.edu.agh.firecell.model.State;
+import pl.edu.agh.firecell.model.material.Material;
+import pl.edu.agh.firecell.storage.InMemoryStorage;
+import pl.edu.agh.firecell.storage.StateConsumer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnapshotPoolTest {
+    private static final int STEPS = 12;
+
+    @Test
+    public void releaseTest() {
+        // given
+        var pool = new SnapshotPool(1);
+        CellGrid first = new CellGrid(new Vector3i(2, 1, 1));
+        CellGrid second = new CellGrid(new Vector3i(2, 1, 1));
+
+        // when
+        pool.lend(0, first);
+        pool.lend(1, second);
+
+        // then
+        assertNull(pool.take());
+
+        // when
+        pool.release(1);
+        pool.release(0);
+
+        // then only as many grids as the capacity are kept
+        assertSame(second, pool.take());
+        assertNull(pool.take());
+    }
+
+    @Test
+    public void noCapacityTest() {
+        // given
+        var pool = new SnapshotPool(0);
+
+        // when
+        pool.lend(0, new CellGrid(new Vector3i(2, 1, 1)));
+        pool.release(0);
+
+        // then
+        assertNull(pool.take());
+    }
+
+    @ParameterizedTest(name = "Engine reusing snapshots with {0} boundary condition puts different states.")
+    @EnumSource(BoundaryCondition.class)
+    public void reusedSnapshotsTest(BoundaryCondition boundaryCondition) throws Exception {
+        // given
+        var referenceStorage = new InMemoryStorage();
+        var releasingConsumer = new ReleasingConsumer();
+
+        // when
+        run(new BasicEngineRunnable(createState(), referenceStorage,
+                new SlabStepExecutor(new BasicAlgorithm(0.5), 1), boundaryCondition, new UnboundedPacing()));
+        run(new BasicEngineRunnable(createState(), releasingConsumer,
+                new SlabStepExecutor(new BasicAlgorithm(0.5), 1), boundaryCondition, new UnboundedPacing()));
+
+        // then
+        for (int index = 0; index <= STEPS; index++) {
+            assertEquals(referenceStorage.getState(index).orElseThrow().grid(), releasingConsumer.states.get(index).grid());
+        }
+        assertTrue(releasingConsumer.grids.size() < STEPS);
+    }
+
+    private static void run(BasicEngineRunnable engineRunnable) throws InterruptedException {
+        engineRunnable.control().runUntil(STEPS);
+        Thread engineThread = new Thread(engineRunnable);
+        engineThread.start();
+        engineRunnable.control().awaitStep(STEPS);
+        engineThread.interrupt();
+        engineThread.join();
+    }
+
+    private static State createState() {
+        Vector3i spaceSize = new Vector3i(4, 3, 5);
+        List<Cell> cells = new ArrayList<>();
+        for (int i = 0; i < spaceSize.x * spaceSize.y * spaceSize.z; i++) {
+            cells.add(new Cell(20 + i * 7 % 300, 0, true, i % 9 == 0 ? Material.WOOD : Material.AIR, 0));
+        }
+        return new State(cells, spaceSize);
+    }
+
+    /**
+     * Consumer copying every put state and reporting it processed right away.
+     */
+    private static class ReleasingConsumer implements StateConsumer {
+        private final List<State> states = new ArrayList<>();
+        private final Set<CellGrid> grids = Collections.newSetFromMap(new IdentityHashMap<>());
+        private IntConsumer listener;
+
+        @Override
+        public void putState(State state, int index) {
+            states.add(new State(state.grid().copy(), state.time()));
+            grids.add(state.grid());
+            listener.accept(index);
+        }
+
+        @Override
+        public boolean addProcessedListener(IntConsumer listener) {
+            this.listener = listener;
+            return true;
+        }
+
+        @Override
+        public boolean releasesProcessedStates() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package pl.edu.agh.firecell.engine.algorithm;
+
+import org.joml.Vector3i;
+import org.junit.jupiter.api.Test;
+import pl.edu.agh.firecell.model.Cell;
+import pl.edu.agh.firecell.model.CellGrid;
+import pl.edu.agh.firecell.model.State;
+import pl.edu.agh.firecell.model.exception.ConductionCoefficientException;
+import pl.edu.agh.firecell.model.material.Material;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveAlgorithmTest {
+    private static final Vector3i SPACE_SIZE = new Vector3i(4, 4, 4);
+    private static final Vector3i TRACKING_SPACE_SIZE = new Vector3i(8, 8, 8);
+    private static final Vector3i COLD_WOOD_SPACE_SIZE = new Vector3i(12, 8, 12);
+    private static final double MIN_DELTA_TIME = 0.25;
+    private static final double TRACKED_TIME = 30;
+
+    // the concrete layer keeps the step below 1.1 s, where its conduction would become unstable
+    @Test
+    public void calmStateTest() throws ConductionCoefficientException {
+        // given
+        State state = createState(false);
+        Algorithm algorithm = new AdaptiveAlgorithm(0.5, 3);
+        algorithm.prepare(state);
+
+        // when
+        List<Double> deltaTimes = new ArrayList<>();
+        for (int step = 0; step < 4; step++) {
+            deltaTimes.add(algorithm.beginStep(state));
+        }
+
+        // then
+        assertEquals(List.of(0.5 * Math.sqrt(2), 1.0, 1.0, 1.0), deltaTimes);
+    }
+
+    @Test
+    public void burningStateTest() throws ConductionCoefficientException {
+        // given
+        State calmState = createState(false);
+        State burningState = createState(true);
+        Algorithm algorithm = new AdaptiveAlgorithm(0.5, 4);
+        algorithm.prepare(calmState);
+        algorithm.beginStep(calmState);
+        algorithm.beginStep(calmState);
+
+        // when
+        double deltaTime = algorithm.beginStep(burningState);
+
+        // then
+        assertEquals(0.5, deltaTime);
+    }
+
+    @Test
+    public void stepTest() throws ConductionCoefficientException {
+        // given
+        State state = createState(false);
+        Algorithm adaptiveAlgorithm = new AdaptiveAlgorithm(0.5, 4);
+        adaptiveAlgorithm.prepare(state);
+        Algorithm fusedAlgorithm = new FusedAlgorithm(adaptiveAlgorithm.beginStep(state), 0.5);
+        fusedAlgorithm.prepare(state);
+        CellGrid adaptiveGrid = new CellGrid(SPACE_SIZE);
+        CellGrid fusedGrid = new CellGrid(SPACE_SIZE);
+
+        // when
+        adaptiveAlgorithm.compute(state, 0, adaptiveGrid.cellCount(), adaptiveGrid);
+        fusedAlgorithm.compute(state, 0, fusedGrid.cellCount(), fusedGrid);
+
+        // then
+        assertEquals(fusedGrid, adaptiveGrid);
+    }
+
+    // conduction along the Y and X axes and vertical smoke diffusion are applied once per step, longer steps
+    // scale them, so the run follows one of fixed minimal steps
+    @Test
+    public void trackingTest() throws ConductionCoefficientException {
+        assertTracksFixedSteps(createCoolingState(), MIN_DELTA_TIME * Math.sqrt(2));
+    }
+
+    // wood, conducting too well for steps above about 1.1 of the minimal one, stays at the temperature of its
+    // neighbours far from the hot air and so does not hold the step back
+    @Test
+    public void coldWoodTest() throws ConductionCoefficientException {
+        assertTracksFixedSteps(createColdWoodState(), 2 * MIN_DELTA_TIME);
+    }
+
+    private static void assertTracksFixedSteps(State initialState, double expectedLongestStep)
+            throws ConductionCoefficientException {
+        // given
+        Algorithm adaptiveAlgorithm = new AdaptiveAlgorithm(MIN_DELTA_TIME, 2);
+        Algorithm fixedAlgorithm = new FusedAlgorithm(MIN_DELTA_TIME);
+        adaptiveAlgorithm.prepare(initialState);
+        fixedAlgorithm.prepare(initialState);
+
+        // when
+        State adaptiveState = initialState;
+        double time = 0;
+        double longestStep = 0;
+        while (time < TRACKED_TIME) {
+            double deltaTime = adaptiveAlgorithm.beginStep(adaptiveState);
+            adaptiveState = step(adaptiveAlgorithm, adaptiveState);
+            time += deltaTime;
+            longestStep = Math.max(longestStep, deltaTime);
+        }
+        State fixedState = initialState;
+        for (int step = 0; step < Math.round(time / MIN_DELTA_TIME); step++) {
+            fixedAlgorithm.beginStep(fixedState);
+            fixedState = step(fixedAlgorithm, fixedState);
+        }
+
+        // then
+        assertTrue(longestStep >= expectedLongestStep);
+        for (int i = 0; i < fixedState.grid().cellCount(); i++) {
+            assertEquals(fixedState.grid().temperature(i), adaptiveState.grid().temperature(i), 0.2);
+        }
+    }
+
+    private static State step(Algorithm algorithm, State oldState) {
+        CellGrid newGrid = new CellGrid(oldState.spaceSize());
+        algorithm.compute(oldState, 0, newGrid.cellCount(), newGrid);
+        return new State(newGrid);
+    }
+
+    /**
+     * @return air above a concrete floor with a block of hot air in the middle, cooling down without smoke or fire
+     */
+    private static State createCoolingState() {
+        List<Cell> cells = new ArrayList<>();
+        for (int z = 0; z < TRACKING_SPACE_SIZE.z; z++) {
+            for (int y = 0; y < TRACKING_SPACE_SIZE.y; y++) {
+                for (int x = 0; x < TRACKING_SPACE_SIZE.x; x++) {
+                    boolean block = x >= 3 && x < 6 && y >= 2 && y < 5 && z >= 3 && z < 6;
+                    Material material = y == 0 ? Material.CELLULAR_CONCRETE : Material.AIR;
+                    cells.add(new Cell(block ? 30 : 20, 0, false, material, 0));
+                }
+            }
+        }
+        return new State(cells, TRACKING_SPACE_SIZE);
+    }
+
+    /**
+     * @return air above a concrete floor with a block of hot air in one corner and a block of wood at the ambient
+     * temperature in the opposite one
+     */
+    private static State createColdWoodState() {
+        Vector3i size = COLD_WOOD_SPACE_SIZE;
+        List<Cell> cells = new ArrayList<>();
+        for (int z = 0; z < size.z; z++) {
+            for (int y = 0; y < size.y; y++) {
+                for (int x = 0; x < size.x; x++) {
+                    boolean hotBlock = x >= 1 && x < 4 && y >= 2 && y < 5 && z >= 1 && z < 4;
+                    boolean woodBlock = x >= size.x - 4 && x < size.x - 1 && y >= 1 && y < 4
+                            && z >= size.z - 4 && z < size.z - 1;
+                    Material material = y == 0 ? Material.CELLULAR_CONCRETE : woodBlock ? Material.WOOD : Material.AIR;
+                    cells.add(new Cell(hotBlock ? 30 : 20, 0, false, material, 0));
+                }
+            }
+        }
+        return new State(cells, size);
+    }
+
+    private static State createState(boolean burning) {
+        List<Cell> cells = new ArrayList<>();
+        for (int i = 0; i < SPACE_SIZE.x * SPACE_SIZE.y * SPACE_SIZE.z; i++) {
+            Material material = i < 16 ? Material.CELLULAR_CONCRETE : Material.AIR;
+            cells.add(new Cell(20 + i % 2 * 0.05, burning && i == 5 ? 1 : 0, true, material, 0));
+        }
+        return new State(cells, SPACE_SIZE);
+    }
+}
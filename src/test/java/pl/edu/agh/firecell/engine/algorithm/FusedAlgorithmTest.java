@@ -0,0 +1,218 @@
+package pl.edu.agh.firecell.engine.algorithm;
+
+import org.joml.Vector3i;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import pl.edu.agh.firecell.engine.algorithm.kernel.DiffusionKernel;
+import pl.edu.agh.firecell.engine.algorithm.kernel.ScalarDiffusionKernel;
+import pl.edu.agh.firecell.engine.algorithm.kernel.VectorDiffusionKernel;
+import pl.edu.agh.firecell.model.BoundaryCondition;
+import pl.edu.agh.firecell.model.Cell;
+import pl.edu.agh.firecell.model.CellGrid;
+import pl.edu.agh.firecell.model.Precision;
+import pl.edu.agh.firecell.model.State;
+import pl.edu.agh.firecell.model.exception.ConductionCoefficientException;
+import pl.edu.agh.firecell.model.material.Material;
+import pl.edu.agh.firecell.model.util.HaloUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FusedAlgorithmTest {
+    private static final double deltaTime = 0.5;
+    private static final int STEPS = 30;
+
+    @ParameterizedTest(name = "Fused algorithm with scalar kernel differs from basic algorithm in {0} space.")
+    @MethodSource("spaceSizes")
+    public void scalarKernelTest(Vector3i spaceSize, long seed) throws ConductionCoefficientException {
+        // given when then
+        assertSameAsBasicAlgorithm(new ScalarDiffusionKernel(deltaTime), true, spaceSize, seed);
+    }
+
+    @ParameterizedTest(name = "Fused algorithm with vector kernel differs from basic algorithm in {0} space.")
+    @MethodSource("spaceSizes")
+    public void vectorKernelTest(Vector3i spaceSize, long seed) throws ConductionCoefficientException {
+        // given when then
+        assertSameAsBasicAlgorithm(new VectorDiffusionKernel(deltaTime), true, spaceSize, seed);
+    }
+
+    @ParameterizedTest(name = "Unprepared fused algorithm differs from basic algorithm in {0} space.")
+    @MethodSource("spaceSizes")
+    public void unpreparedTest(Vector3i spaceSize, long seed) throws ConductionCoefficientException {
+        // given when then
+        assertSameAsBasicAlgorithm(new VectorDiffusionKernel(deltaTime), false, spaceSize, seed);
+    }
+
+    @ParameterizedTest(name = "Vector kernel differs from scalar kernel on single precision grid in {0} space.")
+    @MethodSource("spaceSizes")
+    public void singlePrecisionTest(Vector3i spaceSize, long seed) throws ConductionCoefficientException {
+        // given
+        Algorithm scalarAlgorithm = new FusedAlgorithm(deltaTime, new ScalarDiffusionKernel(deltaTime));
+        Algorithm vectorAlgorithm = new FusedAlgorithm(deltaTime, new VectorDiffusionKernel(deltaTime));
+        State initialState = createState(spaceSize, seed);
+        State scalarState = new State(initialState.grid().withPrecision(Precision.FLOAT));
+        State vectorState = scalarState;
+        scalarAlgorithm.prepare(scalarState);
+        vectorAlgorithm.prepare(vectorState);
+
+        for (int step = 0; step < STEPS; step++) {
+            // when
+            scalarState = step(scalarAlgorithm, scalarState);
+            vectorState = step(vectorAlgorithm, vectorState);
+
+            // then
+            assertEquals(Precision.FLOAT, vectorState.grid().precision());
+            assertEquals(scalarState, vectorState);
+        }
+    }
+
+    @ParameterizedTest(name = "Fused algorithm skipping quiet planes differs from basic algorithm in {0} space.")
+    @MethodSource("spaceSizes")
+    public void quietPlanesTest(Vector3i spaceSize, long seed) throws ConductionCoefficientException {
+        // given
+        Vector3i longSpaceSize = new Vector3i(spaceSize.x, spaceSize.y, spaceSize.z * 4);
+        int firePlane = longSpaceSize.z / 2;
+        Algorithm basicAlgorithm = new BasicAlgorithm(deltaTime);
+        Algorithm fusedAlgorithm = new FusedAlgorithm(deltaTime, new VectorDiffusionKernel(deltaTime));
+        State basicState = createState(longSpaceSize, seed, firePlane);
+        State fusedState = basicState;
+        fusedAlgorithm.prepare(fusedState);
+
+        // when
+        PlaneActivity activity = PlaneActivity.of(fusedState, CellRanges.of(fusedState.grid()));
+
+        // then
+        int planeSize = longSpaceSize.x * longSpaceSize.y;
+        assertFalse(activity.isQuiet(firePlane * planeSize));
+        if (longSpaceSize.z > 2) {
+            assertTrue(activity.isQuiet(0));
+        }
+
+        for (int step = 0; step < STEPS; step++) {
+            // when
+            basicState = step(basicAlgorithm, basicState);
+            fusedState = step(fusedAlgorithm, fusedState);
+
+            // then
+            assertEquals(basicState, fusedState);
+        }
+    }
+
+    @ParameterizedTest(name = "Fused algorithm skipping quiet planes of walled grid differs from basic algorithm in {0} space.")
+    @MethodSource("spaceSizes")
+    public void paddedQuietPlanesTest(Vector3i spaceSize, long seed) throws ConductionCoefficientException {
+        // given
+        Vector3i longSpaceSize = new Vector3i(spaceSize.x, spaceSize.y, spaceSize.z * 4);
+        int firePlane = longSpaceSize.z / 2;
+        Algorithm basicAlgorithm = new BasicAlgorithm(deltaTime);
+        Algorithm fusedAlgorithm = new FusedAlgorithm(deltaTime, new VectorDiffusionKernel(deltaTime));
+        CellGrid paddedGrid = HaloUtils.pad(createState(longSpaceSize, seed, firePlane).grid(), BoundaryCondition.ADIABATIC_MIRROR);
+        State basicState = new State(paddedGrid);
+        State fusedState = basicState;
+        fusedAlgorithm.prepare(fusedState);
+
+        // when
+        PlaneActivity activity = PlaneActivity.of(fusedState, CellRanges.of(paddedGrid));
+
+        // then
+        // the wall ghosts are saturated with smoke, the first interior plane is quiet all the same
+        int planeSize = paddedGrid.spaceSize().x * paddedGrid.spaceSize().y;
+        assertFalse(activity.isQuiet((firePlane + 1) * planeSize));
+        assertTrue(activity.isQuiet(planeSize));
+
+        for (int step = 0; step < STEPS; step++) {
+            // when
+            basicState = paddedStep(basicAlgorithm, basicState);
+            fusedState = paddedStep(fusedAlgorithm, fusedState);
+
+            // then
+            assertEquals(basicState, fusedState);
+        }
+    }
+
+    private static void assertSameAsBasicAlgorithm(DiffusionKernel diffusionKernel, boolean prepared,
+                                                   Vector3i spaceSize, long seed) throws ConductionCoefficientException {
+        // given
+        Algorithm basicAlgorithm = new BasicAlgorithm(deltaTime);
+        Algorithm fusedAlgorithm = new FusedAlgorithm(deltaTime, diffusionKernel);
+        State basicState = createState(spaceSize, seed);
+        State fusedState = basicState;
+        if (prepared) {
+            fusedAlgorithm.prepare(fusedState);
+        }
+
+        for (int step = 0; step < STEPS; step++) {
+            // when
+            basicState = step(basicAlgorithm, basicState);
+            fusedState = step(fusedAlgorithm, fusedState);
+
+            // then
+            assertEquals(basicState, fusedState);
+        }
+    }
+
+    public static Stream<Arguments> spaceSizes() {
+        return Stream.of(
+                Arguments.of(new Vector3i(1, 1, 1), 1L),
+                Arguments.of(new Vector3i(7, 6, 5), 2L),
+                Arguments.of(new Vector3i(1, 9, 4), 3L),
+                Arguments.of(new Vector3i(10, 8, 9), 4L),
+                Arguments.of(new Vector3i(37, 5, 4), 5L)
+        );
+    }
+
+    private static State step(Algorithm algorithm, State oldState) {
+        CellGrid newGrid = new CellGrid(oldState.spaceSize(), oldState.grid().precision());
+        algorithm.beginStep(oldState, CellRanges.of(oldState.grid()));
+        algorithm.compute(oldState, 0, newGrid.cellCount(), newGrid);
+        return new State(newGrid);
+    }
+
+    /**
+     * Computes the interior of a padded grid, keeping its ghost layer.
+     */
+    private static State paddedStep(Algorithm algorithm, State oldState) {
+        HaloUtils.refreshHalo(oldState.grid());
+        CellGrid newGrid = oldState.grid().copy();
+        CellRanges ranges = CellRanges.of(oldState.grid());
+        algorithm.beginStep(oldState, ranges);
+        ranges.forEach((fromIndex, toIndex) -> algorithm.compute(oldState, fromIndex, toIndex, newGrid));
+        return new State(newGrid);
+    }
+
+    private static State createState(Vector3i spaceSize, long seed) {
+        return createState(spaceSize, seed, -1);
+    }
+
+    /**
+     * @param firePlane the only z-plane with fire, fire pillars and smoke, -1 to spread them over the whole space.
+     *                  Other planes still hold hot and burned out wood.
+     */
+    private static State createState(Vector3i spaceSize, long seed, int firePlane) {
+        Random random = new Random(seed);
+        int planeSize = spaceSize.x * spaceSize.y;
+        Material[] materials = Material.values();
+        List<Cell> cells = new ArrayList<>();
+        for (int i = 0; i < spaceSize.x * spaceSize.y * spaceSize.z; i++) {
+            Material material = random.nextInt(3) == 0 ? materials[random.nextInt(materials.length)] : Material.AIR;
+            boolean active = firePlane < 0 || i / planeSize == firePlane;
+            int burningTime = random.nextInt(4) == 0 ? random.nextInt(active ? 40 : 52) : 0;
+            cells.add(new Cell(
+                    20 + random.nextDouble() * 600,
+                    burningTime,
+                    random.nextBoolean() && (active || burningTime == 0),
+                    material,
+                    active ? random.nextInt(4) : 0,
+                    active && random.nextInt(3) == 0 ? random.nextDouble() * 100 : 0,
+                    random.nextDouble() * 100));
+        }
+        return new State(cells, spaceSize);
+    }
+}
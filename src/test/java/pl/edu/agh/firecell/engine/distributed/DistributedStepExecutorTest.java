@@ -0,0 +1,75 @@
+package pl.edu.agh.firecell.engine.distributed;
+
+import org.joml.Vector3i;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import pl.edu.agh.firecell.engine.algorithm.Algorithm;
+import pl.edu.agh.firecell.engine.algorithm.FusedAlgorithm;
+import pl.edu.agh.firecell.engine.executor.SlabStepExecutor;
+import pl.edu.agh.firecell.engine.executor.StepExecutor;
+import pl.edu.agh.firecell.model.BoundaryCondition;
+import pl.edu.agh.firecell.model.CellGrid;
+import pl.edu.agh.firecell.model.State;
+import pl.edu.agh.firecell.model.exception.ConductionCoefficientException;
+import pl.edu.agh.firecell.model.util.HaloUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static pl.edu.agh.firecell.engine.executor.ExecutorTestGrids.copies;
+import static pl.edu.agh.firecell.engine.executor.ExecutorTestGrids.createGrid;
+import static pl.edu.agh.firecell.engine.executor.ExecutorTestGrids.interior;
+
+class DistributedStepExecutorTest {
+    private static final Vector3i SPACE_SIZE = new Vector3i(6, 5, 11);
+    private static final int STEPS = 6;
+
+    @ParameterizedTest(name = "Steps on {0} workers differ from single process steps.")
+    @ValueSource(ints = {1, 2, 4})
+    public void stepTest(int workerCount) throws ConductionCoefficientException, IOException {
+        assertSameAsSingleProcess(createGrid(SPACE_SIZE), workerCount);
+    }
+
+    @ParameterizedTest(name = "Steps on {0} workers differ from single process steps on padded grid.")
+    @ValueSource(ints = {1, 3})
+    public void paddedStepTest(int workerCount) throws ConductionCoefficientException, IOException {
+        assertSameAsSingleProcess(HaloUtils.pad(createGrid(SPACE_SIZE), BoundaryCondition.ADIABATIC_MIRROR), workerCount);
+    }
+
+    private static void assertSameAsSingleProcess(CellGrid grid, int workerCount)
+            throws ConductionCoefficientException, IOException {
+        // given
+        List<SubdomainWorker> workers = new ArrayList<>();
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (int i = 0; i < workerCount; i++) {
+            var worker = new SubdomainWorker(0);
+            new Thread(worker, "worker-" + i).start();
+            workers.add(worker);
+            addresses.add(new InetSocketAddress("localhost", worker.port()));
+        }
+        Algorithm algorithm = new FusedAlgorithm(0.5);
+        State state = new State(grid);
+        algorithm.prepare(state);
+        StepExecutor singleProcessExecutor = new SlabStepExecutor(algorithm, 1);
+        StepExecutor distributedExecutor = new DistributedStepExecutor(algorithm, addresses);
+        CellGrid[] expectedGrids = copies(grid, STEPS);
+        CellGrid[] distributedGrids = copies(grid, STEPS);
+
+        // when
+        singleProcessExecutor.step(state, expectedGrids);
+        distributedExecutor.step(state, distributedGrids);
+        singleProcessExecutor.shutdown();
+        distributedExecutor.shutdown();
+        for (SubdomainWorker worker : workers) {
+            worker.close();
+        }
+
+        // then
+        for (int i = 0; i < STEPS; i++) {
+            assertEquals(interior(expectedGrids[i]), interior(distributedGrids[i]));
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package pl.edu.agh.firecell.engine.executor;
+
+import org.joml.Vector3i;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import pl.edu.agh.firecell.engine.algorithm.Algorithm;
+import pl.edu.agh.firecell.engine.algorithm.BasicAlgorithm;
+import pl.edu.agh.firecell.engine.algorithm.FusedAlgorithm;
+import pl.edu.agh.firecell.engine.algorithm.kernel.VectorDiffusionKernel;
+import pl.edu.agh.firecell.model.BoundaryCondition;
+import pl.edu.agh.firecell.model.Cell;
+import pl.edu.agh.firecell.model.CellGrid;
+import pl.edu.agh.firecell.model.State;
+import pl.edu.agh.firecell.model.exception.ConductionCoefficientException;
+import pl.edu.agh.firecell.model.material.Material;
+import pl.edu.agh.firecell.model.util.HaloUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static pl.edu.agh.firecell.engine.executor.ExecutorTestGrids.createGrid;
+import static pl.edu.agh.firecell.engine.executor.ExecutorTestGrids.interior;
+
+class ActiveRegionStepExecutorTest {
+    private static final Vector3i SPACE_SIZE = new Vector3i(7, 6, 16);
+    // rows long enough for vector lanes of every width
+    private static final Vector3i WIDE_SPACE_SIZE = new Vector3i(21, 4, 10);
+    private static final int STEPS = 12;
+
+    @ParameterizedTest(name = "Steps with {0} threads differ from slab executor.")
+    @ValueSource(ints = {1, 3})
+    public void stepTest(int threadCount) throws ConductionCoefficientException {
+        assertSameAsSlabExecutor(createGrid(SPACE_SIZE), threadCount, false);
+    }
+
+    @ParameterizedTest(name = "Vector kernel computing runs of active cells with {0} threads differs from basic algorithm.")
+    @ValueSource(ints = {1, 3})
+    public void vectorKernelTest(int threadCount) throws ConductionCoefficientException {
+        // given
+        var basicExecutor = new SlabStepExecutor(new BasicAlgorithm(0.5), threadCount);
+        var activeRegionExecutor = new ActiveRegionStepExecutor(
+                new FusedAlgorithm(0.5, new VectorDiffusionKernel(0.5)), threadCount);
+
+        // when then
+        assertSameAs(basicExecutor, activeRegionExecutor, createFireFrontGrid(WIDE_SPACE_SIZE), true);
+    }
+
+    @ParameterizedTest(name = "Steps of fire front with {0} threads differ from slab executor.")
+    @ValueSource(ints = {1, 3})
+    public void fireFrontTest(int threadCount) throws ConductionCoefficientException {
+        assertSameAsSlabExecutor(createFireFrontGrid(SPACE_SIZE), threadCount, true);
+    }
+
+    @ParameterizedTest(name = "Steps of fire front with {0} threads differ from slab executor on padded grid.")
+    @ValueSource(ints = {1, 3})
+    public void paddedFireFrontTest(int threadCount) throws ConductionCoefficientException {
+        assertSameAsSlabExecutor(HaloUtils.pad(createFireFrontGrid(SPACE_SIZE), BoundaryCondition.ADIABATIC_MIRROR), threadCount,
+                true);
+    }
+
+    private static void assertSameAsSlabExecutor(CellGrid grid, int threadCount, boolean quietRegions)
+            throws ConductionCoefficientException {
+        Algorithm algorithm = new FusedAlgorithm(0.5);
+        assertSameAs(new SlabStepExecutor(algorithm, threadCount), new ActiveRegionStepExecutor(algorithm, threadCount),
+                grid, quietRegions);
+    }
+
+    private static void assertSameAs(StepExecutor slabExecutor, ActiveRegionStepExecutor activeRegionExecutor,
+                                     CellGrid grid, boolean quietRegions) {
+        // given
+        State expectedState = new State(grid);
+        State activeRegionState = expectedState;
+        slabExecutor.prepare(expectedState);
+        activeRegionExecutor.prepare(activeRegionState);
+        long fewestActiveCells = grid.cellCount();
+
+        for (int step = 0; step < STEPS; step++) {
+            // when
+            expectedState = step(slabExecutor, expectedState);
+            activeRegionState = step(activeRegionExecutor, activeRegionState);
+
+            // then
+            assertEquals(interior(expectedState.grid()), interior(activeRegionState.grid()));
+            fewestActiveCells = Math.min(fewestActiveCells, activeRegionExecutor.lastActiveCellCount());
+        }
+        if (quietRegions) {
+            // once the ambient cells settled, only the surroundings of the fire are evaluated
+            assertTrue(fewestActiveCells < grid.cellCount() / 2);
+        }
+        slabExecutor.shutdown();
+        activeRegionExecutor.shutdown();
+    }
+
+    private static State step(StepExecutor executor, State oldState) {
+        if (oldState.grid().halo() > 0) {
+            HaloUtils.refreshHalo(oldState.grid());
+        }
+        CellGrid newGrid = oldState.grid().copy();
+        executor.beginStep(oldState);
+        executor.step(oldState, newGrid);
+        return new State(newGrid);
+    }
+
+    /**
+     * @return still air over a wooden floor burning in one corner
+     */
+    private static CellGrid createFireFrontGrid(Vector3i spaceSize) {
+        List<Cell> cells = new ArrayList<>();
+        for (int z = 0; z < spaceSize.z; z++) {
+            for (int y = 0; y < spaceSize.y; y++) {
+                for (int x = 0; x < spaceSize.x; x++) {
+                    if (y > 0) {
+                        cells.add(new Cell(20, 0, false, Material.AIR, 0, 0, 21));
+                    } else if (x < 2 && z < 2) {
+                        cells.add(new Cell(600, 1, true, Material.WOOD, 3, 0, 21));
+                    } else {
+                        cells.add(new Cell(20, 0, true, Material.WOOD, 0, 0, 21));
+                    }
+                }
+            }
+        }
+        return CellGrid.of(cells, spaceSize);
+    }
+}
@@ -0,0 +1,106 @@
+package pl.edu.agh.firecell.engine.executor;
+
+import org.joml.Vector3i;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import pl.edu.agh.firecell.engine.algorithm.Algorithm;
+import pl.edu.agh.firecell.engine.algorithm.BasicAlgorithm;
+import pl.edu.agh.firecell.engine.algorithm.FusedAlgorithm;
+import pl.edu.agh.firecell.model.Cell;
+import pl.edu.agh.firecell.model.CellGrid;
+import pl.edu.agh.firecell.model.State;
+import pl.edu.agh.firecell.model.exception.ConductionCoefficientException;
+import pl.edu.agh.firecell.model.material.Material;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BrickRefinementStepExecutorTest {
+    private static final Vector3i SPACE_SIZE = new Vector3i(12, 10, 12);
+
+    @ParameterizedTest(name = "Quiet room stepped with {0} threads differs from full resolution.")
+    @ValueSource(ints = {1, 3})
+    public void quietRoomTest(int threadCount) throws ConductionCoefficientException {
+        // given
+        State state = createState(false);
+        Algorithm algorithm = new FusedAlgorithm(0.5);
+        algorithm.prepare(state);
+        var executor = new BrickRefinementStepExecutor(algorithm, threadCount, 4);
+
+        // when
+        CellGrid expected = run(new SlabStepExecutor(algorithm, 1), state, 16);
+        CellGrid actual = run(executor, state, 16);
+
+        // then
+        assertEquals(expected, actual);
+        // bricks of the bottom layer mix the floor and air, so they stay at full resolution
+        assertEquals(executor.brickCount() * 2 / 3, executor.lastCoarseBrickCount());
+    }
+
+    @Test
+    public void fireTest() throws ConductionCoefficientException {
+        // given
+        State state = createState(true);
+        Algorithm algorithm = new FusedAlgorithm(0.5);
+        algorithm.prepare(state);
+        var executor = new BrickRefinementStepExecutor(algorithm, 2, 4);
+
+        // when
+        CellGrid expected = run(new SlabStepExecutor(algorithm, 1), state, 12);
+        CellGrid actual = run(executor, state, 12);
+
+        // then
+        assertTrue(executor.lastCoarseBrickCount() > 0);
+        assertTrue(executor.lastCoarseBrickCount() < executor.brickCount());
+        double expectedHeat = 0;
+        double actualHeat = 0;
+        for (int i = 0; i < expected.cellCount(); i++) {
+            assertEquals(expected.burningTime(i), actual.burningTime(i));
+            assertEquals(expected.smokeIndicator(i), actual.smokeIndicator(i), 1e-9);
+            assertEquals(expected.temperature(i), actual.temperature(i), 0.5);
+            expectedHeat += expected.temperature(i);
+            actualHeat += actual.temperature(i);
+        }
+        assertEquals(expectedHeat, actualHeat, 1e-6 * expectedHeat);
+    }
+
+    @Test
+    public void basicAlgorithmTest() throws ConductionCoefficientException {
+        // given
+        Algorithm algorithm = new BasicAlgorithm(0.5);
+
+        // when then
+        assertThrows(IllegalArgumentException.class, () -> new BrickRefinementStepExecutor(algorithm, 1, 4));
+    }
+
+    private static CellGrid run(StepExecutor executor, State initialState, int steps) {
+        State state = initialState;
+        for (int step = 0; step < steps; step++) {
+            CellGrid newGrid = new CellGrid(state.spaceSize());
+            executor.step(state, newGrid);
+            state = new State(newGrid);
+        }
+        executor.shutdown();
+        return state.grid();
+    }
+
+    // air above a concrete floor, with a burning wood cell in a corner
+    private static State createState(boolean burning) {
+        List<Cell> cells = new ArrayList<>();
+        for (int z = 0; z < SPACE_SIZE.z; z++) {
+            for (int y = 0; y < SPACE_SIZE.y; y++) {
+                for (int x = 0; x < SPACE_SIZE.x; x++) {
+                    Material material = y == 0 ? Material.CELLULAR_CONCRETE : Material.AIR;
+                    boolean fire = burning && x == 1 && y == 1 && z == 1;
+                    cells.add(new Cell(20, fire ? 1 : 0, true, fire ? Material.WOOD : material, 0));
+                }
+            }
+        }
+        return new State(cells, SPACE_SIZE);
+    }
+}
@@ -0,0 +1,50 @@
+package pl.edu.agh.firecell.engine.executor;
+
+import org.joml.Vector3i;
+import pl.edu.agh.firecell.model.Cell;
+import pl.edu.agh.firecell.model.CellGrid;
+import pl.edu.agh.firecell.model.material.Material;
+import pl.edu.agh.firecell.model.util.HaloUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Grids shared by the tests comparing step executors with each other.
+ */
+public final class ExecutorTestGrids {
+
+    private ExecutorTestGrids() {
+    }
+
+    /**
+     * @return grid of air and wood with varied temperature, fire, smoke and fire pillars everywhere
+     */
+    public static CellGrid createGrid(Vector3i spaceSize) {
+        List<Cell> cells = new ArrayList<>();
+        for (int i = 0; i < spaceSize.x * spaceSize.y * spaceSize.z; i++) {
+            Material material = i % 5 == 0 ? Material.WOOD : Material.AIR;
+            cells.add(new Cell(20 + (i * 37) % 400, i % 11 == 0 ? 1 : 0, true, material, i % 3, i % 7 * 9.0, 21));
+        }
+        return CellGrid.of(cells, spaceSize);
+    }
+
+    /**
+     * @return {@code count} copies of the grid, e.g. to be computed by an executor stepping several times per call
+     */
+    public static CellGrid[] copies(CellGrid grid, int count) {
+        CellGrid[] grids = new CellGrid[count];
+        for (int i = 0; i < count; i++) {
+            grids[i] = grid.copy();
+        }
+        return grids;
+    }
+
+    /**
+     * @return the grid without its ghost layer. Ghost layers are only refreshed before they are read, so
+     * executors are compared on the interiors.
+     */
+    public static CellGrid interior(CellGrid grid) {
+        return grid.halo() == 0 ? grid : HaloUtils.unpad(grid);
+    }
+}
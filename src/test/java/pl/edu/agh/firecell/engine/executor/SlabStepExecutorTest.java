@@ -0,0 +1,85 @@
+package pl.edu.agh.firecell.engine.executor;
+
+import org.joml.Vector3i;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import pl.edu.agh.firecell.engine.algorithm.Algorithm;
+import pl.edu.agh.firecell.engine.algorithm.BasicAlgorithm;
+import pl.edu.agh.firecell.model.BoundaryCondition;
+import pl.edu.agh.firecell.model.CellGrid;
+import pl.edu.agh.firecell.model.State;
+import pl.edu.agh.firecell.model.exception.ConductionCoefficientException;
+import pl.edu.agh.firecell.model.util.HaloUtils;
+import pl.edu.agh.firecell.model.util.IndexUtils;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static pl.edu.agh.firecell.engine.executor.ExecutorTestGrids.createGrid;
+
+class SlabStepExecutorTest {
+
+    @ParameterizedTest(name = "Step with {0} threads differs from per-cell computation.")
+    @ValueSource(ints = {1, 2, 3, 8})
+    public void stepTest(int threadCount) throws ConductionCoefficientException {
+        // given
+        Algorithm algorithm = new BasicAlgorithm(0.5);
+        State state = new State(createGrid(new Vector3i(5, 4, 7)));
+        StepExecutor executor = new SlabStepExecutor(algorithm, threadCount);
+        CellGrid newGrid = new CellGrid(state.spaceSize());
+
+        // when
+        executor.step(state, newGrid);
+        executor.shutdown();
+
+        // then
+        for (int i = 0; i < newGrid.cellCount(); i++) {
+            assertEquals(algorithm.compute(state, IndexUtils.expandIndex(i, state.spaceSize())), newGrid.getCell(i));
+        }
+    }
+
+    @ParameterizedTest(name = "Padded adiabatic step with {0} threads differs from plain step.")
+    @ValueSource(ints = {1, 3})
+    public void paddedStepTest(int threadCount) throws ConductionCoefficientException {
+        // given
+        Algorithm algorithm = new BasicAlgorithm(0.5);
+        State state = new State(createGrid(new Vector3i(5, 4, 7)));
+        State paddedState = new State(HaloUtils.pad(state.grid(), BoundaryCondition.ADIABATIC_MIRROR));
+        StepExecutor executor = new SlabStepExecutor(algorithm, threadCount);
+        CellGrid newGrid = new CellGrid(state.spaceSize());
+        CellGrid newPaddedGrid = paddedState.grid().copy();
+
+        // when
+        executor.step(state, newGrid);
+        executor.step(paddedState, newPaddedGrid);
+        executor.shutdown();
+
+        // then
+        assertEquals(newGrid, HaloUtils.unpad(newPaddedGrid));
+    }
+
+    @ParameterizedTest(name = "Step on shared pool split for {0} threads differs from own pool.")
+    @ValueSource(ints = {1, 4})
+    public void sharedPoolTest(int threadCount) throws ConductionCoefficientException {
+        // given
+        Algorithm algorithm = new BasicAlgorithm(0.5);
+        State state = new State(createGrid(new Vector3i(5, 4, 7)));
+        var sharedPool = new ForkJoinPool(2);
+        StepExecutor executor = new SlabStepExecutor(algorithm, threadCount);
+        StepExecutor sharedExecutor = new SlabStepExecutor(algorithm, sharedPool, threadCount);
+        CellGrid newGrid = new CellGrid(state.spaceSize());
+        CellGrid sharedNewGrid = new CellGrid(state.spaceSize());
+
+        // when
+        executor.step(state, newGrid);
+        sharedExecutor.step(state, sharedNewGrid);
+        executor.shutdown();
+        sharedExecutor.shutdown();
+
+        // then
+        assertEquals(newGrid, sharedNewGrid);
+        assertFalse(sharedPool.isShutdown());
+        sharedPool.shutdown();
+    }
+}
@@ -0,0 +1,70 @@
+package pl.edu.agh.firecell.engine.executor;
+
+import org.joml.Vector3i;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import pl.edu.agh.firecell.engine.algorithm.Algorithm;
+import pl.edu.agh.firecell.engine.algorithm.FusedAlgorithm;
+import pl.edu.agh.firecell.model.BoundaryCondition;
+import pl.edu.agh.firecell.model.CellGrid;
+import pl.edu.agh.firecell.model.State;
+import pl.edu.agh.firecell.model.exception.ConductionCoefficientException;
+import pl.edu.agh.firecell.model.util.HaloUtils;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static pl.edu.agh.firecell.engine.executor.ExecutorTestGrids.copies;
+import static pl.edu.agh.firecell.engine.executor.ExecutorTestGrids.createGrid;
+import static pl.edu.agh.firecell.engine.executor.ExecutorTestGrids.interior;
+
+class TemporalTilingStepExecutorTest {
+
+    @ParameterizedTest(name = "Tiled {0} steps with {1} planes per tile and {2} threads differ from single steps.")
+    @MethodSource("tilings")
+    public void tilingTest(int stepsPerCall, int planesPerTile, int threadCount) throws ConductionCoefficientException {
+        // given
+        CellGrid grid = createGrid(new Vector3i(6, 5, 11));
+        assertSameAsSingleSteps(grid, stepsPerCall, planesPerTile, threadCount);
+    }
+
+    @ParameterizedTest(name = "Tiled {0} steps with {1} planes per tile and {2} threads differ from single steps on padded grid.")
+    @MethodSource("tilings")
+    public void paddedTilingTest(int stepsPerCall, int planesPerTile, int threadCount) throws ConductionCoefficientException {
+        // given
+        CellGrid grid = HaloUtils.pad(createGrid(new Vector3i(6, 5, 11)), BoundaryCondition.ADIABATIC_MIRROR);
+        assertSameAsSingleSteps(grid, stepsPerCall, planesPerTile, threadCount);
+    }
+
+    private static void assertSameAsSingleSteps(CellGrid grid, int stepsPerCall, int planesPerTile, int threadCount)
+            throws ConductionCoefficientException {
+        Algorithm algorithm = new FusedAlgorithm(0.5);
+        State state = new State(grid);
+        StepExecutor singleStepExecutor = new SlabStepExecutor(algorithm, 1);
+        StepExecutor tilingExecutor = new TemporalTilingStepExecutor(algorithm, threadCount, stepsPerCall, planesPerTile, true);
+        CellGrid[] expectedGrids = copies(grid, stepsPerCall);
+        CellGrid[] tiledGrids = copies(grid, stepsPerCall);
+
+        // when
+        singleStepExecutor.step(state, expectedGrids);
+        tilingExecutor.step(state, tiledGrids);
+        singleStepExecutor.shutdown();
+        tilingExecutor.shutdown();
+
+        // then
+        for (int i = 0; i < stepsPerCall; i++) {
+            assertEquals(interior(expectedGrids[i]), interior(tiledGrids[i]));
+        }
+    }
+
+    public static Stream<Arguments> tilings() {
+        return Stream.of(
+                Arguments.of(1, 3, 1),
+                Arguments.of(3, 1, 1),
+                Arguments.of(4, 3, 2),
+                Arguments.of(6, 2, 3),
+                Arguments.of(5, 0, 1)
+        );
+    }
+}
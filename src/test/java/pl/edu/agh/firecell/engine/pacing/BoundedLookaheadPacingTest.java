@@ -0,0 +1,116 @@
+package pl.edu.agh.firecell.engine.pacing;
+
+import org.joml.Vector3i;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import pl.edu.agh.firecell.engine.BasicEngineRunnable;
+import pl.edu.agh.firecell.engine.algorithm.BasicAlgorithm;
+import pl.edu.agh.firecell.engine.executor.SlabStepExecutor;
+import pl.edu.agh.firecell.model.Cell;
+import pl.edu.agh.firecell.model.State;
+import pl.edu.agh.firecell.model.exception.ConductionCoefficientException;
+import pl.edu.agh.firecell.model.material.Material;
+import pl.edu.agh.firecell.storage.StateConsumer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedLookaheadPacingTest {
+    private static final int STATES = 20;
+
+    @ParameterizedTest(name = "Engine runs more than {0} states ahead of asynchronous consumer.")
+    @ValueSource(ints = {1, 3})
+    public void asynchronousConsumerTest(int lookahead) throws Exception {
+        // given
+        var consumer = new SlowConsumer(lookahead);
+        Thread engineThread = new Thread(createEngine(consumer, new BoundedLookaheadPacing(lookahead)));
+
+        // when
+        engineThread.start();
+        consumer.processStates();
+        engineThread.interrupt();
+        engineThread.join();
+
+        // then
+        assertEquals(STATES, consumer.processedStates.get());
+        assertTrue(consumer.maxPendingStates <= lookahead);
+    }
+
+    @Test
+    public void synchronousConsumerTest() throws Exception {
+        // given
+        AtomicInteger putStates = new AtomicInteger();
+        StateConsumer consumer = (state, index) -> {
+            if (putStates.incrementAndGet() == STATES) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        // when
+        createEngine(consumer, new BoundedLookaheadPacing(1)).run();
+        Thread.interrupted();
+
+        // then
+        assertEquals(STATES, putStates.get());
+    }
+
+    private static Runnable createEngine(StateConsumer consumer, PacingPolicy pacingPolicy)
+            throws ConductionCoefficientException {
+        Vector3i spaceSize = new Vector3i(3, 3, 3);
+        List<Cell> cells = new ArrayList<>();
+        for (int i = 0; i < spaceSize.x * spaceSize.y * spaceSize.z; i++) {
+            cells.add(new Cell(20 + i, 0, true, Material.AIR, 0));
+        }
+        return new BasicEngineRunnable(new State(cells, spaceSize), consumer,
+                new SlabStepExecutor(new BasicAlgorithm(0.5), 1), null, pacingPolicy);
+    }
+
+    /**
+     * Queues the put states and acknowledges them from the test thread, recording how many were pending.
+     */
+    private static class SlowConsumer implements StateConsumer {
+        private final BlockingQueue<Integer> queue = new LinkedBlockingQueue<>();
+        private final AtomicInteger processedStates = new AtomicInteger();
+        private final int lookahead;
+        private volatile IntConsumer listener;
+        private volatile int maxPendingStates;
+
+        private SlowConsumer(int lookahead) {
+            this.lookahead = lookahead;
+        }
+
+        @Override
+        public void putState(State state, int index) {
+            queue.add(index);
+            maxPendingStates = Math.max(maxPendingStates, queue.size());
+        }
+
+        @Override
+        public boolean addProcessedListener(IntConsumer listener) {
+            this.listener = listener;
+            return true;
+        }
+
+        private void processStates() throws InterruptedException {
+            while (processedStates.get() < STATES) {
+                // give the engine time to run ahead as far as it is allowed to
+                TimeUnit.MILLISECONDS.sleep(lookahead * 5L);
+                Integer index = queue.poll(10, TimeUnit.SECONDS);
+                if (index == null) {
+                    return;
+                }
+                processedStates.incrementAndGet();
+                listener.accept(index);
+            }
+        }
+    }
+}
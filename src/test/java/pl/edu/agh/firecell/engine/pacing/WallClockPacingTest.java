@@ -0,0 +1,31 @@
+package pl.edu.agh.firecell.engine.pacing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WallClockPacingTest {
+
+    @Test
+    public void variableStepTest() throws InterruptedException {
+        // given
+        var pacing = new WallClockPacing(10);
+        double[] times = {2, 2.25, 3.25, 3.5};
+
+        // when
+        long start = System.nanoTime();
+        long[] turnNanos = new long[times.length];
+        for (int index = 0; index < times.length; index++) {
+            pacing.awaitTurn(index, times[index]);
+            turnNanos[index] = System.nanoTime() - start;
+        }
+
+        // then
+        for (int index = 1; index < times.length; index++) {
+            long simulatedNanos = Math.round((times[index] - times[0]) / 10 * TimeUnit.SECONDS.toNanos(1));
+            assertTrue(turnNanos[index] >= simulatedNanos);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package pl.edu.agh.firecell.model;
+
+import org.joml.Vector3i;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import pl.edu.agh.firecell.model.material.Material;
+import pl.edu.agh.firecell.model.material.MatterState;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PackedCellStateTest {
+
+    @ParameterizedTest(name = "Cell of {0}, flammable {1}, burning {2} with fire pillar {3} should survive packing.")
+    @MethodSource("cells")
+    public void roundTripTest(Material material, boolean flammable, int burningTime, int remainingFirePillar) {
+        // given
+        Cell cell = new Cell(20, burningTime, flammable, material, remainingFirePillar);
+        CellGrid grid = new CellGrid(new Vector3i(2, 1, 1));
+
+        // when
+        grid.setCell(1, cell);
+        grid.setRemainingFirePillar(0, remainingFirePillar);
+        grid.setMaterial(0, material);
+        grid.setBurningTime(0, burningTime);
+        grid.setFlammable(0, flammable);
+
+        // then
+        assertEquals(cell, grid.getCell(1));
+        assertEquals(grid.packedState(1), grid.packedState(0));
+        assertEquals(flammable && burningTime > 0, grid.isBurning(0));
+        assertEquals(material.getMatterState() == MatterState.FLUID, grid.isFluid(0));
+    }
+
+    @ParameterizedTest(name = "Counter {0} should not be packed.")
+    @ValueSource(ints = {-1, PackedCellState.MAX_COUNTER + 1, Integer.MIN_VALUE})
+    public void counterOutOfRangeTest(int counter) {
+        // given when then
+        assertThrows(IllegalArgumentException.class, () -> PackedCellState.pack(Material.WOOD, true, counter, 0));
+        assertThrows(IllegalArgumentException.class, () -> PackedCellState.pack(Material.AIR, false, 0, counter));
+    }
+
+    public static Stream<Arguments> cells() {
+        return Stream.of(
+                Arguments.of(Material.AIR, false, 0, 0),
+                Arguments.of(Material.AIR, true, 1, 5),
+                Arguments.of(Material.WOOD, true, 51, 0),
+                Arguments.of(Material.CELLULAR_CONCRETE, false, 0, PackedCellState.MAX_COUNTER),
+                Arguments.of(Material.WOOD, false, PackedCellState.MAX_COUNTER, PackedCellState.MAX_COUNTER)
+        );
+    }
+}
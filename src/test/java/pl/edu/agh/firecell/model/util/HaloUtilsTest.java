@@ -0,0 +1,92 @@
+package pl.edu.agh.firecell.model.util;
+
+import org.joml.Vector3i;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.MethodSource;
+import pl.edu.agh.firecell.model.BoundaryCondition;
+import pl.edu.agh.firecell.model.Cell;
+import pl.edu.agh.firecell.model.CellGrid;
+import pl.edu.agh.firecell.model.material.Material;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HaloUtilsTest {
+
+    @ParameterizedTest(name = "Unpadded grid differs from the original {0} grid.")
+    @MethodSource("spaceSizes")
+    public void roundTripTest(Vector3i spaceSize) {
+        // given
+        CellGrid grid = createGrid(spaceSize);
+
+        // when
+        CellGrid padded = HaloUtils.pad(grid, BoundaryCondition.OPEN);
+
+        // then
+        assertEquals(new Vector3i(spaceSize).add(2, 2, 2), padded.spaceSize());
+        assertEquals(spaceSize, HaloUtils.interiorSize(padded));
+        assertEquals(grid, HaloUtils.unpad(padded));
+    }
+
+    @ParameterizedTest(name = "Ghost cells of {0} condition are filled incorrectly.")
+    @EnumSource(BoundaryCondition.class)
+    public void ghostTest(BoundaryCondition boundaryCondition) {
+        // given
+        Vector3i spaceSize = new Vector3i(3, 2, 4);
+        CellGrid padded = HaloUtils.pad(createGrid(spaceSize), boundaryCondition);
+        Vector3i paddedSize = padded.spaceSize();
+        NeighbourStencil stencil = padded.stencil();
+
+        // when
+        padded.setTemperature(IndexUtils.flattenIndex(new Vector3i(1, 1, 1), paddedSize), 500);
+        HaloUtils.refreshHalo(padded);
+
+        // then
+        for (int z = 1; z <= spaceSize.z; z++) {
+            for (int y = 1; y <= spaceSize.y; y++) {
+                for (int x = 1; x <= spaceSize.x; x++) {
+                    int index = IndexUtils.flattenIndex(new Vector3i(x, y, z), paddedSize);
+                    for (int face = 0; face < NeighbourStencil.FACE_COUNT; face++) {
+                        int neighbour = stencil.neighbour(index, face);
+                        if (isInterior(IndexUtils.expandIndex(neighbour, paddedSize), spaceSize)) {
+                            continue;
+                        }
+                        Cell ghost = padded.getCell(neighbour);
+                        assertEquals(0, ghost.burningTime());
+                        assertEquals(boundaryCondition == BoundaryCondition.OPEN, padded.isFluid(neighbour));
+                        double expectedTemperature = boundaryCondition.mirrorsTemperature() ?
+                                padded.temperature(index) :
+                                BoundaryCondition.AMBIENT_TEMPERATURE;
+                        assertEquals(expectedTemperature, ghost.temperature());
+                    }
+                }
+            }
+        }
+    }
+
+    public static Stream<Arguments> spaceSizes() {
+        return Stream.of(
+                Arguments.of(new Vector3i(1, 1, 1)),
+                Arguments.of(new Vector3i(4, 3, 2)),
+                Arguments.of(new Vector3i(1, 5, 3))
+        );
+    }
+
+    private static boolean isInterior(Vector3i index, Vector3i interiorSize) {
+        return 1 <= index.x && index.x <= interiorSize.x &&
+                1 <= index.y && index.y <= interiorSize.y &&
+                1 <= index.z && index.z <= interiorSize.z;
+    }
+
+    private static CellGrid createGrid(Vector3i spaceSize) {
+        CellGrid grid = new CellGrid(spaceSize);
+        for (int i = 0; i < grid.cellCount(); i++) {
+            Material material = i % 3 == 0 ? Material.WOOD : Material.AIR;
+            grid.setCell(i, new Cell(20 + i * 7, i % 4, true, material, i % 2, i % 5 * 10.0, 21 - i % 3));
+        }
+        return grid;
+    }
+}
@@ -0,0 +1,51 @@
+package pl.edu.agh.firecell.model.util;
+
+import org.joml.Vector3i;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class NeighbourStencilTest {
+
+    @ParameterizedTest(name = "Stencil neighbours differ from NeighbourUtils in {0} space.")
+    @MethodSource("spaceSizes")
+    public void neighbourTest(Vector3i spaceSize) {
+        // given
+        NeighbourStencil stencil = new NeighbourStencil(spaceSize);
+        int cellCount = spaceSize.x * spaceSize.y * spaceSize.z;
+
+        for (int i = 0; i < cellCount; i++) {
+            // when
+            List<Vector3i> expectedNeighbours = NeighbourUtils.neighboursStream(IndexUtils.expandIndex(i, spaceSize)).toList();
+
+            // then
+            for (int face = 0; face < NeighbourStencil.FACE_COUNT; face++) {
+                Vector3i neighbour = expectedNeighbours.get(face);
+                int expectedIndex = isInside(neighbour, spaceSize) ?
+                        IndexUtils.flattenIndex(neighbour, spaceSize) :
+                        NeighbourStencil.NONE;
+                assertEquals(expectedIndex, stencil.neighbour(i, face));
+            }
+        }
+    }
+
+    public static Stream<Arguments> spaceSizes() {
+        return Stream.of(
+                Arguments.of(new Vector3i(1, 1, 1)),
+                Arguments.of(new Vector3i(3, 3, 3)),
+                Arguments.of(new Vector3i(1, 4, 2)),
+                Arguments.of(new Vector3i(5, 2, 7))
+        );
+    }
+
+    private static boolean isInside(Vector3i index, Vector3i spaceSize) {
+        return 0 <= index.x && index.x < spaceSize.x &&
+                0 <= index.y && index.y < spaceSize.y &&
+                0 <= index.z && index.z < spaceSize.z;
+    }
+}
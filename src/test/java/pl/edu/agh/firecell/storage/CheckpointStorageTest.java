@@ -0,0 +1,183 @@
+package pl.edu.agh.firecell.storage;
+
+import org.joml.Vector3i;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import pl.edu.agh.firecell.model.BoundaryCondition;
+import pl.edu.agh.firecell.model.Cell;
+import pl.edu.agh.firecell.model.State;
+import pl.edu.agh.firecell.model.material.Material;
+import pl.edu.agh.firecell.storage.serialization.BinaryStateSerializer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CheckpointStorageTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void saveLoadTest() throws IOException {
+        // given
+        var checkpointStorage = new CheckpointStorage(new BinaryStateSerializer(), directory);
+        var checkpoint = new Checkpoint(20, createState(10.5), 0.7, 0.5, 2, BoundaryCondition.OPEN);
+
+        // when
+        assertTrue(checkpointStorage.load().isEmpty());
+        checkpointStorage.save(new Checkpoint(10, createState(5), 0.5, 0.5, 2, BoundaryCondition.OPEN));
+        checkpointStorage.save(checkpoint);
+        Checkpoint loaded = checkpointStorage.load().orElseThrow();
+
+        // then
+        assertEquals(checkpoint, loaded);
+        File[] stateFiles = directory.toFile().listFiles((file, name) -> name.endsWith(".state"));
+        assertEquals(1, stateFiles.length);
+    }
+
+    @ParameterizedTest(name = "Checkpoint of state {0} is not the last processed multiple of the interval.")
+    @ValueSource(ints = {9, 10, 14})
+    public void checkpointingConsumerTest(int lastProcessedIndex) throws IOException, InterruptedException {
+        // given
+        var checkpointStorage = new CheckpointStorage(new BinaryStateSerializer(), directory);
+        var consumer = new CheckpointingStateConsumer(processingConsumer(lastProcessedIndex), checkpointStorage, 5,
+                0.25, 1, BoundaryCondition.ADIABATIC_MIRROR);
+
+        // when
+        for (int index = 3; index <= 14; index++) {
+            consumer.putState(createState(index * 0.25), index);
+        }
+        consumer.close();
+        Checkpoint checkpoint = checkpointStorage.load().orElseThrow();
+
+        // then
+        int expectedIndex = lastProcessedIndex == 14 ? 14 : lastProcessedIndex / 5 * 5;
+        assertEquals(expectedIndex, checkpoint.stepIndex());
+        assertEquals(expectedIndex * 0.25, checkpoint.state().time());
+        assertEquals(0.25, checkpoint.lastDeltaTime());
+    }
+
+    @Test
+    public void skippedStatesCheckpointTest() throws IOException, InterruptedException {
+        // given
+        var checkpointStorage = new CheckpointStorage(new BinaryStateSerializer(), directory);
+        var consumer = new CheckpointingStateConsumer(processingConsumer(9), checkpointStorage, 5, 0.25, 1,
+                BoundaryCondition.ADIABATIC_MIRROR);
+
+        // when
+        // an executor computing three steps per call puts no multiple of the interval
+        for (int index = 3; index <= 12; index += 3) {
+            consumer.putState(createState(index * 0.25), index);
+        }
+        consumer.close();
+        Checkpoint checkpoint = checkpointStorage.load().orElseThrow();
+
+        // then
+        assertEquals(6, checkpoint.stepIndex());
+        assertEquals(0.25, checkpoint.lastDeltaTime());
+    }
+
+    @Test
+    public void sharedExecutorTest() throws IOException, InterruptedException {
+        // given
+        ExecutorService saveExecutor = Executors.newSingleThreadExecutor();
+        List<CheckpointStorage> checkpointStorages = new ArrayList<>();
+        List<CheckpointingStateConsumer> consumers = new ArrayList<>();
+        for (int consumerIndex = 0; consumerIndex < 2; consumerIndex++) {
+            var checkpointStorage = new CheckpointStorage(new BinaryStateSerializer(),
+                    directory.resolve(String.valueOf(consumerIndex)));
+            checkpointStorages.add(checkpointStorage);
+            consumers.add(new CheckpointingStateConsumer(processingConsumer(consumerIndex == 0 ? 12 : 14), checkpointStorage, 5,
+                    0.25, 1, BoundaryCondition.ADIABATIC_MIRROR, saveExecutor));
+        }
+
+        // when
+        for (int index = 3; index <= 14; index++) {
+            for (CheckpointingStateConsumer consumer : consumers) {
+                consumer.putState(createState(index * 0.25), index);
+            }
+        }
+        for (CheckpointingStateConsumer consumer : consumers) {
+            consumer.close();
+        }
+
+        // then
+        assertEquals(10, checkpointStorages.get(0).load().orElseThrow().stepIndex());
+        assertEquals(14, checkpointStorages.get(1).load().orElseThrow().stepIndex());
+        assertFalse(saveExecutor.isShutdown());
+        saveExecutor.shutdown();
+    }
+
+    @Test
+    public void failedWriteTest() throws IOException, InterruptedException {
+        // given
+        Path statesDirectory = directory.resolve("states");
+        var storage = new FileSystemStorage(new BinaryStateSerializer(), statesDirectory, 1, 4);
+        // a directory in place of the file of state 7 fails its write
+        Files.createDirectory(statesDirectory.resolve("7"));
+        var checkpointStorage = new CheckpointStorage(new BinaryStateSerializer(), directory.resolve("checkpoints"));
+        var consumer = new CheckpointingStateConsumer(storage, checkpointStorage, 5, 0.25, 1,
+                BoundaryCondition.ADIABATIC_MIRROR, storage.writeExecutor());
+        var processed = new CountDownLatch(12);
+        consumer.addProcessedListener(index -> processed.countDown());
+
+        // when
+        for (int index = 3; index <= 14; index++) {
+            consumer.putState(createState(index * 0.25), index);
+        }
+        assertTrue(processed.await(10, TimeUnit.SECONDS));
+        consumer.close();
+        storage.dispose();
+        Checkpoint checkpoint = checkpointStorage.load().orElseThrow();
+
+        // then
+        // states 10 and 14 were written, but a simulation resumed from them would lack state 7
+        assertEquals(5, checkpoint.stepIndex());
+    }
+
+    /**
+     * @return consumer reporting the states up to the given index as processed
+     */
+    private static StateConsumer processingConsumer(int lastProcessedIndex) {
+        return new StateConsumer() {
+            private IntConsumer listener;
+
+            @Override
+            public void putState(State state, int index) {
+                if (index <= lastProcessedIndex) {
+                    listener.accept(index);
+                }
+            }
+
+            @Override
+            public boolean addProcessedListener(IntConsumer listener) {
+                this.listener = listener;
+                return true;
+            }
+        };
+    }
+
+    private static State createState(double time) {
+        List<Cell> cells = List.of(
+                new Cell(20.5, 0, true, Material.AIR),
+                new Cell(300, 4, true, Material.WOOD),
+                new Cell(21, 0, false, Material.CELLULAR_CONCRETE)
+        );
+        return new State(new State(cells, new Vector3i(3, 1, 1)).grid(), time);
+    }
+}
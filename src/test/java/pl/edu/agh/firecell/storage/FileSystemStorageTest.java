@@ -0,0 +1,203 @@
+package pl.edu.agh.firecell.storage;
+
+import org.joml.Vector3i;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import pl.edu.agh.firecell.model.Cell;
+import pl.edu.agh.firecell.model.State;
+import pl.edu.agh.firecell.model.material.Material;
+import pl.edu.agh.firecell.storage.serialization.BinaryStateSerializer;
+import pl.edu.agh.firecell.storage.serialization.StateSerializer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileSystemStorageTest {
+
+    private static final int STATE_COUNT = 12;
+
+    @TempDir
+    Path directory;
+
+    @ParameterizedTest(name = "States serialized on {0} threads are written in order.")
+    @ValueSource(ints = {1, 4})
+    public void orderedWriteTest(int serializationThreadCount) throws IOException, InterruptedException {
+        // given
+        // earlier states take longer to serialize, so parallel serialization finishes them out of order
+        var serializer = new DelayedSerializer(time -> Math.round((STATE_COUNT - time) * 5));
+        var storage = new FileSystemStorage(serializer, directory, serializationThreadCount, 4);
+        List<Integer> writtenIndices = new CopyOnWriteArrayList<>();
+        var written = new CountDownLatch(STATE_COUNT);
+        storage.addProcessedListener(index -> {
+            writtenIndices.add(index);
+            written.countDown();
+        });
+
+        // when
+        for (int index = 0; index < STATE_COUNT; index++) {
+            storage.putState(createState(index), index);
+        }
+        assertTrue(written.await(10, TimeUnit.SECONDS));
+        storage.dispose();
+
+        // then
+        assertEquals(IntStream.range(0, STATE_COUNT).boxed().toList(), writtenIndices);
+        for (int index = 0; index < STATE_COUNT; index++) {
+            assertEquals(index, storage.getState(index).orElseThrow().time());
+        }
+        PipelineStageMetrics writeMetrics = storage.pipelineMetrics().get(2);
+        assertEquals(STATE_COUNT, writeMetrics.processedCount());
+        assertEquals(0, writeMetrics.queueDepth());
+    }
+
+    @Test
+    public void sharedExecutorsTest() throws Exception {
+        // given
+        var serializer = new DelayedSerializer(time -> Math.round((STATE_COUNT - time) * 5));
+        ExecutorService serializationExecutor = Executors.newFixedThreadPool(4);
+        ExecutorService writeExecutor = Executors.newSingleThreadExecutor();
+        List<FileSystemStorage> storages = new ArrayList<>();
+        List<List<Integer>> writtenIndices = new ArrayList<>();
+        var written = new CountDownLatch(2 * STATE_COUNT);
+        for (int storageIndex = 0; storageIndex < 2; storageIndex++) {
+            var storage = new FileSystemStorage(serializer, directory.resolve(String.valueOf(storageIndex)),
+                    serializationExecutor, writeExecutor, 4);
+            List<Integer> indices = new CopyOnWriteArrayList<>();
+            storage.addProcessedListener(index -> {
+                indices.add(index);
+                written.countDown();
+            });
+            storages.add(storage);
+            writtenIndices.add(indices);
+        }
+
+        // when
+        for (int index = 0; index < STATE_COUNT; index++) {
+            for (FileSystemStorage storage : storages) {
+                storage.putState(createState(index), index);
+            }
+        }
+        assertTrue(written.await(10, TimeUnit.SECONDS));
+        storages.forEach(FileSystemStorage::dispose);
+
+        // then
+        for (int storageIndex = 0; storageIndex < 2; storageIndex++) {
+            assertEquals(IntStream.range(0, STATE_COUNT).boxed().toList(), writtenIndices.get(storageIndex));
+            assertEquals(STATE_COUNT - 1, storages.get(storageIndex).getState(STATE_COUNT - 1).orElseThrow().time());
+        }
+        assertFalse(serializationExecutor.isShutdown());
+        assertFalse(writeExecutor.isShutdown());
+        serializationExecutor.shutdown();
+        writeExecutor.shutdown();
+    }
+
+    @Test
+    public void capacityTest() throws Exception {
+        // given
+        var serializationAllowed = new CountDownLatch(1);
+        var serializer = new DelayedSerializer(time -> {
+            try {
+                serializationAllowed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 0;
+        });
+        var storage = new FileSystemStorage(serializer, directory, 1, 2);
+        var written = new CountDownLatch(3);
+        storage.addProcessedListener(index -> written.countDown());
+
+        // when
+        storage.putState(createState(0), 0);
+        storage.putState(createState(1), 1);
+        CompletableFuture<Void> thirdPut = CompletableFuture.runAsync(() -> storage.putState(createState(2), 2));
+        Thread.sleep(200);
+
+        // then
+        assertFalse(thirdPut.isDone());
+        assertEquals(1, storage.pipelineMetrics().get(0).queueDepth());
+        serializationAllowed.countDown();
+        thirdPut.get(10, TimeUnit.SECONDS);
+        assertTrue(written.await(10, TimeUnit.SECONDS));
+        storage.dispose();
+        assertEquals(2, storage.getState(2).orElseThrow().time());
+    }
+
+    @Test
+    public void failedWriteTest() throws IOException, InterruptedException {
+        // given
+        var storage = new FileSystemStorage(new BinaryStateSerializer(), directory, 2, 4);
+        // a directory in place of the file of a state fails its write
+        Files.createDirectory(directory.resolve("5"));
+        List<Integer> failedIndices = new CopyOnWriteArrayList<>();
+        var processed = new CountDownLatch(STATE_COUNT);
+        storage.addFailureListener(failedIndices::add);
+        storage.addProcessedListener(index -> processed.countDown());
+
+        // when
+        for (int index = 0; index < STATE_COUNT; index++) {
+            storage.putState(createState(index), index);
+        }
+        assertTrue(processed.await(10, TimeUnit.SECONDS));
+        storage.dispose();
+
+        // then
+        assertEquals(List.of(5), failedIndices);
+        assertEquals(6, storage.getState(6).orElseThrow().time());
+    }
+
+    private static State createState(double time) {
+        List<Cell> cells = List.of(
+                new Cell(20.5, 0, true, Material.AIR),
+                new Cell(300, 4, true, Material.WOOD)
+        );
+        return new State(new State(cells, new Vector3i(2, 1, 1)).grid(), time);
+    }
+
+    private static class DelayedSerializer implements StateSerializer {
+        private final StateSerializer serializer = new BinaryStateSerializer();
+        private final DelayFunction delay;
+
+        DelayedSerializer(DelayFunction delay) {
+            this.delay = delay;
+        }
+
+        @Override
+        public void writeTo(State state, OutputStream stream) throws IOException {
+            try {
+                Thread.sleep(delay.millis(state.time()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            serializer.writeTo(state, stream);
+        }
+
+        @Override
+        public State parseFrom(InputStream stream) throws IOException {
+            return serializer.parseFrom(stream);
+        }
+    }
+
+    @FunctionalInterface
+    private interface DelayFunction {
+        long millis(double time);
+    }
+}
@@ -3,6 +3,7 @@ package pl.edu.agh.firecell.storage.serialization;
 import org.joml.Vector3i;
 import org.junit.jupiter.api.Test;
 import pl.edu.agh.firecell.model.Cell;
+import pl.edu.agh.firecell.model.Precision;
 import pl.edu.agh.firecell.model.material.Material;
 import pl.edu.agh.firecell.model.State;
 
@@ -30,4 +31,23 @@ class BinaryStateSerializerTest {
 
         assertEquals(state, result);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testSerializeDeserializeSinglePrecision() throws IOException {
+        BinaryStateSerializer serializer = new BinaryStateSerializer();
+        State doubleState = new State(List.of(
+                new Cell(20.1, 10, true, Material.AIR, 0, 1.3, 20.9),
+                new Cell(21.2, 8, true, Material.WOOD, 2, 0, 15.7)
+        ), new Vector3i(2, 1, 1));
+        State state = new State(doubleState.grid().withPrecision(Precision.FLOAT), 1.5);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        serializer.writeTo(state, outputStream);
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(outputStream.toByteArray());
+        State result = serializer.parseFrom(inputStream);
+
+        assertEquals(Precision.FLOAT, result.grid().precision());
+        assertEquals(state, result);
+        assertEquals((float) 21.2, result.grid().temperature(1));
+    }
+}